@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api;
+
+import java.util.Date;
+
+/**
+ * Defines a contract for a ticket found in the ticket outbox on startup: it was accepted for sending by a previous run
+ * of the SDK, but the broker never confirmed it (the process stopped first). It may or may not have reached MTS, so it
+ * should be replayed or its status queried.
+ */
+public interface InDoubtTicket {
+
+    /**
+     * Gets the correlation id the ticket was sent with
+     * @return the correlation id
+     */
+    String getCorrelationId();
+
+    /**
+     * Gets the time the ticket was accepted for sending
+     * @return the time the ticket was accepted
+     */
+    Date getAcceptedTime();
+
+    /**
+     * Gets the ticket as it was sent (json)
+     * @return the serialized ticket
+     */
+    byte[] getContent();
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link TicketRouting} computed from the selections of a ticket, created by {@link TicketRouting#of(List)}
+ */
+final class SelectionsTicketRouting implements TicketRouting {
+
+    private static final String PREMATCH_SELECTION_ID_PART = "lcoo";
+
+    private final boolean prematch;
+    private final List<String> eventIds;
+    private final int selectionCount;
+
+    /**
+     * @param selections the distinct selections of the ticket
+     */
+    SelectionsTicketRouting(List<Selection> selections) {
+        Preconditions.checkNotNull(selections, "selections cannot be null");
+
+        boolean hasPrematchSelection = false;
+        Set<String> distinctEventIds = new LinkedHashSet<>();
+        for (Selection selection : selections) {
+            hasPrematchSelection |= selection.getId() != null && selection.getId().contains(PREMATCH_SELECTION_ID_PART);
+            if (selection.getEventId() != null) {
+                distinctEventIds.add(selection.getEventId());
+            }
+        }
+        this.prematch = hasPrematchSelection;
+        this.eventIds = ImmutableList.copyOf(distinctEventIds);
+        this.selectionCount = selections.size();
+    }
+
+    @Override
+    public boolean isPrematch() {
+        return prematch;
+    }
+
+    @Override
+    public List<String> getEventIds() {
+        return eventIds;
+    }
+
+    @Override
+    public int getSelectionCount() {
+        return selectionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionsTicketRouting{" +
+                "prematch=" + prematch +
+                ", eventIds=" + eventIds.size() +
+                ", selectionCount=" + selectionCount +
+                '}';
+    }
+}
@@ -6,6 +6,7 @@ package com.sportradar.mts.sdk.api;
 
 import com.sportradar.mts.sdk.api.enums.OddsChangeType;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -77,4 +78,14 @@ public interface Ticket extends SdkTicket {
      * @return maximum payment win for ticket (capped).
      */
     Long getPayCap();
+
+    /**
+     * Gets the routing metadata of the ticket; the SDK's tickets compute it from the selections once, when they are
+     * built, other implementations compute it on every call
+     * @return the routing metadata
+     */
+    default TicketRouting getRouting() {
+        final List<Selection> selections = getSelections();
+        return TicketRouting.of(selections == null ? Collections.emptyList() : selections);
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Routing metadata of a {@link Ticket}, computed from its selections by {@link #of(List)}: the tickets built by the SDK
+ * compute it once, when they are built, so the SDK does not scan the selections again on every send; other
+ * {@link Ticket} implementations relying on the default {@link Ticket#getRouting()} compute it on every call
+ */
+public interface TicketRouting extends Serializable {
+
+    /**
+     * Computes the routing metadata of the selections of a ticket
+     * @param selections the distinct selections of the ticket
+     * @return the routing metadata
+     */
+    static TicketRouting of(List<Selection> selections) {
+        return new SelectionsTicketRouting(selections);
+    }
+
+    /**
+     * Gets a value indicating whether the ticket has prematch (lcoo) selections, which get the prematch response timeout
+     * @return true if the ticket is prematch
+     */
+    boolean isPrematch();
+
+    /**
+     * Gets the distinct event ids of the selections, in the order of the selections
+     * @return the event ids
+     */
+    List<String> getEventIds();
+
+    /**
+     * Gets the number of distinct selections
+     * @return the selection count
+     */
+    int getSelectionCount();
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api.enums;
+
+/**
+ * What happens to a message sent while the producer buffer is full
+ */
+public enum ProducerOverflowPolicy {
+    /**
+     * The message is rejected immediately
+     */
+    REJECT,
+
+    /**
+     * The sending thread blocks until there is space in the buffer or the overflow timeout elapses
+     */
+    BLOCK,
+
+    /**
+     * The sending thread spins (yielding) for a short while and then parks until there is space in the buffer or
+     * the overflow timeout elapses
+     */
+    SPIN_THEN_PARK;
+
+    public static ProducerOverflowPolicy fromString(String name) {
+        return ProducerOverflowPolicy.valueOf(name.trim().toUpperCase());
+    }
+}
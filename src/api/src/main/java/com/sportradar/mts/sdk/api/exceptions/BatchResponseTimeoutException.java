@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api.exceptions;
+
+import com.sportradar.mts.sdk.api.TicketResponse;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception to be thrown when the response timeout of a batch of tickets is reached before all the responses are
+ * received; carries the responses received in time
+ */
+public class BatchResponseTimeoutException extends ResponseTimeoutException {
+
+    private static final long serialVersionUID = 3894562170937452661L;
+
+    private final transient List<TicketResponse> responses;
+
+    public BatchResponseTimeoutException(String message, List<TicketResponse> responses) {
+        super(message);
+        this.responses = Collections.unmodifiableList(responses);
+    }
+
+    /**
+     * Gets the responses received in time, in the order of the tickets; null for a ticket whose response was not
+     * received (or which failed to be published)
+     *
+     * @return the received responses
+     */
+    public List<TicketResponse> getResponses() {
+        return responses;
+    }
+}
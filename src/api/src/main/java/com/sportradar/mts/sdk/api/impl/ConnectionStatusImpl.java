@@ -5,9 +5,14 @@ import com.sportradar.mts.sdk.api.interfaces.ConnectionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class ConnectionStatusImpl implements ConnectionStatus {
@@ -19,6 +24,9 @@ public class ConnectionStatusImpl implements ConnectionStatus {
     private Date disconnectionTime;
     private String lastSendTicketId;
     private String lastReceivedTicketId;
+    private volatile Date blockedSince;
+    private final AtomicInteger heldTicketCount = new AtomicInteger();
+    private final Map<String, Long> timeToRecoverMillis = new ConcurrentHashMap<>();
     private final Queue<String> sendTicketIds;
     private final Queue<String> receivedTicketIds;
     private ConnectionChangeListener connectionChangeListener;
@@ -49,6 +57,15 @@ public class ConnectionStatusImpl implements ConnectionStatus {
     @Override
     public String getLastReceivedTicketId() { return lastReceivedTicketId; }
 
+    @Override
+    public Date getBlockedSince() { return blockedSince; }
+
+    @Override
+    public int getHeldTicketCount() { return heldTicketCount.get(); }
+
+    @Override
+    public Map<String, Long> getTimeToRecoverMillis() { return Collections.unmodifiableMap(new HashMap<>(timeToRecoverMillis)); }
+
     public ConnectionChangeListener getConnectionChangeListener(){ return connectionChangeListener; }
 
     public void setConnectionChangeListener(ConnectionChangeListener connectionChangeListener){
@@ -97,9 +114,31 @@ public class ConnectionStatusImpl implements ConnectionStatus {
         lock.unlock();
     }
 
+    public void block(String reason)
+    {
+        log("Blocked. " + reason);
+        blockedSince = new Date();
+    }
+
+    public void unblock()
+    {
+        log("Unblocked.");
+        blockedSince = null;
+    }
+
+    public void ticketsHeld(int delta)
+    {
+        heldTicketCount.addAndGet(delta);
+    }
+
+    public void recovered(String component, long millis)
+    {
+        log("Recovered " + component + " in " + millis + " ms.");
+        timeToRecoverMillis.put(component, millis);
+    }
+
     public void ticketSend(String ticketId)
     {
-        log("TicketSend [" + sendTicketIds.size() + "]: " + ticketId);
         lock.lock();
         lastSendTicketId = ticketId;
         sendTicketIds.add(ticketId);
@@ -138,6 +177,9 @@ public class ConnectionStatusImpl implements ConnectionStatus {
                 ", disconnectionTime=" + disconnectionTime +
                 ", lastSendTicketId=" + lastSendTicketId +
                 ", lastReceivedTicketId=" + lastReceivedTicketId +
+                ", blockedSince=" + blockedSince +
+                ", heldTicketCount=" + heldTicketCount +
+                ", timeToRecoverMillis=" + timeToRecoverMillis +
                 ", connectionChangeListener=" + listenerSet +
 //                ", sendTicketIds=" + sendTicketIds +
 //                ", receivedTicketIds=" + receivedTicketIds +
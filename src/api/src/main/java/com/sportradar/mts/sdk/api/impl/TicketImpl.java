@@ -14,6 +14,7 @@ import com.sportradar.mts.sdk.api.Bet;
 import com.sportradar.mts.sdk.api.Selection;
 import com.sportradar.mts.sdk.api.Sender;
 import com.sportradar.mts.sdk.api.Ticket;
+import com.sportradar.mts.sdk.api.TicketRouting;
 import com.sportradar.mts.sdk.api.enums.OddsChangeType;
 import com.sportradar.mts.sdk.api.exceptions.MtsSdkProcessException;
 import com.sportradar.mts.sdk.api.utils.JsonUtils;
@@ -44,6 +45,7 @@ public class TicketImpl implements Ticket {
     private final Integer totalCombinations;
     private final Date lastMatchEndTime;
     private final Long payCap;
+    private final TicketRouting routing;
 
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     public TicketImpl(@JsonProperty("ticketId") String ticketId,
@@ -94,6 +96,7 @@ public class TicketImpl implements Ticket {
             selectionList.addAll(bet.getSelections());
         }
         this.selections = selectionList.stream().distinct().collect(Collectors.toList());
+        this.routing = TicketRouting.of(this.selections);
         this.correlationId = MtsTicketHelper.generateTicketCorrelationId();
         this.totalCombinations = totalCombinations;
     }
@@ -161,6 +164,12 @@ public class TicketImpl implements Ticket {
         return payCap;
     }
 
+    @Override
+    @JsonIgnore
+    public TicketRouting getRouting() {
+        return routing;
+    }
+
     /**
      * Returns the correlation id
      * @return correlation id
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api.impl;
+
+import com.sportradar.mts.sdk.api.interfaces.WarmupReport;
+
+public class WarmupReportImpl implements WarmupReport {
+
+    private final long connectMillis;
+    private final long topologyMillis;
+    private final long publishersMillis;
+
+    public WarmupReportImpl(long connectMillis, long topologyMillis, long publishersMillis) {
+        this.connectMillis = connectMillis;
+        this.topologyMillis = topologyMillis;
+        this.publishersMillis = publishersMillis;
+    }
+
+    @Override
+    public long getConnectMillis() { return connectMillis; }
+
+    @Override
+    public long getTopologyMillis() { return topologyMillis; }
+
+    @Override
+    public long getPublishersMillis() { return publishersMillis; }
+
+    @Override
+    public long getTotalMillis() { return connectMillis + topologyMillis + publishersMillis; }
+
+    @Override
+    public String toString() {
+        return "WarmupReport{" +
+                "connectMs=" + connectMillis +
+                ", topologyMs=" + topologyMillis +
+                ", publishersMs=" + publishersMillis +
+                ", totalMs=" + getTotalMillis() +
+                '}';
+    }
+}
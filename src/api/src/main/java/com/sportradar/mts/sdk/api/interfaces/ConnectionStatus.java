@@ -1,6 +1,7 @@
 package com.sportradar.mts.sdk.api.interfaces;
 
 import java.util.Date;
+import java.util.Map;
 
 public interface ConnectionStatus {
 
@@ -33,4 +34,23 @@ public interface ConnectionStatus {
      * @return the last received ticket identifier.
      */
     String getLastReceivedTicketId();
+
+    /**
+     * Gets the time since when the broker blocks the connection (flow control); tickets are not published meanwhile.
+     * @return the time since when the connection is blocked or null if it is not blocked.
+     */
+    Date getBlockedSince();
+
+    /**
+     * Gets the number of tickets held by the producers while the connection is (or was) blocked, waiting to be published.
+     * @return the number of held tickets.
+     */
+    int getHeldTicketCount();
+
+    /**
+     * Gets how long the last recovery of each producer and consumer took, from the loss of its channel or connection
+     * until it was working again.
+     * @return the time-to-recover in milliseconds by producer or consumer name; empty if nothing recovered yet.
+     */
+    Map<String, Long> getTimeToRecoverMillis();
 }
@@ -9,4 +9,17 @@ package com.sportradar.mts.sdk.api.interfaces;
  */
 public interface MessageSender extends Openable {
 
+    /**
+     * Gets the number of published messages waiting for their publish result
+     *
+     * @return the number of in-flight messages
+     */
+    int getInFlightCount();
+
+    /**
+     * Gets the time in milliseconds the oldest published message has been waiting for its publish result
+     *
+     * @return the age of the oldest in-flight message in milliseconds, or 0 if there is none
+     */
+    long getOldestInFlightAgeMillis();
 }
@@ -8,6 +8,9 @@ import com.sportradar.mts.sdk.api.*;
 import com.sportradar.mts.sdk.api.builders.BuilderFactory;
 import com.sportradar.mts.sdk.api.interfaces.customBet.CustomBetManager;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Entry point for the MTS SDK
  */
@@ -115,4 +118,24 @@ public interface MtsSdkApi extends Openable {
      * @return the connection status
      */
     ConnectionStatus getConnectionStatus(ConnectionChangeListener connectionChangeListener);
+
+    /**
+     * Gets the readiness of the SDK: completes once, after {@link #open()}, the connection to the broker is warmed up
+     * (connection opened, exchanges and queues declared, senders publishing over open channels), with the time spent in
+     * each phase; completes exceptionally if the warmup failed, the senders then connect when they are obtained
+     * @return the readiness future
+     */
+    CompletableFuture<WarmupReport> getReadiness();
+
+    /**
+     * Gets the tickets a previous run accepted for sending but never got confirmed by the broker (found in the ticket
+     * outbox on startup); empty if the ticket outbox is not configured
+     * @return the in-doubt tickets
+     */
+    List<InDoubtTicket> getInDoubtTickets();
+
+    /**
+     * Removes the in-doubt tickets from the ticket outbox, once they were replayed or their status was queried
+     */
+    void clearInDoubtTickets();
 }
@@ -4,6 +4,7 @@
 
 package com.sportradar.mts.sdk.api.interfaces;
 
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.UfEnvironment;
 
@@ -175,4 +176,166 @@ public interface SdkConfiguration {
      * @return the Client API host
      */
     String getMtsClientApiHost();
-}
\ No newline at end of file
+
+    /**
+     * Gets the max number of tickets published back-to-back before waiting for the publisher confirms
+     * @return the ticket publish batch size
+     */
+    int getTicketPublishBatchSize();
+
+    /**
+     * Gets the max time(ms) the ticket producer waits for a publish batch to fill up
+     * @return the ticket publish linger time(ms)
+     */
+    int getTicketPublishLingerMillis();
+
+    /**
+     * Gets the max number of messages buffered by each producer before the {@link #getProducerOverflowPolicy()} applies
+     * @return the producer buffer size
+     */
+    int getProducerBufferSize();
+
+    /**
+     * Gets what happens to messages sent while the producer buffer is full
+     * @return the producer overflow policy
+     */
+    ProducerOverflowPolicy getProducerOverflowPolicy();
+
+    /**
+     * Gets the max time(ms) a sender waits for space in a full producer buffer (used with BLOCK and SPIN_THEN_PARK)
+     * @return the producer overflow timeout(ms)
+     */
+    int getProducerOverflowTimeout();
+
+    /**
+     * Gets the number of channels (stripes) the ticket producer publishes over; messages of the same ticket always
+     * use the same stripe, so they keep their order
+     * @return the number of ticket publish stripes
+     */
+    int getTicketPublishStripes();
+
+    /**
+     * Gets the number of times an idle producer thread checks (yielding) for new messages before it parks; more tries
+     * lower the latency of the first message after a pause at the cost of CPU
+     * @return the producer idle spin tries
+     */
+    int getProducerIdleSpinTries();
+
+    /**
+     * Gets the max number of tickets each producer holds while the broker blocks the connection (flow control); 0
+     * rejects tickets sent while blocked at once
+     * @return the producer blocked hold limit
+     */
+    int getProducerBlockedHoldLimit();
+
+    /**
+     * Gets the max number of held tickets per second each producer publishes once the connection is unblocked
+     * @return the producer blocked drain rate
+     */
+    int getProducerBlockedDrainRate();
+
+    /**
+     * Gets the directory of the ticket outbox (tickets are written there before they are sent); null if not used
+     * @return the ticket outbox directory
+     */
+    String getTicketOutboxDirectory();
+
+    /**
+     * Gets the size (bytes) of a ticket outbox segment file
+     * @return the ticket outbox segment size
+     */
+    int getTicketOutboxSegmentSize();
+
+    /**
+     * Gets the number of publishing threads shared by the ticket, cashout and non-sr settle producers; 0 if each
+     * producer has its own thread (the cancel and acknowledgment producers always have their own)
+     * @return the shared publisher threads
+     */
+    int getSharedPublisherThreads();
+
+    /**
+     * Gets the number of threads each response consumer consumes its messages on; 0 if they are consumed on the
+     * delivery thread of the connection
+     * @return the consumer dispatch threads
+     */
+    int getConsumerDispatchThreads();
+
+    /**
+     * Gets the number of consumed messages a response consumer acknowledges with a single frame
+     * @return the consumer ack batch size
+     */
+    int getConsumerAckBatchSize();
+
+    /**
+     * Gets the max time (in ms) a consumed message waits for its batched acknowledgement
+     * @return the consumer ack linger in ms
+     */
+    int getConsumerAckLingerMillis();
+
+    /**
+     * Gets the lowest prefetch count a response consumer adapts to
+     * @return the consumer prefetch min
+     */
+    int getConsumerPrefetchMin();
+
+    /**
+     * Gets the highest prefetch count a response consumer adapts to
+     * @return the consumer prefetch max
+     */
+    int getConsumerPrefetchMax();
+
+    /**
+     * Gets the time (in ms) from the delivery of a response to the end of its consumption above which a consumer with
+     * adaptive prefetch lowers its prefetch count
+     * @return the consumer target latency in ms
+     */
+    int getConsumerTargetLatencyMillis();
+
+    /**
+     * Gets the time (in ms) a response not consumed successfully waits for its first local retry
+     * @return the consumer retry backoff in ms
+     */
+    int getConsumerRetryBackoffMillis();
+
+    /**
+     * Gets the longest time (in ms) a response not consumed successfully waits for a local retry
+     * @return the consumer retry backoff max in ms
+     */
+    int getConsumerRetryBackoffMaxMillis();
+
+    /**
+     * Gets the max number of channels in use on one connection to the broker
+     * @return the channels per connection
+     */
+    int getChannelsPerConnection();
+
+    /**
+     * Gets the number of channels opened in advance on the current connection to the broker
+     * @return the spare channels
+     */
+    int getSpareChannels();
+
+    /**
+     * Gets a value indicating whether the connections to the broker use the NIO transport (I/O threads shared by all SDK instances in the JVM)
+     * @return true if the NIO transport is used
+     */
+    boolean getNioEnabled();
+
+    /**
+     * Gets the number of I/O threads of the NIO transport
+     * @return the NIO threads
+     */
+    int getNioThreads();
+
+    /**
+     * Gets the max number of published messages of one sender waiting for their publish result
+     * @return the in-flight limit
+     */
+    int getInFlightLimit();
+
+    /**
+     * Gets the max time in milliseconds a published message waits for its publish result
+     * @return the in-flight max age in milliseconds
+     */
+    int getInFlightMaxAgeMillis();
+}
@@ -4,6 +4,7 @@
 
 package com.sportradar.mts.sdk.api.interfaces;
 
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.UfEnvironment;
 
@@ -214,6 +215,215 @@ public interface SdkConfigurationBuilder {
      */
     SdkConfigurationBuilder setMtsClientApiHost(String mtsClientApiHost);
 
+    /**
+     * Sets the max number of tickets published back-to-back before waiting for the publisher confirms (default 1)
+     *
+     * @param ticketPublishBatchSize the ticket publish batch size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setTicketPublishBatchSize(int ticketPublishBatchSize);
+
+    /**
+     * Sets the max time(ms) the ticket producer waits for a publish batch to fill up (default 0)
+     *
+     * @param ticketPublishLingerMillis the ticket publish linger time(ms)
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setTicketPublishLingerMillis(int ticketPublishLingerMillis);
+
+    /**
+     * Sets the max number of messages buffered by each producer before the overflow policy applies (default 64)
+     *
+     * @param producerBufferSize the producer buffer size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerBufferSize(int producerBufferSize);
+
+    /**
+     * Sets what happens to messages sent while the producer buffer is full (default {@link ProducerOverflowPolicy#REJECT})
+     *
+     * @param producerOverflowPolicy the producer overflow policy
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerOverflowPolicy(ProducerOverflowPolicy producerOverflowPolicy);
+
+    /**
+     * Sets the max time(ms) a sender waits for space in a full producer buffer (default 1000)
+     *
+     * @param producerOverflowTimeout the producer overflow timeout(ms)
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerOverflowTimeout(int producerOverflowTimeout);
+
+    /**
+     * Sets the number of channels (stripes) the ticket producer publishes over (default 1)
+     *
+     * @param ticketPublishStripes the number of ticket publish stripes
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setTicketPublishStripes(int ticketPublishStripes);
+
+    /**
+     * Sets the number of times an idle producer thread checks for new messages before it parks (default 0)
+     *
+     * @param producerIdleSpinTries the producer idle spin tries
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerIdleSpinTries(int producerIdleSpinTries);
+
+    /**
+     * Sets the max number of tickets each producer holds while the broker blocks the connection (default 0, reject)
+     *
+     * @param producerBlockedHoldLimit the producer blocked hold limit
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerBlockedHoldLimit(int producerBlockedHoldLimit);
+
+    /**
+     * Sets the max number of held tickets per second published once the connection is unblocked (default 1000)
+     *
+     * @param producerBlockedDrainRate the producer blocked drain rate
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setProducerBlockedDrainRate(int producerBlockedDrainRate);
+
+    /**
+     * Sets the directory of the ticket outbox; tickets never confirmed by the broker are reported on the next start
+     *
+     * @param ticketOutboxDirectory the ticket outbox directory
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setTicketOutboxDirectory(String ticketOutboxDirectory);
+
+    /**
+     * Sets the size (bytes) of a ticket outbox segment file (default 4194304)
+     *
+     * @param ticketOutboxSegmentSize the ticket outbox segment size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setTicketOutboxSegmentSize(int ticketOutboxSegmentSize);
+
+    /**
+     * Sets the number of publishing threads shared by the ticket, cashout and non-sr settle producers (default 0, a
+     * thread per producer); the cancel and acknowledgment producers always keep their own thread
+     *
+     * @param sharedPublisherThreads the shared publisher threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setSharedPublisherThreads(int sharedPublisherThreads);
+
+    /**
+     * Sets the number of threads each response consumer consumes its messages on (default 0, the delivery thread)
+     *
+     * @param consumerDispatchThreads the consumer dispatch threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerDispatchThreads(int consumerDispatchThreads);
+
+    /**
+     * Sets the number of consumed messages a response consumer acknowledges with a single frame (default 1)
+     *
+     * @param consumerAckBatchSize the consumer ack batch size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerAckBatchSize(int consumerAckBatchSize);
+
+    /**
+     * Sets the max time (in ms) a consumed message waits for its batched acknowledgement (default 5)
+     *
+     * @param consumerAckLingerMillis the consumer ack linger in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerAckLingerMillis(int consumerAckLingerMillis);
+
+    /**
+     * Sets the lowest prefetch count a response consumer adapts to (default 10)
+     *
+     * @param consumerPrefetchMin the consumer prefetch min
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerPrefetchMin(int consumerPrefetchMin);
+
+    /**
+     * Sets the highest prefetch count a response consumer adapts to (default 10)
+     *
+     * @param consumerPrefetchMax the consumer prefetch max
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerPrefetchMax(int consumerPrefetchMax);
+
+    /**
+     * Sets the time (in ms) from the delivery of a response to the end of its consumption above which a consumer with adaptive prefetch lowers its prefetch count (default 100)
+     *
+     * @param consumerTargetLatencyMillis the consumer target latency in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerTargetLatencyMillis(int consumerTargetLatencyMillis);
+
+    /**
+     * Sets the time (in ms) a response not consumed successfully waits for its first local retry (default 100)
+     *
+     * @param consumerRetryBackoffMillis the consumer retry backoff in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerRetryBackoffMillis(int consumerRetryBackoffMillis);
+
+    /**
+     * Sets the longest time (in ms) a response not consumed successfully waits for a local retry (default 30000)
+     *
+     * @param consumerRetryBackoffMaxMillis the consumer retry backoff max in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setConsumerRetryBackoffMaxMillis(int consumerRetryBackoffMaxMillis);
+
+    /**
+     * Sets the max number of channels in use on one connection to the broker (default 256)
+     *
+     * @param channelsPerConnection the channels per connection
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setChannelsPerConnection(int channelsPerConnection);
+
+    /**
+     * Sets the number of channels opened in advance on the current connection to the broker, 0 for none (default 2)
+     *
+     * @param spareChannels the spare channels
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setSpareChannels(int spareChannels);
+
+    /**
+     * Sets whether the connections to the broker use the NIO transport, sharing a few I/O threads among all SDK instances in the JVM (default false)
+     *
+     * @param nioEnabled value to be set
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setNioEnabled(boolean nioEnabled);
+
+    /**
+     * Sets the number of I/O threads of the NIO transport, shared by all SDK instances in the JVM using the same value (default 2)
+     *
+     * @param nioThreads the NIO threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setNioThreads(int nioThreads);
+
+    /**
+     * Sets the max number of published messages of one sender waiting for their publish result; when reached, the oldest is evicted with a publish failure (default 500000)
+     *
+     * @param inFlightLimit the in-flight limit
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setInFlightLimit(int inFlightLimit);
+
+    /**
+     * Sets the max time in milliseconds a published message waits for its publish result before it is evicted with a publish failure (default 60000)
+     *
+     * @param inFlightMaxAgeMillis the in-flight max age in milliseconds
+     * @return {@link SdkConfigurationBuilder}
+     */
+    SdkConfigurationBuilder setInFlightMaxAgeMillis(int inFlightMaxAgeMillis);
+
     /**
      * Build and return the {@link SdkConfiguration}
      * @return {@link SdkConfiguration}
@@ -6,8 +6,12 @@ package com.sportradar.mts.sdk.api.interfaces;
 
 import com.sportradar.mts.sdk.api.Ticket;
 import com.sportradar.mts.sdk.api.TicketResponse;
+import com.sportradar.mts.sdk.api.exceptions.BatchResponseTimeoutException;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * {@link Ticket} sender
  */
@@ -28,4 +32,27 @@ public interface TicketSender extends MessageSender {
      * @throws ResponseTimeoutException if no response is received in time
      */
     TicketResponse sendBlocking(Ticket ticket) throws ResponseTimeoutException;
+
+    /**
+     * Sends the {@link Ticket}s to the MTS, like calling {@link #send(Ticket)} for each of them but quicker: they are
+     * serialized in parallel and queued for publishing together. The responses are received by the
+     * {@link TicketResponseListener}, as with {@link #send(Ticket)}.
+     *
+     * @param tickets tickets to send
+     * @return the publish result of each ticket, in the order of the tickets: completed with true once the ticket was
+     *         published, with false if publishing it failed
+     */
+    List<CompletableFuture<Boolean>> sendBatch(List<Ticket> tickets);
+
+    /**
+     * Sends the {@link Ticket}s to the MTS, like {@link #sendBatch(List)}, and waits for their responses until a single
+     * deadline common to all of them
+     *
+     * @param tickets tickets to send
+     * @param timeoutMillis the time (in milliseconds) to wait for all the responses
+     * @return the response of each ticket, in the order of the tickets
+     * @throws BatchResponseTimeoutException if a response is not received in time (or a ticket failed to be
+     *         published); it carries the responses which were received
+     */
+    List<TicketResponse> sendBatchBlocking(List<Ticket> tickets, long timeoutMillis) throws BatchResponseTimeoutException;
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.api.interfaces;
+
+/**
+ * Time spent in each phase of warming up the connection to the broker after the SDK was opened
+ */
+public interface WarmupReport {
+
+    /**
+     * Gets the time spent opening the connection (and its first channels)
+     * @return the time in ms
+     */
+    long getConnectMillis();
+
+    /**
+     * Gets the time spent declaring the exchanges and queues
+     * @return the time in ms
+     */
+    long getTopologyMillis();
+
+    /**
+     * Gets the time spent opening the publishers with their channels
+     * @return the time in ms
+     */
+    long getPublishersMillis();
+
+    /**
+     * Gets the total time of the warmup
+     * @return the time in ms
+     */
+    long getTotalMillis();
+}
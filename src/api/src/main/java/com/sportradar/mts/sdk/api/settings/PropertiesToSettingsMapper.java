@@ -5,6 +5,7 @@
 package com.sportradar.mts.sdk.api.settings;
 
 import com.google.common.base.Preconditions;
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.UfEnvironment;
 import com.sportradar.mts.sdk.api.interfaces.SdkConfiguration;
@@ -54,6 +55,33 @@ public final class PropertiesToSettingsMapper {
         String keycloakSecret = properties.getProperty(SettingsKeys.KEYCLOAK_SECRET);
         String mtsClientApiHost = properties.getProperty(SettingsKeys.MTS_CLIENT_API_HOST);
 
+        String ticketPublishBatchSizeString = properties.getProperty(SettingsKeys.TICKET_PUBLISH_BATCH_SIZE);
+        String ticketPublishLingerString = properties.getProperty(SettingsKeys.TICKET_PUBLISH_LINGER);
+        String producerBufferSizeString = properties.getProperty(SettingsKeys.PRODUCER_BUFFER_SIZE);
+        String producerOverflowPolicyString = properties.getProperty(SettingsKeys.PRODUCER_OVERFLOW_POLICY);
+        String producerOverflowTimeoutString = properties.getProperty(SettingsKeys.PRODUCER_OVERFLOW_TIMEOUT);
+        String ticketPublishStripesString = properties.getProperty(SettingsKeys.TICKET_PUBLISH_STRIPES);
+        String producerIdleSpinTriesString = properties.getProperty(SettingsKeys.PRODUCER_IDLE_SPIN_TRIES);
+        String producerBlockedHoldLimitString = properties.getProperty(SettingsKeys.PRODUCER_BLOCKED_HOLD_LIMIT);
+        String producerBlockedDrainRateString = properties.getProperty(SettingsKeys.PRODUCER_BLOCKED_DRAIN_RATE);
+        String ticketOutboxDirectory = properties.getProperty(SettingsKeys.TICKET_OUTBOX_DIRECTORY);
+        String ticketOutboxSegmentSizeString = properties.getProperty(SettingsKeys.TICKET_OUTBOX_SEGMENT_SIZE);
+        String sharedPublisherThreadsString = properties.getProperty(SettingsKeys.SHARED_PUBLISHER_THREADS);
+        String consumerDispatchThreadsString = properties.getProperty(SettingsKeys.CONSUMER_DISPATCH_THREADS);
+        String consumerAckBatchSizeString = properties.getProperty(SettingsKeys.CONSUMER_ACK_BATCH_SIZE);
+        String consumerAckLingerMillisString = properties.getProperty(SettingsKeys.CONSUMER_ACK_LINGER_MILLIS);
+        String consumerPrefetchMinString = properties.getProperty(SettingsKeys.CONSUMER_PREFETCH_MIN);
+        String consumerPrefetchMaxString = properties.getProperty(SettingsKeys.CONSUMER_PREFETCH_MAX);
+        String consumerTargetLatencyMillisString = properties.getProperty(SettingsKeys.CONSUMER_TARGET_LATENCY_MILLIS);
+        String consumerRetryBackoffMillisString = properties.getProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MILLIS);
+        String consumerRetryBackoffMaxMillisString = properties.getProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MAX_MILLIS);
+        String channelsPerConnectionString = properties.getProperty(SettingsKeys.CHANNELS_PER_CONNECTION);
+        String spareChannelsString = properties.getProperty(SettingsKeys.SPARE_CHANNELS);
+        String nioEnabledString = properties.getProperty(SettingsKeys.NIO_ENABLED);
+        String nioThreadsString = properties.getProperty(SettingsKeys.NIO_THREADS);
+        String inFlightLimitString = properties.getProperty(SettingsKeys.IN_FLIGHT_LIMIT);
+        String inFlightMaxAgeMillisString = properties.getProperty(SettingsKeys.IN_FLIGHT_MAX_AGE_MILLIS);
+
         Preconditions.checkNotNull(username, StringUtils.format(MISSING_PROPERTY, SettingsKeys.USERNAME));
         Preconditions.checkArgument(!username.isEmpty());
         Preconditions.checkNotNull(password, StringUtils.format(MISSING_PROPERTY, SettingsKeys.PASSWORD));
@@ -201,6 +229,219 @@ public final class PropertiesToSettingsMapper {
             exclusiveConsumer = Boolean.valueOf(exclusiveConsumerString);
         }
 
+        int ticketPublishBatchSize = SdkInfo.TICKET_PUBLISH_BATCH_SIZE_DEFAULT;
+        if (ticketPublishBatchSizeString != null) {
+            Preconditions.checkArgument(isDecimal(ticketPublishBatchSizeString), "ticketPublishBatchSize should be a number");
+            ticketPublishBatchSize = Integer.valueOf(ticketPublishBatchSizeString);
+
+            Preconditions.checkArgument(ticketPublishBatchSize >= 1, "ticketPublishBatchSize must be at least 1");
+            Preconditions.checkArgument(ticketPublishBatchSize <= SdkInfo.TICKET_PUBLISH_BATCH_SIZE_MAX, "ticketPublishBatchSize must be less than " + SdkInfo.TICKET_PUBLISH_BATCH_SIZE_MAX);
+        }
+
+        int ticketPublishLinger = SdkInfo.TICKET_PUBLISH_LINGER_DEFAULT;
+        if (ticketPublishLingerString != null) {
+            Preconditions.checkArgument(isDecimal(ticketPublishLingerString), "ticketPublishLingerMillis should be a number");
+            ticketPublishLinger = Integer.valueOf(ticketPublishLingerString);
+
+            Preconditions.checkArgument(ticketPublishLinger <= SdkInfo.TICKET_PUBLISH_LINGER_MAX, "ticketPublishLingerMillis must be less than " + SdkInfo.TICKET_PUBLISH_LINGER_MAX + "ms");
+        }
+
+        int producerBufferSize = SdkInfo.PRODUCER_BUFFER_SIZE_DEFAULT;
+        if (producerBufferSizeString != null) {
+            Preconditions.checkArgument(isDecimal(producerBufferSizeString), "producerBufferSize should be a number");
+            producerBufferSize = Integer.valueOf(producerBufferSizeString);
+
+            Preconditions.checkArgument(producerBufferSize >= 1, "producerBufferSize must be at least 1");
+            Preconditions.checkArgument(producerBufferSize <= SdkInfo.PRODUCER_BUFFER_SIZE_MAX, "producerBufferSize must be less than " + SdkInfo.PRODUCER_BUFFER_SIZE_MAX);
+        }
+
+        ProducerOverflowPolicy producerOverflowPolicy = ProducerOverflowPolicy.REJECT;
+        if (!StringUtils.isNullOrEmpty(producerOverflowPolicyString)) {
+            producerOverflowPolicy = ProducerOverflowPolicy.fromString(producerOverflowPolicyString);
+        }
+
+        int producerOverflowTimeout = SdkInfo.PRODUCER_OVERFLOW_TIMEOUT_DEFAULT;
+        if (producerOverflowTimeoutString != null) {
+            Preconditions.checkArgument(isDecimal(producerOverflowTimeoutString), "producerOverflowTimeout should be a number");
+            producerOverflowTimeout = Integer.valueOf(producerOverflowTimeoutString);
+
+            Preconditions.checkArgument(producerOverflowTimeout <= SdkInfo.PRODUCER_OVERFLOW_TIMEOUT_MAX, "producerOverflowTimeout must be less than " + SdkInfo.PRODUCER_OVERFLOW_TIMEOUT_MAX + "ms");
+        }
+
+        int ticketPublishStripes = SdkInfo.TICKET_PUBLISH_STRIPES_DEFAULT;
+        if (ticketPublishStripesString != null) {
+            Preconditions.checkArgument(isDecimal(ticketPublishStripesString), "ticketPublishStripes should be a number");
+            ticketPublishStripes = Integer.valueOf(ticketPublishStripesString);
+
+            Preconditions.checkArgument(ticketPublishStripes >= 1, "ticketPublishStripes must be at least 1");
+            Preconditions.checkArgument(ticketPublishStripes <= SdkInfo.TICKET_PUBLISH_STRIPES_MAX, "ticketPublishStripes must be less than " + SdkInfo.TICKET_PUBLISH_STRIPES_MAX);
+        }
+
+        int producerIdleSpinTries = SdkInfo.PRODUCER_IDLE_SPIN_TRIES_DEFAULT;
+        if (producerIdleSpinTriesString != null) {
+            Preconditions.checkArgument(isDecimal(producerIdleSpinTriesString), "producerIdleSpinTries should be a number");
+            producerIdleSpinTries = Integer.valueOf(producerIdleSpinTriesString);
+
+            Preconditions.checkArgument(producerIdleSpinTries <= SdkInfo.PRODUCER_IDLE_SPIN_TRIES_MAX, "producerIdleSpinTries must be less than " + SdkInfo.PRODUCER_IDLE_SPIN_TRIES_MAX);
+        }
+
+        int producerBlockedHoldLimit = SdkInfo.PRODUCER_BLOCKED_HOLD_LIMIT_DEFAULT;
+        if (producerBlockedHoldLimitString != null) {
+            Preconditions.checkArgument(isDecimal(producerBlockedHoldLimitString), "producerBlockedHoldLimit should be a number");
+            producerBlockedHoldLimit = Integer.valueOf(producerBlockedHoldLimitString);
+
+            Preconditions.checkArgument(producerBlockedHoldLimit <= SdkInfo.PRODUCER_BLOCKED_HOLD_LIMIT_MAX, "producerBlockedHoldLimit must be less than " + SdkInfo.PRODUCER_BLOCKED_HOLD_LIMIT_MAX);
+        }
+
+        int producerBlockedDrainRate = SdkInfo.PRODUCER_BLOCKED_DRAIN_RATE_DEFAULT;
+        if (producerBlockedDrainRateString != null) {
+            Preconditions.checkArgument(isDecimal(producerBlockedDrainRateString), "producerBlockedDrainRate should be a number");
+            producerBlockedDrainRate = Integer.valueOf(producerBlockedDrainRateString);
+
+            Preconditions.checkArgument(producerBlockedDrainRate >= 1, "producerBlockedDrainRate must be at least 1");
+            Preconditions.checkArgument(producerBlockedDrainRate <= SdkInfo.PRODUCER_BLOCKED_DRAIN_RATE_MAX, "producerBlockedDrainRate must be less than " + SdkInfo.PRODUCER_BLOCKED_DRAIN_RATE_MAX);
+        }
+
+        if (ticketOutboxDirectory != null) {
+            Preconditions.checkArgument(!ticketOutboxDirectory.trim().isEmpty(), "ticketOutboxDirectory must not be empty");
+        }
+
+        int ticketOutboxSegmentSize = SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_DEFAULT;
+        if (ticketOutboxSegmentSizeString != null) {
+            Preconditions.checkArgument(isDecimal(ticketOutboxSegmentSizeString), "ticketOutboxSegmentSize should be a number");
+            ticketOutboxSegmentSize = Integer.valueOf(ticketOutboxSegmentSizeString);
+
+            Preconditions.checkArgument(ticketOutboxSegmentSize >= SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_MIN, "ticketOutboxSegmentSize must be at least " + SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_MIN);
+            Preconditions.checkArgument(ticketOutboxSegmentSize <= SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_MAX, "ticketOutboxSegmentSize must be less than " + SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_MAX);
+        }
+
+        int sharedPublisherThreads = SdkInfo.SHARED_PUBLISHER_THREADS_DEFAULT;
+        if (sharedPublisherThreadsString != null) {
+            Preconditions.checkArgument(isDecimal(sharedPublisherThreadsString), "sharedPublisherThreads should be a number");
+            sharedPublisherThreads = Integer.valueOf(sharedPublisherThreadsString);
+
+            Preconditions.checkArgument(sharedPublisherThreads <= SdkInfo.SHARED_PUBLISHER_THREADS_MAX, "sharedPublisherThreads must be less than " + SdkInfo.SHARED_PUBLISHER_THREADS_MAX);
+        }
+
+        int consumerDispatchThreads = SdkInfo.CONSUMER_DISPATCH_THREADS_DEFAULT;
+        if (consumerDispatchThreadsString != null) {
+            Preconditions.checkArgument(isDecimal(consumerDispatchThreadsString), "consumerDispatchThreads should be a number");
+            consumerDispatchThreads = Integer.valueOf(consumerDispatchThreadsString);
+
+            Preconditions.checkArgument(consumerDispatchThreads <= SdkInfo.CONSUMER_DISPATCH_THREADS_MAX, "consumerDispatchThreads must be less than " + SdkInfo.CONSUMER_DISPATCH_THREADS_MAX);
+        }
+
+        int consumerAckBatchSize = SdkInfo.CONSUMER_ACK_BATCH_SIZE_DEFAULT;
+        if (consumerAckBatchSizeString != null) {
+            Preconditions.checkArgument(isDecimal(consumerAckBatchSizeString), "consumerAckBatchSize should be a number");
+            consumerAckBatchSize = Integer.valueOf(consumerAckBatchSizeString);
+
+            Preconditions.checkArgument(consumerAckBatchSize >= 1, "consumerAckBatchSize must be at least 1");
+            Preconditions.checkArgument(consumerAckBatchSize <= SdkInfo.CONSUMER_ACK_BATCH_SIZE_MAX, "consumerAckBatchSize must be less than " + SdkInfo.CONSUMER_ACK_BATCH_SIZE_MAX);
+        }
+
+        int consumerAckLingerMillis = SdkInfo.CONSUMER_ACK_LINGER_MILLIS_DEFAULT;
+        if (consumerAckLingerMillisString != null) {
+            Preconditions.checkArgument(isDecimal(consumerAckLingerMillisString), "consumerAckLingerMillis should be a number");
+            consumerAckLingerMillis = Integer.valueOf(consumerAckLingerMillisString);
+
+            Preconditions.checkArgument(consumerAckLingerMillis <= SdkInfo.CONSUMER_ACK_LINGER_MILLIS_MAX, "consumerAckLingerMillis must be less than " + SdkInfo.CONSUMER_ACK_LINGER_MILLIS_MAX + "ms");
+        }
+
+        int consumerPrefetchMin = SdkInfo.CONSUMER_PREFETCH_MIN_DEFAULT;
+        if (consumerPrefetchMinString != null) {
+            Preconditions.checkArgument(isDecimal(consumerPrefetchMinString), "consumerPrefetchMin should be a number");
+            consumerPrefetchMin = Integer.valueOf(consumerPrefetchMinString);
+
+            Preconditions.checkArgument(consumerPrefetchMin >= 1, "consumerPrefetchMin must be at least 1");
+            Preconditions.checkArgument(consumerPrefetchMin <= SdkInfo.CONSUMER_PREFETCH_MIN_MAX, "consumerPrefetchMin must be less than " + SdkInfo.CONSUMER_PREFETCH_MIN_MAX);
+        }
+
+        int consumerPrefetchMax = SdkInfo.CONSUMER_PREFETCH_MAX_DEFAULT;
+        if (consumerPrefetchMaxString != null) {
+            Preconditions.checkArgument(isDecimal(consumerPrefetchMaxString), "consumerPrefetchMax should be a number");
+            consumerPrefetchMax = Integer.valueOf(consumerPrefetchMaxString);
+
+            Preconditions.checkArgument(consumerPrefetchMax <= SdkInfo.CONSUMER_PREFETCH_MAX_MAX, "consumerPrefetchMax must be less than " + SdkInfo.CONSUMER_PREFETCH_MAX_MAX);
+        }
+        Preconditions.checkArgument(consumerPrefetchMax >= consumerPrefetchMin, "consumerPrefetchMax must be at least consumerPrefetchMin");
+
+        int consumerTargetLatencyMillis = SdkInfo.CONSUMER_TARGET_LATENCY_MILLIS_DEFAULT;
+        if (consumerTargetLatencyMillisString != null) {
+            Preconditions.checkArgument(isDecimal(consumerTargetLatencyMillisString), "consumerTargetLatencyMillis should be a number");
+            consumerTargetLatencyMillis = Integer.valueOf(consumerTargetLatencyMillisString);
+
+            Preconditions.checkArgument(consumerTargetLatencyMillis >= 1, "consumerTargetLatencyMillis must be at least 1");
+            Preconditions.checkArgument(consumerTargetLatencyMillis <= SdkInfo.CONSUMER_TARGET_LATENCY_MILLIS_MAX, "consumerTargetLatencyMillis must be less than " + SdkInfo.CONSUMER_TARGET_LATENCY_MILLIS_MAX + "ms");
+        }
+
+        int consumerRetryBackoffMillis = SdkInfo.CONSUMER_RETRY_BACKOFF_MILLIS_DEFAULT;
+        if (consumerRetryBackoffMillisString != null) {
+            Preconditions.checkArgument(isDecimal(consumerRetryBackoffMillisString), "consumerRetryBackoffMillis should be a number");
+            consumerRetryBackoffMillis = Integer.valueOf(consumerRetryBackoffMillisString);
+
+            Preconditions.checkArgument(consumerRetryBackoffMillis <= SdkInfo.CONSUMER_RETRY_BACKOFF_MILLIS_MAX, "consumerRetryBackoffMillis must be less than " + SdkInfo.CONSUMER_RETRY_BACKOFF_MILLIS_MAX + "ms");
+        }
+
+        int consumerRetryBackoffMaxMillis = SdkInfo.CONSUMER_RETRY_BACKOFF_MAX_MILLIS_DEFAULT;
+        if (consumerRetryBackoffMaxMillisString != null) {
+            Preconditions.checkArgument(isDecimal(consumerRetryBackoffMaxMillisString), "consumerRetryBackoffMaxMillis should be a number");
+            consumerRetryBackoffMaxMillis = Integer.valueOf(consumerRetryBackoffMaxMillisString);
+
+            Preconditions.checkArgument(consumerRetryBackoffMaxMillis <= SdkInfo.CONSUMER_RETRY_BACKOFF_MAX_MILLIS_MAX, "consumerRetryBackoffMaxMillis must be less than " + SdkInfo.CONSUMER_RETRY_BACKOFF_MAX_MILLIS_MAX + "ms");
+        }
+        Preconditions.checkArgument(consumerRetryBackoffMaxMillis >= consumerRetryBackoffMillis, "consumerRetryBackoffMaxMillis must be at least consumerRetryBackoffMillis");
+
+        int channelsPerConnection = SdkInfo.CHANNELS_PER_CONNECTION_DEFAULT;
+        if (channelsPerConnectionString != null) {
+            Preconditions.checkArgument(isDecimal(channelsPerConnectionString), "channelsPerConnection should be a number");
+            channelsPerConnection = Integer.valueOf(channelsPerConnectionString);
+
+            Preconditions.checkArgument(channelsPerConnection > 0, "channelsPerConnection must be greater than zero");
+            Preconditions.checkArgument(channelsPerConnection <= SdkInfo.CHANNELS_PER_CONNECTION_MAX, "channelsPerConnection must be less than " + SdkInfo.CHANNELS_PER_CONNECTION_MAX);
+        }
+
+        int spareChannels = SdkInfo.SPARE_CHANNELS_DEFAULT;
+        if (spareChannelsString != null) {
+            Preconditions.checkArgument(isDecimal(spareChannelsString), "spareChannels should be a number");
+            spareChannels = Integer.valueOf(spareChannelsString);
+
+            Preconditions.checkArgument(spareChannels <= SdkInfo.SPARE_CHANNELS_MAX, "spareChannels must be less than " + SdkInfo.SPARE_CHANNELS_MAX);
+        }
+
+        boolean nioEnabled = false;
+        if (nioEnabledString != null) {
+            Preconditions.checkArgument(isBoolean(nioEnabledString), "nioEnabled should be boolean");
+            nioEnabled = Boolean.valueOf(nioEnabledString);
+        }
+
+        int nioThreads = SdkInfo.NIO_THREADS_DEFAULT;
+        if (nioThreadsString != null) {
+            Preconditions.checkArgument(isDecimal(nioThreadsString), "nioThreads should be a number");
+            nioThreads = Integer.valueOf(nioThreadsString);
+
+            Preconditions.checkArgument(nioThreads > 0, "nioThreads must be greater than zero");
+            Preconditions.checkArgument(nioThreads <= SdkInfo.NIO_THREADS_MAX, "nioThreads must be less than " + SdkInfo.NIO_THREADS_MAX);
+        }
+
+        int inFlightLimit = SdkInfo.IN_FLIGHT_LIMIT_DEFAULT;
+        if (inFlightLimitString != null) {
+            Preconditions.checkArgument(isDecimal(inFlightLimitString), "inFlightLimit should be a number");
+            inFlightLimit = Integer.valueOf(inFlightLimitString);
+
+            Preconditions.checkArgument(inFlightLimit > 0, "inFlightLimit must be greater than zero");
+            Preconditions.checkArgument(inFlightLimit <= SdkInfo.IN_FLIGHT_LIMIT_MAX, "inFlightLimit must be less than " + SdkInfo.IN_FLIGHT_LIMIT_MAX);
+        }
+
+        int inFlightMaxAgeMillis = SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_DEFAULT;
+        if (inFlightMaxAgeMillisString != null) {
+            Preconditions.checkArgument(isDecimal(inFlightMaxAgeMillisString), "inFlightMaxAgeMillis should be a number");
+            inFlightMaxAgeMillis = Integer.valueOf(inFlightMaxAgeMillisString);
+
+            Preconditions.checkArgument(inFlightMaxAgeMillis >= SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_MIN, "inFlightMaxAgeMillis must be more than " + SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_MIN);
+            Preconditions.checkArgument(inFlightMaxAgeMillis <= SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_MAX, "inFlightMaxAgeMillis must be less than " + SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_MAX);
+        }
+
         if (mtsClientApiHost != null) {
             Preconditions.checkNotNull(keycloakHost, StringUtils.format(MISSING_PROPERTY, SettingsKeys.KEYCLOAK_HOST));
             Preconditions.checkNotNull(keycloakSecret, StringUtils.format(MISSING_PROPERTY, SettingsKeys.KEYCLOAK_SECRET));
@@ -232,7 +473,33 @@ public final class PropertiesToSettingsMapper {
                 keycloakUsername,
                 keycloakPassword,
                 keycloakSecret,
-                mtsClientApiHost);
+                mtsClientApiHost,
+                ticketPublishBatchSize,
+                ticketPublishLinger,
+                producerBufferSize,
+                producerOverflowPolicy,
+                producerOverflowTimeout,
+                ticketPublishStripes,
+                producerIdleSpinTries,
+                producerBlockedHoldLimit,
+                producerBlockedDrainRate,
+                ticketOutboxDirectory,
+                ticketOutboxSegmentSize,
+                sharedPublisherThreads,
+                consumerDispatchThreads,
+                consumerAckBatchSize,
+                consumerAckLingerMillis,
+                consumerPrefetchMin,
+                consumerPrefetchMax,
+                consumerTargetLatencyMillis,
+                consumerRetryBackoffMillis,
+                consumerRetryBackoffMaxMillis,
+                channelsPerConnection,
+                spareChannels,
+                nioEnabled,
+                nioThreads,
+                inFlightLimit,
+                inFlightMaxAgeMillis);
     }
 
     private static boolean isBoolean(String input) {
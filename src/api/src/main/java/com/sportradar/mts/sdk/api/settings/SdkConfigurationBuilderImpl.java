@@ -5,6 +5,7 @@
 package com.sportradar.mts.sdk.api.settings;
 
 import com.sportradar.mts.sdk.api.Ticket;
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.UfEnvironment;
 import com.sportradar.mts.sdk.api.interfaces.SdkConfiguration;
@@ -412,6 +413,383 @@ public class SdkConfigurationBuilderImpl implements SdkConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Sets the max number of tickets published back-to-back before waiting for the publisher confirms (default 1)
+     *
+     * @param ticketPublishBatchSize the ticket publish batch size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setTicketPublishBatchSize(int ticketPublishBatchSize) {
+        if(ticketPublishBatchSize <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_BATCH_SIZE, String.valueOf(ticketPublishBatchSize));
+        return this;
+    }
+
+    /**
+     * Sets the max time(ms) the ticket producer waits for a publish batch to fill up (default 0)
+     *
+     * @param ticketPublishLingerMillis the ticket publish linger time(ms)
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setTicketPublishLingerMillis(int ticketPublishLingerMillis) {
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_LINGER, String.valueOf(ticketPublishLingerMillis));
+        return this;
+    }
+
+    /**
+     * Sets the max number of messages buffered by each producer before the overflow policy applies (default 64)
+     *
+     * @param producerBufferSize the producer buffer size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerBufferSize(int producerBufferSize) {
+        if(producerBufferSize <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.PRODUCER_BUFFER_SIZE, String.valueOf(producerBufferSize));
+        return this;
+    }
+
+    /**
+     * Sets what happens to messages sent while the producer buffer is full (default {@link ProducerOverflowPolicy#REJECT})
+     *
+     * @param producerOverflowPolicy the producer overflow policy
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerOverflowPolicy(ProducerOverflowPolicy producerOverflowPolicy) {
+        if(producerOverflowPolicy == null)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_EMPTY);
+        }
+        properties.setProperty(SettingsKeys.PRODUCER_OVERFLOW_POLICY, producerOverflowPolicy.name());
+        return this;
+    }
+
+    /**
+     * Sets the max time(ms) a sender waits for space in a full producer buffer (default 1000)
+     *
+     * @param producerOverflowTimeout the producer overflow timeout(ms)
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerOverflowTimeout(int producerOverflowTimeout) {
+        properties.setProperty(SettingsKeys.PRODUCER_OVERFLOW_TIMEOUT, String.valueOf(producerOverflowTimeout));
+        return this;
+    }
+
+    /**
+     * Sets the number of channels (stripes) the ticket producer publishes over (default 1)
+     *
+     * @param ticketPublishStripes the number of ticket publish stripes
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setTicketPublishStripes(int ticketPublishStripes) {
+        if(ticketPublishStripes <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_STRIPES, String.valueOf(ticketPublishStripes));
+        return this;
+    }
+
+    /**
+     * Sets the number of times an idle producer thread checks for new messages before it parks (default 0)
+     *
+     * @param producerIdleSpinTries the producer idle spin tries
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerIdleSpinTries(int producerIdleSpinTries) {
+        properties.setProperty(SettingsKeys.PRODUCER_IDLE_SPIN_TRIES, String.valueOf(producerIdleSpinTries));
+        return this;
+    }
+
+    /**
+     * Sets the max number of tickets each producer holds while the broker blocks the connection (default 0, reject)
+     *
+     * @param producerBlockedHoldLimit the producer blocked hold limit
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerBlockedHoldLimit(int producerBlockedHoldLimit) {
+        properties.setProperty(SettingsKeys.PRODUCER_BLOCKED_HOLD_LIMIT, String.valueOf(producerBlockedHoldLimit));
+        return this;
+    }
+
+    /**
+     * Sets the max number of held tickets per second published once the connection is unblocked (default 1000)
+     *
+     * @param producerBlockedDrainRate the producer blocked drain rate
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setProducerBlockedDrainRate(int producerBlockedDrainRate) {
+        if(producerBlockedDrainRate <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.PRODUCER_BLOCKED_DRAIN_RATE, String.valueOf(producerBlockedDrainRate));
+        return this;
+    }
+
+    /**
+     * Sets the directory of the ticket outbox; tickets never confirmed by the broker are reported on the next start
+     *
+     * @param ticketOutboxDirectory the ticket outbox directory
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setTicketOutboxDirectory(String ticketOutboxDirectory) {
+        if(StringUtils.isNullOrEmpty(ticketOutboxDirectory))
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_EMPTY);
+        }
+        properties.setProperty(SettingsKeys.TICKET_OUTBOX_DIRECTORY, ticketOutboxDirectory);
+        return this;
+    }
+
+    /**
+     * Sets the size (bytes) of a ticket outbox segment file (default 4194304)
+     *
+     * @param ticketOutboxSegmentSize the ticket outbox segment size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setTicketOutboxSegmentSize(int ticketOutboxSegmentSize) {
+        if(ticketOutboxSegmentSize <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.TICKET_OUTBOX_SEGMENT_SIZE, String.valueOf(ticketOutboxSegmentSize));
+        return this;
+    }
+
+    /**
+     * Sets the number of publishing threads shared by the ticket, cashout and non-sr settle producers (default 0, a
+     * thread per producer); the cancel and acknowledgment producers always keep their own thread
+     *
+     * @param sharedPublisherThreads the shared publisher threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setSharedPublisherThreads(int sharedPublisherThreads) {
+        properties.setProperty(SettingsKeys.SHARED_PUBLISHER_THREADS, String.valueOf(sharedPublisherThreads));
+        return this;
+    }
+
+    /**
+     * Sets the number of threads each response consumer consumes its messages on (default 0, the delivery thread)
+     *
+     * @param consumerDispatchThreads the consumer dispatch threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerDispatchThreads(int consumerDispatchThreads) {
+        properties.setProperty(SettingsKeys.CONSUMER_DISPATCH_THREADS, String.valueOf(consumerDispatchThreads));
+        return this;
+    }
+
+    /**
+     * Sets the number of consumed messages a response consumer acknowledges with a single frame (default 1)
+     *
+     * @param consumerAckBatchSize the consumer ack batch size
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerAckBatchSize(int consumerAckBatchSize) {
+        if(consumerAckBatchSize <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_BATCH_SIZE, String.valueOf(consumerAckBatchSize));
+        return this;
+    }
+
+    /**
+     * Sets the max time (in ms) a consumed message waits for its batched acknowledgement (default 5)
+     *
+     * @param consumerAckLingerMillis the consumer ack linger in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerAckLingerMillis(int consumerAckLingerMillis) {
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_LINGER_MILLIS, String.valueOf(consumerAckLingerMillis));
+        return this;
+    }
+
+    /**
+     * Sets the lowest prefetch count a response consumer adapts to (default 10)
+     *
+     * @param consumerPrefetchMin the consumer prefetch min
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerPrefetchMin(int consumerPrefetchMin) {
+        if(consumerPrefetchMin <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MIN, String.valueOf(consumerPrefetchMin));
+        return this;
+    }
+
+    /**
+     * Sets the highest prefetch count a response consumer adapts to (default 10)
+     *
+     * @param consumerPrefetchMax the consumer prefetch max
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerPrefetchMax(int consumerPrefetchMax) {
+        if(consumerPrefetchMax <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MAX, String.valueOf(consumerPrefetchMax));
+        return this;
+    }
+
+    /**
+     * Sets the time (in ms) from the delivery of a response to the end of its consumption above which a consumer with adaptive prefetch lowers its prefetch count (default 100)
+     *
+     * @param consumerTargetLatencyMillis the consumer target latency in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerTargetLatencyMillis(int consumerTargetLatencyMillis) {
+        if(consumerTargetLatencyMillis <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CONSUMER_TARGET_LATENCY_MILLIS, String.valueOf(consumerTargetLatencyMillis));
+        return this;
+    }
+
+    /**
+     * Sets the time (in ms) a response not consumed successfully waits for its first local retry (default 100)
+     *
+     * @param consumerRetryBackoffMillis the consumer retry backoff in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerRetryBackoffMillis(int consumerRetryBackoffMillis) {
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MILLIS, String.valueOf(consumerRetryBackoffMillis));
+        return this;
+    }
+
+    /**
+     * Sets the longest time (in ms) a response not consumed successfully waits for a local retry (default 30000)
+     *
+     * @param consumerRetryBackoffMaxMillis the consumer retry backoff max in ms
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setConsumerRetryBackoffMaxMillis(int consumerRetryBackoffMaxMillis) {
+        if(consumerRetryBackoffMaxMillis <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MAX_MILLIS, String.valueOf(consumerRetryBackoffMaxMillis));
+        return this;
+    }
+
+    /**
+     * Sets the max number of channels in use on one connection to the broker (default 256)
+     *
+     * @param channelsPerConnection the channels per connection
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setChannelsPerConnection(int channelsPerConnection) {
+        if(channelsPerConnection <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.CHANNELS_PER_CONNECTION, String.valueOf(channelsPerConnection));
+        return this;
+    }
+
+    /**
+     * Sets the number of channels opened in advance on the current connection to the broker, 0 for none (default 2)
+     *
+     * @param spareChannels the spare channels
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setSpareChannels(int spareChannels) {
+        properties.setProperty(SettingsKeys.SPARE_CHANNELS, String.valueOf(spareChannels));
+        return this;
+    }
+
+    /**
+     * Sets whether the connections to the broker use the NIO transport, sharing a few I/O threads among all SDK instances in the JVM (default false)
+     *
+     * @param nioEnabled value to be set
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setNioEnabled(boolean nioEnabled) {
+        properties.setProperty(SettingsKeys.NIO_ENABLED, String.valueOf(nioEnabled));
+        return this;
+    }
+
+    /**
+     * Sets the number of I/O threads of the NIO transport, shared by all SDK instances in the JVM using the same value (default 2)
+     *
+     * @param nioThreads the NIO threads
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setNioThreads(int nioThreads) {
+        if(nioThreads <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.NIO_THREADS, String.valueOf(nioThreads));
+        return this;
+    }
+
+    /**
+     * Sets the max number of published messages of one sender waiting for their publish result; when reached, the oldest is evicted with a publish failure (default 500000)
+     *
+     * @param inFlightLimit the in-flight limit
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setInFlightLimit(int inFlightLimit) {
+        if(inFlightLimit <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.IN_FLIGHT_LIMIT, String.valueOf(inFlightLimit));
+        return this;
+    }
+
+    /**
+     * Sets the max time in milliseconds a published message waits for its publish result before it is evicted with a publish failure (default 60000)
+     *
+     * @param inFlightMaxAgeMillis the in-flight max age in milliseconds
+     * @return {@link SdkConfigurationBuilder}
+     */
+    @Override
+    public SdkConfigurationBuilder setInFlightMaxAgeMillis(int inFlightMaxAgeMillis) {
+        if(inFlightMaxAgeMillis <= 0)
+        {
+            throw new IllegalArgumentException(SdkInfo.Literals.CONFIG_BUILDER_PARAM_ZERO);
+        }
+        properties.setProperty(SettingsKeys.IN_FLIGHT_MAX_AGE_MILLIS, String.valueOf(inFlightMaxAgeMillis));
+        return this;
+    }
+
     /**
      * Build and return the {@link SdkConfiguration}
      *
@@ -4,6 +4,7 @@
 
 package com.sportradar.mts.sdk.api.settings;
 
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.UfEnvironment;
 import com.sportradar.mts.sdk.api.exceptions.MtsPropertiesException;
@@ -46,6 +47,32 @@ public class SdkConfigurationImpl implements SdkConfiguration {
     private final String keycloakSecret;
     private final String mtsClientApiHost;
     private final UfEnvironment ufEnvironment;
+    private final int ticketPublishBatchSize;
+    private final int ticketPublishLingerMillis;
+    private final int producerBufferSize;
+    private final ProducerOverflowPolicy producerOverflowPolicy;
+    private final int producerOverflowTimeout;
+    private final int ticketPublishStripes;
+    private final int producerIdleSpinTries;
+    private final int producerBlockedHoldLimit;
+    private final int producerBlockedDrainRate;
+    private final String ticketOutboxDirectory;
+    private final int ticketOutboxSegmentSize;
+    private final int sharedPublisherThreads;
+    private final int consumerDispatchThreads;
+    private final int consumerAckBatchSize;
+    private final int consumerAckLingerMillis;
+    private final int consumerPrefetchMin;
+    private final int consumerPrefetchMax;
+    private final int consumerTargetLatencyMillis;
+    private final int consumerRetryBackoffMillis;
+    private final int consumerRetryBackoffMaxMillis;
+    private final int channelsPerConnection;
+    private final int spareChannels;
+    private final boolean nioEnabled;
+    private final int nioThreads;
+    private final int inFlightLimit;
+    private final int inFlightMaxAgeMillis;
 
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     protected SdkConfigurationImpl(String username,
@@ -74,7 +101,33 @@ public class SdkConfigurationImpl implements SdkConfiguration {
                                    String keycloakUsername,
                                    String keycloakPassword,
                                    String keycloakSecret,
-                                   String mtsClientApiHost)
+                                   String mtsClientApiHost,
+                                   int ticketPublishBatchSize,
+                                   int ticketPublishLingerMillis,
+                                   int producerBufferSize,
+                                   ProducerOverflowPolicy producerOverflowPolicy,
+                                   int producerOverflowTimeout,
+                                   int ticketPublishStripes,
+                                   int producerIdleSpinTries,
+                                   int producerBlockedHoldLimit,
+                                   int producerBlockedDrainRate,
+                                   String ticketOutboxDirectory,
+                                   int ticketOutboxSegmentSize,
+                                   int sharedPublisherThreads,
+                                   int consumerDispatchThreads,
+                                   int consumerAckBatchSize,
+                                   int consumerAckLingerMillis,
+                                   int consumerPrefetchMin,
+                                   int consumerPrefetchMax,
+                                   int consumerTargetLatencyMillis,
+                                   int consumerRetryBackoffMillis,
+                                   int consumerRetryBackoffMaxMillis,
+                                   int channelsPerConnection,
+                                   int spareChannels,
+                                   boolean nioEnabled,
+                                   int nioThreads,
+                                   int inFlightLimit,
+                                   int inFlightMaxAgeMillis)
     {
         this.username = username;
         this.password = password;
@@ -112,6 +165,33 @@ public class SdkConfigurationImpl implements SdkConfiguration {
         this.keycloakPassword = keycloakPassword;
         this.keycloakSecret = keycloakSecret;
         this.mtsClientApiHost = mtsClientApiHost;
+
+        this.ticketPublishBatchSize = ticketPublishBatchSize;
+        this.ticketPublishLingerMillis = ticketPublishLingerMillis;
+        this.producerBufferSize = producerBufferSize;
+        this.producerOverflowPolicy = producerOverflowPolicy;
+        this.producerOverflowTimeout = producerOverflowTimeout;
+        this.ticketPublishStripes = ticketPublishStripes;
+        this.producerIdleSpinTries = producerIdleSpinTries;
+        this.producerBlockedHoldLimit = producerBlockedHoldLimit;
+        this.producerBlockedDrainRate = producerBlockedDrainRate;
+        this.ticketOutboxDirectory = ticketOutboxDirectory;
+        this.ticketOutboxSegmentSize = ticketOutboxSegmentSize;
+        this.sharedPublisherThreads = sharedPublisherThreads;
+        this.consumerDispatchThreads = consumerDispatchThreads;
+        this.consumerAckBatchSize = consumerAckBatchSize;
+        this.consumerAckLingerMillis = consumerAckLingerMillis;
+        this.consumerPrefetchMin = consumerPrefetchMin;
+        this.consumerPrefetchMax = consumerPrefetchMax;
+        this.consumerTargetLatencyMillis = consumerTargetLatencyMillis;
+        this.consumerRetryBackoffMillis = consumerRetryBackoffMillis;
+        this.consumerRetryBackoffMaxMillis = consumerRetryBackoffMaxMillis;
+        this.channelsPerConnection = channelsPerConnection;
+        this.spareChannels = spareChannels;
+        this.nioEnabled = nioEnabled;
+        this.nioThreads = nioThreads;
+        this.inFlightLimit = inFlightLimit;
+        this.inFlightMaxAgeMillis = inFlightMaxAgeMillis;
     }
 
     protected SdkConfigurationImpl(Properties properties)
@@ -155,6 +235,33 @@ public class SdkConfigurationImpl implements SdkConfiguration {
         this.keycloakPassword = config.getKeycloakPassword();
         this.keycloakSecret = config.getKeycloakSecret();
         this.mtsClientApiHost = config.getMtsClientApiHost();
+
+        this.ticketPublishBatchSize = config.getTicketPublishBatchSize();
+        this.ticketPublishLingerMillis = config.getTicketPublishLingerMillis();
+        this.producerBufferSize = config.getProducerBufferSize();
+        this.producerOverflowPolicy = config.getProducerOverflowPolicy();
+        this.producerOverflowTimeout = config.getProducerOverflowTimeout();
+        this.ticketPublishStripes = config.getTicketPublishStripes();
+        this.producerIdleSpinTries = config.getProducerIdleSpinTries();
+        this.producerBlockedHoldLimit = config.getProducerBlockedHoldLimit();
+        this.producerBlockedDrainRate = config.getProducerBlockedDrainRate();
+        this.ticketOutboxDirectory = config.getTicketOutboxDirectory();
+        this.ticketOutboxSegmentSize = config.getTicketOutboxSegmentSize();
+        this.sharedPublisherThreads = config.getSharedPublisherThreads();
+        this.consumerDispatchThreads = config.getConsumerDispatchThreads();
+        this.consumerAckBatchSize = config.getConsumerAckBatchSize();
+        this.consumerAckLingerMillis = config.getConsumerAckLingerMillis();
+        this.consumerPrefetchMin = config.getConsumerPrefetchMin();
+        this.consumerPrefetchMax = config.getConsumerPrefetchMax();
+        this.consumerTargetLatencyMillis = config.getConsumerTargetLatencyMillis();
+        this.consumerRetryBackoffMillis = config.getConsumerRetryBackoffMillis();
+        this.consumerRetryBackoffMaxMillis = config.getConsumerRetryBackoffMaxMillis();
+        this.channelsPerConnection = config.getChannelsPerConnection();
+        this.spareChannels = config.getSpareChannels();
+        this.nioEnabled = config.getNioEnabled();
+        this.nioThreads = config.getNioThreads();
+        this.inFlightLimit = config.getInFlightLimit();
+        this.inFlightMaxAgeMillis = config.getInFlightMaxAgeMillis();
     }
 
     @Override
@@ -258,6 +365,136 @@ public class SdkConfigurationImpl implements SdkConfiguration {
         return mtsClientApiHost;
     }
 
+    @Override
+    public int getTicketPublishBatchSize() {
+        return ticketPublishBatchSize;
+    }
+
+    @Override
+    public int getTicketPublishLingerMillis() {
+        return ticketPublishLingerMillis;
+    }
+
+    @Override
+    public int getProducerBufferSize() {
+        return producerBufferSize;
+    }
+
+    @Override
+    public ProducerOverflowPolicy getProducerOverflowPolicy() {
+        return producerOverflowPolicy;
+    }
+
+    @Override
+    public int getProducerOverflowTimeout() {
+        return producerOverflowTimeout;
+    }
+
+    @Override
+    public int getTicketPublishStripes() {
+        return ticketPublishStripes;
+    }
+
+    @Override
+    public int getProducerIdleSpinTries() {
+        return producerIdleSpinTries;
+    }
+
+    @Override
+    public int getProducerBlockedHoldLimit() {
+        return producerBlockedHoldLimit;
+    }
+
+    @Override
+    public int getProducerBlockedDrainRate() {
+        return producerBlockedDrainRate;
+    }
+
+    @Override
+    public String getTicketOutboxDirectory() {
+        return ticketOutboxDirectory;
+    }
+
+    @Override
+    public int getTicketOutboxSegmentSize() {
+        return ticketOutboxSegmentSize;
+    }
+
+    @Override
+    public int getSharedPublisherThreads() {
+        return sharedPublisherThreads;
+    }
+
+    @Override
+    public int getConsumerDispatchThreads() {
+        return consumerDispatchThreads;
+    }
+
+    @Override
+    public int getConsumerAckBatchSize() {
+        return consumerAckBatchSize;
+    }
+
+    @Override
+    public int getConsumerAckLingerMillis() {
+        return consumerAckLingerMillis;
+    }
+
+    @Override
+    public int getConsumerPrefetchMin() {
+        return consumerPrefetchMin;
+    }
+
+    @Override
+    public int getConsumerPrefetchMax() {
+        return consumerPrefetchMax;
+    }
+
+    @Override
+    public int getConsumerTargetLatencyMillis() {
+        return consumerTargetLatencyMillis;
+    }
+
+    @Override
+    public int getConsumerRetryBackoffMillis() {
+        return consumerRetryBackoffMillis;
+    }
+
+    @Override
+    public int getConsumerRetryBackoffMaxMillis() {
+        return consumerRetryBackoffMaxMillis;
+    }
+
+    @Override
+    public int getChannelsPerConnection() {
+        return channelsPerConnection;
+    }
+
+    @Override
+    public int getSpareChannels() {
+        return spareChannels;
+    }
+
+    @Override
+    public boolean getNioEnabled() {
+        return nioEnabled;
+    }
+
+    @Override
+    public int getNioThreads() {
+        return nioThreads;
+    }
+
+    @Override
+    public int getInFlightLimit() {
+        return inFlightLimit;
+    }
+
+    @Override
+    public int getInFlightMaxAgeMillis() {
+        return inFlightMaxAgeMillis;
+    }
+
     @Override
     public String toString() {
         return "SdkConfiguration{" +
@@ -287,6 +524,32 @@ public class SdkConfigurationImpl implements SdkConfiguration {
                 ", keycloakPassword='" + "*" + '\'' +
                 ", keycloakSecret='" + "*" + '\'' +
                 ", mtsClientApiHost='" + mtsClientApiHost + '\'' +
+                ", ticketPublishBatchSize=" + ticketPublishBatchSize +
+                ", ticketPublishLingerMillis=" + ticketPublishLingerMillis +
+                ", producerBufferSize=" + producerBufferSize +
+                ", producerOverflowPolicy=" + producerOverflowPolicy +
+                ", producerOverflowTimeout=" + producerOverflowTimeout +
+                ", ticketPublishStripes=" + ticketPublishStripes +
+                ", producerIdleSpinTries=" + producerIdleSpinTries +
+                ", producerBlockedHoldLimit=" + producerBlockedHoldLimit +
+                ", producerBlockedDrainRate=" + producerBlockedDrainRate +
+                ", ticketOutboxDirectory='" + ticketOutboxDirectory + '\'' +
+                ", ticketOutboxSegmentSize=" + ticketOutboxSegmentSize +
+                ", sharedPublisherThreads=" + sharedPublisherThreads +
+                ", consumerDispatchThreads=" + consumerDispatchThreads +
+                ", consumerAckBatchSize=" + consumerAckBatchSize +
+                ", consumerAckLingerMillis=" + consumerAckLingerMillis +
+                ", consumerPrefetchMin=" + consumerPrefetchMin +
+                ", consumerPrefetchMax=" + consumerPrefetchMax +
+                ", consumerTargetLatencyMillis=" + consumerTargetLatencyMillis +
+                ", consumerRetryBackoffMillis=" + consumerRetryBackoffMillis +
+                ", consumerRetryBackoffMaxMillis=" + consumerRetryBackoffMaxMillis +
+                ", channelsPerConnection=" + channelsPerConnection +
+                ", spareChannels=" + spareChannels +
+                ", nioEnabled=" + nioEnabled +
+                ", nioThreads=" + nioThreads +
+                ", inFlightLimit=" + inFlightLimit +
+                ", inFlightMaxAgeMillis=" + inFlightMaxAgeMillis +
                 '}';
     }
 
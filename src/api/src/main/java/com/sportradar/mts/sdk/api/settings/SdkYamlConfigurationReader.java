@@ -133,6 +133,32 @@ class SdkYamlConfigurationReader {
         handlePossibleProperty(result, sdkConfiguration, "keycloakPassword", SettingsKeys.KEYCLOAK_PASSWORD);
         handlePossibleProperty(result, sdkConfiguration, "keycloakSecret", SettingsKeys.KEYCLOAK_SECRET);
         handlePossibleProperty(result, sdkConfiguration, "mtsClientApiHost", SettingsKeys.MTS_CLIENT_API_HOST);
+        handlePossibleProperty(result, sdkConfiguration, "ticketPublishBatchSize", SettingsKeys.TICKET_PUBLISH_BATCH_SIZE);
+        handlePossibleProperty(result, sdkConfiguration, "ticketPublishLingerMillis", SettingsKeys.TICKET_PUBLISH_LINGER);
+        handlePossibleProperty(result, sdkConfiguration, "producerBufferSize", SettingsKeys.PRODUCER_BUFFER_SIZE);
+        handlePossibleProperty(result, sdkConfiguration, "producerOverflowPolicy", SettingsKeys.PRODUCER_OVERFLOW_POLICY);
+        handlePossibleProperty(result, sdkConfiguration, "producerOverflowTimeout", SettingsKeys.PRODUCER_OVERFLOW_TIMEOUT);
+        handlePossibleProperty(result, sdkConfiguration, "ticketPublishStripes", SettingsKeys.TICKET_PUBLISH_STRIPES);
+        handlePossibleProperty(result, sdkConfiguration, "producerIdleSpinTries", SettingsKeys.PRODUCER_IDLE_SPIN_TRIES);
+        handlePossibleProperty(result, sdkConfiguration, "producerBlockedHoldLimit", SettingsKeys.PRODUCER_BLOCKED_HOLD_LIMIT);
+        handlePossibleProperty(result, sdkConfiguration, "producerBlockedDrainRate", SettingsKeys.PRODUCER_BLOCKED_DRAIN_RATE);
+        handlePossibleProperty(result, sdkConfiguration, "ticketOutboxDirectory", SettingsKeys.TICKET_OUTBOX_DIRECTORY);
+        handlePossibleProperty(result, sdkConfiguration, "ticketOutboxSegmentSize", SettingsKeys.TICKET_OUTBOX_SEGMENT_SIZE);
+        handlePossibleProperty(result, sdkConfiguration, "sharedPublisherThreads", SettingsKeys.SHARED_PUBLISHER_THREADS);
+        handlePossibleProperty(result, sdkConfiguration, "consumerDispatchThreads", SettingsKeys.CONSUMER_DISPATCH_THREADS);
+        handlePossibleProperty(result, sdkConfiguration, "consumerAckBatchSize", SettingsKeys.CONSUMER_ACK_BATCH_SIZE);
+        handlePossibleProperty(result, sdkConfiguration, "consumerAckLingerMillis", SettingsKeys.CONSUMER_ACK_LINGER_MILLIS);
+        handlePossibleProperty(result, sdkConfiguration, "consumerPrefetchMin", SettingsKeys.CONSUMER_PREFETCH_MIN);
+        handlePossibleProperty(result, sdkConfiguration, "consumerPrefetchMax", SettingsKeys.CONSUMER_PREFETCH_MAX);
+        handlePossibleProperty(result, sdkConfiguration, "consumerTargetLatencyMillis", SettingsKeys.CONSUMER_TARGET_LATENCY_MILLIS);
+        handlePossibleProperty(result, sdkConfiguration, "consumerRetryBackoffMillis", SettingsKeys.CONSUMER_RETRY_BACKOFF_MILLIS);
+        handlePossibleProperty(result, sdkConfiguration, "consumerRetryBackoffMaxMillis", SettingsKeys.CONSUMER_RETRY_BACKOFF_MAX_MILLIS);
+        handlePossibleProperty(result, sdkConfiguration, "channelsPerConnection", SettingsKeys.CHANNELS_PER_CONNECTION);
+        handlePossibleProperty(result, sdkConfiguration, "spareChannels", SettingsKeys.SPARE_CHANNELS);
+        handlePossibleProperty(result, sdkConfiguration, "nioEnabled", SettingsKeys.NIO_ENABLED);
+        handlePossibleProperty(result, sdkConfiguration, "nioThreads", SettingsKeys.NIO_THREADS);
+        handlePossibleProperty(result, sdkConfiguration, "inFlightLimit", SettingsKeys.IN_FLIGHT_LIMIT);
+        handlePossibleProperty(result, sdkConfiguration, "inFlightMaxAgeMillis", SettingsKeys.IN_FLIGHT_MAX_AGE_MILLIS);
 
         return result;
     }
@@ -123,4 +123,117 @@ public final class SettingsKeys {
      * Gets the Client API host
      */
     public static final String MTS_CLIENT_API_HOST = PREFIX + "mtsClientApiHost";
+    /**
+     * Max number of tickets published back-to-back by the ticket producer before waiting for publisher confirms. Default 1
+     */
+    public static final String TICKET_PUBLISH_BATCH_SIZE = PREFIX + "ticketPublishBatchSize";
+    /**
+     * Max time(ms) the ticket producer waits for a publish batch to fill up. Default 0
+     */
+    public static final String TICKET_PUBLISH_LINGER = PREFIX + "ticketPublishLingerMillis";
+    /**
+     * Max number of messages buffered by each producer before the overflow policy applies. Default 64
+     */
+    public static final String PRODUCER_BUFFER_SIZE = PREFIX + "producerBufferSize";
+    /**
+     * What happens to messages sent while the producer buffer is full (REJECT, BLOCK, SPIN_THEN_PARK). Default REJECT
+     */
+    public static final String PRODUCER_OVERFLOW_POLICY = PREFIX + "producerOverflowPolicy";
+    /**
+     * Max time(ms) a sender waits for space in a full producer buffer (BLOCK and SPIN_THEN_PARK). Default 1000
+     */
+    public static final String PRODUCER_OVERFLOW_TIMEOUT = PREFIX + "producerOverflowTimeout";
+    /**
+     * Number of channels (stripes) the ticket producer publishes over, a ticket always uses the same one. Default 1
+     */
+    public static final String TICKET_PUBLISH_STRIPES = PREFIX + "ticketPublishStripes";
+    /**
+     * Times an idle producer thread checks (yielding) for new messages before it parks; trades CPU for the latency of
+     * the first message after a pause. Default 0 (park at once)
+     */
+    public static final String PRODUCER_IDLE_SPIN_TRIES = PREFIX + "producerIdleSpinTries";
+    /**
+     * Max number of tickets each producer holds while the broker blocks the connection (flow control); 0 rejects
+     * tickets sent while blocked at once. Default 0
+     */
+    public static final String PRODUCER_BLOCKED_HOLD_LIMIT = PREFIX + "producerBlockedHoldLimit";
+    /**
+     * Max number of held tickets per second each producer publishes once the connection is unblocked. Default 1000
+     */
+    public static final String PRODUCER_BLOCKED_DRAIN_RATE = PREFIX + "producerBlockedDrainRate";
+    /**
+     * Directory of the ticket outbox: tickets are written there before they are sent, and the ones never confirmed by
+     * the broker are reported as in-doubt on the next start. Not set by default (no outbox)
+     */
+    public static final String TICKET_OUTBOX_DIRECTORY = PREFIX + "ticketOutboxDirectory";
+    /**
+     * Size (bytes) of a ticket outbox segment file. Default 4194304
+     */
+    public static final String TICKET_OUTBOX_SEGMENT_SIZE = PREFIX + "ticketOutboxSegmentSize";
+    /**
+     * Number of publishing threads shared by all the producers (ticket, cancel, ack, ...); 0 gives each producer its
+     * own thread. Default 0
+     */
+    public static final String SHARED_PUBLISHER_THREADS = PREFIX + "sharedPublisherThreads";
+    /**
+     * Number of threads each response consumer consumes its messages on, the responses of the same ticket on the same
+     * thread (in order); 0 consumes them on the delivery thread of the connection. Default 0
+     */
+    public static final String CONSUMER_DISPATCH_THREADS = PREFIX + "consumerDispatchThreads";
+    /**
+     * Number of consumed messages a response consumer acknowledges with a single frame; 1 acks
+     * every message on its own. Capped at the prefetch count. Default 1
+     */
+    public static final String CONSUMER_ACK_BATCH_SIZE = PREFIX + "consumerAckBatchSize";
+    /**
+     * Max time (in ms) a consumed message waits for its batched acknowledgement. Default 5
+     */
+    public static final String CONSUMER_ACK_LINGER_MILLIS = PREFIX + "consumerAckLingerMillis";
+    /**
+     * Lowest prefetch count a response consumer adapts to when its listener slows down. Default 10
+     */
+    public static final String CONSUMER_PREFETCH_MIN = PREFIX + "consumerPrefetchMin";
+    /**
+     * Highest prefetch count a response consumer adapts to during bursts; equal to
+     * consumerPrefetchMin for a fixed prefetch count. Default 10
+     */
+    public static final String CONSUMER_PREFETCH_MAX = PREFIX + "consumerPrefetchMax";
+    /**
+     * Time (in ms) from the delivery of a response to the end of its consumption above which a consumer with
+     * adaptive prefetch lowers its prefetch count. Default 100
+     */
+    public static final String CONSUMER_TARGET_LATENCY_MILLIS = PREFIX + "consumerTargetLatencyMillis";
+    /**
+     * Time (in ms) a response not consumed successfully waits for its first local retry; each further retry waits
+     * twice as long. Default 100
+     */
+    public static final String CONSUMER_RETRY_BACKOFF_MILLIS = PREFIX + "consumerRetryBackoffMillis";
+    /**
+     * Longest time (in ms) a response not consumed successfully waits for a local retry. Default 30000
+     */
+    public static final String CONSUMER_RETRY_BACKOFF_MAX_MILLIS = PREFIX + "consumerRetryBackoffMaxMillis";
+    /**
+     * Max number of channels in use on one connection to the broker, another connection is opened for more. Default 256
+     */
+    public static final String CHANNELS_PER_CONNECTION = PREFIX + "channelsPerConnection";
+    /**
+     * Number of channels opened in advance on the current connection to the broker, 0 for none. Default 2
+     */
+    public static final String SPARE_CHANNELS = PREFIX + "spareChannels";
+    /**
+     * Whether the connections to the broker use the NIO transport, sharing a few I/O threads among all the SDK instances in the JVM, instead of a socket thread each. Default false
+     */
+    public static final String NIO_ENABLED = PREFIX + "nioEnabled";
+    /**
+     * Number of I/O threads of the NIO transport, shared by all SDK instances in the JVM using the same value. Default 2
+     */
+    public static final String NIO_THREADS = PREFIX + "nioThreads";
+    /**
+     * Max number of published messages of one sender waiting for their publish result; when reached, the oldest is evicted with a publish failure. Default 500000
+     */
+    public static final String IN_FLIGHT_LIMIT = PREFIX + "inFlightLimit";
+    /**
+     * Max time in milliseconds a published message waits for its publish result before it is evicted with a publish failure. Default 60000
+     */
+    public static final String IN_FLIGHT_MAX_AGE_MILLIS = PREFIX + "inFlightMaxAgeMillis";
 }
@@ -27,6 +27,54 @@ public final class SdkInfo {
     public static final int TICKET_CANCELLATION_RESPONSE_TIMEOUT_MAX = 3600000;
     public static final int TICKET_CASHOUT_RESPONSE_TIMEOUT_MAX = 3600000;
     public static final int TICKET_NON_SR_RESPONSE_TIMEOUT_MAX = 3600000;
+    public static final int TICKET_PUBLISH_BATCH_SIZE_DEFAULT = 1;
+    public static final int TICKET_PUBLISH_BATCH_SIZE_MAX = 1000;
+    public static final int TICKET_PUBLISH_LINGER_DEFAULT = 0;
+    public static final int TICKET_PUBLISH_LINGER_MAX = 1000;
+    public static final int PRODUCER_BUFFER_SIZE_DEFAULT = 64;
+    public static final int PRODUCER_BUFFER_SIZE_MAX = 65536;
+    public static final int PRODUCER_OVERFLOW_TIMEOUT_DEFAULT = 1000;
+    public static final int PRODUCER_OVERFLOW_TIMEOUT_MAX = 60000;
+    public static final int TICKET_PUBLISH_STRIPES_DEFAULT = 1;
+    public static final int TICKET_PUBLISH_STRIPES_MAX = 32;
+    public static final int PRODUCER_IDLE_SPIN_TRIES_DEFAULT = 0;
+    public static final int PRODUCER_IDLE_SPIN_TRIES_MAX = 100000;
+    public static final int PRODUCER_BLOCKED_HOLD_LIMIT_DEFAULT = 0;
+    public static final int PRODUCER_BLOCKED_HOLD_LIMIT_MAX = 65536;
+    public static final int PRODUCER_BLOCKED_DRAIN_RATE_DEFAULT = 1000;
+    public static final int PRODUCER_BLOCKED_DRAIN_RATE_MAX = 100000;
+    public static final int TICKET_OUTBOX_SEGMENT_SIZE_DEFAULT = 4194304;
+    public static final int TICKET_OUTBOX_SEGMENT_SIZE_MIN = 65536;
+    public static final int TICKET_OUTBOX_SEGMENT_SIZE_MAX = 1073741824;
+    public static final int SHARED_PUBLISHER_THREADS_DEFAULT = 0;
+    public static final int SHARED_PUBLISHER_THREADS_MAX = 8;
+    public static final int CONSUMER_DISPATCH_THREADS_DEFAULT = 0;
+    public static final int CONSUMER_DISPATCH_THREADS_MAX = 16;
+    public static final int CONSUMER_ACK_BATCH_SIZE_DEFAULT = 1;
+    public static final int CONSUMER_ACK_BATCH_SIZE_MAX = 1000;
+    public static final int CONSUMER_ACK_LINGER_MILLIS_DEFAULT = 5;
+    public static final int CONSUMER_ACK_LINGER_MILLIS_MAX = 1000;
+    public static final int CONSUMER_PREFETCH_MIN_DEFAULT = RABBIT_PREFETCH_COUNT;
+    public static final int CONSUMER_PREFETCH_MIN_MAX = 1000;
+    public static final int CONSUMER_PREFETCH_MAX_DEFAULT = RABBIT_PREFETCH_COUNT;
+    public static final int CONSUMER_PREFETCH_MAX_MAX = 1000;
+    public static final int CONSUMER_TARGET_LATENCY_MILLIS_DEFAULT = 100;
+    public static final int CONSUMER_TARGET_LATENCY_MILLIS_MAX = 60000;
+    public static final int CONSUMER_RETRY_BACKOFF_MILLIS_DEFAULT = 100;
+    public static final int CONSUMER_RETRY_BACKOFF_MILLIS_MAX = 60000;
+    public static final int CONSUMER_RETRY_BACKOFF_MAX_MILLIS_DEFAULT = 30000;
+    public static final int CONSUMER_RETRY_BACKOFF_MAX_MILLIS_MAX = 600000;
+    public static final int CHANNELS_PER_CONNECTION_DEFAULT = 256;
+    public static final int CHANNELS_PER_CONNECTION_MAX = 2047;
+    public static final int SPARE_CHANNELS_DEFAULT = 2;
+    public static final int SPARE_CHANNELS_MAX = 64;
+    public static final int NIO_THREADS_DEFAULT = 2;
+    public static final int NIO_THREADS_MAX = 64;
+    public static final int IN_FLIGHT_LIMIT_DEFAULT = 500000;
+    public static final int IN_FLIGHT_LIMIT_MAX = 10000000;
+    public static final int IN_FLIGHT_MAX_AGE_MILLIS_DEFAULT = 60000;
+    public static final int IN_FLIGHT_MAX_AGE_MILLIS_MIN = 1000;
+    public static final int IN_FLIGHT_MAX_AGE_MILLIS_MAX = 3600000;
     public static final String API_HOST_INTEGRATION = "https://global.stgapi.betradar.com";
     public static final String API_HOST_PRODUCTION = "https://global.api.betradar.com";
 
@@ -7,6 +7,7 @@ package com.sportradar.mts.sdk.app;
 import com.google.common.base.Preconditions;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.sportradar.mts.sdk.api.InDoubtTicket;
 import com.sportradar.mts.sdk.api.builders.BuilderFactory;
 import com.sportradar.mts.sdk.api.exceptions.MtsPropertiesException;
 import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
@@ -16,11 +17,14 @@ import com.sportradar.mts.sdk.api.settings.SdkConfigurationBuilderImpl;
 import com.sportradar.mts.sdk.api.settings.SdkConfigurationImpl;
 import com.sportradar.mts.sdk.api.utils.SdkInfo;
 import com.sportradar.mts.sdk.impl.di.SdkInjectionModule;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
 import com.sportradar.mts.sdk.impl.libs.root.SdkRoot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -41,6 +45,7 @@ public class MtsSdk implements MtsSdkApi {
     private CustomBetManager customBetManager;
     private ReportManager reportManager;
     private ConnectionStatusImpl connectionStatus;
+    private TicketOutbox ticketOutbox;
 
     /**
      * Creates new MTS SDK instance
@@ -57,6 +62,7 @@ public class MtsSdk implements MtsSdkApi {
         reportManager = injector.getInstance(ReportManager.class);
         connectionStatus = (ConnectionStatusImpl) injector.getInstance(ConnectionStatus.class);
         sdkRoot = injector.getInstance(SdkRoot.class);
+        ticketOutbox = injector.getInstance(TicketOutbox.class);
         logInit();
     }
 
@@ -83,6 +89,7 @@ public class MtsSdk implements MtsSdkApi {
                 opened = false;
                 closed = true;
                 sdkRoot.close();
+                ticketOutbox.close();
                 logger.info("MTS SDK closed");
             }
         }
@@ -192,6 +199,21 @@ public class MtsSdk implements MtsSdkApi {
         return connectionStatus;
     }
 
+    @Override
+    public CompletableFuture<WarmupReport> getReadiness() {
+        return sdkRoot.getReadiness();
+    }
+
+    @Override
+    public List<InDoubtTicket> getInDoubtTickets() {
+        return ticketOutbox.getInDoubtTickets();
+    }
+
+    @Override
+    public void clearInDoubtTickets() {
+        ticketOutbox.clearInDoubtTickets();
+    }
+
     @Override
     public boolean isOpen() {
         return opened;
@@ -43,6 +43,9 @@ import com.sportradar.mts.sdk.impl.libs.customBet.CustomBetManagerImpl;
 import com.sportradar.mts.sdk.impl.libs.handlers.*;
 import com.sportradar.mts.sdk.impl.libs.logging.FileSdkLoggerImpl;
 import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
+import com.sportradar.mts.sdk.impl.libs.outbox.DisabledTicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.outbox.MappedTicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
 import com.sportradar.mts.sdk.impl.libs.receivers.*;
 import com.sportradar.mts.sdk.impl.libs.root.SdkRoot;
 import com.sportradar.mts.sdk.impl.libs.root.SdkRootImpl;
@@ -59,6 +62,7 @@ import javax.inject.Singleton;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -105,6 +109,8 @@ public class SdkInjectionModule extends AbstractModule {
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public SdkRoot provideSdkRoot(SdkLogger sdkLogger,
                                   ScheduledExecutorService executorService,
+                                  @ControlExecutorBinding ScheduledExecutorService controlExecutorService,
+                                  @TimerExecutorBinding ScheduledExecutorService timerService,
                                   ChannelFactoryProvider channelFactoryProvider,
                                   TicketHandler ticketHandler,
                                   @TicketResponseMessageReceiverBinding AmqpMessageReceiver ticketAmqpMessageReceiver,
@@ -116,10 +122,13 @@ public class SdkInjectionModule extends AbstractModule {
                                   TicketCashoutHandler ticketCashoutHandler,
                                   @TicketCashoutResponseMessageReceiverBinding AmqpMessageReceiver ticketCashoutAmqpMessageReceiver,
                                   TicketNonSrSettleHandler ticketNonSrSettleHandler,
-                                  @TicketNonSrSettleResponseMessageReceiverBinding AmqpMessageReceiver ticketNonSrSettleAmpqMessageReceiver
+                                  @TicketNonSrSettleResponseMessageReceiverBinding AmqpMessageReceiver ticketNonSrSettleAmpqMessageReceiver,
+                                  AmqpWarmup warmup
     ) {
         return new SdkRootImpl(sdkLogger,
                 executorService,
+                controlExecutorService,
+                timerService,
                 channelFactoryProvider,
                 ticketHandler,
                 ticketAmqpMessageReceiver,
@@ -131,7 +140,38 @@ public class SdkInjectionModule extends AbstractModule {
                 ticketCashoutHandler,
                 ticketCashoutAmqpMessageReceiver,
                 ticketNonSrSettleHandler,
-                ticketNonSrSettleAmpqMessageReceiver);
+                ticketNonSrSettleAmpqMessageReceiver,
+                warmup);
+    }
+
+    @Singleton
+    @Provides
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public AmqpWarmup provideAmqpWarmup(ChannelFactoryProvider channelFactoryProvider,
+                                        AmqpCluster amqpCluster,
+                                        @TicketProducerBinding AmqpProducer ticketProducer,
+                                        @TicketCancelProducerBinding AmqpProducer ticketCancelProducer,
+                                        @TicketReofferCancelProducerBinding AmqpProducer ticketReofferCancelProducer,
+                                        @TicketCashoutProducerBinding AmqpProducer ticketCashoutProducer,
+                                        @TicketNonSrSettleProducerBinding AmqpProducer ticketNonSrSettleProducer,
+                                        @AcknowledgmentProducerBinding AmqpProducer acknowledgmentProducer,
+                                        @TicketResponseConsumerBinding AmqpConsumer ticketResponseConsumer,
+                                        @TicketCancelResponseConsumerBinding AmqpConsumer ticketCancelResponseConsumer,
+                                        @TicketCashoutResponseConsumerBinding AmqpConsumer ticketCashoutResponseConsumer,
+                                        @TicketNonSrSettleResponseConsumerBinding AmqpConsumer ticketNonSrSettleResponseConsumer
+    ) {
+        return new AmqpWarmup(channelFactoryProvider,
+                amqpCluster,
+                Arrays.asList(ticketProducer,
+                        ticketCancelProducer,
+                        ticketReofferCancelProducer,
+                        ticketCashoutProducer,
+                        ticketNonSrSettleProducer,
+                        acknowledgmentProducer),
+                Arrays.asList(ticketResponseConsumer,
+                        ticketCancelResponseConsumer,
+                        ticketCashoutResponseConsumer,
+                        ticketNonSrSettleResponseConsumer));
     }
 
     @Singleton
@@ -144,23 +184,28 @@ public class SdkInjectionModule extends AbstractModule {
     @Provides
     public TicketHandler provideTicketHandler(@TicketPublisherBinding AmqpPublisher amqpPublisher,
                                               ScheduledExecutorService executorService,
+                                              @TimerExecutorBinding ScheduledExecutorService timerService,
+                                              SharedRateLimiter rateLimiter,
                                               SdkLogger sdkLogger
     ) {
         String routingKey = "node" + sdkConfiguration.getNode() + ".ticket.confirm";
         return new TicketHandlerImpl(amqpPublisher,
                 routingKey,
                 executorService,
-                getTimeoutHandler(executorService, sdkConfiguration.getTicketResponseTimeoutLive(), sdkConfiguration.getTicketResponseTimeoutPrematch()),
+                getInFlightTracker(timerService),
+                getTimeoutHandler(timerService, executorService, sdkConfiguration.getTicketResponseTimeoutLive(), sdkConfiguration.getTicketResponseTimeoutPrematch()),
                 sdkConfiguration.getTicketResponseTimeoutLive(),
                 sdkConfiguration.getTicketResponseTimeoutPrematch(),
-                sdkConfiguration.getMessagesPerSecond(),
+                rateLimiter.newLane(MessagePriority.NORMAL),
                 sdkLogger);
     }
 
     @Singleton
     @Provides
     public TicketCancelHandler provideTicketSender(@TicketCancelPublisherBinding AmqpPublisher amqpPublisher,
-                                                   ScheduledExecutorService executorService,
+                                                   @ControlExecutorBinding ScheduledExecutorService executorService,
+                                                   @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                   SharedRateLimiter rateLimiter,
                                                    SdkLogger sdkLogger
     ) {
         String routingKey = "cancel";
@@ -169,51 +214,61 @@ public class SdkInjectionModule extends AbstractModule {
                 routingKey,
                 replyRoutingKey,
                 executorService,
-                getTimeoutHandler(executorService, sdkConfiguration.getTicketCancellationResponseTimeout(), sdkConfiguration.getTicketCancellationResponseTimeout()),
+                getInFlightTracker(timerService),
+                getTimeoutHandler(timerService, executorService, sdkConfiguration.getTicketCancellationResponseTimeout(), sdkConfiguration.getTicketCancellationResponseTimeout()),
                 sdkConfiguration.getTicketCancellationResponseTimeout(),
-                sdkConfiguration.getMessagesPerSecond(),
+                rateLimiter.newLane(MessagePriority.HIGH),
                 sdkLogger);
     }
 
     @Singleton
     @Provides
     public TicketReofferCancelHandler provideTicketReofferSender(@TicketReofferCancelPublisherBinding AmqpPublisher amqpPublisher,
-                                                                 ExecutorService executorService,
+                                                                 @ControlExecutorBinding ScheduledExecutorService executorService,
+                                                                 @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                                 SharedRateLimiter rateLimiter,
                                                                  SdkLogger sdkLogger
     ) {
         String routingKey = "cancel.reoffer";
         return new TicketReofferCancelHandlerImpl(amqpPublisher,
                 routingKey,
                 executorService,
-                sdkConfiguration.getMessagesPerSecond(),
+                getInFlightTracker(timerService),
+                rateLimiter.newLane(MessagePriority.HIGH),
                 sdkLogger);
     }
 
     @Singleton
     @Provides
     public TicketAckHandler provideTicketAcknowledgmentHandler(@TicketAcknowledgmentPublisherBinding AmqpPublisher amqpPublisher,
-                                                               ExecutorService executorService,
+                                                               @ControlExecutorBinding ScheduledExecutorService executorService,
+                                                               @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                               SharedRateLimiter rateLimiter,
                                                                SdkLogger sdkLogger
     ) {
         String routingKey = "ack.ticket";
         return new TicketAckHandlerImpl(amqpPublisher,
                 routingKey,
                 executorService,
-                sdkConfiguration.getMessagesPerSecond(),
+                getInFlightTracker(timerService),
+                rateLimiter.newLane(MessagePriority.HIGH),
                 sdkLogger);
     }
 
     @Singleton
     @Provides
     public TicketCancelAckHandler provideTicketCancelAcknowledgmentHandler(@TicketCancelAcknowledgmentPublisherBinding AmqpPublisher amqpPublisher,
-                                                                           ExecutorService executorService,
+                                                                           @ControlExecutorBinding ScheduledExecutorService executorService,
+                                                                           @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                                           SharedRateLimiter rateLimiter,
                                                                            SdkLogger sdkLogger
     ) {
         String routingKey = "ack.cancel";
         return new TicketCancelAckHandlerImpl(amqpPublisher,
                 routingKey,
                 executorService,
-                sdkConfiguration.getMessagesPerSecond(),
+                getInFlightTracker(timerService),
+                rateLimiter.newLane(MessagePriority.HIGH),
                 sdkLogger);
     }
 
@@ -221,6 +276,8 @@ public class SdkInjectionModule extends AbstractModule {
     @Provides
     public TicketCashoutHandler provideTicketCashoutHandler(@TicketCashoutPublisherBinding AmqpPublisher amqpPublisher,
                                                             ScheduledExecutorService executorService,
+                                                            @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                            SharedRateLimiter rateLimiter,
                                                             SdkLogger sdkLogger) {
         String routingKey = "ticket.cashout";
         String replyRoutingKey = "node" + sdkConfiguration.getNode() + ".ticket.cashout";
@@ -228,9 +285,10 @@ public class SdkInjectionModule extends AbstractModule {
                 routingKey,
                 replyRoutingKey,
                 executorService,
-                getTimeoutHandler(executorService, sdkConfiguration.getTicketCashoutResponseTimeout(), sdkConfiguration.getTicketCashoutResponseTimeout()),
+                getInFlightTracker(timerService),
+                getTimeoutHandler(timerService, executorService, sdkConfiguration.getTicketCashoutResponseTimeout(), sdkConfiguration.getTicketCashoutResponseTimeout()),
                 sdkConfiguration.getTicketCashoutResponseTimeout(),
-                sdkConfiguration.getMessagesPerSecond(),
+                rateLimiter.newLane(MessagePriority.NORMAL),
                 sdkLogger);
     }
 
@@ -238,6 +296,8 @@ public class SdkInjectionModule extends AbstractModule {
     @Provides
     public TicketNonSrSettleHandler provideTicketNonSrSettleHandler(@TicketNonSrSettlePublisherBinding AmqpPublisher amqpPublisher,
                                                                     ScheduledExecutorService executorService,
+                                                                    @TimerExecutorBinding ScheduledExecutorService timerService,
+                                                                    SharedRateLimiter rateLimiter,
                                                                     SdkLogger sdkLogger) {
         String routingKey = "ticket.nonsrsettle";
         String replyRoutingKey = "node" + sdkConfiguration.getNode() + ".ticket.nonsrsettle";
@@ -245,30 +305,85 @@ public class SdkInjectionModule extends AbstractModule {
                 routingKey,
                 replyRoutingKey,
                 executorService,
-                getTimeoutHandler(executorService, sdkConfiguration.getTicketNonSrSettleResponseTimeout(), sdkConfiguration.getTicketNonSrSettleResponseTimeout()),
+                getInFlightTracker(timerService),
+                getTimeoutHandler(timerService, executorService, sdkConfiguration.getTicketNonSrSettleResponseTimeout(), sdkConfiguration.getTicketNonSrSettleResponseTimeout()),
                 sdkConfiguration.getTicketNonSrSettleResponseTimeout(),
-                sdkConfiguration.getMessagesPerSecond(),
+                rateLimiter.newLane(MessagePriority.NORMAL),
                 sdkLogger);
     }
 
+    @Singleton
+    @Provides
+    public TicketOutbox provideTicketOutbox() {
+        if (sdkConfiguration.getTicketOutboxDirectory() == null) {
+            return new DisabledTicketOutbox();
+        }
+        return new MappedTicketOutbox(Paths.get(sdkConfiguration.getTicketOutboxDirectory()),
+                sdkConfiguration.getTicketOutboxSegmentSize());
+    }
+
+    @Singleton
+    @Provides
+    public SharedPublisherLoop provideSharedPublisherLoop(ChannelFactoryProvider channelFactoryProvider,
+                                                          AmqpCluster amqpCluster) {
+        // opens (starts its threads) only when a producer registers
+        return new SharedPublisherLoop(channelFactoryProvider,
+                amqpCluster,
+                Math.max(1, sdkConfiguration.getSharedPublisherThreads()),
+                sdkConfiguration.getProducerIdleSpinTries());
+    }
+
     @Singleton
     @Provides
     @TicketProducerBinding
     public AmqpProducer provideTicketAmqpProducer(ChannelFactoryProvider channelFactoryProvider,
-                                                  AmqpCluster amqpCluster
+                                                  AmqpCluster amqpCluster,
+                                                  TicketOutbox ticketOutbox,
+                                                  SharedPublisherLoop publisherLoop
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + "-Submit";
-        return new RabbitMqProducer(channelFactoryProvider,
-                "ticket-producer",
-                amqpCluster,
-                exchangeName,
-                ExchangeType.FANOUT,
-                1,
-                64,
-                1,
-                true,
-                true,
-                true);
+        final AmqpProducer producer;
+        if (sdkConfiguration.getTicketPublishStripes() > 1) {
+            producer = new StripedRabbitMqProducer(channelFactoryProvider,
+                    "ticket-producer",
+                    amqpCluster,
+                    exchangeName,
+                    ExchangeType.FANOUT,
+                    1,
+                    sdkConfiguration.getProducerBufferSize(),
+                    sdkConfiguration.getTicketPublishStripes(),
+                    true,
+                    true,
+                    true,
+                    sdkConfiguration.getTicketPublishBatchSize(),
+                    sdkConfiguration.getTicketPublishLingerMillis(),
+                    sdkConfiguration.getProducerOverflowPolicy(),
+                    sdkConfiguration.getProducerOverflowTimeout(),
+                    sdkConfiguration.getProducerIdleSpinTries(),
+                    sdkConfiguration.getProducerBlockedHoldLimit(),
+                    sdkConfiguration.getProducerBlockedDrainRate());
+        } else {
+            producer = new RabbitMqProducer(channelFactoryProvider,
+                    "ticket-producer",
+                    amqpCluster,
+                    exchangeName,
+                    ExchangeType.FANOUT,
+                    1,
+                    sdkConfiguration.getProducerBufferSize(),
+                    1,
+                    true,
+                    true,
+                    true,
+                    sdkConfiguration.getTicketPublishBatchSize(),
+                    sdkConfiguration.getTicketPublishLingerMillis(),
+                    sdkConfiguration.getProducerOverflowPolicy(),
+                    sdkConfiguration.getProducerOverflowTimeout(),
+                    sdkConfiguration.getProducerIdleSpinTries(),
+                    sdkConfiguration.getProducerBlockedHoldLimit(),
+                    sdkConfiguration.getProducerBlockedDrainRate());
+        }
+        producer.setOutbox(ticketOutbox);
+        return usePublisherLoop(producer, publisherLoop);
     }
 
     @Singleton
@@ -278,17 +393,25 @@ public class SdkInjectionModule extends AbstractModule {
                                                         AmqpCluster amqpCluster
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + EXCHANGE_CONTROL;
+        // a control producer: never on the shared publisher loop, it keeps its own thread, channel and confirm window
         return new RabbitMqProducer(channelFactoryProvider,
                 "ticket-cancel-producer",
                 amqpCluster,
                 exchangeName,
                 ExchangeType.TOPIC,
                 1,
-                64,
+                sdkConfiguration.getProducerBufferSize(),
                 1,
                 true,
                 true,
-                true);
+                true,
+                1,
+                0,
+                sdkConfiguration.getProducerOverflowPolicy(),
+                sdkConfiguration.getProducerOverflowTimeout(),
+                sdkConfiguration.getProducerIdleSpinTries(),
+                sdkConfiguration.getProducerBlockedHoldLimit(),
+                sdkConfiguration.getProducerBlockedDrainRate());
     }
 
     @Singleton
@@ -298,57 +421,83 @@ public class SdkInjectionModule extends AbstractModule {
                                                                AmqpCluster amqpCluster
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + EXCHANGE_CONTROL;
+        // a control producer: never on the shared publisher loop, it keeps its own thread, channel and confirm window
         return new RabbitMqProducer(channelFactoryProvider,
                 "ticket--reoffer-cancel-producer",
                 amqpCluster,
                 exchangeName,
                 ExchangeType.TOPIC,
                 1,
-                64,
+                sdkConfiguration.getProducerBufferSize(),
                 1,
                 true,
                 true,
-                true);
+                true,
+                1,
+                0,
+                sdkConfiguration.getProducerOverflowPolicy(),
+                sdkConfiguration.getProducerOverflowTimeout(),
+                sdkConfiguration.getProducerIdleSpinTries(),
+                sdkConfiguration.getProducerBlockedHoldLimit(),
+                sdkConfiguration.getProducerBlockedDrainRate());
     }
 
     @Singleton
     @Provides
     @TicketCashoutProducerBinding
     public AmqpProducer provideTicketCashoutAmqpProducer(ChannelFactoryProvider channelFactoryProvider,
-                                                         AmqpCluster amqpCluster
+                                                         AmqpCluster amqpCluster,
+                                                         SharedPublisherLoop publisherLoop
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + EXCHANGE_CONTROL;
-        return new RabbitMqProducer(channelFactoryProvider,
+        return usePublisherLoop(new RabbitMqProducer(channelFactoryProvider,
                 "ticket-cashout-producer",
                 amqpCluster,
                 exchangeName,
                 ExchangeType.TOPIC,
                 1,
-                64,
+                sdkConfiguration.getProducerBufferSize(),
                 1,
                 true,
                 true,
-                true);
+                true,
+                1,
+                0,
+                sdkConfiguration.getProducerOverflowPolicy(),
+                sdkConfiguration.getProducerOverflowTimeout(),
+                sdkConfiguration.getProducerIdleSpinTries(),
+                sdkConfiguration.getProducerBlockedHoldLimit(),
+                sdkConfiguration.getProducerBlockedDrainRate()),
+                publisherLoop);
     }
 
     @Singleton
     @Provides
     @TicketNonSrSettleProducerBinding
     public AmqpProducer provideTicketNonSrSettleAmqpProducer(ChannelFactoryProvider channelFactoryProvider,
-                                                             AmqpCluster amqpCluster
+                                                             AmqpCluster amqpCluster,
+                                                             SharedPublisherLoop publisherLoop
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + EXCHANGE_CONTROL;
-        return new RabbitMqProducer(channelFactoryProvider,
+        return usePublisherLoop(new RabbitMqProducer(channelFactoryProvider,
                 "ticket-non-sr-settle-producer",
                 amqpCluster,
                 exchangeName,
                 ExchangeType.TOPIC,
                 1,
-                64,
+                sdkConfiguration.getProducerBufferSize(),
                 1,
                 true,
                 true,
-                true);
+                true,
+                1,
+                0,
+                sdkConfiguration.getProducerOverflowPolicy(),
+                sdkConfiguration.getProducerOverflowTimeout(),
+                sdkConfiguration.getProducerIdleSpinTries(),
+                sdkConfiguration.getProducerBlockedHoldLimit(),
+                sdkConfiguration.getProducerBlockedDrainRate()),
+                publisherLoop);
     }
 
     @Singleton
@@ -358,17 +507,25 @@ public class SdkInjectionModule extends AbstractModule {
                                                           AmqpCluster amqpCluster
     ) {
         String exchangeName = sdkConfiguration.getVirtualHost().replace("/", "") + "-Ack";
+        // a control producer: never on the shared publisher loop, it keeps its own thread, channel and confirm window
         return new RabbitMqProducer(channelFactoryProvider,
                 "ack-producer",
                 amqpCluster,
                 exchangeName,
                 ExchangeType.TOPIC,
                 1,
-                64,
+                sdkConfiguration.getProducerBufferSize(),
                 1,
                 true,
                 true,
-                true);
+                true,
+                1,
+                0,
+                sdkConfiguration.getProducerOverflowPolicy(),
+                sdkConfiguration.getProducerOverflowTimeout(),
+                sdkConfiguration.getProducerIdleSpinTries(),
+                sdkConfiguration.getProducerBlockedHoldLimit(),
+                sdkConfiguration.getProducerBlockedDrainRate());
     }
 
     @Singleton
@@ -391,7 +548,14 @@ public class SdkInjectionModule extends AbstractModule {
                                     SdkInfo.RABBIT_PREFETCH_COUNT,
                 1,
                 false,
-                sdkConfiguration.getExclusiveConsumer());
+                sdkConfiguration.getExclusiveConsumer(),
+                sdkConfiguration.getConsumerDispatchThreads(),
+                sdkConfiguration.getConsumerAckBatchSize(),
+                sdkConfiguration.getConsumerAckLingerMillis(),
+                sdkConfiguration.getConsumerPrefetchMin(),
+                sdkConfiguration.getConsumerPrefetchMax(),
+                sdkConfiguration.getConsumerTargetLatencyMillis(),
+                new RetryBackoff(sdkConfiguration.getConsumerRetryBackoffMillis(), sdkConfiguration.getConsumerRetryBackoffMaxMillis()));
     }
 
 
@@ -415,7 +579,14 @@ public class SdkInjectionModule extends AbstractModule {
                                     SdkInfo.RABBIT_PREFETCH_COUNT,
                 1,
                 false,
-                sdkConfiguration.getExclusiveConsumer());
+                sdkConfiguration.getExclusiveConsumer(),
+                sdkConfiguration.getConsumerDispatchThreads(),
+                sdkConfiguration.getConsumerAckBatchSize(),
+                sdkConfiguration.getConsumerAckLingerMillis(),
+                sdkConfiguration.getConsumerPrefetchMin(),
+                sdkConfiguration.getConsumerPrefetchMax(),
+                sdkConfiguration.getConsumerTargetLatencyMillis(),
+                new RetryBackoff(sdkConfiguration.getConsumerRetryBackoffMillis(), sdkConfiguration.getConsumerRetryBackoffMaxMillis()));
     }
 
     @Singleton
@@ -438,7 +609,14 @@ public class SdkInjectionModule extends AbstractModule {
                                     SdkInfo.RABBIT_PREFETCH_COUNT,
                 1,
                 false,
-                sdkConfiguration.getExclusiveConsumer());
+                sdkConfiguration.getExclusiveConsumer(),
+                sdkConfiguration.getConsumerDispatchThreads(),
+                sdkConfiguration.getConsumerAckBatchSize(),
+                sdkConfiguration.getConsumerAckLingerMillis(),
+                sdkConfiguration.getConsumerPrefetchMin(),
+                sdkConfiguration.getConsumerPrefetchMax(),
+                sdkConfiguration.getConsumerTargetLatencyMillis(),
+                new RetryBackoff(sdkConfiguration.getConsumerRetryBackoffMillis(), sdkConfiguration.getConsumerRetryBackoffMaxMillis()));
     }
 
     @Singleton
@@ -461,7 +639,14 @@ public class SdkInjectionModule extends AbstractModule {
                                     SdkInfo.RABBIT_PREFETCH_COUNT,
                 1,
                 false,
-                sdkConfiguration.getExclusiveConsumer());
+                sdkConfiguration.getExclusiveConsumer(),
+                sdkConfiguration.getConsumerDispatchThreads(),
+                sdkConfiguration.getConsumerAckBatchSize(),
+                sdkConfiguration.getConsumerAckLingerMillis(),
+                sdkConfiguration.getConsumerPrefetchMin(),
+                sdkConfiguration.getConsumerPrefetchMax(),
+                sdkConfiguration.getConsumerTargetLatencyMillis(),
+                new RetryBackoff(sdkConfiguration.getConsumerRetryBackoffMillis(), sdkConfiguration.getConsumerRetryBackoffMaxMillis()));
     }
 
     @Singleton
@@ -553,6 +738,27 @@ public class SdkInjectionModule extends AbstractModule {
         return Executors.newScheduledThreadPool(1);
     }
 
+    @Singleton
+    @Provides
+    @ControlExecutorBinding
+    public ScheduledExecutorService provideControlScheduledExecutorService() {
+        return Executors.newScheduledThreadPool(1);
+    }
+
+    @Singleton
+    @Provides
+    @TimerExecutorBinding
+    public ScheduledExecutorService provideTimerScheduledExecutorService() {
+        return Executors.newScheduledThreadPool(1);
+    }
+
+    @Singleton
+    @Provides
+    public SharedRateLimiter provideSharedRateLimiter(@TimerExecutorBinding ScheduledExecutorService timerService) {
+        // grants the high priority permits first, so it must not wait behind the ticket or control listeners
+        return new SharedRateLimiter(timerService, sdkConfiguration.getMessagesPerSecond());
+    }
+
     @Singleton
     @Provides
     public AmqpCluster provideAmqpCluster() {
@@ -568,35 +774,40 @@ public class SdkInjectionModule extends AbstractModule {
     @Provides
     public ChannelFactoryProvider provideChannelFactoryProvider(ConnectionStatus connectionStatus) {
         // 3 producers + 2 receivers + 1 extra
-        return new ChannelFactoryProviderImpl(6, connectionStatus);
+        return new ChannelFactoryProviderImpl(6,
+                                              connectionStatus,
+                                              sdkConfiguration.getChannelsPerConnection(),
+                                              sdkConfiguration.getSpareChannels(),
+                                              sdkConfiguration.getNioEnabled(),
+                                              sdkConfiguration.getNioThreads());
     }
 
     @Singleton
     @Provides
     @TicketAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticket");
+        return createSendResultHandler("ticket");
     }
 
     @Singleton
     @Provides
     @TicketCancelAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketCancelAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketCancel");
+        return createSendResultHandler("ticketCancel");
     }
 
     @Singleton
     @Provides
     @TicketReofferCancelAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketReofferCancelAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketReofferCancel");
+        return createSendResultHandler("ticketReofferCancel");
     }
 
     @Singleton
     @Provides
     @TicketAckAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketAckAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketAck");
+        return createSendResultHandler("ticketAck");
     }
 
 
@@ -604,21 +815,21 @@ public class SdkInjectionModule extends AbstractModule {
     @Provides
     @TicketCancelAckAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketCancelAckAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketCancelAck");
+        return createSendResultHandler("ticketCancelAck");
     }
 
     @Singleton
     @Provides
     @TicketCashoutAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketCashoutAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketCashout");
+        return createSendResultHandler("ticketCashout");
     }
 
     @Singleton
     @Provides
     @TicketNonSrSettleAmqpSendResultHandlerBinding
     public AmqpSendResultHandler provideTicketNonSrSettleAmqpSendResultHandler() {
-        return new AmqpSendResultHandlerImpl("ticketNonSrSettle");
+        return createSendResultHandler("ticketNonSrSettle");
     }
 
     @Singleton
@@ -820,10 +1031,21 @@ public class SdkInjectionModule extends AbstractModule {
                 CAPICalculationResponse.class);
     }
 
-    private <T extends SdkTicket> ResponseTimeoutHandlerImpl<T> getTimeoutHandler(ScheduledExecutorService executorService, int responseTimeout1, int responseTimeout2) {
+    private <T extends SdkTicket> InFlightTracker<T> getInFlightTracker(ScheduledExecutorService executorService) {
         Preconditions.checkNotNull(executorService);
 
-        return new ResponseTimeoutHandlerImpl<>(
+        return new InFlightTracker<>(
+                executorService,
+                sdkConfiguration.getInFlightLimit(),
+                sdkConfiguration.getInFlightMaxAgeMillis());
+    }
+
+    private <T extends SdkTicket, R> PendingRequestRegistry<T, R> getTimeoutHandler(ScheduledExecutorService timerService, ScheduledExecutorService executorService, int responseTimeout1, int responseTimeout2) {
+        Preconditions.checkNotNull(timerService);
+        Preconditions.checkNotNull(executorService);
+
+        return new PendingRequestRegistry<>(
+                timerService,
                 executorService,
                 responseTimeout1,
                 responseTimeout2,
@@ -878,4 +1100,18 @@ public class SdkInjectionModule extends AbstractModule {
                     }
                 });
     }
+
+    private AmqpProducer usePublisherLoop(AmqpProducer producer, SharedPublisherLoop publisherLoop) {
+        if (sdkConfiguration.getSharedPublisherThreads() > 0) {
+            producer.setPublisherLoop(publisherLoop);
+        }
+        return producer;
+    }
+
+    private AmqpSendResultHandler createSendResultHandler(String name) {
+        if (sdkConfiguration.getSharedPublisherThreads() > 0) {
+            return new CallbackSendResultHandler();
+        }
+        return new AmqpSendResultHandlerImpl(name);
+    }
 }
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.di;
+
+import com.google.inject.BindingAnnotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The scheduler of the SDK timers (response time-outs, in-flight sweeps and rate limiter permits); runs no listener,
+ * so a listener blocking on one of them (e.g. sending from within a callback) cannot hold up the timers
+ */
+@BindingAnnotation
+@Target({FIELD, PARAMETER, METHOD})
+@Retention(RUNTIME)
+public @interface TimerExecutorBinding {
+
+}
+
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Channel;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Coalesces the acks of the deliveries of one channel: consumed deliveries are acked together with a single
+ * basicAck(tag, multiple=true) once <code>batchSize</code> of them are waiting or the oldest waited
+ * <code>lingerNanos</code>. A multiple ack acks every unsettled delivery up to its tag, so it only ever covers a
+ * contiguous range of settled deliveries: a delivery still being consumed, or waiting for a retry, stops the range;
+ * consumed deliveries behind it are acked one by one when the linger elapses. Deliveries nacked by the caller are
+ * reported with {@link #nacked(long)}. Not thread-safe, the caller synchronizes.
+ */
+final class AckCoalescer {
+
+    private static final byte OUTSTANDING = 0;
+    private static final byte WAITING_FOR_ACK = 1;
+    private static final byte SETTLED = 2;
+
+    private final Channel channel;
+    private int batchSize;
+    private final long lingerNanos;
+    private byte[] states = new byte[64];
+    private long lowestTag = -1L;
+    private long highestTag = -1L;
+    private int waitingCount;
+    private int unsettledCount;
+    private long oldestWaitingNanos;
+    private long ackFrames;
+
+    /**
+     * @param batchSize number of consumed deliveries acked together; 1 acks every delivery at once
+     * @param lingerNanos max time a consumed delivery waits for its ack
+     */
+    AckCoalescer(Channel channel, int batchSize, long lingerNanos) {
+        checkNotNull(channel, "parameter 'channel' is null");
+        checkArgument(batchSize > 0, "parameter 'batchSize' is zero or less");
+        checkArgument(lingerNanos >= 0L, "parameter 'lingerNanos' is less than zero");
+
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.lingerNanos = lingerNanos;
+    }
+
+    /**
+     * Gets the number of basicAck frames sent so far
+     */
+    long getAckFrames() {
+        return this.ackFrames;
+    }
+
+    /**
+     * Sets the number of consumed deliveries acked together
+     */
+    void setBatchSize(int batchSize) {
+        checkArgument(batchSize > 0, "parameter 'batchSize' is zero or less");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets the number of tracked deliveries not acked or nacked yet, being consumed or waiting for their ack
+     */
+    int getUnsettledCount() {
+        return this.unsettledCount;
+    }
+
+    /**
+     * Gets the number of consumed deliveries waiting for their ack
+     */
+    int getWaitingCount() {
+        return this.waitingCount;
+    }
+
+    /**
+     * Starts tracking a delivery
+     *
+     * @param tag the delivery tag, higher than any tracked so far
+     */
+    void delivered(long tag) {
+        if (this.lowestTag < 0L) {
+            this.lowestTag = tag;
+            this.highestTag = tag - 1L;
+        }
+        checkArgument(tag > this.highestTag, "delivery tag %s is not higher than %s", tag, this.highestTag);
+        this.ensureCapacity(tag);
+        // the channel carries this single consumer, a skipped tag was never delivered and has nothing to ack
+        for (long skipped = this.highestTag + 1L; skipped < tag; skipped++) {
+            this.setState(skipped, SETTLED);
+        }
+        this.setState(tag, OUTSTANDING);
+        this.highestTag = tag;
+        this.unsettledCount++;
+    }
+
+    /**
+     * Marks the delivery as consumed; acks the waiting ones if there are enough of them
+     */
+    void ack(long tag, long nowNanos) throws IOException {
+        if (!this.isTracked(tag) || this.batchSize == 1) {
+            // nothing to coalesce: ack it on its own, right away
+            this.basicAck(tag, false);
+            if (this.isTracked(tag)) {
+                this.setState(tag, SETTLED);
+                this.unsettledCount--;
+                this.advance();
+            }
+            return;
+        }
+        if (this.waitingCount == 0) {
+            this.oldestWaitingNanos = nowNanos;
+        }
+        this.setState(tag, WAITING_FOR_ACK);
+        this.waitingCount++;
+        if (this.waitingCount >= this.batchSize) {
+            this.flushContiguous();
+        }
+    }
+
+    /**
+     * Marks the delivery as nacked by the caller
+     */
+    void nacked(long tag) throws IOException {
+        if (this.isTracked(tag) && this.state(tag) != SETTLED) {
+            this.setState(tag, SETTLED);
+            this.unsettledCount--;
+            if (this.waitingCount >= this.batchSize) {
+                this.flushContiguous();
+            } else {
+                this.advance();
+            }
+        }
+    }
+
+    /**
+     * Gets the time the oldest waiting delivery may still wait for its ack
+     *
+     * @return the nanoseconds until {@link #flushIfDue(long)} acks, or -1 if there is nothing to ack
+     */
+    long nanosUntilDue(long nowNanos) {
+        if (this.waitingCount == 0) {
+            return -1L;
+        }
+        return Math.max(0L, this.oldestWaitingNanos + this.lingerNanos - nowNanos);
+    }
+
+    /**
+     * Acks the waiting deliveries if the oldest one waited long enough
+     */
+    void flushIfDue(long nowNanos) throws IOException {
+        if (this.waitingCount > 0 && nowNanos - this.oldestWaitingNanos >= this.lingerNanos) {
+            this.flush(nowNanos);
+        }
+    }
+
+    /**
+     * Acks all the waiting deliveries: the contiguous range with one frame, the ones behind an outstanding delivery
+     * one by one
+     */
+    void flush(long nowNanos) throws IOException {
+        this.flushContiguous();
+        if (this.waitingCount == 0) {
+            return;
+        }
+        for (long tag = this.lowestTag; tag <= this.highestTag; tag++) {
+            if (this.state(tag) == WAITING_FOR_ACK) {
+                this.basicAck(tag, false);
+                this.setState(tag, SETTLED);
+                this.waitingCount--;
+                this.unsettledCount--;
+            }
+        }
+        this.oldestWaitingNanos = nowNanos;
+    }
+
+    private void flushContiguous() throws IOException {
+        long lastWaiting = -1L;
+        int covered = 0;
+        long tag = this.lowestTag;
+        while (tag >= 0L && tag <= this.highestTag && this.state(tag) != OUTSTANDING) {
+            if (this.state(tag) == WAITING_FOR_ACK) {
+                lastWaiting = tag;
+                covered++;
+            }
+            tag++;
+        }
+        if (lastWaiting < 0L) {
+            this.advance();
+            return;
+        }
+        this.basicAck(lastWaiting, covered > 1);
+        for (long settled = this.lowestTag; settled <= lastWaiting; settled++) {
+            this.setState(settled, SETTLED);
+        }
+        this.waitingCount -= covered;
+        this.unsettledCount -= covered;
+        this.advance();
+    }
+
+    private void advance() {
+        while (this.lowestTag >= 0L && this.lowestTag <= this.highestTag && this.state(this.lowestTag) == SETTLED) {
+            this.lowestTag++;
+        }
+    }
+
+    private void basicAck(long tag, boolean multiple) throws IOException {
+        this.channel.basicAck(tag, multiple);
+        this.ackFrames++;
+    }
+
+    private boolean isTracked(long tag) {
+        return this.lowestTag >= 0L && tag >= this.lowestTag && tag <= this.highestTag;
+    }
+
+    private byte state(long tag) {
+        return this.states[(int) (tag & (this.states.length - 1))];
+    }
+
+    private void setState(long tag, byte state) {
+        this.states[(int) (tag & (this.states.length - 1))] = state;
+    }
+
+    private void ensureCapacity(long tag) {
+        final long needed = tag - this.lowestTag + 1L;
+        if (needed <= this.states.length) {
+            return;
+        }
+        checkArgument(needed <= (1 << 30), "too many unsettled deliveries");
+        int size = this.states.length;
+        while (size < needed) {
+            size <<= 1;
+        }
+        final byte[] grown = new byte[size];
+        for (long t = this.lowestTag; t <= this.highestTag; t++) {
+            grown[(int) (t & (size - 1))] = this.state(t);
+        }
+        this.states = grown;
+    }
+}
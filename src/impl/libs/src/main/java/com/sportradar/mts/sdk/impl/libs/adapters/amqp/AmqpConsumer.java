@@ -9,4 +9,11 @@ import com.sportradar.mts.sdk.api.interfaces.Openable;
 public interface AmqpConsumer extends Openable {
 
     void setMessageReceivedHandler(AmqpMessageReceiver msgHandler);
+
+    /**
+     * Declares the exchange and the queue (with its bindings) of the consumer on the broker ahead of {@link #open()}
+     */
+    default void declareTopology() {
+        // declared on open
+    }
 }
@@ -13,4 +13,14 @@ public interface AmqpMessageReceiver extends Openable {
     MessageStatus consume(byte[] msg, String routingKey, String correlationId, Map<String, Object> messageHeaders);
 
     void afterLimitReached(byte[] msg, String routingKey, String correlationId);
+
+    /**
+     * Gets the ordering key of the message (e.g. its ticket id): when the consumer consumes on several threads, the
+     * messages with the same key are consumed in order, the ones with different keys may be consumed in parallel
+     *
+     * @return the ordering key of the message; the correlation id by default
+     */
+    default String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+        return correlationId;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * One message of a batch sent with {@link AmqpProducer#sendOrderedBatchAsync} or published with
+ * {@link AmqpPublisher#publishBatchAsync}
+ */
+public final class AmqpOutgoingMessage {
+
+    private final String orderingKey;
+    private final String correlationId;
+    private final byte[] content;
+    private final String routingKey;
+
+    /**
+     * @param orderingKey messages with the same ordering key (e.g. ticket id) are published in the order they were sent
+     * @param correlationId the correlation id of the message
+     * @param content the message body
+     * @param routingKey the routing key to publish with
+     */
+    public AmqpOutgoingMessage(String orderingKey, String correlationId, byte[] content, String routingKey) {
+        checkNotNull(content, "parameter 'content' is null");
+        checkArgument(content.length != 0, "parameter 'content' is empty");
+        checkNotNull(routingKey, "parameter 'routingKey' is null");
+
+        this.orderingKey = orderingKey;
+        this.correlationId = correlationId;
+        this.content = content;
+        this.routingKey = routingKey;
+    }
+
+    public String getOrderingKey() {
+        return orderingKey;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+}
@@ -6,8 +6,11 @@ package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
 import com.rabbitmq.client.ReturnListener;
 import com.sportradar.mts.sdk.api.interfaces.Openable;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -16,7 +19,7 @@ public interface AmqpProducer extends Openable {
     String DEFAULT_ROUTING_KEY = "";
 
     default AmqpSendResult sendAsync(String correlationId, byte[] msg) {
-        return sendAsync(correlationId, msg, DEFAULT_ROUTING_KEY, new HashMap<>());
+        return sendAsync(correlationId, msg, DEFAULT_ROUTING_KEY, Collections.emptyMap());
     }
 
     default AmqpSendResult sendAsync(String correlationId, byte[] msg, Map<String, Object> messageHeaders) {
@@ -24,13 +27,43 @@ public interface AmqpProducer extends Openable {
     }
 
     default AmqpSendResult sendAsync(String correlationId, byte[] msg, String routingKey) {
-        return sendAsync(correlationId, msg, routingKey, new HashMap<>());
+        return sendAsync(correlationId, msg, routingKey, Collections.emptyMap());
     }
 
     AmqpSendResult sendAsync(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders);
 
+    /**
+     * Sends the message asynchronously; messages sent with the same ordering key (e.g. ticket id) are published in the
+     * order they were sent, also when the producer publishes over several channels
+     */
+    default AmqpSendResult sendOrderedAsync(String orderingKey,
+                                            String correlationId,
+                                            byte[] msg,
+                                            String routingKey,
+                                            Map<String, Object> messageHeaders) {
+        return sendAsync(correlationId, msg, routingKey, messageHeaders);
+    }
+
+    /**
+     * Sends the messages asynchronously, all with the same headers, as {@link #sendOrderedAsync} does; a producer may
+     * queue them all at once, so they are published back to back
+     *
+     * @return the results, in the order of the messages
+     */
+    default List<AmqpSendResult> sendOrderedBatchAsync(List<AmqpOutgoingMessage> messages, Map<String, Object> messageHeaders) {
+        final List<AmqpSendResult> results = new ArrayList<>(messages.size());
+        for (AmqpOutgoingMessage message : messages) {
+            results.add(sendOrderedAsync(message.getOrderingKey(),
+                                         message.getCorrelationId(),
+                                         message.getContent(),
+                                         message.getRoutingKey(),
+                                         messageHeaders));
+        }
+        return results;
+    }
+
     default boolean sendAsync(String correlationId, byte[] msg, Consumer<AmqpSendResult> doneCallback) {
-        return sendAsync(correlationId, msg, DEFAULT_ROUTING_KEY, new HashMap<>(), doneCallback);
+        return sendAsync(correlationId, msg, DEFAULT_ROUTING_KEY, Collections.emptyMap(), doneCallback);
     }
 
     default boolean sendAsync(String correlationId,
@@ -44,7 +77,7 @@ public interface AmqpProducer extends Openable {
                               byte[] msg,
                               String routingKey,
                               Consumer<AmqpSendResult> doneCallback) {
-        return sendAsync(correlationId, msg, routingKey, new HashMap<>(), doneCallback);
+        return sendAsync(correlationId, msg, routingKey, Collections.emptyMap(), doneCallback);
     }
 
     boolean sendAsync(String correlationId,
@@ -54,7 +87,7 @@ public interface AmqpProducer extends Openable {
                       Consumer<AmqpSendResult> doneCallback);
 
     default boolean send(String correlationId, byte[] msg) {
-        return send(correlationId, msg, DEFAULT_ROUTING_KEY, new HashMap<>());
+        return send(correlationId, msg, DEFAULT_ROUTING_KEY, Collections.emptyMap());
     }
 
     default boolean send(String correlationId, byte[] msg, Map<String, Object> messageHeaders) {
@@ -62,11 +95,34 @@ public interface AmqpProducer extends Openable {
     }
 
     default boolean send(String correlationId, byte[] msg, String routingKey) {
-        return send(correlationId, msg, routingKey, new HashMap<>());
+        return send(correlationId, msg, routingKey, Collections.emptyMap());
     }
 
     boolean send(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders);
 
 
     void setReturnListener(ReturnListener returnListener);
+
+    /**
+     * Sets the outbox the accepted messages are written to before they are queued; must be called before the producer
+     * is opened
+     *
+     * @param outbox the outbox to use
+     */
+    void setOutbox(TicketOutbox outbox);
+
+    /**
+     * Makes the producer publish through the provided loop (shared with other producers) instead of its own threads;
+     * must be called before the producer is opened. The publish linger is not applied then.
+     *
+     * @param publisherLoop the loop to use
+     */
+    void setPublisherLoop(SharedPublisherLoop publisherLoop);
+
+    /**
+     * Declares the exchange of the producer on the broker ahead of {@link #open()}, so opening it is quicker
+     */
+    default void declareTopology() {
+        // declared on open
+    }
 }
@@ -6,6 +6,8 @@ package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
 import com.sportradar.mts.sdk.api.interfaces.Openable;
 
+import java.util.List;
+
 public interface AmqpPublisher extends Openable {
 
     void publishAsync(String ticketId,
@@ -14,5 +16,11 @@ public interface AmqpPublisher extends Openable {
                       String routingKey,
                       String replyRoutingKey);
 
+    /**
+     * Publishes the messages (their ordering keys being the ticket ids) like {@link #publishAsync} does, queueing
+     * them all at once
+     */
+    void publishBatchAsync(List<AmqpOutgoingMessage> messages, String replyRoutingKey);
+
     void setListener(AmqpPublishResultListener listener);
 }
@@ -7,18 +7,25 @@ package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
 import com.sportradar.mts.sdk.api.interfaces.ConnectionStatus;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class AmqpPublisherImpl implements AmqpPublisher {
 
+    private static final int MAX_CACHED_HEADERS = 256;
+
     private final Object stateLock = new Object();
     private final AmqpProducer messageSender;
     private final AmqpSendResultHandler messageHandler;
     private boolean opened;
     private final ConnectionStatusImpl connectionStatus;
+    private final ConcurrentMap<String, Map<String, Object>> replyHeaders = new ConcurrentHashMap<>();
 
     public AmqpPublisherImpl(AmqpProducer messageSender,
                              AmqpSendResultHandler sendResultHandler,
@@ -40,13 +47,42 @@ public class AmqpPublisherImpl implements AmqpPublisher {
                              String routingKey,
                              String replyRoutingKey) {
         checkState(isOpen(), "sender is not open");
-        HashMap<String, Object> messageHeaders = new HashMap<>();
-        messageHeaders.put("replyRoutingKey", replyRoutingKey);
-        AmqpSendResult sendResult = messageSender.sendAsync(correlationId, msg, routingKey, messageHeaders);
+        Map<String, Object> messageHeaders = getReplyHeaders(replyRoutingKey);
+        AmqpSendResult sendResult = messageSender.sendOrderedAsync(ticketId, correlationId, msg, routingKey, messageHeaders);
         connectionStatus.ticketSend(ticketId);
         messageHandler.handleSendResult(sendResult);
     }
 
+    @Override
+    public void publishBatchAsync(List<AmqpOutgoingMessage> messages, String replyRoutingKey) {
+        checkNotNull(messages, "messages cannot be null");
+        checkState(isOpen(), "sender is not open");
+        List<AmqpSendResult> sendResults = messageSender.sendOrderedBatchAsync(messages, getReplyHeaders(replyRoutingKey));
+        for (AmqpOutgoingMessage message : messages) {
+            connectionStatus.ticketSend(message.getOrderingKey());
+        }
+        for (AmqpSendResult sendResult : sendResults) {
+            messageHandler.handleSendResult(sendResult);
+        }
+    }
+
+    /**
+     * Gets the (immutable, shared) message headers carrying the provided reply routing key
+     */
+    private Map<String, Object> getReplyHeaders(String replyRoutingKey) {
+        if (replyRoutingKey == null) {
+            return Collections.singletonMap(RabbitMqConsumer.AMQP_HEADER_REPLY_ROUTING_KEY, null);
+        }
+        Map<String, Object> headers = replyHeaders.get(replyRoutingKey);
+        if (headers == null) {
+            headers = Collections.singletonMap(RabbitMqConsumer.AMQP_HEADER_REPLY_ROUTING_KEY, replyRoutingKey);
+            if (replyHeaders.size() < MAX_CACHED_HEADERS) {
+                replyHeaders.putIfAbsent(replyRoutingKey, headers);
+            }
+        }
+        return headers;
+    }
+
     @Override
     public void setListener(AmqpPublishResultListener listener) {
         this.messageSender.setReturnListener((replyCode, replyText, exchange, routingKey, properties, body) ->
@@ -11,6 +11,25 @@ public interface AmqpSendResult extends Future<Boolean> {
 
     boolean isRejected();
 
+    /**
+     * Gets why the producer did not accept the message
+     *
+     * @return the {@link SendRejectReason} or null if the message was not rejected
+     */
+    default SendRejectReason getRejectReason() {
+        return null;
+    }
+
+    /**
+     * Runs the provided action once the result is done: a rejected result runs it at once on the calling thread, an
+     * accepted one on the executor of the producer. Only one action is kept.
+     *
+     * @param action the action to run
+     */
+    default void whenDone(Runnable action) {
+        action.run();
+    }
+
     byte[] getContent();
 
     String getRoutingKey();
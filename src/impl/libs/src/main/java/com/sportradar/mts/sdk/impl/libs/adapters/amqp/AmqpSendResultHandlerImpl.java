@@ -130,7 +130,7 @@ public class AmqpSendResultHandlerImpl implements AmqpSendResultHandler {
                 try {
                     result.get();
                     if (result.isRejected()) {
-                        logger.warn("publishing of {} was rejected", correlationId);
+                        logger.warn("publishing of {} was rejected; reason={}", correlationId, result.getRejectReason());
                         amqpSendResultListener.publishFailure(correlationId);
                     } else {
                         logger.info("successfully published: {}", correlationId);
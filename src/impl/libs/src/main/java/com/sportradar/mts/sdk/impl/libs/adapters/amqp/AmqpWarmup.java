@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.exceptions.MtsSdkProcessException;
+import com.sportradar.mts.sdk.api.impl.WarmupReportImpl;
+import com.sportradar.mts.sdk.api.interfaces.Openable;
+import com.sportradar.mts.sdk.api.interfaces.WarmupReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Warms up the connection to the broker in the background, so the first messages do not wait for it: opens the
+ * connection, then declares the exchanges and queues of all the producers and consumers in parallel, then opens the
+ * producers (each taking its channel) in parallel. The consumers are opened with their senders, once there is a
+ * listener for what they receive; their queues are declared by then. The readiness completes when the producers
+ * publish over warm channels, with the time spent in each phase, or exceptionally if a phase failed (whatever was not
+ * warmed up then connects when opened).
+ */
+public final class AmqpWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(AmqpWarmup.class);
+    private static final int MAX_THREADS = 4;
+
+    private final ChannelFactoryProvider channelFactoryProvider;
+    private final AmqpCluster cluster;
+    private final List<AmqpProducer> producers;
+    private final List<AmqpConsumer> consumers;
+    private final CompletableFuture<WarmupReport> readiness = new CompletableFuture<>();
+    private final Object stateLock = new Object();
+    private final List<AmqpProducer> openedProducers = new ArrayList<>();
+    private ExecutorService executor;
+    private boolean started;
+    private boolean closed;
+
+    public AmqpWarmup(ChannelFactoryProvider channelFactoryProvider,
+                      AmqpCluster cluster,
+                      List<AmqpProducer> producers,
+                      List<AmqpConsumer> consumers) {
+        checkNotNull(channelFactoryProvider, "parameter 'channelFactoryProvider' is null");
+        checkNotNull(cluster, "parameter 'cluster' is null");
+        checkNotNull(producers, "parameter 'producers' is null");
+        checkNotNull(consumers, "parameter 'consumers' is null");
+
+        this.channelFactoryProvider = channelFactoryProvider;
+        this.cluster = cluster;
+        // a producer shared by several senders is warmed up once
+        this.producers = distinct(producers);
+        this.consumers = distinct(consumers);
+    }
+
+    /**
+     * Gets the readiness, completed once the warmup is done
+     *
+     * @return the readiness future
+     */
+    public CompletableFuture<WarmupReport> getReadiness() {
+        return this.readiness;
+    }
+
+    /**
+     * Starts the warmup (once); the channel factory provider must have a registered instance
+     */
+    public void start() {
+        final ExecutorService pool;
+        synchronized (this.stateLock) {
+            if (this.started || this.closed) {
+                return;
+            }
+            this.started = true;
+            final int threads = Math.max(1, Math.min(MAX_THREADS, this.producers.size() + this.consumers.size()));
+            this.executor = Executors.newFixedThreadPool(threads, new WarmupThreadFactory());
+            pool = this.executor;
+        }
+
+        final long[] phaseEnds = new long[4];
+        phaseEnds[0] = System.nanoTime();
+        CompletableFuture.runAsync(this::connect, pool)
+                .thenRun(() -> phaseEnds[1] = System.nanoTime())
+                .thenCompose(v -> runAll(this.topologyTasks(), pool))
+                .thenRun(() -> phaseEnds[2] = System.nanoTime())
+                .thenCompose(v -> runAll(this.producers, this::openProducer, pool))
+                .thenRun(() -> phaseEnds[3] = System.nanoTime())
+                .whenComplete((v, exc) -> {
+                    pool.shutdown();
+                    if (exc != null) {
+                        final Throwable cause = exc instanceof CompletionException && exc.getCause() != null ? exc.getCause() : exc;
+                        logger.warn("Warmup of the connection to {} failed: {}", this.cluster.getDescription(), cause.getMessage());
+                        this.readiness.completeExceptionally(cause);
+                        return;
+                    }
+                    final WarmupReport report = new WarmupReportImpl(toMillis(phaseEnds[1] - phaseEnds[0]),
+                                                                     toMillis(phaseEnds[2] - phaseEnds[1]),
+                                                                     toMillis(phaseEnds[3] - phaseEnds[2]));
+                    logger.info("Connection to {} warmed up; {}", this.cluster.getDescription(), report);
+                    this.readiness.complete(report);
+                });
+    }
+
+    /**
+     * Stops the warmup and closes all the producers it opened, also the ones a sender uses by now (the producers are
+     * not reference counted); the ones already open when the warmup reached them are left alone. Close it after the
+     * senders, as the SDK root does.
+     */
+    public void close() {
+        synchronized (this.stateLock) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            for (final AmqpProducer producer : this.openedProducers) {
+                closeQuietly(producer);
+            }
+            this.openedProducers.clear();
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+            }
+        }
+        this.readiness.completeExceptionally(new MtsSdkProcessException("closed before the warmup completed"));
+    }
+
+    private void connect() {
+        this.checkNotClosed();
+        final ChannelFactory channelFactory = this.channelFactoryProvider.getChannelFactory(this.cluster);
+        try {
+            // the connection (with its spare channels) stays open for the producers and consumers
+            channelFactory.getChannel().close();
+        } catch (MtsSdkProcessException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new MtsSdkProcessException(exc.getMessage(), exc);
+        }
+    }
+
+    private List<Runnable> topologyTasks() {
+        final List<Runnable> tasks = new ArrayList<>(this.producers.size() + this.consumers.size());
+        for (final AmqpProducer producer : this.producers) {
+            tasks.add(() -> {
+                this.checkNotClosed();
+                producer.declareTopology();
+            });
+        }
+        for (final AmqpConsumer consumer : this.consumers) {
+            tasks.add(() -> {
+                this.checkNotClosed();
+                consumer.declareTopology();
+            });
+        }
+        return tasks;
+    }
+
+    private void openProducer(final AmqpProducer producer) {
+        this.checkNotClosed();
+        if (producer.isOpen()) {
+            return;
+        }
+        producer.open();
+        synchronized (this.stateLock) {
+            if (this.closed) {
+                closeQuietly(producer);
+            } else {
+                this.openedProducers.add(producer);
+            }
+        }
+    }
+
+    private void checkNotClosed() {
+        synchronized (this.stateLock) {
+            if (this.closed) {
+                throw new MtsSdkProcessException("warmup closed");
+            }
+        }
+    }
+
+    private static CompletableFuture<Void> runAll(final List<Runnable> tasks, final ExecutorService pool) {
+        return runAll(tasks, Runnable::run, pool);
+    }
+
+    private static <T> CompletableFuture<Void> runAll(final List<T> items, final Consumer<T> task, final ExecutorService pool) {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[items.size()];
+        for (int i = 0; i < futures.length; i++) {
+            final T item = items.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> task.accept(item), pool);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private static void closeQuietly(final Openable openable) {
+        try {
+            openable.close();
+        } catch (Exception exc) {
+            logger.warn("Close after warmup failed: {}", exc.getMessage());
+        }
+    }
+
+    private static <T> List<T> distinct(final List<T> items) {
+        final List<T> result = new ArrayList<>(items.size());
+        for (final T item : items) {
+            checkNotNull(item, "item");
+            boolean seen = false;
+            for (final T other : result) {
+                seen |= other == item;
+            }
+            if (!seen) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class WarmupThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "mts-sdk-warmup-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.impl.ContentHeaderPropertyWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of message property templates of one producer (and so one persistence mode), keyed by the message headers.
+ * A message only costs one small {@link AMQP.BasicProperties} instance carrying its correlation id; the template and
+ * its (immutable copy of the) headers are shared by all messages with the same headers. The public
+ * {@link AMQP.BasicProperties} constructor would copy the headers map for every message.
+ */
+final class BasicPropertiesCache {
+
+    private static final int MAX_TEMPLATES = 256;
+
+    private final AMQP.BasicProperties baseProperties;
+    private final ConcurrentMap<Map<String, Object>, AMQP.BasicProperties> templates = new ConcurrentHashMap<>();
+
+    BasicPropertiesCache(AMQP.BasicProperties baseProperties) {
+        checkNotNull(baseProperties, "parameter 'baseProperties' is null");
+
+        this.baseProperties = baseProperties;
+    }
+
+    /**
+     * Gets the properties of a message with the provided headers and correlation id
+     *
+     * @param messageHeaders the message headers
+     * @param correlationId the correlation id or null
+     * @return the message properties
+     */
+    AMQP.BasicProperties get(Map<String, Object> messageHeaders, String correlationId) {
+        final AMQP.BasicProperties template = messageHeaders.isEmpty()
+                ? this.baseProperties
+                : this.getTemplate(messageHeaders);
+        if (correlationId == null) {
+            return template;
+        }
+        return new CorrelatedProperties(template, correlationId);
+    }
+
+    int size() {
+        return this.templates.size();
+    }
+
+    private AMQP.BasicProperties getTemplate(Map<String, Object> messageHeaders) {
+        AMQP.BasicProperties template = this.templates.get(messageHeaders);
+        if (template != null) {
+            return template;
+        }
+        // copy, so later changes to a caller's (mutable) map can not change the cached key or headers
+        final Map<String, Object> headers = Collections.unmodifiableMap(new HashMap<>(messageHeaders));
+        template = this.baseProperties.builder().headers(headers).build();
+        if (this.templates.size() < MAX_TEMPLATES) {
+            final AMQP.BasicProperties existing = this.templates.putIfAbsent(headers, template);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * The template properties plus a correlation id; written to the wire exactly like {@link AMQP.BasicProperties}
+     */
+    private static final class CorrelatedProperties extends AMQP.BasicProperties {
+
+        private final AMQP.BasicProperties template;
+        private final String correlationId;
+
+        CorrelatedProperties(AMQP.BasicProperties template, String correlationId) {
+            this.template = template;
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public AMQP.BasicProperties.Builder builder() {
+            return this.template.builder().correlationId(this.correlationId);
+        }
+
+        @Override
+        public String getContentType() {
+            return this.template.getContentType();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return this.template.getContentEncoding();
+        }
+
+        @Override
+        public Map<String, Object> getHeaders() {
+            return this.template.getHeaders();
+        }
+
+        @Override
+        public Integer getDeliveryMode() {
+            return this.template.getDeliveryMode();
+        }
+
+        @Override
+        public Integer getPriority() {
+            return this.template.getPriority();
+        }
+
+        @Override
+        public String getCorrelationId() {
+            return this.correlationId;
+        }
+
+        @Override
+        public String getReplyTo() {
+            return this.template.getReplyTo();
+        }
+
+        @Override
+        public String getExpiration() {
+            return this.template.getExpiration();
+        }
+
+        @Override
+        public String getMessageId() {
+            return this.template.getMessageId();
+        }
+
+        @Override
+        public Date getTimestamp() {
+            return this.template.getTimestamp();
+        }
+
+        @Override
+        public String getType() {
+            return this.template.getType();
+        }
+
+        @Override
+        public String getUserId() {
+            return this.template.getUserId();
+        }
+
+        @Override
+        public String getAppId() {
+            return this.template.getAppId();
+        }
+
+        @Override
+        public String getClusterId() {
+            return this.template.getClusterId();
+        }
+
+        @Override
+        public void writePropertiesTo(ContentHeaderPropertyWriter writer) throws IOException {
+            writer.writePresence(this.getContentType() != null);
+            writer.writePresence(this.getContentEncoding() != null);
+            writer.writePresence(this.getHeaders() != null);
+            writer.writePresence(this.getDeliveryMode() != null);
+            writer.writePresence(this.getPriority() != null);
+            writer.writePresence(this.getCorrelationId() != null);
+            writer.writePresence(this.getReplyTo() != null);
+            writer.writePresence(this.getExpiration() != null);
+            writer.writePresence(this.getMessageId() != null);
+            writer.writePresence(this.getTimestamp() != null);
+            writer.writePresence(this.getType() != null);
+            writer.writePresence(this.getUserId() != null);
+            writer.writePresence(this.getAppId() != null);
+            writer.writePresence(this.getClusterId() != null);
+            writer.finishPresence();
+            if (this.getContentType() != null) {
+                writer.writeShortstr(this.getContentType());
+            }
+            if (this.getContentEncoding() != null) {
+                writer.writeShortstr(this.getContentEncoding());
+            }
+            if (this.getHeaders() != null) {
+                writer.writeTable(this.getHeaders());
+            }
+            if (this.getDeliveryMode() != null) {
+                writer.writeOctet(this.getDeliveryMode());
+            }
+            if (this.getPriority() != null) {
+                writer.writeOctet(this.getPriority());
+            }
+            if (this.getCorrelationId() != null) {
+                writer.writeShortstr(this.getCorrelationId());
+            }
+            if (this.getReplyTo() != null) {
+                writer.writeShortstr(this.getReplyTo());
+            }
+            if (this.getExpiration() != null) {
+                writer.writeShortstr(this.getExpiration());
+            }
+            if (this.getMessageId() != null) {
+                writer.writeShortstr(this.getMessageId());
+            }
+            if (this.getTimestamp() != null) {
+                writer.writeTimestamp(this.getTimestamp());
+            }
+            if (this.getType() != null) {
+                writer.writeShortstr(this.getType());
+            }
+            if (this.getUserId() != null) {
+                writer.writeShortstr(this.getUserId());
+            }
+            if (this.getAppId() != null) {
+                writer.writeShortstr(this.getAppId());
+            }
+            if (this.getClusterId() != null) {
+                writer.writeShortstr(this.getClusterId());
+            }
+        }
+
+        @Override
+        public void appendPropertyDebugStringTo(StringBuilder acc) {
+            this.builder().build().appendPropertyDebugStringTo(acc);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Flow control state of the connections of one {@link ChannelFactory}: the broker blocks a connection (connection.blocked)
+ * when it runs low on memory or disk and refuses its publishes until it unblocks it again. Producers pause publishing
+ * while any connection is blocked and are notified (woken up) on every change.
+ */
+public final class BrokerFlowControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrokerFlowControl.class);
+
+    private final ConnectionStatusImpl connectionStatus;
+    private final Set<Long> blockedConnections = new HashSet<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile long blockedSinceMillis;
+
+    BrokerFlowControl(ConnectionStatusImpl connectionStatus) {
+        this.connectionStatus = connectionStatus;
+    }
+
+    /**
+     * Returns a value indicating whether a connection is currently blocked by the broker
+     *
+     * @return true if blocked
+     */
+    public boolean isBlocked() {
+        return this.blockedSinceMillis != 0L;
+    }
+
+    /**
+     * Gets the time (epoch ms) the connection was blocked
+     *
+     * @return the time the connection was blocked or 0 if it is not blocked
+     */
+    public long getBlockedSinceMillis() {
+        return this.blockedSinceMillis;
+    }
+
+    void addListener(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    void connectionBlocked(long connectionIndex, String reason) {
+        synchronized (this.blockedConnections) {
+            if (!this.blockedConnections.add(connectionIndex) || this.blockedConnections.size() > 1) {
+                return;
+            }
+            this.blockedSinceMillis = System.currentTimeMillis();
+        }
+        logger.warn("Connection blocked by the broker, publishing paused. Reason: {}", reason);
+        if (this.connectionStatus != null) {
+            this.connectionStatus.block(reason);
+        }
+        this.notifyListeners();
+    }
+
+    void connectionUnblocked(long connectionIndex) {
+        synchronized (this.blockedConnections) {
+            if (!this.blockedConnections.remove(connectionIndex) || !this.blockedConnections.isEmpty()) {
+                return;
+            }
+            this.blockedSinceMillis = 0L;
+        }
+        logger.warn("Connection unblocked by the broker, publishing resumed.");
+        if (this.connectionStatus != null) {
+            this.connectionStatus.unblock();
+        }
+        this.notifyListeners();
+    }
+
+    void messagesHeld(int delta) {
+        if (this.connectionStatus != null) {
+            this.connectionStatus.ticketsHeld(delta);
+        }
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : this.listeners) {
+            listener.run();
+        }
+    }
+}
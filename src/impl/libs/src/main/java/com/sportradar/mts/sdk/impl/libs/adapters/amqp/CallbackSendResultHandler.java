@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link AmqpSendResultHandler} without a thread of its own: the listener is notified by the completed send result
+ * ({@link AmqpSendResult#whenDone(Runnable)}), on the executor of the producer
+ */
+public class CallbackSendResultHandler implements AmqpSendResultHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallbackSendResultHandler.class);
+
+    private volatile AmqpPublishResultListener amqpSendResultListener;
+    private volatile boolean opened;
+
+    @Override
+    public void handleSendResult(AmqpSendResult sendResult) {
+        sendResult.whenDone(() -> this.notifyListener(sendResult));
+    }
+
+    @Override
+    public void setPublishResultListener(AmqpPublishResultListener listener) {
+        amqpSendResultListener = listener;
+    }
+
+    @Override
+    public void open() {
+        opened = true;
+    }
+
+    @Override
+    public void close() {
+        opened = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return opened;
+    }
+
+    private void notifyListener(AmqpSendResult result) {
+        final String correlationId = result.getCorrelationId();
+        try {
+            result.get();
+            if (result.isRejected()) {
+                logger.warn("publishing of {} was rejected; reason={}", correlationId, result.getRejectReason());
+                amqpSendResultListener.publishFailure(correlationId);
+            } else {
+                logger.info("successfully published: {}", correlationId);
+                amqpSendResultListener.publishSuccess(correlationId);
+            }
+        } catch (InterruptedException e) {
+            logger.error("interrupted while getting sendBlocking result for {}", correlationId, e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("exception while getting sendBlocking result for {}", correlationId, e);
+        } catch (Exception e) {
+            logger.error("uncaught exception while processing completed sendBlocking result", e);
+        }
+    }
+}
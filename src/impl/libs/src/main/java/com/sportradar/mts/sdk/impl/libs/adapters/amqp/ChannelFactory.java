@@ -23,7 +23,10 @@ public final class ChannelFactory {
     ChannelFactory(final AmqpCluster mqCluster,
                    final ChannelFactoryProviderImpl channelFactoryProvider,
                    ConnectionStatus connectionStatus) throws GeneralSecurityException {
-        final ConnectionFactory connectionFactory = new ConnectionFactory();
+        // with NIO the socket I/O runs on threads shared by all connections (of all SDK instances in the JVM)
+        final ConnectionFactory connectionFactory = channelFactoryProvider.isNioEnabled()
+                ? SharedNioTransport.newConnectionFactory(channelFactoryProvider.getNioThreads())
+                : new ConnectionFactory();
         connectionFactory.setThreadFactory(channelFactoryProvider.getAmqpThreadFactory());
 
         connectionFactory.setPassword(mqCluster.getPassword());
@@ -45,10 +48,52 @@ public final class ChannelFactory {
         clientProperties.putIfAbsent("SrMtsSdkBId", String.valueOf(mqCluster.getBookmakerId()));
         connectionFactory.setClientProperties(clientProperties);
 
-        this.connectionWrapper = new ConnectionWrapper(channelFactoryProvider, connectionFactory, mqCluster, connectionStatus);
+        this.connectionWrapper = new ConnectionWrapper(channelFactoryProvider,
+                                                       connectionFactory,
+                                                       mqCluster,
+                                                       connectionStatus,
+                                                       channelFactoryProvider.getChannelsPerConnection(),
+                                                       channelFactoryProvider.getSpareChannels());
+    }
+
+    ChannelFactory(final ConnectionWrapper connectionWrapper) {
+        this.connectionWrapper = connectionWrapper;
     }
 
     public ChannelWrapper getChannel() throws IOException, TimeoutException {
         return this.connectionWrapper.getChannel();
     }
+
+    /**
+     * Closes the connections of this factory (with their spare channels) and stops their health check; the next
+     * channel taken opens a new connection
+     */
+    public void close() {
+        this.connectionWrapper.close();
+    }
+
+    /**
+     * Gets the number of open connections of this factory
+     */
+    int getConnectionCount() {
+        return this.connectionWrapper.getConnectionCount();
+    }
+
+    /**
+     * Gets the flow control (connection blocked by the broker) state of the connections of this factory
+     *
+     * @return the {@link BrokerFlowControl}
+     */
+    public BrokerFlowControl getFlowControl() {
+        return this.connectionWrapper.getFlowControl();
+    }
+
+    /**
+     * Gets the recovery state (declared topology, time-to-recover) of the connections of this factory
+     *
+     * @return the {@link ConnectionRecovery}
+     */
+    public ConnectionRecovery getRecovery() {
+        return this.connectionWrapper.getRecovery();
+    }
 }
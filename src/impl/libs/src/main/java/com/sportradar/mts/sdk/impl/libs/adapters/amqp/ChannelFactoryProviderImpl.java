@@ -7,6 +7,7 @@ package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 import com.google.common.base.Preconditions;
 import com.sportradar.mts.sdk.api.exceptions.MtsSdkProcessException;
 import com.sportradar.mts.sdk.api.interfaces.ConnectionStatus;
+import com.sportradar.mts.sdk.api.utils.SdkInfo;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,10 +28,48 @@ public final class ChannelFactoryProviderImpl implements ChannelFactoryProvider
     private int executorRegistrationCount = 0;
     private boolean opened;
     private final ConnectionStatus connectionStatus;
+    private final int channelsPerConnection;
+    private final int spareChannels;
+    private final boolean nioEnabled;
+    private final int nioThreads;
 
     public ChannelFactoryProviderImpl(int mqWorkerThreadCount, ConnectionStatus connectionStatus) {
+        this(mqWorkerThreadCount, connectionStatus, SdkInfo.CHANNELS_PER_CONNECTION_DEFAULT, SdkInfo.SPARE_CHANNELS_DEFAULT);
+    }
+
+    /**
+     * @param channelsPerConnection max number of channels in use on one connection
+     * @param spareChannels number of channels opened in advance on the current connection; 0 for none
+     */
+    public ChannelFactoryProviderImpl(int mqWorkerThreadCount,
+                                      ConnectionStatus connectionStatus,
+                                      int channelsPerConnection,
+                                      int spareChannels) {
+        this(mqWorkerThreadCount, connectionStatus, channelsPerConnection, spareChannels, false, SdkInfo.NIO_THREADS_DEFAULT);
+    }
+
+    /**
+     * @param channelsPerConnection max number of channels in use on one connection
+     * @param spareChannels number of channels opened in advance on the current connection; 0 for none
+     * @param nioEnabled whether the connections use the NIO transport shared by all SDK instances in the JVM
+     * @param nioThreads number of I/O threads of the NIO transport
+     */
+    public ChannelFactoryProviderImpl(int mqWorkerThreadCount,
+                                      ConnectionStatus connectionStatus,
+                                      int channelsPerConnection,
+                                      int spareChannels,
+                                      boolean nioEnabled,
+                                      int nioThreads) {
+        Preconditions.checkArgument(channelsPerConnection > 0, "channelsPerConnection must be greater than zero");
+        Preconditions.checkArgument(spareChannels >= 0, "spareChannels must not be negative");
+        Preconditions.checkArgument(nioThreads > 0, "nioThreads must be greater than zero");
+
         this.mqWorkerThreadCount = mqWorkerThreadCount;
         this.connectionStatus = connectionStatus;
+        this.channelsPerConnection = channelsPerConnection;
+        this.spareChannels = spareChannels;
+        this.nioEnabled = nioEnabled;
+        this.nioThreads = nioThreads;
     }
 
     @Override
@@ -56,6 +95,8 @@ public final class ChannelFactoryProviderImpl implements ChannelFactoryProvider
                 this.executorRegistrationCount--;
             }
             if (this.executorRegistrationCount == 0) {
+                // the connections run on the executor service, they are closed first
+                closeChannelFactories();
                 closeExecutorService();
             }
         }
@@ -80,6 +121,22 @@ public final class ChannelFactoryProviderImpl implements ChannelFactoryProvider
         return opened;
     }
 
+    int getChannelsPerConnection() {
+        return this.channelsPerConnection;
+    }
+
+    int getSpareChannels() {
+        return this.spareChannels;
+    }
+
+    boolean isNioEnabled() {
+        return this.nioEnabled;
+    }
+
+    int getNioThreads() {
+        return this.nioThreads;
+    }
+
     ThreadFactory getAmqpThreadFactory() {
         return this.amqpThreadFactory;
     }
@@ -99,6 +156,14 @@ public final class ChannelFactoryProviderImpl implements ChannelFactoryProvider
         opened = true;
     }
 
+    private void closeChannelFactories() {
+        synchronized (this.factoriesLock) {
+            for (final ChannelFactory factory : this.factories.values()) {
+                factory.close();
+            }
+        }
+    }
+
     private void closeExecutorService() {
         if (this.executorService != null) {
             this.executorService.shutdownNow();
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Fixed-capacity ring of messages waiting for a publisher confirm, indexed by the publish sequence number
+ * (<code>seqNo &amp; (capacity - 1)</code>). Tags are kept as primitive longs and acks settle contiguous ranges in
+ * place, so neither tracking nor settling allocates. When the ring is full {@link #track(long, Object, long)} waits
+ * until the broker confirms the oldest entries, which pushes back on the publishing thread.
+ *
+ * @param <T> type of the tracked message
+ */
+final class ConfirmTracker<T> {
+
+    private static final long NO_TAG = 0L;
+
+    private final long[] tags;
+    private final Object[] items;
+    private final int mask;
+    private long lowest;
+    private long highest;
+    private int size;
+
+    /**
+     * @param capacity max number of unconfirmed messages; rounded up to a power of two
+     */
+    ConfirmTracker(int capacity) {
+        checkArgument(capacity > 0, "parameter 'capacity' is zero or less");
+        checkArgument(capacity <= (1 << 30), "parameter 'capacity' is too big");
+        int ringSize = 1;
+        while (ringSize < capacity) {
+            ringSize <<= 1;
+        }
+        this.tags = new long[ringSize];
+        this.items = new Object[ringSize];
+        this.mask = ringSize - 1;
+    }
+
+    int capacity() {
+        return this.tags.length;
+    }
+
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Starts tracking the message published with the provided sequence number, waiting for a free slot if the ring
+     * is full
+     *
+     * @param tag the publish sequence number, higher than any tracked so far
+     * @param item the published message
+     * @param timeoutNanos max time to wait for a free slot
+     * @return false if no slot got free in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized boolean track(long tag, T item, long timeoutNanos) throws InterruptedException {
+        checkNotNull(item, "parameter 'item' is null");
+        checkArgument(tag > this.highest, "publish sequence number must be increasing");
+        if (this.size == 0) {
+            this.lowest = tag;
+        }
+        if (tag - this.lowest >= this.tags.length) {
+            final long deadline = System.nanoTime() + timeoutNanos;
+            long remaining = timeoutNanos;
+            while ((this.size != 0) && (tag - this.lowest >= this.tags.length)) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            if (this.size == 0) {
+                this.lowest = tag;
+            }
+        }
+        final int index = (int) (tag & this.mask);
+        this.tags[index] = tag;
+        this.items[index] = item;
+        this.highest = tag;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Settles the message with the provided sequence number or, if <code>multiple</code> is set, all the messages up
+     * to and including it
+     *
+     * @param tag the acked or nacked publish sequence number
+     * @param multiple the multiple flag of the ack/nack
+     * @param action invoked for every settled message
+     * @return number of settled messages
+     */
+    synchronized int settle(long tag, boolean multiple, Consumer<? super T> action) {
+        if (this.size == 0) {
+            return 0;
+        }
+        int settled = 0;
+        if (multiple) {
+            final long last = Math.min(tag, this.highest);
+            for (long seq = this.lowest; seq <= last; seq++) {
+                settled += this.settleSlot(seq, action);
+            }
+        } else if ((tag >= this.lowest) && (tag <= this.highest)) {
+            settled = this.settleSlot(tag, action);
+        }
+        if (settled > 0) {
+            this.advanceLowest();
+            this.notifyAll();
+        }
+        return settled;
+    }
+
+    /**
+     * Removes all the tracked messages (e.g. after the channel has been closed)
+     *
+     * @param action invoked for every message still waiting for the confirm
+     * @return number of removed messages
+     */
+    synchronized int drain(Consumer<? super T> action) {
+        int drained = 0;
+        for (long seq = this.lowest; this.size > 0 && seq <= this.highest; seq++) {
+            drained += this.settleSlot(seq, action);
+        }
+        this.lowest = this.highest + 1L;
+        this.notifyAll();
+        return drained;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int settleSlot(long seq, Consumer<? super T> action) {
+        final int index = (int) (seq & this.mask);
+        if (this.tags[index] != seq) {
+            return 0;
+        }
+        final T item = (T) this.items[index];
+        this.tags[index] = NO_TAG;
+        this.items[index] = null;
+        this.size--;
+        action.accept(item);
+        return 1;
+    }
+
+    private void advanceLowest() {
+        if (this.size == 0) {
+            this.lowest = this.highest + 1L;
+            return;
+        }
+        while (this.tags[(int) (this.lowest & this.mask)] != this.lowest) {
+            this.lowest++;
+        }
+    }
+}
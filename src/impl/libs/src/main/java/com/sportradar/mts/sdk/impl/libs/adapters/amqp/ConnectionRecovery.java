@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovery state of the connections of one {@link ChannelFactory}: the topology (exchanges, queues, bindings) already
+ * declared on the broker, so producers and consumers getting a new channel after a failure do not declare it again,
+ * and the time each of them took to recover. A declaration stays valid until the broker reports something missing
+ * ({@link #invalidateAll()}); on a lost connection the declarations which do not survive it (non-durable, auto-delete
+ * or exclusive) are dropped.
+ */
+public final class ConnectionRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionRecovery.class);
+
+    private final ConnectionStatusImpl connectionStatus;
+    // declaration -> whether it survives a lost connection
+    private final Map<String, Boolean> declared = new ConcurrentHashMap<>();
+
+    ConnectionRecovery(ConnectionStatusImpl connectionStatus) {
+        this.connectionStatus = connectionStatus;
+    }
+
+    /**
+     * Returns a value indicating whether the declaration is known to be in place on the broker
+     *
+     * @param declaration the declaration, e.g. {@link #exchange(String)}
+     * @return true if it does not need to be declared again
+     */
+    public boolean isDeclared(String declaration) {
+        return this.declared.containsKey(declaration);
+    }
+
+    /**
+     * Records a declaration done on the broker
+     *
+     * @param declaration the declaration, e.g. {@link #queue(String)}
+     * @param survivesConnectionLoss whether it stays in place when the declaring connection is lost
+     */
+    public void declared(String declaration, boolean survivesConnectionLoss) {
+        this.declared.put(declaration, survivesConnectionLoss);
+    }
+
+    /**
+     * Forgets all declarations (e.g. the broker reported an exchange or queue not found), they are declared again
+     */
+    public void invalidateAll() {
+        if (!this.declared.isEmpty()) {
+            logger.info("Topology invalidated, it is declared again");
+            this.declared.clear();
+        }
+    }
+
+    /**
+     * Records the time a producer or consumer took to recover from a lost channel or connection
+     *
+     * @param component the name of the producer or consumer
+     * @param nanos the time from the failure until it was working again
+     */
+    public void recovered(String component, long nanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        logger.info("{} recovered in {} ms", component, millis);
+        this.connectionStatus.recovered(component, millis);
+    }
+
+    void connectionLost() {
+        this.declared.values().removeIf(survives -> !survives);
+    }
+
+    static String exchange(String exchangeName) {
+        return "exchange:" + exchangeName;
+    }
+
+    static String queue(String queueName) {
+        return "queue:" + queueName;
+    }
+
+    static String binding(String queueName, String exchangeName, String routingKey) {
+        return "binding:" + queueName + ":" + exchangeName + ":" + routingKey;
+    }
+}
@@ -4,51 +4,220 @@
 
 package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
-import com.google.common.collect.Lists;
 import com.rabbitmq.client.*;
 import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
 import com.sportradar.mts.sdk.api.interfaces.ConnectionStatus;
+import com.sportradar.mts.sdk.api.utils.SdkInfo;
+import com.sportradar.mts.sdk.impl.libs.threading.WorkSignal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Pool of the connections (and channels) to a cluster. Getting and releasing a channel take no lock: a channel is
+ * taken from the spare channels pre-created on the current connection, or created on it, as long as the connection has
+ * less than <code>channelsPerConnection</code> channels in use; only opening a new connection is serialized. A
+ * background thread checks the connections every few seconds (and right after a spare channel was taken): it drops
+ * closed connections, opening a new one with its spare channels if the closed one was in use, closes the connections
+ * no longer in use and tops up the spare channels, so getting a channel after a reconnect costs no round trip.
+ * {@link #close()} closes all the connections and stops that thread, until the next channel is taken.
+ */
 final class ConnectionWrapper {
 
     private static final Logger logger = LoggerFactory.getLogger(ConnectionWrapper.class);
-
-    private final ThreadLocal<Long> connectionIndex = ThreadLocal.withInitial(() -> 0L);
+    private static final long HEALTH_CHECK_NANOS = TimeUnit.SECONDS.toNanos(5L);
+    private static final int RETIRED = -1;
+    private static final int PROBE_TIMEOUT_MILLIS = 2000;
+    private static final long HEALTH_CHECK_STOP_MILLIS = 1000L;
 
     private final ChannelFactoryProviderImpl parentChannelFactoryProvider;
     private final ConnectionFactory connectionFactory;
     private final AmqpCluster cluster;
-    private final DummyAddressResolver addressResolver;
-    private final TreeMap<Long, ConnectionHolder> connections = new TreeMap<>();
-    private long lastIndex = 0;
+    private final LatencyAwareAddressResolver addressResolver;
+    private final ConcurrentSkipListMap<Long, ConnectionHolder> connections = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastIndex = new AtomicLong();
+    private final Object connectLock = new Object();
     private final ConnectionStatusImpl connectionStatus;
+    private final BrokerFlowControl flowControl;
+    private final ConnectionRecovery recovery;
+    private final int channelsPerConnection;
+    private final int spareChannels;
+    private final WorkSignal healthSignal = new WorkSignal(0);
+    private final AtomicBoolean healthCheckRunning = new AtomicBoolean();
+    private volatile Thread healthCheckThread;
+    private volatile ConnectionHolder current;
 
     ConnectionWrapper(final ChannelFactoryProviderImpl channelFactoryProvider,
                       final ConnectionFactory connectionFactory,
                       final AmqpCluster cluster,
                       ConnectionStatus connectionStatus) {
+        this(channelFactoryProvider,
+             connectionFactory,
+             cluster,
+             connectionStatus,
+             SdkInfo.CHANNELS_PER_CONNECTION_DEFAULT,
+             SdkInfo.SPARE_CHANNELS_DEFAULT);
+    }
+
+    /**
+     * @param channelsPerConnection max number of channels in use on one connection
+     * @param spareChannels number of channels kept open in advance on the current connection; 0 for none
+     */
+    ConnectionWrapper(final ChannelFactoryProviderImpl channelFactoryProvider,
+                      final ConnectionFactory connectionFactory,
+                      final AmqpCluster cluster,
+                      ConnectionStatus connectionStatus,
+                      int channelsPerConnection,
+                      int spareChannels) {
+        checkArgument(channelsPerConnection > 0, "parameter 'channelsPerConnection' is zero or less");
+        checkArgument(spareChannels >= 0, "parameter 'spareChannels' is less than zero");
+
         this.parentChannelFactoryProvider = channelFactoryProvider;
         this.connectionFactory = connectionFactory;
         this.cluster = cluster;
-        this.addressResolver = new DummyAddressResolver(extractAddresses(this.cluster));
+        this.addressResolver = new LatencyAwareAddressResolver(extractAddresses(this.cluster),
+                                                               this.cluster.useSslProtocol(),
+                                                               PROBE_TIMEOUT_MILLIS,
+                                                               new RetryBackoff(250L, 30000L));
         this.connectionStatus = (ConnectionStatusImpl) connectionStatus;
+        this.flowControl = new BrokerFlowControl(this.connectionStatus);
+        this.recovery = new ConnectionRecovery(this.connectionStatus);
+        this.channelsPerConnection = channelsPerConnection;
+        this.spareChannels = spareChannels;
+    }
+
+    BrokerFlowControl getFlowControl() {
+        return this.flowControl;
+    }
+
+    ConnectionRecovery getRecovery() {
+        return this.recovery;
     }
 
     ChannelWrapper getChannel() throws IOException, TimeoutException {
-        final long currentIndex = this.connectionIndex.get();
-        final ChannelWrapper result = this.getChannel(currentIndex);
-        this.connectionIndex.set(result.getIndex());
-        return result;
+        ConnectionHolder holder = this.current;
+        for (int attempt = 0; ; attempt++) {
+            if (holder == null || !holder.isUsable(this.channelsPerConnection)) {
+                holder = this.openConnection(holder);
+            }
+            final Channel spare = holder.takeSpare();
+            if (spare != null) {
+                if (holder.tryAcquire(this.channelsPerConnection)) {
+                    // top up the spare channels in the background
+                    this.healthSignal.signal();
+                    return new ChannelWrapper(this, holder.index, spare);
+                }
+                closeQuietly(spare);
+                continue;
+            }
+            if (!holder.tryAcquire(this.channelsPerConnection)) {
+                continue;
+            }
+            try {
+                return new ChannelWrapper(this, holder.index, holder.connection.createChannel());
+            } catch (IOException | RuntimeException exc) {
+                this.releaseChannel(holder.index);
+                if (attempt > 0) {
+                    throw exc;
+                }
+                logger.warn("Get or create channel error. Retrying with new connection... ", exc);
+                // force new connection
+                holder.failed = true;
+            }
+        }
     }
 
     void releaseChannel(final long index) {
-        this.release(index);
+        final ConnectionHolder holder = this.connections.get(index);
+        if (holder == null) {
+            return;
+        }
+        if (holder.release() == 0) {
+            if (holder != this.current || !holder.connection.isOpen()) {
+                this.retire(holder);
+            } else {
+                // the current connection stays open a while for the next channel (e.g. of a reconnecting producer)
+                holder.idleSinceNanos = System.nanoTime();
+            }
+        }
+        this.logConnections();
+    }
+
+    /**
+     * Closes all the connections (with their spare channels) and stops the health check; the channels still in use
+     * are closed with their connections. The next {@link #getChannel()} opens a new connection.
+     */
+    void close() {
+        synchronized (this) {
+            synchronized (this.connectLock) {
+                this.current = null;
+            }
+            for (final ConnectionHolder holder : this.connections.values()) {
+                final int inUse = holder.count.getAndSet(RETIRED);
+                if (inUse > 0) {
+                    logger.warn("Closing connection {} to {} with {} channels in use", holder.index, this.cluster.getDescription(), inUse);
+                }
+                this.connections.remove(holder.index, holder);
+                for (Channel spare = holder.spares.poll(); spare != null; spare = holder.spares.poll()) {
+                    closeQuietly(spare);
+                }
+                try {
+                    holder.connection.close();
+                } catch (Exception exc) {
+                    logger.warn("Connection close error: ", exc);
+                }
+            }
+        }
+        final Thread thread = this.healthCheckThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join(HEALTH_CHECK_STOP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.logConnections();
+    }
+
+    /**
+     * Gets whether the health check thread is running (for tests)
+     */
+    boolean isHealthCheckRunning() {
+        return this.healthCheckRunning.get();
+    }
+
+    /**
+     * Gets the number of open connections
+     */
+    int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Gets the number of spare channels of the current connection
+     */
+    int getSpareChannelCount() {
+        final ConnectionHolder holder = this.current;
+        return holder == null ? 0 : holder.spares.size();
+    }
+
+    /**
+     * Runs a health check right away (for tests)
+     */
+    void checkHealth() {
+        this.healthCheck(System.nanoTime());
     }
 
     private Address[] extractAddresses(final AmqpCluster cluster) {
@@ -60,151 +229,271 @@ final class ConnectionWrapper {
         return result;
     }
 
-    private synchronized void release(final long index) {
-        try {
-            final ConnectionHolder connectionHolder = this.connections.get(index);
-            if (connectionHolder == null) {
-                return;
+    /**
+     * Opens a new connection unless another thread already replaced the stale one
+     */
+    private ConnectionHolder openConnection(final ConnectionHolder stale) throws IOException, TimeoutException {
+        synchronized (this.connectLock) {
+            final ConnectionHolder latest = this.current;
+            if (latest != null && latest != stale && latest.isUsable(this.channelsPerConnection)) {
+                return latest;
             }
-            connectionHolder.count--;
-            this.removeClosedConnections();
-        } finally {
-            this.logConnections();
-            connectionIndex.remove();
+            final Connection connection;
+            try {
+                connection = this.connectionFactory.newConnection(this.parentChannelFactoryProvider.getExecutorService(),
+                                                                  this.addressResolver);
+            } catch (IOException | TimeoutException exc) {
+                // the next attempts go to the nodes which answer, once the health check probed them
+                this.addressResolver.reprobeAll(System.nanoTime());
+                this.startHealthCheck();
+                this.healthSignal.signal();
+                throw exc;
+            }
+            final ConnectionHolder result = new ConnectionHolder(this.lastIndex.incrementAndGet(), connection);
+            this.connections.put(result.index, result);
+            this.current = result;
+            this.connectionStatus.connect("Connection established.");
+            if (latest != null && latest.count.get() == 0) {
+                this.retire(latest);
+            }
+            this.startHealthCheck();
+            this.healthSignal.signal();
+            return result;
         }
     }
 
-    private synchronized ChannelWrapper getChannel(final long index) throws IOException, TimeoutException {
-        try {
-            this.removeClosedConnections();
-            try {
-                // allow same connection
-                return this.getOrCreateChannel(index - 1L);
-            } catch (Exception exc) {
-                logger.warn("Get or create channel error. Retrying with new connection... ", exc);
-                // force new connection
-                return this.getOrCreateChannel(index);
+    private void retire(final ConnectionHolder holder) {
+        if (!holder.count.compareAndSet(0, RETIRED)) {
+            // got a channel in the meantime
+            return;
+        }
+        this.connections.remove(holder.index, holder);
+        if (this.current == holder) {
+            synchronized (this.connectLock) {
+                if (this.current == holder) {
+                    this.current = null;
+                }
             }
-        } finally {
-            this.logConnections();
         }
+        try {
+            holder.connection.close();
+        } catch (Exception exc) {
+            logger.warn("Connection close error: ", exc);
+        }
+        this.logConnections();
     }
 
-    private ChannelWrapper getOrCreateChannel(final long index) throws IOException, TimeoutException {
-        final ConnectionHolder connectionHolder = this.getConnectionHolder(index);
-        final Channel channel = connectionHolder.connection.createChannel();
-        connectionHolder.count++;
-        return new ChannelWrapper(this, connectionHolder.index, channel);
+    private void startHealthCheck() {
+        if (this.healthCheckRunning.compareAndSet(false, true)) {
+            final Thread thread = new Thread(this::runHealthChecks, "amqp-connection-health-" + this.cluster.getVhost());
+            thread.setDaemon(true);
+            this.healthCheckThread = thread;
+            thread.start();
+        }
     }
 
-    private ConnectionHolder getConnectionHolder(final long index) throws IOException, TimeoutException {
-        if (!this.connections.isEmpty()) {
-            final ConnectionHolder lastConnectionHolder = this.connections.lastEntry().getValue();
-            if ((lastConnectionHolder.index > index) && (lastConnectionHolder.connection.isOpen())) {
-                return lastConnectionHolder;
+    private void runHealthChecks() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final long observed = this.healthSignal.current();
+                final long untilReprobe = this.healthCheck(System.nanoTime());
+                if (this.connections.isEmpty()) {
+                    // restarted by the next getChannel
+                    return;
+                }
+                this.healthSignal.await(observed, untilReprobe < 0L ? HEALTH_CHECK_NANOS : Math.min(HEALTH_CHECK_NANOS, untilReprobe));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception exc) {
+            logger.warn("Connection health check error: ", exc);
+        } finally {
+            this.healthCheckRunning.set(false);
+            if (!this.connections.isEmpty()) {
+                this.startHealthCheck();
             }
         }
-
-        final long nextIndex = (this.lastIndex + 1);
-        final Connection connection = this.connectionFactory.newConnection(this.parentChannelFactoryProvider.getExecutorService(),
-                                                                           this.addressResolver);
-        this.lastIndex = nextIndex;
-        final ConnectionHolder result = new ConnectionHolder(this.lastIndex, connection);
-        this.connections.put(this.lastIndex, result);
-        this.connectionStatus.connect("Connection established.");
-        return result;
     }
 
-    private void logConnections() {
-        StringBuilder sb = new StringBuilder(256);
-        sb.append('\n');
-        sb.append("AMQP connections to ").append(this.cluster.getDescription()).append(" are: [").append('\n');
-        for (final Map.Entry<Long, ConnectionHolder> entry : this.connections.entrySet()) {
-            final ConnectionHolder holder = entry.getValue();
-            sb.append("   Connection {index: ").append(holder.index).append(", channels: ").append(holder.count).append(
-                    "}").append('\n');
+    /**
+     * @return the nanoseconds until a broker node is due to be probed, or -1 for never
+     */
+    private long healthCheck(final long now) {
+        // the probes wait for the nodes, they hold up neither the connections nor the threads connecting
+        final long untilReprobe = this.addressResolver.reprobeDue(now);
+        synchronized (this) {
+            this.checkConnections(now);
         }
-        sb.append("]");
-        String msg = sb.toString();
-        logger.debug(msg);
+        return untilReprobe;
     }
 
-    private void removeClosedConnections() {
-
-        final Set<Long> removeConnectionIndexes = new HashSet<>();
-        for (final Map.Entry<Long, ConnectionHolder> entry : this.connections.entrySet()) {
-            final ConnectionHolder connectionHolder = entry.getValue();
-
-            if (connectionHolder.connection == null) {
-                removeConnectionIndexes.add(entry.getKey());
-                continue;
+    private void checkConnections(final long now) {
+        boolean reconnect = false;
+        for (final ConnectionHolder holder : this.connections.values()) {
+            final int inUse = holder.count.get();
+            if (!holder.connection.isOpen()) {
+                // the channels in use get released by their owners
+                reconnect |= holder == this.current && inUse > 0;
+                holder.failed = true;
+                if (inUse == 0) {
+                    this.retire(holder);
+                }
+            } else if (inUse == 0 && (holder != this.current || now - holder.idleSinceNanos >= HEALTH_CHECK_NANOS)) {
+                this.retire(holder);
+            }
+        }
+        ConnectionHolder holder = this.current;
+        if (reconnect) {
+            try {
+                holder = this.openConnection(holder);
+            } catch (Exception exc) {
+                logger.warn("Reconnect error: {}", exc.getMessage());
+                return;
             }
+        }
+        if (holder != null && holder.isUsable(this.channelsPerConnection)) {
+            this.topUpSpares(holder);
+        }
+    }
 
-            if ((connectionHolder.count <= 0) || (!connectionHolder.connection.isOpen())) {
-                try {
-                    connectionHolder.connection.close();
-                } catch (Exception exc) {
-                    logger.warn("Connection close error: ", exc);
-                }
-                removeConnectionIndexes.add(entry.getKey());
+    private void topUpSpares(final ConnectionHolder holder) {
+        // closed spare channels are dropped
+        holder.spares.removeIf(channel -> !channel.isOpen());
+        while (holder.spares.size() < this.spareChannels
+                && holder.count.get() + holder.spares.size() < this.channelsPerConnection
+                && holder.connection.isOpen()) {
+            try {
+                holder.spares.add(holder.connection.createChannel());
+            } catch (Exception exc) {
+                logger.warn("Spare channel error: {}", exc.getMessage());
+                return;
             }
         }
+    }
+
+    private static void closeQuietly(final Channel channel) {
+        try {
+            channel.close();
+        } catch (Exception exc) {
+            logger.debug("Spare channel close error: {}", exc.getMessage());
+        }
+    }
 
-        for (final Long index : removeConnectionIndexes) {
-            this.connections.remove(index);
+    private void logConnections() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('\n');
+        sb.append("AMQP connections to ").append(this.cluster.getDescription()).append(" are: [").append('\n');
+        for (final ConnectionHolder holder : this.connections.values()) {
+            sb.append("   Connection {index: ").append(holder.index).append(", channels: ").append(holder.count.get()).append(
+                    ", spare channels: ").append(holder.spares.size()).append("}").append('\n');
         }
+        sb.append("]");
+        logger.debug(sb.toString());
     }
 
     private final class ConnectionHolder {
 
         private final long index;
         private final Connection connection;
-        private int count;
+        // channels in use, RETIRED once closed
+        private final AtomicInteger count = new AtomicInteger();
+        private final Queue<Channel> spares = new ConcurrentLinkedQueue<>();
+        private volatile long idleSinceNanos = System.nanoTime();
+        private volatile boolean failed;
 
         ConnectionHolder(final long index, final Connection connection) {
             this.index = index;
             this.connection = connection;
-            this.connection.addShutdownListener(new ConnectionShutdownHandler());
-            this.connection.addBlockedListener(new ConnectionBlockedHandler());
+            this.connection.addShutdownListener(new ConnectionShutdownHandler(index));
+            this.connection.addBlockedListener(new ConnectionBlockedHandler(index));
         }
-    }
 
-    private static class DummyAddressResolver implements AddressResolver {
+        boolean isUsable(int channelLimit) {
+            final int inUse = this.count.get();
+            return !this.failed && inUse >= 0 && inUse < channelLimit && this.connection.isOpen();
+        }
 
-        private List<Address> addresses;
+        boolean tryAcquire(int channelLimit) {
+            int inUse = this.count.get();
+            while (inUse >= 0 && inUse < channelLimit) {
+                if (this.count.compareAndSet(inUse, inUse + 1)) {
+                    return true;
+                }
+                inUse = this.count.get();
+            }
+            return false;
+        }
 
-        DummyAddressResolver(Address[] addresses) {
-            this.addresses = Lists.newArrayList(addresses);
+        int release() {
+            int inUse = this.count.get();
+            while (inUse > 0) {
+                if (this.count.compareAndSet(inUse, inUse - 1)) {
+                    return inUse - 1;
+                }
+                inUse = this.count.get();
+            }
+            return inUse;
         }
 
-        @Override
-        public List<Address> getAddresses() {
-            return this.addresses;
+        Channel takeSpare() {
+            Channel channel = this.spares.poll();
+            while (channel != null && !channel.isOpen()) {
+                channel = this.spares.poll();
+            }
+            return channel;
         }
     }
 
     private class ConnectionShutdownHandler implements ShutdownListener{
 
+        private final long index;
+
+        ConnectionShutdownHandler(long index) {
+            this.index = index;
+        }
+
         @Override
         public void shutdownCompleted(ShutdownSignalException e) {
+            // a closed connection no longer blocks publishing, the next one starts unblocked
+            flowControl.connectionUnblocked(this.index);
             if(!e.isInitiatedByApplication())
             {
                 logger.warn("Connection shutdown invoked.");
                 connectionStatus.disconnect("Connection shutdown invoked. Message: " + e.getMessage());
+                // what only lived as long as the connection is declared again
+                recovery.connectionLost();
+                if (e.getReference() instanceof Connection) {
+                    // the next connection goes to another node
+                    final Connection lost = (Connection) e.getReference();
+                    addressResolver.connectionLost(lost.getAddress(), lost.getPort(), System.nanoTime());
+                }
+                // replaced (with its spare channels) by the health check
+                healthSignal.signal();
             }
         }
     }
 
     private class ConnectionBlockedHandler implements BlockedListener{
 
+        private final long index;
+
+        ConnectionBlockedHandler(long index) {
+            this.index = index;
+        }
+
         @Override
         public void handleBlocked(String s) throws IOException {
             logger.warn("Connection blocked invoked.");
+            flowControl.connectionBlocked(this.index, s);
         }
 
         @Override
         public void handleUnblocked() throws IOException {
             logger.warn("Connection unblocked invoked.");
+            flowControl.connectionUnblocked(this.index);
         }
     }
 }
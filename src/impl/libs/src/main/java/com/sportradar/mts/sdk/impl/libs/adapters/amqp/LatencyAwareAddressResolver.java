@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resolver of the broker nodes to connect to, fastest healthy node first. A node is probed by a TCP connect only, no
+ * AMQP is spoken, so the broker does not log a dropped client connection for every probe. A node is down once a probe
+ * fails or a connection to it is lost; down nodes go last and are reprobed with a jittered exponential backoff,
+ * healthy nodes are measured again every minute. The probes only run in {@link #reprobeDue(long)}, driven by the
+ * connection health check; {@link #getAddresses()} never waits for a probe, it returns the last known ranking (the
+ * configured order until the first probes). With a single node nothing is probed.
+ */
+final class LatencyAwareAddressResolver implements AddressResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyAwareAddressResolver.class);
+    static final long REMEASURE_NANOS = TimeUnit.MINUTES.toNanos(1L);
+    static final ConnectProbe TCP_CONNECT = (address, timeoutMillis) -> {
+        final long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(address, timeoutMillis);
+        }
+        return System.nanoTime() - start;
+    };
+
+    private final Node[] nodes;
+    private final boolean useSslProtocol;
+    private final int probeTimeoutMillis;
+    private final RetryBackoff reprobeBackoff;
+    private final ConnectProbe connectProbe;
+    private volatile List<Address> ordered;
+
+    /**
+     * @param addresses the nodes, in the order preferred while they are not measured
+     * @param useSslProtocol whether the nodes talk TLS (for their default port)
+     * @param probeTimeoutMillis the longest wait for the connect of a probe
+     * @param reprobeBackoff the waits before probing a down node again
+     */
+    LatencyAwareAddressResolver(Address[] addresses,
+                                boolean useSslProtocol,
+                                int probeTimeoutMillis,
+                                RetryBackoff reprobeBackoff) {
+        this(addresses, useSslProtocol, probeTimeoutMillis, reprobeBackoff, TCP_CONNECT);
+    }
+
+    /**
+     * @param connectProbe measures the connect to a node
+     */
+    LatencyAwareAddressResolver(Address[] addresses,
+                                boolean useSslProtocol,
+                                int probeTimeoutMillis,
+                                RetryBackoff reprobeBackoff,
+                                ConnectProbe connectProbe) {
+        checkNotNull(addresses, "parameter 'addresses' is null");
+        checkArgument(addresses.length > 0, "parameter 'addresses' is empty");
+        checkArgument(probeTimeoutMillis > 0, "parameter 'probeTimeoutMillis' is zero or less");
+        checkNotNull(reprobeBackoff, "parameter 'reprobeBackoff' is null");
+        checkNotNull(connectProbe, "parameter 'connectProbe' is null");
+
+        this.nodes = new Node[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            this.nodes[i] = new Node(addresses[i], i);
+        }
+        this.useSslProtocol = useSslProtocol;
+        this.probeTimeoutMillis = probeTimeoutMillis;
+        this.reprobeBackoff = reprobeBackoff;
+        this.connectProbe = connectProbe;
+        this.ordered = Collections.unmodifiableList(Arrays.asList(addresses.clone()));
+    }
+
+    @Override
+    public List<Address> getAddresses() {
+        return this.ordered;
+    }
+
+    /**
+     * Gets the node the next connection goes to first
+     */
+    Address getPreferredAddress() {
+        return this.ordered.get(0);
+    }
+
+    /**
+     * Makes all the nodes due for a probe (e.g. after a connection could not be opened), with the next
+     * {@link #reprobeDue(long)}
+     */
+    synchronized void reprobeAll(long nowNanos) {
+        for (final Node node : this.nodes) {
+            node.nextProbeNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Probes the nodes which are due: the down ones once their backoff elapsed, the healthy ones once a minute
+     *
+     * @return the nanoseconds until the next probe is due, or -1 if nothing is ever probed
+     */
+    synchronized long reprobeDue(long nowNanos) {
+        if (this.nodes.length == 1) {
+            return -1L;
+        }
+        boolean probed = false;
+        long untilNext = Long.MAX_VALUE;
+        for (final Node node : this.nodes) {
+            if (node.nextProbeNanos - nowNanos <= 0L) {
+                this.probe(node, nowNanos);
+                probed = true;
+            }
+            untilNext = Math.min(untilNext, Math.max(0L, node.nextProbeNanos - nowNanos));
+        }
+        if (probed) {
+            this.reorder();
+        }
+        return untilNext;
+    }
+
+    /**
+     * Marks the node of a lost connection as down, so the next connection goes to another node right away
+     *
+     * @param address the address of the lost connection
+     * @param port the port of the lost connection
+     */
+    synchronized void connectionLost(InetAddress address, int port, long nowNanos) {
+        if (address == null || this.nodes.length == 1) {
+            return;
+        }
+        for (final Node node : this.nodes) {
+            if (node.matches(address, port, this.useSslProtocol)) {
+                this.markDown(node, nowNanos, "connection lost");
+                this.reorder();
+                return;
+            }
+        }
+    }
+
+    private void probe(final Node node, final long nowNanos) {
+        try {
+            final long latency = this.connectProbe.connect(new InetSocketAddress(node.address.getHost(), node.port(this.useSslProtocol)),
+                                                           this.probeTimeoutMillis);
+            if (!node.up) {
+                logger.info("Broker node {} is up again, connect latency {} ms", node.address, TimeUnit.NANOSECONDS.toMillis(latency));
+            }
+            // smoothed, a single slow probe does not move the preference
+            node.latencyNanos = node.latencyNanos < 0L ? latency : (node.latencyNanos + latency) / 2L;
+            node.up = true;
+            node.failures = 0;
+            node.nextProbeNanos = nowNanos + REMEASURE_NANOS;
+        } catch (IOException | RuntimeException exc) {
+            this.markDown(node, nowNanos, exc.getMessage());
+        }
+    }
+
+    private void markDown(final Node node, final long nowNanos, final String reason) {
+        if (node.up) {
+            logger.warn("Broker node {} is down: {}", node.address, reason);
+        }
+        node.up = false;
+        node.failures++;
+        // jittered, the clients of a failed node do not come back in lockstep
+        node.nextProbeNanos = nowNanos + this.reprobeBackoff.jitteredNanosBefore(node.failures);
+    }
+
+    private void reorder() {
+        final Address before = this.ordered.get(0);
+        final Node[] sorted = this.nodes.clone();
+        Arrays.sort(sorted, (a, b) -> {
+            if (a.up != b.up) {
+                return a.up ? -1 : 1;
+            }
+            if (!a.up) {
+                return Integer.compare(a.failures, b.failures) != 0
+                        ? Integer.compare(a.failures, b.failures)
+                        : Integer.compare(a.position, b.position);
+            }
+            // not measured yet goes after the measured ones
+            final long la = a.latencyNanos < 0L ? Long.MAX_VALUE : a.latencyNanos;
+            final long lb = b.latencyNanos < 0L ? Long.MAX_VALUE : b.latencyNanos;
+            return la != lb ? Long.compare(la, lb) : Integer.compare(a.position, b.position);
+        });
+        final List<Address> result = new ArrayList<>(sorted.length);
+        for (final Node node : sorted) {
+            result.add(node.address);
+        }
+        this.ordered = Collections.unmodifiableList(result);
+        if (!before.equals(result.get(0))) {
+            logger.info("Preferred broker node is now {}", result.get(0));
+        }
+    }
+
+    /**
+     * Measures the connect to a broker node
+     */
+    interface ConnectProbe {
+
+        /**
+         * @param address the node
+         * @param timeoutMillis the longest wait for the connect
+         * @return the nanoseconds the connect took
+         * @throws IOException if the node could not be connected to
+         */
+        long connect(InetSocketAddress address, int timeoutMillis) throws IOException;
+    }
+
+    private static final class Node {
+
+        private final Address address;
+        private final int position;
+        private boolean up = true;
+        private long latencyNanos = -1L;
+        private int failures;
+        private long nextProbeNanos = System.nanoTime();
+
+        Node(Address address, int position) {
+            this.address = address;
+            this.position = position;
+        }
+
+        int port(boolean useSslProtocol) {
+            return ConnectionFactory.portOrDefault(this.address.getPort(), useSslProtocol);
+        }
+
+        boolean matches(InetAddress connected, int connectedPort, boolean useSslProtocol) {
+            if (this.port(useSslProtocol) != connectedPort) {
+                return false;
+            }
+            final String host = this.address.getHost();
+            return host.equalsIgnoreCase(connected.getHostAddress()) || host.equalsIgnoreCase(connected.getHostName());
+        }
+    }
+}
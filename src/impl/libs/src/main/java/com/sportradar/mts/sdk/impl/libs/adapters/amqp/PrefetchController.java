@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adapts the prefetch count of a consumer, within <code>[minPrefetchCount, maxPrefetchCount]</code>, to how fast its
+ * messages get consumed: once per interval, the prefetch count is halved if the messages took longer than the target
+ * latency from their delivery to the end of their consumption (the listener slowed down, prefetched messages only
+ * wait longer and take memory), and doubled if every prefetched message was unacknowledged while the messages were
+ * consumed in less than half the target latency (a burst the listener keeps up with). Thread-safe.
+ */
+final class PrefetchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchController.class);
+
+    private final String name;
+    private final int minPrefetchCount;
+    private final int maxPrefetchCount;
+    private final long targetLatencyNanos;
+    private final long intervalNanos;
+    private final PrefetchStatistics statistics;
+    private final LongAdder consumedCount = new LongAdder();
+    private final LongAdder consumeLatencyNanos = new LongAdder();
+    private final AtomicInteger maxUnacked = new AtomicInteger();
+    private volatile int prefetchCount;
+    private long lastEvaluationNanos;
+
+    /**
+     * @param name the consumer name, for logging
+     * @param prefetchCount the initial prefetch count, clamped to the bounds
+     * @param targetLatencyNanos max time from the delivery of a message to the end of its consumption
+     * @param intervalNanos time between two evaluations
+     */
+    PrefetchController(String name,
+                       int prefetchCount,
+                       int minPrefetchCount,
+                       int maxPrefetchCount,
+                       long targetLatencyNanos,
+                       long intervalNanos,
+                       long nowNanos) {
+        checkArgument(minPrefetchCount > 0, "parameter 'minPrefetchCount' is zero or less");
+        checkArgument(maxPrefetchCount >= minPrefetchCount, "parameter 'maxPrefetchCount' is less than 'minPrefetchCount'");
+        checkArgument(targetLatencyNanos > 0L, "parameter 'targetLatencyNanos' is zero or less");
+        checkArgument(intervalNanos > 0L, "parameter 'intervalNanos' is zero or less");
+
+        this.name = name;
+        this.minPrefetchCount = minPrefetchCount;
+        this.maxPrefetchCount = maxPrefetchCount;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.intervalNanos = intervalNanos;
+        this.prefetchCount = Math.max(minPrefetchCount, Math.min(maxPrefetchCount, prefetchCount));
+        this.statistics = new PrefetchStatistics(this.prefetchCount);
+        this.lastEvaluationNanos = nowNanos;
+    }
+
+    /**
+     * Gets whether the prefetch count can change at all
+     */
+    boolean isAdaptive() {
+        return this.minPrefetchCount < this.maxPrefetchCount;
+    }
+
+    int getPrefetchCount() {
+        return this.prefetchCount;
+    }
+
+    int getMaxPrefetchCount() {
+        return this.maxPrefetchCount;
+    }
+
+    PrefetchStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Records a delivery
+     *
+     * @param unacked the number of delivered and not yet acknowledged messages, this one included
+     */
+    void delivered(int unacked) {
+        int current = this.maxUnacked.get();
+        while (unacked > current && !this.maxUnacked.compareAndSet(current, unacked)) {
+            current = this.maxUnacked.get();
+        }
+    }
+
+    /**
+     * Records the consumption of a message
+     *
+     * @param latencyNanos the time from the delivery of the message to the end of its consumption
+     */
+    void consumed(long latencyNanos) {
+        this.consumedCount.increment();
+        this.consumeLatencyNanos.add(latencyNanos);
+    }
+
+    /**
+     * Gets the time until the next evaluation
+     */
+    synchronized long nanosUntilEvaluation(long nowNanos) {
+        return Math.max(0L, this.lastEvaluationNanos + this.intervalNanos - nowNanos);
+    }
+
+    /**
+     * Adapts the prefetch count to what was recorded since the last evaluation, if the interval elapsed
+     *
+     * @return the prefetch count to apply
+     */
+    synchronized int evaluate(long nowNanos) {
+        if (nowNanos - this.lastEvaluationNanos < this.intervalNanos) {
+            return this.prefetchCount;
+        }
+        this.lastEvaluationNanos = nowNanos;
+        final long consumed = this.consumedCount.sumThenReset();
+        final long latencyNanos = this.consumeLatencyNanos.sumThenReset();
+        final int unacked = this.maxUnacked.getAndSet(0);
+        final long averageLatencyNanos = consumed == 0L ? 0L : latencyNanos / consumed;
+        this.statistics.evaluated(averageLatencyNanos, unacked);
+
+        final int current = this.prefetchCount;
+        if (averageLatencyNanos > this.targetLatencyNanos && current > this.minPrefetchCount) {
+            this.change(Math.max(this.minPrefetchCount, current >> 1), PrefetchStatistics.ChangeReason.SLOW_CONSUMER);
+        } else if (unacked >= current && consumed > 0L && averageLatencyNanos <= (this.targetLatencyNanos >> 1) && current < this.maxPrefetchCount) {
+            this.change((int) Math.min(this.maxPrefetchCount, (long) current << 1), PrefetchStatistics.ChangeReason.BURST);
+        }
+        return this.prefetchCount;
+    }
+
+    private void change(int newPrefetchCount, PrefetchStatistics.ChangeReason reason) {
+        logger.debug("{}: prefetch count {} -> {} ({})", this.name, this.prefetchCount, newPrefetchCount, reason);
+        this.statistics.changed(newPrefetchCount, reason);
+        this.prefetchCount = newPrefetchCount;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prefetch statistics of a {@link RabbitMqConsumer}: the prefetch count (basicQos) currently applied, how often it was
+ * raised and lowered and why it changed last
+ */
+public final class PrefetchStatistics {
+
+    /**
+     * Why the prefetch count changed
+     */
+    public enum ChangeReason {
+        /**
+         * Not changed yet
+         */
+        NONE,
+        /**
+         * Every prefetched message was unacknowledged while the messages were consumed fast enough
+         */
+        BURST,
+        /**
+         * The messages took longer than the target latency to get consumed
+         */
+        SLOW_CONSUMER
+    }
+
+    private final LongAdder raised = new LongAdder();
+    private final LongAdder lowered = new LongAdder();
+    private volatile int prefetchCount;
+    private volatile ChangeReason lastChangeReason = ChangeReason.NONE;
+    private volatile long lastConsumeLatencyNanos;
+    private volatile int lastMaxUnacked;
+
+    PrefetchStatistics(int prefetchCount) {
+        this.prefetchCount = prefetchCount;
+    }
+
+    void evaluated(long averageConsumeLatencyNanos, int maxUnacked) {
+        this.lastConsumeLatencyNanos = averageConsumeLatencyNanos;
+        this.lastMaxUnacked = maxUnacked;
+    }
+
+    void changed(int newPrefetchCount, ChangeReason reason) {
+        if (newPrefetchCount > this.prefetchCount) {
+            this.raised.increment();
+        } else {
+            this.lowered.increment();
+        }
+        this.prefetchCount = newPrefetchCount;
+        this.lastChangeReason = reason;
+    }
+
+    public int getPrefetchCount() {
+        return this.prefetchCount;
+    }
+
+    public long getRaisedCount() {
+        return this.raised.sum();
+    }
+
+    public long getLoweredCount() {
+        return this.lowered.sum();
+    }
+
+    public ChangeReason getLastChangeReason() {
+        return this.lastChangeReason;
+    }
+
+    /**
+     * Gets the average time from the delivery of a message to the end of its consumption, over the last evaluated
+     * interval
+     *
+     * @return the average consume latency(ms)
+     */
+    public double getLastConsumeLatencyMillis() {
+        return (double) this.lastConsumeLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1L);
+    }
+
+    /**
+     * Gets the max number of delivered and not yet acknowledged messages over the last evaluated interval
+     *
+     * @return the max unacknowledged messages
+     */
+    public int getLastMaxUnacked() {
+        return this.lastMaxUnacked;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchStatistics{" +
+                "prefetchCount=" + getPrefetchCount() +
+                ", raised=" + getRaisedCount() +
+                ", lowered=" + getLoweredCount() +
+                ", lastChangeReason=" + getLastChangeReason() +
+                ", lastConsumeLatencyMs=" + String.format("%.3f", getLastConsumeLatencyMillis()) +
+                ", lastMaxUnacked=" + getLastMaxUnacked() +
+                '}';
+    }
+}
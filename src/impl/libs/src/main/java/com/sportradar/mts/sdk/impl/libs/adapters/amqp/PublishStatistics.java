@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publish statistics of a {@link RabbitMqProducer}: size of the published batches, time messages wait in the buffer,
+ * latency of the publisher confirms and how long closing the producer took
+ */
+public final class PublishStatistics {
+
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder publishedMessages = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final LongAdder confirmedMessages = new LongAdder();
+    private final LongAdder confirmLatencyNanos = new LongAdder();
+    private final AtomicLong maxConfirmLatencyNanos = new AtomicLong();
+    private final LongAdder dequeuedMessages = new LongAdder();
+    private final LongAdder queueLatencyNanos = new LongAdder();
+    private final AtomicLong maxQueueLatencyNanos = new AtomicLong();
+    private volatile long closeLatencyNanos;
+
+    void batchPublished(int batchSize) {
+        if (batchSize <= 0) {
+            return;
+        }
+        this.publishedBatches.increment();
+        this.publishedMessages.add(batchSize);
+        updateMax(this.maxBatchSize, batchSize);
+    }
+
+    void messageConfirmed(long latencyNanos) {
+        this.confirmedMessages.increment();
+        this.confirmLatencyNanos.add(latencyNanos);
+        updateMax(this.maxConfirmLatencyNanos, latencyNanos);
+    }
+
+    void messageDequeued(long waitNanos) {
+        this.dequeuedMessages.increment();
+        this.queueLatencyNanos.add(waitNanos);
+        updateMax(this.maxQueueLatencyNanos, waitNanos);
+    }
+
+    void closed(long closeNanos) {
+        this.closeLatencyNanos = closeNanos;
+    }
+
+    public long getPublishedBatchCount() {
+        return this.publishedBatches.sum();
+    }
+
+    public long getPublishedMessageCount() {
+        return this.publishedMessages.sum();
+    }
+
+    public long getMaxBatchSize() {
+        return this.maxBatchSize.get();
+    }
+
+    public double getAverageBatchSize() {
+        final long batches = this.publishedBatches.sum();
+        return batches == 0L ? 0d : (double) this.publishedMessages.sum() / batches;
+    }
+
+    public long getConfirmedMessageCount() {
+        return this.confirmedMessages.sum();
+    }
+
+    public double getAverageConfirmLatencyMillis() {
+        final long confirmed = this.confirmedMessages.sum();
+        return confirmed == 0L ? 0d : toMillis(this.confirmLatencyNanos.sum()) / confirmed;
+    }
+
+    public double getMaxConfirmLatencyMillis() {
+        return toMillis(this.maxConfirmLatencyNanos.get());
+    }
+
+    /**
+     * Gets the average time from accepting a message (sendAsync) to publishing it
+     *
+     * @return the average time(ms)
+     */
+    public double getAverageQueueLatencyMillis() {
+        final long dequeued = this.dequeuedMessages.sum();
+        return dequeued == 0L ? 0d : toMillis(this.queueLatencyNanos.sum()) / dequeued;
+    }
+
+    public double getMaxQueueLatencyMillis() {
+        return toMillis(this.maxQueueLatencyNanos.get());
+    }
+
+    /**
+     * Gets how long the last close of the producer took (waiting for the publishing threads to finish)
+     *
+     * @return the close time(ms) or 0 if not closed yet
+     */
+    public double getCloseLatencyMillis() {
+        return toMillis(this.closeLatencyNanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1L);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PublishStatistics{" +
+                "batches=" + getPublishedBatchCount() +
+                ", messages=" + getPublishedMessageCount() +
+                ", avgBatchSize=" + String.format("%.2f", getAverageBatchSize()) +
+                ", maxBatchSize=" + getMaxBatchSize() +
+                ", confirmed=" + getConfirmedMessageCount() +
+                ", avgConfirmLatencyMs=" + String.format("%.3f", getAverageConfirmLatencyMillis()) +
+                ", maxConfirmLatencyMs=" + String.format("%.3f", getMaxConfirmLatencyMillis()) +
+                ", avgQueueLatencyMs=" + String.format("%.3f", getAverageQueueLatencyMillis()) +
+                ", maxQueueLatencyMs=" + String.format("%.3f", getMaxQueueLatencyMillis()) +
+                ", closeLatencyMs=" + String.format("%.3f", getCloseLatencyMillis()) +
+                '}';
+    }
+}
@@ -5,6 +5,7 @@
 package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
 import com.google.common.base.Preconditions;
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.AlreadyClosedException;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.ShutdownSignalException;
@@ -17,6 +18,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.NoRouteToHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -28,6 +31,9 @@ public abstract class RabbitMqBase implements Openable {
 
     private static final boolean DURABLE = true; // survive broker restart
     private static final boolean AUTO_DELETE = false; // the exchange will get deleted as soon as there are no more queues bound to it
+    // jittered, the instances disconnected by the same broker blip do not all reconnect at the same moment
+    private static final RetryBackoff RECONNECT_BACKOFF = new RetryBackoff(1000L, 30000L);
+    private static final long NOT_DOWN = Long.MIN_VALUE;
 
     protected final ChannelFactory channelFactory;
     protected final String exchangeName;
@@ -38,6 +44,7 @@ public abstract class RabbitMqBase implements Openable {
     private final ChannelFactoryProvider channelFactoryProvider;
 
     private volatile boolean isOpen = false;
+    private final AtomicLong downSinceNanos = new AtomicLong(NOT_DOWN);
     private RecoverableThread[] threads = null;
 
     private boolean isRegistered = false;
@@ -83,22 +90,25 @@ public abstract class RabbitMqBase implements Openable {
                 this.isRegistered = true;
             }
 
-            try (final ChannelWrapper channelWrapper = this.channelFactory.getChannel()) {
-                // try to declare the exchange if it is not the default one
-                if (!this.exchangeName.equals("")) {
-                    tryCreateExchange(channelWrapper);
+            // declare the exchange if it is not the default one and not declared yet (e.g. by the warmup)
+            if (!this.exchangeName.equals("")
+                    && !this.channelFactory.getRecovery().isDeclared(ConnectionRecovery.exchange(this.exchangeName))) {
+                try (final ChannelWrapper channelWrapper = this.channelFactory.getChannel()) {
+                    this.declareExchange(channelWrapper.getChannel());
+                } catch (Exception exc) {
+                    throw new MtsSdkProcessException(exc.getMessage(), exc);
                 }
-            } catch (Exception exc) {
-                throw new MtsSdkProcessException(exc.getMessage(), exc);
             }
 
-            final String threadPrefix = "rabbitmq-" + this.instanceName + "-thread-";
-            this.threads = new RecoverableThread[this.concurrencyLevel];
-            for (int i = 0; i < this.concurrencyLevel; i++) {
-                final int threadId = (i + 1);
-                this.threads[i] = new RecoverableThread(threadPrefix + threadId,
-                                                        true,
-                                                        new BackgroundWork(this, threadId));
+            if (this.startsWorkers()) {
+                final String threadPrefix = "rabbitmq-" + this.instanceName + "-thread-";
+                this.threads = new RecoverableThread[this.concurrencyLevel];
+                for (int i = 0; i < this.concurrencyLevel; i++) {
+                    final int threadId = (i + 1);
+                    this.threads[i] = new RecoverableThread(threadPrefix + threadId,
+                                                            true,
+                                                            new BackgroundWork(this, threadId));
+                }
             }
 
             this.isOpen = true;
@@ -108,27 +118,57 @@ public abstract class RabbitMqBase implements Openable {
                 this.isRegistered = true;
             }
 
-            for (int i = 0; i < this.concurrencyLevel; i++) {
-                this.threads[i].open();
+            if (this.threads != null) {
+                for (int i = 0; i < this.concurrencyLevel; i++) {
+                    this.threads[i].open();
+                }
             }
         }
     }
 
-    private void tryCreateExchange(ChannelWrapper channelWrapper) throws IOException {
+    /**
+     * Declares the broker topology (exchange, queue) of this instance ahead of {@link #open()}, which then skips
+     * declaring the exchange; the channel factory provider must have a registered instance
+     */
+    public void declareTopology() {
+        try (final ChannelWrapper channelWrapper = this.channelFactory.getChannel()) {
+            this.declareTopology(channelWrapper.getChannel());
+        } catch (Exception exc) {
+            throw new MtsSdkProcessException(exc.getMessage(), exc);
+        }
+    }
+
+    /**
+     * Declares the broker topology of this instance on the provided channel, skipping what is already declared (see
+     * {@link ConnectionRecovery}); the exchange unless it is the default one. Called before every {@link #doWork}.
+     */
+    protected void declareTopology(Channel channel) throws IOException {
+        if (!this.exchangeName.equals("")
+                && !this.channelFactory.getRecovery().isDeclared(ConnectionRecovery.exchange(this.exchangeName))) {
+            this.declareExchange(channel);
+        }
+    }
+
+    private void declareExchange(Channel channel) throws IOException {
+        this.tryCreateExchange(channel);
+        this.channelFactory.getRecovery().declared(ConnectionRecovery.exchange(this.exchangeName), DURABLE && !AUTO_DELETE);
+    }
+
+    private void tryCreateExchange(Channel channel) throws IOException {
         try {
-            channelWrapper.getChannel().exchangeDeclare(this.exchangeName,
-                                                        this.exchangeType,
-                                                        DURABLE,
-                                                        AUTO_DELETE,
-                                                        null);
+            channel.exchangeDeclare(this.exchangeName,
+                                    this.exchangeType,
+                                    DURABLE,
+                                    AUTO_DELETE,
+                                    null);
         } catch (IOException ioe) {
             logger.warn("Exchange {} creation failed, will try to recreate it", this.exchangeName);
-            channelWrapper.getChannel().exchangeDelete(this.exchangeName);
-            channelWrapper.getChannel().exchangeDeclare(this.exchangeName,
-                                                        this.exchangeType,
-                                                        DURABLE,
-                                                        AUTO_DELETE,
-                                                        null);
+            channel.exchangeDelete(this.exchangeName);
+            channel.exchangeDeclare(this.exchangeName,
+                                    this.exchangeType,
+                                    DURABLE,
+                                    AUTO_DELETE,
+                                    null);
         }
     }
 
@@ -136,9 +176,13 @@ public abstract class RabbitMqBase implements Openable {
     public synchronized void close() {
         if (this.isOpen) {
             this.isOpen = false;
+            this.wakeUpWorkers();
 
-            for (int i = 0; i < this.concurrencyLevel; i++) {
-                this.threads[i].close();
+            if (this.threads != null) {
+                for (int i = 0; i < this.concurrencyLevel; i++) {
+                    this.threads[i].close();
+                }
+                this.threads = null;
             }
 
             if (this.isRegistered) {
@@ -153,16 +197,54 @@ public abstract class RabbitMqBase implements Openable {
         return isOpen;
     }
 
+    protected final String getInstanceName() {
+        return this.instanceName;
+    }
+
+    /**
+     * Called by the worker threads once they are working again; records the time-to-recover of this instance if it
+     * was down
+     */
+    private void workResumed() {
+        final long since = this.downSinceNanos.getAndSet(NOT_DOWN);
+        if (since != NOT_DOWN) {
+            this.channelFactory.getRecovery().recovered(this.instanceName, System.nanoTime() - since);
+        }
+    }
+
+    private void workFailed(boolean topologyMissing) {
+        this.downSinceNanos.compareAndSet(NOT_DOWN, System.nanoTime());
+        if (topologyMissing) {
+            this.channelFactory.getRecovery().invalidateAll();
+        }
+    }
+
     protected final void execute(final Runnable command) {
         this.channelFactoryProvider.execute(command);
     }
 
     protected abstract void doWork(Channel channel, int threadId) throws InterruptedException, IOException;
 
+    /**
+     * Returns a value indicating whether open starts the worker threads calling {@link #doWork(Channel, int)}; false
+     * if the work is done elsewhere (e.g. by a {@link SharedPublisherLoop})
+     */
+    protected boolean startsWorkers() {
+        return true;
+    }
+
+    /**
+     * Called on close, before waiting for the worker threads to finish; wakes workers waiting for something to do
+     */
+    protected void wakeUpWorkers() {
+        // workers of the base class find out on their next poll
+    }
+
     private static final class BackgroundWork implements Runnable {
 
         private final RabbitMqBase parent;
         private final int threadId;
+        private int failures = 0;
         private long sleepMillis = 0L;
 
         public BackgroundWork(RabbitMqBase parent, int threadId) {
@@ -189,22 +271,29 @@ public abstract class RabbitMqBase implements Openable {
 
                 try {
                     try (final ChannelWrapper channelWrapper = this.parent.channelFactory.getChannel()) {
+                        final Channel channel = channelWrapper.getChannel();
+                        this.parent.declareTopology(channel);
+                        this.failures = 0;
                         this.sleepMillis = 0L;
-                        this.parent.doWork(channelWrapper.getChannel(), this.threadId);
+                        this.parent.workResumed();
+                        this.parent.doWork(channel, this.threadId);
                     }
 
                 } catch (IOException exc) {
-                    this.sleepMillis = getSleepMillis(isConnectionException(exc), this.sleepMillis);
+                    this.parent.workFailed(isNotFound(exc.getCause()));
+                    this.sleepMillis = this.getSleepMillis(isConnectionException(exc));
                     logger.error("Unexpected connection exception while doing background work; sleepMillis={}",
                                  this.sleepMillis,
                                  exc);
                 } catch (ShutdownSignalException exc) {
-                    this.sleepMillis = getSleepMillis(true, this.sleepMillis);
+                    this.parent.workFailed(isNotFound(exc));
+                    this.sleepMillis = this.getSleepMillis(true);
                     logger.error("Unexpected connection exception while doing background work; sleepMillis={}",
                                  this.sleepMillis,
                                  exc);
                 } catch (Exception e) {
                     logger.warn("unknown exception; unchanged sleepMillis={}", sleepMillis);
+                    this.parent.workFailed(false);
                     this.sleepMillis = 1000L;
                     Thread.currentThread().interrupt();
                 }
@@ -221,19 +310,21 @@ public abstract class RabbitMqBase implements Openable {
                     || e.getCause().getClass().equals(NoRouteToHostException.class);
         }
 
-        private static long getSleepMillis(boolean isConnectionException, long oldSleepMillis) {
-            if (!isConnectionException) {
-                return 1000L;
-            }
-
-            if (oldSleepMillis == 0L) {
-                return 1000L;
+        /**
+         * Returns a value indicating whether the broker closed the channel because an exchange or queue is missing
+         */
+        private static boolean isNotFound(Throwable e) {
+            if (!(e instanceof ShutdownSignalException)) {
+                return false;
             }
+            final Object reason = ((ShutdownSignalException) e).getReason();
+            return reason instanceof AMQP.Channel.Close && ((AMQP.Channel.Close) reason).getReplyCode() == AMQP.NOT_FOUND;
+        }
 
-            if (oldSleepMillis < 64000L) {
-                oldSleepMillis = oldSleepMillis << 1;
-            }
-            return oldSleepMillis;
+        private long getSleepMillis(boolean isConnectionException) {
+            // other failures retry after about a second, connection failures back off further on every attempt
+            this.failures = isConnectionException ? this.failures + 1 : 1;
+            return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(RECONNECT_BACKOFF.jitteredNanosBefore(this.failures)));
         }
     }
-}
\ No newline at end of file
+}
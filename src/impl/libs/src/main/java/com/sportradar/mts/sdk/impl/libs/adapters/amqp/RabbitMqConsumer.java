@@ -5,9 +5,16 @@
 package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
 import com.google.common.base.Preconditions;
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.QueueingConsumer;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
 import com.sportradar.mts.sdk.api.utils.SdkInfo;
+import com.sportradar.mts.sdk.api.utils.StringUtils;
+import com.sportradar.mts.sdk.impl.libs.threading.HashedTimingWheel;
+import com.sportradar.mts.sdk.impl.libs.threading.StripedExecutor;
+import com.sportradar.mts.sdk.impl.libs.threading.WorkSignal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,22 +25,48 @@ import java.lang.management.ManagementFactory;
 import java.text.Format;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Consumer pushing the deliveries of the broker (through {@link DefaultConsumer#handleDelivery}) straight into the
+ * {@link AmqpMessageReceiver}, on the delivery thread of the connection or, if <code>dispatchThreads</code> is set,
+ * on a {@link StripedExecutor} keyed by {@link AmqpMessageReceiver#getOrderingKey}: the messages of different tickets
+ * are consumed in parallel, the ones of the same ticket in order. The messages are acknowledged manually once
+ * consumed, so the prefetch count (basicQos) bounds the messages in flight; the acks of up to
+ * <code>ackBatchSize</code> consumed messages are coalesced into one frame (see {@link AckCoalescer}). The worker
+ * threads only set up the channels, retry the locally held deliveries once their backoff elapsed (see
+ * {@link RetryBackoff}) and send the acks whose linger elapsed. With
+ * prefetch bounds apart, a {@link PrefetchController} adapts the prefetch count to how fast the
+ * messages get consumed.
+ */
 public final class RabbitMqConsumer extends RabbitMqBase implements AmqpConsumer {
 
     public static final String AMQP_HEADER_REPLY_ROUTING_KEY = "replyRoutingKey";
     private static final Logger logger = LoggerFactory.getLogger(RabbitMqConsumer.class);
+    private static final long WAIT_FOR_TASK_NANOS = TimeUnit.MILLISECONDS.toNanos(WAIT_FOR_TASK_MILLIS);
+    private static final long PREFETCH_EVALUATION_NANOS = TimeUnit.SECONDS.toNanos(1L);
+    private static final long RETRY_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final int RETRY_TICKS_PER_WHEEL = 512;
     private AmqpMessageReceiver msgHandler;
     private final String queueName;
     private final String origRoutingKey;
     private final Set<String> routingKeys;
     private final int maxRetryCount;
     private final int prefetchCount;
+    private final int dispatchThreads;
+    private final int ackBatchSize;
+    private final long ackLingerNanos;
+    private final PrefetchController prefetchController;
+    private final boolean adaptivePrefetch;
+    private final RetryBackoff retryBackoff;
     private final AmqpCluster amqpCluster;
+    private final WorkSignal workSignal = new WorkSignal(0);
+    private volatile StripedExecutor dispatchExecutor;
     // survive broker restart
     private boolean durable = true;
     // there can only be one client for this specific queue : false
@@ -42,8 +75,6 @@ public final class RabbitMqConsumer extends RabbitMqBase implements AmqpConsumer
     private boolean exclusiveConsumer;
     // the exchange will get deleted as soon as there are no more queues bound to it
     private boolean autoDelete = false;
-    // indicates if the sdk should manually ack (on rabbit) each received ticket
-    private boolean autoMessageAcknowledgmentEnabled = true;
 
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public RabbitMqConsumer(ChannelFactoryProvider channelFactoryProvider,
@@ -58,6 +89,101 @@ public final class RabbitMqConsumer extends RabbitMqBase implements AmqpConsumer
                             int concurrencyLevel,
                             boolean deleteQueueOnClose,
                             boolean exclusiveConsumer) {
+        this(channelFactoryProvider,
+             routingKey,
+             instanceName,
+             mqCluster,
+             exchangeName,
+             exchangeType,
+             queueName,
+             maxRetryCount,
+             prefetchCount,
+             concurrencyLevel,
+             deleteQueueOnClose,
+             exclusiveConsumer,
+             0,
+             1,
+             0);
+    }
+
+    /**
+     * @param dispatchThreads number of threads (stripes) the deliveries are consumed on; 0 to consume them on the
+     *                        delivery thread of the connection
+     * @param ackBatchSize number of consumed messages acked with one frame, capped at the prefetch count; 1 acks
+     *                     every message on its own
+     * @param ackLingerMillis max time a consumed message waits for its batched ack
+     */
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public RabbitMqConsumer(ChannelFactoryProvider channelFactoryProvider,
+                            String routingKey,
+                            String instanceName,
+                            AmqpCluster mqCluster,
+                            String exchangeName,
+                            ExchangeType exchangeType,
+                            String queueName,
+                            int maxRetryCount,
+                            int prefetchCount,
+                            int concurrencyLevel,
+                            boolean deleteQueueOnClose,
+                            boolean exclusiveConsumer,
+                            int dispatchThreads,
+                            int ackBatchSize,
+                            int ackLingerMillis) {
+        this(channelFactoryProvider,
+             routingKey,
+             instanceName,
+             mqCluster,
+             exchangeName,
+             exchangeType,
+             queueName,
+             maxRetryCount,
+             prefetchCount,
+             concurrencyLevel,
+             deleteQueueOnClose,
+             exclusiveConsumer,
+             dispatchThreads,
+             ackBatchSize,
+             ackLingerMillis,
+             prefetchCount,
+             prefetchCount,
+             SdkInfo.CONSUMER_TARGET_LATENCY_MILLIS_DEFAULT,
+             new RetryBackoff(SdkInfo.CONSUMER_RETRY_BACKOFF_MILLIS_DEFAULT, SdkInfo.CONSUMER_RETRY_BACKOFF_MAX_MILLIS_DEFAULT));
+    }
+
+    /**
+     * @param prefetchCount the initial prefetch count, clamped to <code>[minPrefetchCount, maxPrefetchCount]</code>
+     * @param dispatchThreads number of threads (stripes) the deliveries are consumed on; 0 to consume them on the
+     *                        delivery thread of the connection
+     * @param ackBatchSize number of consumed messages acked with one frame, capped at the prefetch count; 1 acks
+     *                     every message on its own
+     * @param ackLingerMillis max time a consumed message waits for its batched ack
+     * @param minPrefetchCount the lowest prefetch count the consumer adapts to
+     * @param maxPrefetchCount the highest prefetch count the consumer adapts to; equal to <code>minPrefetchCount</code>
+     *                         for a fixed prefetch count
+     * @param targetConsumeLatencyMillis the time from the delivery of a message to the end of its consumption above
+     *                                   which the prefetch count is lowered
+     * @param retryBackoff the wait before each local retry of a message not consumed successfully
+     */
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public RabbitMqConsumer(ChannelFactoryProvider channelFactoryProvider,
+                            String routingKey,
+                            String instanceName,
+                            AmqpCluster mqCluster,
+                            String exchangeName,
+                            ExchangeType exchangeType,
+                            String queueName,
+                            int maxRetryCount,
+                            int prefetchCount,
+                            int concurrencyLevel,
+                            boolean deleteQueueOnClose,
+                            boolean exclusiveConsumer,
+                            int dispatchThreads,
+                            int ackBatchSize,
+                            int ackLingerMillis,
+                            int minPrefetchCount,
+                            int maxPrefetchCount,
+                            int targetConsumeLatencyMillis,
+                            RetryBackoff retryBackoff) {
         super(channelFactoryProvider,
               instanceName,
               mqCluster,
@@ -69,28 +195,113 @@ public final class RabbitMqConsumer extends RabbitMqBase implements AmqpConsumer
         checkNotNull(routingKey, "parameter 'routingKey' is null");
         Preconditions.checkArgument(maxRetryCount > 0, "parameter 'maxRetryCount' is zero or less");
         Preconditions.checkArgument(prefetchCount > 0, "parameter 'prefetchCount' is zero or less");
+        Preconditions.checkArgument(dispatchThreads >= 0, "parameter 'dispatchThreads' is less than zero");
+        Preconditions.checkArgument(ackBatchSize > 0, "parameter 'ackBatchSize' is zero or less");
+        Preconditions.checkArgument(ackLingerMillis >= 0, "parameter 'ackLingerMillis' is less than zero");
+        checkNotNull(retryBackoff, "parameter 'retryBackoff' is null");
 
         this.queueName = queueName;
         this.origRoutingKey = routingKey;
         this.routingKeys = getRoutingKeys(routingKey);
         this.maxRetryCount = maxRetryCount;
-        this.prefetchCount = prefetchCount;
+        this.dispatchThreads = dispatchThreads;
+        this.ackBatchSize = ackBatchSize;
+        this.ackLingerNanos = TimeUnit.MILLISECONDS.toNanos(ackLingerMillis);
+        this.retryBackoff = retryBackoff;
+        this.prefetchController = new PrefetchController(instanceName,
+                                                         prefetchCount,
+                                                         minPrefetchCount,
+                                                         maxPrefetchCount,
+                                                         TimeUnit.MILLISECONDS.toNanos(targetConsumeLatencyMillis),
+                                                         PREFETCH_EVALUATION_NANOS,
+                                                         System.nanoTime());
+        this.prefetchCount = this.prefetchController.getPrefetchCount();
+        this.adaptivePrefetch = this.prefetchController.isAdaptive();
         this.amqpCluster = mqCluster;
         this.exclusiveConsumer = exclusiveConsumer;
     }
 
     @Override
-    protected void doWork(Channel channel, int threadId) throws InterruptedException, IOException {
+    public synchronized void open() {
+        if (!this.isOpen() && this.dispatchThreads > 0 && this.dispatchExecutor == null) {
+            // a stripe never waits for room: the broker stops at (at most maxPrefetchCount) unacknowledged messages
+            this.dispatchExecutor = new StripedExecutor("rabbitmq-" + this.getInstanceName() + "-dispatch-",
+                                                        this.dispatchThreads,
+                                                        this.prefetchController.getMaxPrefetchCount());
+        }
+        super.open();
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        final StripedExecutor executor = this.dispatchExecutor;
+        if (executor != null) {
+            this.dispatchExecutor = null;
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(WAIT_FOR_TASK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    logger.warn("dispatch threads of {} did not finish in time", this.getInstanceName());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-        Map<String, Object> arguments = new HashMap<>();
-        arguments.putIfAbsent("x-queue-master-locator", "min-masters");
+    /**
+     * Gets the prefetch statistics (prefetch count applied and why it changed) of this consumer
+     *
+     * @return the {@link PrefetchStatistics}
+     */
+    public PrefetchStatistics getPrefetchStatistics() {
+        return this.prefetchController.getStatistics();
+    }
 
-        channel.basicQos(this.prefetchCount);
+    @Override
+    protected void wakeUpWorkers() {
+        this.workSignal.signal();
+    }
+
+    @Override
+    protected void declareTopology(Channel channel) throws IOException {
+        super.declareTopology(channel);
+        this.declareQueue(channel);
+    }
 
-        channel.queueDeclare(this.queueName, durable, exclusiveQueue, autoDelete, arguments);
+    private void declareQueue(Channel channel) throws IOException {
+        final ConnectionRecovery recovery = this.channelFactory.getRecovery();
+        // the queue and its bindings are gone with the connection unless the queue outlives it
+        final boolean survivesConnectionLoss = durable && !exclusiveQueue && !autoDelete;
+
+        final String queue = ConnectionRecovery.queue(this.queueName);
+        if (!recovery.isDeclared(queue)) {
+            Map<String, Object> arguments = new HashMap<>();
+            arguments.putIfAbsent("x-queue-master-locator", "min-masters");
+
+            channel.queueDeclare(this.queueName, durable, exclusiveQueue, autoDelete, arguments);
+            recovery.declared(queue, survivesConnectionLoss);
+        }
 
         for (final String key : this.routingKeys) {
-            channel.queueBind(this.queueName, this.exchangeName, key, null);
+            final String binding = ConnectionRecovery.binding(this.queueName, this.exchangeName, key);
+            if (!recovery.isDeclared(binding)) {
+                channel.queueBind(this.queueName, this.exchangeName, key, null);
+                recovery.declared(binding, survivesConnectionLoss);
+            }
+        }
+    }
+
+    @Override
+    protected void doWork(Channel channel, int threadId) throws InterruptedException, IOException {
+
+        final int prefetch = this.prefetchController.getPrefetchCount();
+        if (this.adaptivePrefetch) {
+            // the prefetch count of a consumer only applies to the consumers started after it, the one of the channel
+            // (the consumer is alone on it) can be changed any time
+            channel.basicQos(prefetch, true);
+        } else {
+            channel.basicQos(prefetch);
         }
 
         Format formatter = new SimpleDateFormat("yyyyMMddHHmm");
@@ -104,190 +315,415 @@ public final class RabbitMqConsumer extends RabbitMqBase implements AmqpConsumer
 //        noLocal - flag set to true unless server local buffering is required
 //        exclusive - true if this is an exclusive consumer
 //        callback - an interface to the consumer object
-        QueueingConsumer consumer = new QueueingConsumer(channel);
-        String consumerName = channel.basicConsume(this.queueName, autoMessageAcknowledgmentEnabled, consumerTag, false, exclusiveConsumer, null, consumer);
-
-        final int throwSafetyDisconnectExcLimit = (this.prefetchCount * 2);
-        final int maxCountOfLocalMsgs = Math.max(1, this.prefetchCount >> 1);
-        int throwSafetyDisconnectExcCount = 0;
-        int retryQueueSize = 0;
-        Queue<DeliveryWrapper> retryQueue = new LinkedList<>();
+        PushConsumer consumer = new PushConsumer(channel, threadId, consumerTag, prefetch);
+        channel.basicConsume(this.queueName, false, consumerTag, false, exclusiveConsumer, null, consumer);
 
         while (this.isOpen()) {
             if (Thread.interrupted()) {
                 throw new InterruptedException("thread has been interrupted while actively working");
             }
+            if (!channel.isOpen()) {
+                throw channel.getCloseReason();
+            }
+            if (consumer.cancelled) {
+                throw new IOException(StringUtils.format("consumer cancelled by the broker [exName={}, qName={}]", this.exchangeName, this.queueName));
+            }
 
-            if (throwSafetyDisconnectExcCount > throwSafetyDisconnectExcLimit) {
-                logger.warn("Safety sleep!!! [exName={}, qName={}, rKey={}]",
-                            this.exchangeName, this.queueName, this.origRoutingKey);
-                Thread.sleep(32000L);
-                throwSafetyDisconnectExcCount = 0;
+            final long observed = this.workSignal.current();
+            final long ackDueNanos = consumer.flushAcksIfDue();
+            long waitNanos = ackDueNanos < 0L ? WAIT_FOR_TASK_NANOS : Math.min(ackDueNanos, WAIT_FOR_TASK_NANOS);
+            if (this.adaptivePrefetch) {
+                consumer.adaptPrefetch();
+                waitNanos = Math.min(waitNanos, this.prefetchController.nanosUntilEvaluation(System.nanoTime()));
+            }
+            final long retryDueNanos = consumer.retryDue();
+            if (retryDueNanos >= 0L) {
+                waitNanos = Math.min(waitNanos, retryDueNanos);
             }
+            this.workSignal.await(observed, waitNanos);
+        }
+
+        // let the messages in flight be consumed and acked on this channel before it gets closed
+        if (channel.isOpen()) {
+            channel.basicCancel(consumerTag);
+        }
+        final long deadline = System.nanoTime() + WAIT_FOR_TASK_NANOS;
+        while (consumer.getInFlightCount() > 0 && channel.isOpen() && System.nanoTime() < deadline) {
+            final long observed = this.workSignal.current();
+            if (consumer.getInFlightCount() > 0) {
+                this.workSignal.await(observed, deadline - System.nanoTime());
+            }
+        }
+        if (channel.isOpen()) {
+            consumer.flushAcks();
+        }
+    }
+
+    @Override
+    public void setMessageReceivedHandler(AmqpMessageReceiver msgHandler) {
+        checkNotNull(msgHandler, "checkNotNull cannot be null");
+        this.msgHandler = msgHandler;
+    }
+
+    private static Set<String> getRoutingKeys(final String input) {
+        final String[] keys = input.split(";");
+        final Set<String> result = new HashSet<>();
+        for (final String key : keys) {
+            result.add(key.trim());
+        }
+        return result;
+    }
+
+    private Map<String, Object> convertHeaders(Map<String, Object> headers) {
+        Map<String, Object> converted = new HashMap<>();
 
-            int retryCount = 0;
-
-            QueueingConsumer.Delivery delivery = consumer.nextDelivery(0L);
-            if (delivery == null) {
-                if (retryQueueSize > 0) {
-                    DeliveryWrapper tmp = retryQueue.poll();
-                    delivery = tmp.delivery;
-                    retryCount = tmp.retryCount;
-                    retryQueueSize--;
-                } else {
-                    delivery = consumer.nextDelivery(WAIT_FOR_TASK_MILLIS);
+        if (headers == null || headers.isEmpty()) {
+            return converted;
+        }
+
+        // any remaining headers pass through (the delivered ones are left untouched, they may be read-only)
+        converted.putAll(headers);
+
+        // convert LongStringHelper$ByteArrayLongString to String
+        if (headers.containsKey(AMQP_HEADER_REPLY_ROUTING_KEY)) {
+            converted.put(AMQP_HEADER_REPLY_ROUTING_KEY, headers.get(AMQP_HEADER_REPLY_ROUTING_KEY).toString());
+        }
+        // convert other headers as needed here
+        // ...
+
+        return converted;
+    }
+
+    /**
+     * Consumes the deliveries of one channel; the ack, nack and local retry handling is guarded by the consumer's
+     * monitor since deliveries and retries may be consumed on different threads. A message not consumed successfully
+     * waits for its retry on a {@link HashedTimingWheel}, so the other messages keep flowing meanwhile; the messages
+     * held locally take prefetch slots, so at most half the prefetch count applied are held, the broker gets the others
+     * back (also the ones held beyond it once the prefetch count is lowered).
+     */
+    private final class PushConsumer extends DefaultConsumer {
+
+        private final int threadId;
+        private final String consumerName;
+        private final HashedTimingWheel<DeliveryWrapper> retryWheel = new HashedTimingWheel<>(RETRY_TICK_NANOS,
+                                                                                                  RETRY_TICKS_PER_WHEEL,
+                                                                                                  System.nanoTime());
+        // only used by the worker thread owning the channel
+        private final List<DeliveryWrapper> dueRetries = new ArrayList<>();
+        // the retries held on the wheel, oldest first (the expired ones are pruned with the next retries)
+        private final Deque<HashedTimingWheel.Timeout<DeliveryWrapper>> heldRetries = new ArrayDeque<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AckCoalescer acks;
+        // without dispatch threads, keeps the retries of the worker from overlapping the deliveries
+        private final Object inlineConsumeLock = new Object();
+        private int appliedPrefetchCount;
+        private int maxCountOfLocalMsgs;
+        private volatile boolean cancelled;
+
+        PushConsumer(Channel channel, int threadId, String consumerName, int initialPrefetchCount) {
+            super(channel);
+            this.threadId = threadId;
+            this.consumerName = consumerName;
+            this.appliedPrefetchCount = initialPrefetchCount;
+            this.maxCountOfLocalMsgs = maxCountOfLocalMsgs(initialPrefetchCount);
+            // the broker stops delivering at prefetchCount unacked messages, a larger batch would only wait for the linger
+            this.acks = new AckCoalescer(channel, Math.min(ackBatchSize, initialPrefetchCount), ackLingerNanos);
+        }
+
+        @Override
+        public void handleDelivery(String consumerTag,
+                                   Envelope envelope,
+                                   AMQP.BasicProperties properties,
+                                   byte[] body) throws IOException {
+            synchronized (this) {
+                this.acks.delivered(envelope.getDeliveryTag());
+                prefetchController.delivered(this.acks.getUnsettledCount());
+            }
+            this.dispatch(new DeliveryWrapper(envelope, properties, body, 0, 0, System.nanoTime()));
+        }
+
+        @Override
+        public void handleCancel(String consumerTag) {
+            this.cancelled = true;
+            workSignal.signal();
+        }
+
+        @Override
+        public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+            workSignal.signal();
+        }
+
+        /**
+         * Gets the number of deliveries handed to the receiver and not consumed yet
+         */
+        int getInFlightCount() {
+            return this.inFlight.get();
+        }
+
+        /**
+         * Sends the coalesced acks whose linger elapsed
+         *
+         * @return the nanoseconds until the next acks are due, or -1 if there are none waiting
+         */
+        synchronized long flushAcksIfDue() throws IOException {
+            final long now = System.nanoTime();
+            this.acks.flushIfDue(now);
+            return this.acks.nanosUntilDue(now);
+        }
+
+        /**
+         * Applies the prefetch count of the controller to the channel, once it was evaluated
+         */
+        void adaptPrefetch() throws IOException {
+            final int prefetch = prefetchController.evaluate(System.nanoTime());
+            if (prefetch == this.appliedPrefetchCount) {
+                return;
+            }
+            this.getChannel().basicQos(prefetch, true);
+            this.appliedPrefetchCount = prefetch;
+            synchronized (this) {
+                this.acks.setBatchSize(Math.min(ackBatchSize, prefetch));
+                this.maxCountOfLocalMsgs = maxCountOfLocalMsgs(prefetch);
+                // the retries held beyond the lowered limit would pin the remaining prefetch slots until their backoff
+                while (this.retryWheel.size() > this.maxCountOfLocalMsgs && !this.heldRetries.isEmpty()) {
+                    final HashedTimingWheel.Timeout<DeliveryWrapper> held = this.heldRetries.pollLast();
+                    if (held.cancel()) {
+                        this.returnToBroker(held.getItem());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sends all the coalesced acks
+         */
+        synchronized void flushAcks() throws IOException {
+            this.acks.flush(System.nanoTime());
+        }
+
+        /**
+         * Consumes the locally held deliveries whose backoff elapsed (on their stripes, to keep the order of their
+         * tickets)
+         *
+         * @return the nanoseconds until more may be due, or -1 if none are held
+         */
+        long retryDue() throws IOException {
+            final long untilNextTick;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                if (this.retryWheel.expire(now, this.dueRetries::add) > 0) {
+                    this.heldRetries.removeIf(held -> !held.isPending());
+                }
+                untilNextTick = this.retryWheel.nanosUntilNextTick(now);
+            }
+            try {
+                for (DeliveryWrapper delivery : this.dueRetries) {
+                    this.dispatch(delivery);
                 }
+            } finally {
+                this.dueRetries.clear();
             }
-            if (delivery == null) {
-                continue;
+            return untilNextTick;
+        }
+
+        private void dispatch(DeliveryWrapper delivery) throws IOException {
+            final StripedExecutor executor = dispatchExecutor;
+            this.inFlight.incrementAndGet();
+            if (executor == null) {
+                synchronized (this.inlineConsumeLock) {
+                    this.consume(delivery);
+                }
+                return;
             }
+            final String orderingKey = msgHandler.getOrderingKey(delivery.body,
+                                                                 delivery.envelope.getRoutingKey(),
+                                                                 delivery.properties.getCorrelationId());
+            try {
+                executor.execute(orderingKey, () -> this.consume(delivery));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.requeue(delivery);
+            } catch (IllegalStateException e) {
+                // closing: the broker redelivers it
+                this.requeue(delivery);
+            }
+        }
 
+        private synchronized void requeue(DeliveryWrapper delivery) throws IOException {
+            this.inFlight.decrementAndGet();
+            this.getChannel().basicNack(delivery.envelope.getDeliveryTag(), false, true);
+            this.acks.nacked(delivery.envelope.getDeliveryTag());
+        }
+
+        private void consume(DeliveryWrapper delivery) {
             if(logger.isTraceEnabled()) {
                 logger.trace("CONSUME START: consumer={} tId={} received msg with routingKey={}, exchange={} and deliveryTag={}",
-                             consumerName,
-                             threadId,
-                             delivery.getEnvelope().getRoutingKey(),
-                             delivery.getEnvelope().getExchange(),
-                             delivery.getEnvelope().getDeliveryTag());
-                String msg = new String(delivery.getBody());
+                             this.consumerName,
+                             this.threadId,
+                             delivery.envelope.getRoutingKey(),
+                             delivery.envelope.getExchange(),
+                             delivery.envelope.getDeliveryTag());
+                String msg = new String(delivery.body);
                 logger.trace("CONSUME Message: {}", msg);
-                logger.trace("CONSUME Properties: {}", delivery.getProperties());
+                logger.trace("CONSUME Properties: {}", delivery.properties);
             }
             MessageStatus messageStatus;
             try {
-                messageStatus = this.msgHandler.consume(
-                        delivery.getBody(),
-                        delivery.getEnvelope().getRoutingKey(),
-                        delivery.getProperties().getCorrelationId(),
-                        convertHeaders(delivery.getProperties().getHeaders()));
+                messageStatus = msgHandler.consume(
+                        delivery.body,
+                        delivery.envelope.getRoutingKey(),
+                        delivery.properties.getCorrelationId(),
+                        convertHeaders(delivery.properties.getHeaders()));
             } catch (Exception exc) {
                 logger.error("Exception thrown by consumer (setting result to 'RetryLimited'): ", exc);
                 messageStatus = MessageStatus.RETRY_LIMITED;
             }
+            prefetchController.consumed(System.nanoTime() - delivery.deliveredNanos);
 
             if (MessageStatus.CONSUMED_SUCCESSFULLY.equals(messageStatus)) {
                 logger.trace("CONSUME END: consumer={} tId={} received result={}",
-                             consumerName,
-                             threadId,
+                             this.consumerName,
+                             this.threadId,
                              messageStatus);
             } else {
                 logger.debug("END: consumer={} tId={} received result={}",
-                             consumerName,
-                             threadId,
+                             this.consumerName,
+                             this.threadId,
                              messageStatus);
             }
 
-            if(autoMessageAcknowledgmentEnabled){
-                continue;
+            try {
+                if (this.settle(delivery, messageStatus)) {
+                    this.afterLimitReached(delivery);
+                }
+            } catch (IOException | ShutdownSignalException exc) {
+                // the broker redelivers the unacknowledged messages of the closed channel
+                logger.warn("failed to settle msg={} [exName={}, qName={}]",
+                            delivery.envelope.getDeliveryTag(),
+                            exchangeName,
+                            queueName,
+                            exc);
+            } finally {
+                // only a closing worker waits for the messages in flight
+                if (this.inFlight.decrementAndGet() == 0 && !isOpen()) {
+                    workSignal.signal();
+                }
             }
+        }
+
+        /**
+         * Acks, nacks or queues the consumed delivery for a local retry
+         *
+         * @return true if the delivery was dropped because the retry limit was reached
+         */
+        private synchronized boolean settle(DeliveryWrapper delivery, MessageStatus messageStatus) throws IOException {
             /*
              * Msg handled
              */
             if (MessageStatus.CONSUMED_SUCCESSFULLY.equals(messageStatus)) {
-                channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
-                throwSafetyDisconnectExcCount = 0;
+                this.ack(delivery);
                 logger.trace("consumer={} tId={} acked msg={}",
-                             consumerName,
-                             threadId,
-                             delivery.getEnvelope().getDeliveryTag());
-                continue;
+                             this.consumerName,
+                             this.threadId,
+                             delivery.envelope.getDeliveryTag());
+                return false;
             }
 
-                /*
-                 * Msg should be retried forever
-                 */
+            /*
+             * Msg should be retried forever
+             */
             if (MessageStatus.RETRY_FOREVER.equals(messageStatus)) {
-                while (maxCountOfLocalMsgs <= retryQueueSize) {
-                    DeliveryWrapper tmp = retryQueue.poll();
-                    retryQueueSize--;
-                    channel.basicNack(tmp.delivery.getEnvelope().getDeliveryTag(), false, true);
-                    throwSafetyDisconnectExcCount++;
-                }
-                DeliveryWrapper dw = new DeliveryWrapper();
-                dw.delivery = delivery;
-                dw.retryCount = retryCount;
-                retryQueue.add(dw);
-                retryQueueSize++;
-                continue;
+                this.queueForRetry(delivery, delivery.retryCount);
+                return false;
             }
 
             /*
              * Msg should be retried limited times
              */
-            retryCount++;
-            if (retryCount >= this.maxRetryCount) {
+            final int retryCount = delivery.retryCount + 1;
+            if (retryCount >= maxRetryCount) {
                 logger.error(
                         "msg={}, content={} did not get consumed, retry limit reached={}, dropping msg!!! [exName={}, qName={}, rKey={}]",
-                        delivery.getEnvelope().getDeliveryTag(),
-                        new String(delivery.getBody()),
-                        this.maxRetryCount,
-                        this.exchangeName,
-                        this.queueName,
-                        this.origRoutingKey);
-                channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
-                try {
-                    this.msgHandler.afterLimitReached(delivery.getBody(),
-                                                      delivery.getEnvelope().getRoutingKey(),
-                                                      delivery.getProperties().getCorrelationId());
-                } catch (Exception exc) {
-                    logger.error("Exception thrown by consumer after limit reached: ", exc);
-                }
-            } else {
-                while (maxCountOfLocalMsgs <= retryQueueSize) {
-                    DeliveryWrapper tmp = retryQueue.poll();
-                    retryQueueSize--;
-                    channel.basicNack(tmp.delivery.getEnvelope().getDeliveryTag(), false, true);
-                    throwSafetyDisconnectExcCount++;
-                }
-                DeliveryWrapper dw = new DeliveryWrapper();
-                dw.delivery = delivery;
-                dw.retryCount = retryCount;
-                retryQueue.add(dw);
-                retryQueueSize++;
+                        delivery.envelope.getDeliveryTag(),
+                        new String(delivery.body),
+                        maxRetryCount,
+                        exchangeName,
+                        queueName,
+                        origRoutingKey);
+                this.ack(delivery);
+                return true;
             }
+            this.queueForRetry(delivery, retryCount);
+            return false;
         }
-    }
 
-    @Override
-    public void setMessageReceivedHandler(AmqpMessageReceiver msgHandler) {
-        checkNotNull(msgHandler, "checkNotNull cannot be null");
-        this.msgHandler = msgHandler;
-    }
-
-    private static Set<String> getRoutingKeys(final String input) {
-        final String[] keys = input.split(";");
-        final Set<String> result = new HashSet<>();
-        for (final String key : keys) {
-            result.add(key.trim());
+        private void ack(DeliveryWrapper delivery) throws IOException {
+            final boolean wasEmpty = this.acks.getWaitingCount() == 0;
+            this.acks.ack(delivery.envelope.getDeliveryTag(), System.nanoTime());
+            if (wasEmpty && this.acks.getWaitingCount() > 0) {
+                // the worker sends the acks once their linger elapses
+                workSignal.signal();
+            }
         }
-        return result;
-    }
-
-    private Map<String, Object> convertHeaders(Map<String, Object> headers) {
-        Map<String, Object> converted = new HashMap<>();
 
-        if (headers == null || headers.isEmpty()) {
-            return converted;
+        private void queueForRetry(DeliveryWrapper delivery, int retryCount) throws IOException {
+            if (this.retryWheel.size() >= this.maxCountOfLocalMsgs) {
+                this.returnToBroker(delivery);
+                return;
+            }
+            final int attempt = delivery.attempt + 1;
+            final long dueNanos = System.nanoTime() + retryBackoff.nanosBefore(attempt);
+            this.heldRetries.add(this.retryWheel.schedule(new DeliveryWrapper(delivery.envelope, delivery.properties, delivery.body, retryCount, attempt, dueNanos),
+                                                          dueNanos));
+            // the worker may be waiting for longer than the backoff
+            workSignal.signal();
         }
 
-        // convert LongStringHelper$ByteArrayLongString to String
-        if (headers.containsKey(AMQP_HEADER_REPLY_ROUTING_KEY)) {
-            converted.put(AMQP_HEADER_REPLY_ROUTING_KEY, headers.get(AMQP_HEADER_REPLY_ROUTING_KEY).toString());
-            headers.remove(AMQP_HEADER_REPLY_ROUTING_KEY);
+        private void returnToBroker(DeliveryWrapper delivery) throws IOException {
+            logger.debug("consumer={} tId={} holds {} msgs for a retry, msg={} is returned to the broker [exName={}, qName={}]",
+                         this.consumerName,
+                         this.threadId,
+                         this.retryWheel.size(),
+                         delivery.envelope.getDeliveryTag(),
+                         exchangeName,
+                         queueName);
+            this.getChannel().basicNack(delivery.envelope.getDeliveryTag(), false, true);
+            this.acks.nacked(delivery.envelope.getDeliveryTag());
         }
-        // convert other headers as needed here
-        // ...
 
-        // any remaining headers pass through
-        converted.putAll(headers);
+        private void afterLimitReached(DeliveryWrapper delivery) {
+            try {
+                msgHandler.afterLimitReached(delivery.body,
+                                             delivery.envelope.getRoutingKey(),
+                                             delivery.properties.getCorrelationId());
+            } catch (Exception exc) {
+                logger.error("Exception thrown by consumer after limit reached: ", exc);
+            }
+        }
+    }
 
-        return converted;
+    private static int maxCountOfLocalMsgs(int prefetch) {
+        return Math.max(1, prefetch >> 1);
     }
 
     private static final class DeliveryWrapper {
 
-        public QueueingConsumer.Delivery delivery;
-        public int retryCount;
+        private final Envelope envelope;
+        private final AMQP.BasicProperties properties;
+        private final byte[] body;
+        private final int retryCount;
+        // retries so far, also of the messages retried forever
+        private final int attempt;
+        private final long deliveredNanos;
+
+        DeliveryWrapper(Envelope envelope, AMQP.BasicProperties properties, byte[] body, int retryCount, int attempt, long deliveredNanos) {
+            this.envelope = envelope;
+            this.properties = properties;
+            this.body = body;
+            this.retryCount = retryCount;
+            this.attempt = attempt;
+            this.deliveredNanos = deliveredNanos;
+        }
     }
 
     private static long getPID()
@@ -5,13 +5,21 @@
 package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
 import com.rabbitmq.client.*;
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.outbox.DisabledTicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.threading.BoundedRingQueue;
+import com.sportradar.mts.sdk.impl.libs.threading.WorkSignal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -21,14 +29,33 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
 
     private static final Logger logger = LoggerFactory.getLogger(RabbitMqProducer.class);
 
-    private final BlockingQueue<AcceptedMessage> normalQueue = new LinkedTransferQueue<>();
-    private final BlockingQueue<AcceptedMessage> redeliveryQueue = new LinkedTransferQueue<>();
+    private static final int MAX_UNCONFIRMED_MESSAGES = 1024;
+    private static final long CONFIRM_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    private static final long WAIT_FOR_TASK_NANOS = TimeUnit.MILLISECONDS.toNanos(WAIT_FOR_TASK_MILLIS);
+    private static final long HELD_DRAIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final int MAX_RECORDED_ROUTING_KEYS = 64;
+
+    private final BoundedRingQueue<AcceptedMessage> normalQueue;
+    private final BoundedRingQueue<AcceptedMessage> redeliveryQueue;
     private final int maxRetryCount;
     private final int maxBufferSize;
-    private final AMQP.BasicProperties msgProperties;
+    private final BasicPropertiesCache propertiesCache;
     private final boolean waitForPublishConfirmations;
     private final boolean isPublishMandatory;
+    private final int publishBatchSize;
+    private final long publishLingerNanos;
+    private final PublishStatistics publishStatistics = new PublishStatistics();
+    private WorkSignal workSignal;
+    private final BoundedRingQueue<AcceptedMessage> heldQueue;
+    private final int blockedHoldLimit;
+    private final long heldDrainIntervalNanos;
+    private final AtomicLong nextHeldDrainNanos = new AtomicLong();
+    private final Runnable flowControlListener;
+    private volatile BrokerFlowControl flowControl;
     private ReturnListener returnListener;
+    private TicketOutbox outbox = new DisabledTicketOutbox();
+    private SharedPublisherLoop publisherLoop;
+    private final Map<String, Boolean> publishedRoutingKeys = new ConcurrentHashMap<>();
 
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public RabbitMqProducer(ChannelFactoryProvider channelFactoryProvider,
@@ -42,6 +69,59 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
                             boolean msgMemOnly,
                             boolean waitForPublishConfirmations,
                             boolean mandatory) {
+        this(channelFactoryProvider,
+                instanceName,
+                mqCluster,
+                exchangeName,
+                exchangeType,
+                maxRetryCount,
+                maxBufferSize,
+                concurrencyLevel,
+                msgMemOnly,
+                waitForPublishConfirmations,
+                mandatory,
+                1,
+                0,
+                ProducerOverflowPolicy.REJECT,
+                0,
+                0,
+                0,
+                1);
+    }
+
+    /**
+     * Creates a producer which publishes up to <code>publishBatchSize</code> messages back-to-back before going back
+     * to the queue; the broker then settles the whole batch with a single multiple=true confirm
+     *
+     * @param publishBatchSize max number of messages published in one batch (1 publishes one message at a time)
+     * @param publishLingerMillis max time(ms) to wait for a batch to fill up (0 publishes whatever is already queued)
+     * @param overflowPolicy what happens to messages sent while <code>maxBufferSize</code> messages are buffered
+     * @param overflowTimeoutMillis max time(ms) a sender waits for space in the buffer (BLOCK and SPIN_THEN_PARK)
+     * @param idleSpinTries times an idle publishing thread checks (yielding) for new messages before it parks; more
+     *                      tries lower the latency of the first message after a pause, 0 uses the least CPU
+     * @param blockedHoldLimit max number of messages held while the broker blocks the connection; 0 rejects messages
+     *                         sent while blocked at once ({@link SendRejectReason#CONNECTION_BLOCKED})
+     * @param blockedDrainRate max number of held messages per second published once the connection is unblocked
+     */
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public RabbitMqProducer(ChannelFactoryProvider channelFactoryProvider,
+                            String instanceName,
+                            AmqpCluster mqCluster,
+                            String exchangeName,
+                            ExchangeType exchangeType,
+                            int maxRetryCount,
+                            int maxBufferSize,
+                            int concurrencyLevel,
+                            boolean msgMemOnly,
+                            boolean waitForPublishConfirmations,
+                            boolean mandatory,
+                            int publishBatchSize,
+                            int publishLingerMillis,
+                            ProducerOverflowPolicy overflowPolicy,
+                            long overflowTimeoutMillis,
+                            int idleSpinTries,
+                            int blockedHoldLimit,
+                            int blockedDrainRate) {
         super(channelFactoryProvider,
                 instanceName,
                 mqCluster,
@@ -51,12 +131,92 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
 
         checkArgument(maxRetryCount > 0, "parameter 'maxRetryCount' is zero or less");
         checkArgument(maxBufferSize > 0, "parameter 'maxBufferSize' is zero or less");
+        checkArgument(publishBatchSize > 0, "parameter 'publishBatchSize' is zero or less");
+        checkArgument(publishLingerMillis >= 0, "parameter 'publishLingerMillis' is less than zero");
+        checkArgument(blockedHoldLimit >= 0, "parameter 'blockedHoldLimit' is less than zero");
+        checkArgument(blockedDrainRate > 0, "parameter 'blockedDrainRate' is zero or less");
 
         this.maxRetryCount = maxRetryCount;
         this.maxBufferSize = maxBufferSize;
-        this.msgProperties = msgMemOnly ? MessageProperties.BASIC : MessageProperties.PERSISTENT_BASIC;
+        this.propertiesCache = new BasicPropertiesCache(msgMemOnly ? MessageProperties.BASIC : MessageProperties.PERSISTENT_BASIC);
         this.waitForPublishConfirmations = waitForPublishConfirmations;
         this.isPublishMandatory = mandatory;
+        this.publishBatchSize = publishBatchSize;
+        this.publishLingerNanos = TimeUnit.MILLISECONDS.toNanos(publishLingerMillis);
+        this.normalQueue = new BoundedRingQueue<>(maxBufferSize, overflowPolicy, overflowTimeoutMillis);
+        // room for everything that can be unconfirmed or taken into a batch when the channel breaks
+        this.redeliveryQueue = new BoundedRingQueue<>(MAX_UNCONFIRMED_MESSAGES + publishBatchSize);
+        this.workSignal = new WorkSignal(idleSpinTries);
+        this.heldQueue = blockedHoldLimit == 0 ? null : new BoundedRingQueue<>(blockedHoldLimit);
+        this.blockedHoldLimit = blockedHoldLimit;
+        this.heldDrainIntervalNanos = TimeUnit.SECONDS.toNanos(1L) / blockedDrainRate;
+        this.flowControlListener = () -> this.workSignal.signal();
+    }
+
+    /**
+     * Gets the publish statistics (batch sizes and publisher confirm latency) of this producer
+     *
+     * @return the {@link PublishStatistics}
+     */
+    public PublishStatistics getPublishStatistics() {
+        return this.publishStatistics;
+    }
+
+    /**
+     * Gets the number of messages currently waiting in the buffer to be published
+     *
+     * @return the buffer depth
+     */
+    public int getBufferDepth() {
+        return this.normalQueue.size() + this.redeliveryQueue.size();
+    }
+
+    /**
+     * Gets the number of messages held because the broker blocked the connection, waiting to be published
+     *
+     * @return the number of held messages
+     */
+    public int getHeldCount() {
+        return this.heldQueue == null ? 0 : this.heldQueue.size();
+    }
+
+    @Override
+    public synchronized void open() {
+        if (!this.isOpen()) {
+            this.flowControl = this.channelFactory.getFlowControl();
+            this.flowControl.addListener(this.flowControlListener);
+            super.open();
+            if (this.publisherLoop != null) {
+                this.publisherLoop.register(this);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.isOpen()) {
+            final long start = System.nanoTime();
+            super.close();
+            if (this.publisherLoop != null) {
+                this.awaitPublishedByLoop();
+                this.publisherLoop.unregister(this);
+            }
+            // the publishing threads are gone; whatever they could not publish fails now instead of never completing
+            this.failPendingMessages();
+            this.flowControl.removeListener(this.flowControlListener);
+            this.publishStatistics.closed(System.nanoTime() - start);
+            logger.info("{} closed; {}", this.exchangeName, this.publishStatistics);
+        }
+    }
+
+    @Override
+    protected void wakeUpWorkers() {
+        this.workSignal.signal();
+    }
+
+    @Override
+    protected boolean startsWorkers() {
+        return this.publisherLoop == null;
     }
 
 
@@ -73,7 +233,7 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         final AmqpSendResult result = this.sendAsyncInternal(correlationId,
                 msg,
                 DEFAULT_ROUTING_KEY,
-                new HashMap<>(),
+                Collections.emptyMap(),
                 doneCallback);
         return (!result.isRejected());
     }
@@ -99,7 +259,7 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         final AmqpSendResult result = this.sendAsyncInternal(correlationId,
                 msg,
                 routingKey,
-                new HashMap<>(),
+                Collections.emptyMap(),
                 doneCallback);
         return (!result.isRejected());
     }
@@ -119,6 +279,69 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
     }
 
 
+    /**
+     * Queues the messages in chunks as big as the buffer, each with one queue operation (and one wake-up of the
+     * publishing thread), so a chunk is published back to back; a chunk without space waits for it according to the
+     * overflow policy. Once a chunk is rejected, the rest of the batch is rejected as well (BUFFER_FULL), so the queued
+     * messages keep their order without gaps. While the connection is blocked the messages are held one by one, like
+     * {@link #sendAsync(String, byte[], String, Map)} does.
+     */
+    @Override
+    public List<AmqpSendResult> sendOrderedBatchAsync(List<AmqpOutgoingMessage> messages, Map<String, Object> messageHeaders) {
+        checkNotNull(messages, "parameter 'messages' is null");
+        checkNotNull(messageHeaders, "parameter 'messageHeaders' is null");
+        checkState(this.isOpen(), "connector is closed");
+
+        final List<AcceptedMessage> tasks = new ArrayList<>(messages.size());
+        for (AmqpOutgoingMessage message : messages) {
+            tasks.add(this.accept(message.getCorrelationId(),
+                    message.getContent(),
+                    message.getRoutingKey(),
+                    messageHeaders,
+                    null));
+        }
+        final List<AmqpSendResult> results = new ArrayList<>(tasks.size());
+        final int chunkSize = this.normalQueue.capacity();
+        boolean rejected = false;
+        for (int start = 0; start < tasks.size(); start += chunkSize) {
+            final List<AcceptedMessage> chunk = tasks.subList(start, Math.min(start + chunkSize, tasks.size()));
+            final BrokerFlowControl currentFlowControl = this.flowControl;
+            if (rejected) {
+                for (AcceptedMessage task : chunk) {
+                    results.add(this.reject(task));
+                }
+            } else if ((currentFlowControl != null) && (currentFlowControl.isBlocked() || this.isHolding())) {
+                for (AcceptedMessage task : chunk) {
+                    results.add(this.queue(task, null));
+                }
+            } else if (this.enqueueAll(chunk)) {
+                this.workSignal.signal();
+                results.addAll(chunk);
+            } else {
+                logger.warn("buffer size limit reached, rejecting the rest of the batch [size={}, limit={}, policy={}, rejected={}, exName={}]",
+                        this.normalQueue.size(),
+                        this.maxBufferSize,
+                        this.normalQueue.getOverflowPolicy(),
+                        tasks.size() - start,
+                        this.exchangeName);
+                rejected = true;
+                for (AcceptedMessage task : chunk) {
+                    results.add(this.reject(task));
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean enqueueAll(List<AcceptedMessage> chunk) {
+        try {
+            return this.normalQueue.enqueueAll(chunk);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     @Override
     public boolean send(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders) {
         try {
@@ -135,10 +358,26 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         this.returnListener = returnListener;
     }
 
+    @Override
+    public void setOutbox(TicketOutbox outbox) {
+        checkNotNull(outbox, "parameter 'outbox' is null");
+        checkState(!this.isOpen(), "the outbox must be set before the producer is opened");
+        this.outbox = outbox;
+    }
+
+    @Override
+    public void setPublisherLoop(SharedPublisherLoop publisherLoop) {
+        checkNotNull(publisherLoop, "parameter 'publisherLoop' is null");
+        checkState(!this.isOpen(), "the publisher loop must be set before the producer is opened");
+        this.publisherLoop = publisherLoop;
+        this.workSignal = publisherLoop.getWorkSignal();
+    }
+
     @Override
     protected void doWork(Channel channel, int threadId) throws
             InterruptedException,
             IOException {
+        channel.addShutdownListener(cause -> this.workSignal.signal());
         if (this.waitForPublishConfirmations) {
             this.sendAndWaitForConfirm(channel);
         } else {
@@ -156,28 +395,147 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         checkArgument(msg.length != 0, "parameter 'msg' is empty");
         checkNotNull(messageHeaders, "parameter 'messageHeaders' is null");
 
-        int currentSize = this.normalQueue.size();
-        if (currentSize > this.maxBufferSize) {
-            logger.warn("buffer size limit reached [size={}, limit={}, exName={}]", currentSize, this.maxBufferSize, this.exchangeName);
-            return new RejectedMessage(correlationId, msg, routingKey, messageHeaders, this);
-        }
-
         checkState(this.isOpen(), "connector is closed");
 
+        return this.queue(this.accept(correlationId, msg, routingKey, messageHeaders, doneCallback), doneCallback);
+    }
+
+    private AcceptedMessage accept(String correlationId,
+                                   byte[] msg,
+                                   String routingKey,
+                                   Map<String, Object> messageHeaders,
+                                   Consumer<AmqpSendResult> doneCallback) {
         AcceptedMessage task;
         if (this.waitForPublishConfirmations) {
             task = new AcceptedMessage(correlationId, msg, routingKey, messageHeaders, doneCallback, this);
         } else {
             task = new AcceptedMessageNoConfirm(correlationId, msg, routingKey, messageHeaders, null, this);
         }
-        if (this.normalQueue.offer(task)) {
+        // written ahead of queueing: once queued, the message may be published (and settled) at any time
+        task.outboxHandle = this.outbox.append(correlationId, msg);
+        return task;
+    }
+
+    private AmqpSendResult queue(AcceptedMessage task, Consumer<AmqpSendResult> doneCallback) {
+        final BrokerFlowControl currentFlowControl = this.flowControl;
+        if ((currentFlowControl != null) && (currentFlowControl.isBlocked() || this.isHolding())) {
+            return this.hold(task, currentFlowControl, doneCallback);
+        }
+        boolean accepted;
+        try {
+            accepted = this.normalQueue.enqueue(task);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted) {
+            this.workSignal.signal();
             if ((!this.waitForPublishConfirmations) && (doneCallback != null)) {
                 doneCallback.accept(task);
             }
             return task;
         } else {
-            logger.warn("sendBlocking rejected [exName={}]", this.exchangeName);
-            return new RejectedMessage(correlationId, msg, routingKey, messageHeaders, this);
+            logger.warn("buffer size limit reached [size={}, limit={}, policy={}, exName={}]",
+                    this.normalQueue.size(),
+                    this.maxBufferSize,
+                    this.normalQueue.getOverflowPolicy(),
+                    this.exchangeName);
+            return this.reject(task);
+        }
+    }
+
+    private AmqpSendResult reject(AcceptedMessage task) {
+        this.outbox.settle(task.outboxHandle, false);
+        return new RejectedMessage(task.getCorrelationId(),
+                task.content,
+                task.routingKey,
+                task.messageHeaders,
+                this,
+                SendRejectReason.BUFFER_FULL);
+    }
+
+    /**
+     * Returns a value indicating whether messages are held; new messages are then held as well (behind the ones already
+     * held), also after the connection was unblocked, so they keep their order
+     */
+    private boolean isHolding() {
+        return (this.heldQueue != null) && (!this.heldQueue.isEmpty());
+    }
+
+    private AmqpSendResult hold(AcceptedMessage task,
+                                BrokerFlowControl currentFlowControl,
+                                Consumer<AmqpSendResult> doneCallback) {
+        // the ring capacity is a power of two; the size check keeps (close to) the configured limit
+        if ((this.heldQueue != null) && (this.heldQueue.size() < this.blockedHoldLimit) && this.heldQueue.offer(task)) {
+            currentFlowControl.messagesHeld(1);
+            this.workSignal.signal();
+            if ((!this.waitForPublishConfirmations) && (doneCallback != null)) {
+                doneCallback.accept(task);
+            }
+            return task;
+        }
+        logger.debug("connection blocked, message rejected [held={}, exName={}]", this.getHeldCount(), this.exchangeName);
+        this.outbox.settle(task.outboxHandle, false);
+        return new RejectedMessage(task.getCorrelationId(),
+                task.content,
+                task.routingKey,
+                task.messageHeaders,
+                this,
+                SendRejectReason.CONNECTION_BLOCKED);
+    }
+
+    private boolean isPaused() {
+        final BrokerFlowControl currentFlowControl = this.flowControl;
+        return (currentFlowControl != null) && currentFlowControl.isBlocked();
+    }
+
+    /**
+     * Takes the next held message if the drain rate allows it (closing drains without limit)
+     */
+    private AcceptedMessage pollHeld() {
+        if ((this.heldQueue == null) || this.heldQueue.isEmpty()) {
+            return null;
+        }
+        if (this.isOpen() && (!this.tryAcquireHeldDrain())) {
+            return null;
+        }
+        final AcceptedMessage held = this.heldQueue.poll();
+        if (held != null) {
+            this.flowControl.messagesHeld(-1);
+        }
+        return held;
+    }
+
+    /**
+     * Paces the held messages at the drain rate; bursts are limited to {@link #HELD_DRAIN_WAIT_NANOS} worth of messages,
+     * so a long block does not save up permits
+     */
+    private boolean tryAcquireHeldDrain() {
+        final long now = System.nanoTime();
+        final long next = this.nextHeldDrainNanos.get();
+        final long due = Math.max(next, now - HELD_DRAIN_WAIT_NANOS);
+        if (due - now > 0L) {
+            return false;
+        }
+        return this.nextHeldDrainNanos.compareAndSet(next, due + this.heldDrainIntervalNanos);
+    }
+
+    /**
+     * Fails all buffered messages; used when the producer closes while the connection is blocked (or closed)
+     */
+    private void failPendingMessages() {
+        AcceptedMessage msg;
+        while ((msg = this.redeliveryQueue.poll()) != null) {
+            msg.setResult(false);
+        }
+        while ((msg = this.normalQueue.poll()) != null) {
+            msg.setResult(false);
+        }
+        if (this.heldQueue != null) {
+            while ((msg = this.heldQueue.poll()) != null) {
+                this.flowControl.messagesHeld(-1);
+                msg.setResult(false);
+            }
         }
     }
 
@@ -185,58 +543,26 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
             InterruptedException,
             IOException {
 
-        final ConcurrentSkipListMap<Long, AcceptedMessage> msgWaitingForConfirm = new ConcurrentSkipListMap<>();
+        final ConfirmTracker<AcceptedMessage> msgWaitingForConfirm = new ConfirmTracker<>(MAX_UNCONFIRMED_MESSAGES);
         final ConfirmListener msgConfirmedListener = new ConfirmListener() {
             @Override
             public void handleAck(final long tag, final boolean multiple) throws IOException {
-                if (multiple) {
-                    Map<Long, AcceptedMessage> confirmed = new HashMap<>(msgWaitingForConfirm.headMap(tag, true));
-                    for (Map.Entry<Long, AcceptedMessage> entry : confirmed.entrySet()) {
-                        entry.getValue().setResult(true);
-                        msgWaitingForConfirm.remove(entry.getKey());
-                    }
-                } else {
-                    AcceptedMessage m = msgWaitingForConfirm.remove(tag);
-                    m.setResult(true);
-                }
+                msgWaitingForConfirm.settle(tag, multiple, RabbitMqProducer.this::messageConfirmed);
             }
 
             @Override
             public void handleNack(final long tag, final boolean multiple) throws IOException {
-                if (multiple) {
-                    Map<Long, AcceptedMessage> confirmed = new HashMap<>(msgWaitingForConfirm.headMap(tag, true));
-                    for (Map.Entry<Long, AcceptedMessage> entry : confirmed.entrySet()) {
-                        entry.getValue().retryCount++;
-                        if (entry.getValue().retryCount == maxRetryCount) {
-                            entry.getValue().setResult(false);
-                        } else {
-                            if (!redeliveryQueue.offer(entry.getValue())) {
-                                entry.getValue().setResult(false);
-                            }
-                        }
-                        msgWaitingForConfirm.remove(entry.getKey());
-                    }
-                } else {
-                    AcceptedMessage m = msgWaitingForConfirm.remove(tag);
-                    m.retryCount++;
-                    if (m.retryCount == maxRetryCount) {
-                        m.setResult(false);
-                    } else {
-                        if (!redeliveryQueue.offer(m)) {
-                            m.setResult(false);
-                        }
-                    }
-                }
+                msgWaitingForConfirm.settle(tag, multiple, RabbitMqProducer.this::messageRejected);
             }
         };
 
-        AcceptedMessage currentMsg = null;
+        final List<AcceptedMessage> batch = new ArrayList<>(this.publishBatchSize);
         try {
             channel.confirmSelect();
             channel.addConfirmListener(msgConfirmedListener);
             channel.addReturnListener(returnListener);
 
-            while (this.isOpen() || (!(this.redeliveryQueue.isEmpty() && this.normalQueue.isEmpty()))) {
+            while (this.isOpen() || this.hasPendingMessages()) {
 
                 if (Thread.interrupted()) {
                     throw new InterruptedException("thread has been interrupted while actively working");
@@ -245,43 +571,257 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
                     throw channel.getCloseReason();
                 }
 
-                currentMsg = this.redeliveryQueue.poll();
-                if (currentMsg == null) {
-                    currentMsg = this.normalQueue.poll(WAIT_FOR_TASK_MILLIS, TimeUnit.MILLISECONDS);
+                if (this.takeBatch(batch)) {
+                    this.publishBatch(channel, msgWaitingForConfirm, batch);
                 }
+            }
+        } finally {
+            msgWaitingForConfirm.drain(this::requeueOrFail);
+        }
+    }
 
-                if (currentMsg == null) {
-                    continue;
-                }
+    /**
+     * Publishes the batch on the provided channel; messages waiting for a confirm are tracked in the provided tracker.
+     * Messages which could not be published (channel broken) are queued for redelivery. Clears the batch.
+     *
+     * @return the number of published messages
+     */
+    private int publishBatch(Channel channel,
+                             ConfirmTracker<AcceptedMessage> msgWaitingForConfirm,
+                             List<AcceptedMessage> batch) throws InterruptedException, IOException {
+        // the messages before 'handedOver' are published (or tracked, or failed)
+        int handedOver = 0;
+        int published = 0;
+        try {
+            for (AcceptedMessage currentMsg : batch) {
                 if ((currentMsg.content == null) || (currentMsg.content.length == 0)) {
+                    handedOver++;
                     currentMsg.setResult(false);
-                    currentMsg = null;
                     continue;
                 }
 
-                long tag = channel.getNextPublishSeqNo();
-                msgWaitingForConfirm.put(tag, currentMsg);
+                currentMsg.publishedNanos = System.nanoTime();
+                this.publishStatistics.messageDequeued(currentMsg.publishedNanos - currentMsg.enqueuedNanos);
+                final boolean confirmed = this.waitForPublishConfirmations;
+                if (confirmed) {
+                    final long tag = channel.getNextPublishSeqNo();
+                    while (!msgWaitingForConfirm.track(tag, currentMsg, CONFIRM_WAIT_NANOS)) {
+                        // too many unconfirmed messages; wait for the broker unless the channel is gone
+                        if (!channel.isOpen()) {
+                            throw channel.getCloseReason();
+                        }
+                    }
+                    handedOver++;
+                }
                 channel.basicPublish(this.exchangeName,
                         currentMsg.routingKey,
                         this.isPublishMandatory,
-                        createProperties(currentMsg.messageHeaders, currentMsg.getCorrelationId()),
+                        this.propertiesCache.get(currentMsg.messageHeaders, currentMsg.getCorrelationId()),
                         currentMsg.content);
-                currentMsg = null;
+                if (!confirmed) {
+                    handedOver++;
+                    currentMsg.setResult(true);
+                }
+                published++;
             }
+            this.publishStatistics.batchPublished(published);
         } finally {
-            boolean cancelCurrentMsg = (currentMsg != null);
-            for (AcceptedMessage unconfirmedMsg : msgWaitingForConfirm.values()) {
-                if (cancelCurrentMsg && (unconfirmedMsg == currentMsg)) {
-                    cancelCurrentMsg = false;
-                }
-                if ((!this.isOpen()) || (!redeliveryQueue.offer(unconfirmedMsg))) {
-                    unconfirmedMsg.setResult(false);
+            for (int i = handedOver; i < batch.size(); i++) {
+                this.requeueOrFail(batch.get(i));
+            }
+            batch.clear();
+        }
+        return published;
+    }
+
+    private void messageConfirmed(AcceptedMessage msg) {
+        this.publishStatistics.messageConfirmed(System.nanoTime() - msg.publishedNanos);
+        msg.setResult(true);
+    }
+
+    private void messageRejected(AcceptedMessage msg) {
+        msg.retryCount++;
+        if (msg.retryCount == this.maxRetryCount) {
+            msg.setResult(false);
+        } else if (this.redeliveryQueue.offer(msg)) {
+            this.workSignal.signal();
+        } else {
+            msg.setResult(false);
+        }
+    }
+
+    /**
+     * Queues the message for redelivery (ahead of new messages); fails it if the producer is closed or the
+     * redelivery queue is full
+     */
+    private void requeueOrFail(AcceptedMessage msg) {
+        if (this.isOpen() && this.redeliveryQueue.offer(msg)) {
+            this.workSignal.signal();
+        } else {
+            msg.setResult(false);
+        }
+    }
+
+    /**
+     * Publishes the messages ready to be sent on the channel of a {@link SharedPublisherLoop} thread, at most one
+     * batch; does not wait (linger is not applied)
+     *
+     * @param channel the channel of the loop thread
+     * @param msgWaitingForConfirm the confirm tracker of the channel, shared by all the producers using the loop
+     * @param batch an empty list owned by the calling thread
+     * @return true if any message was taken from the queues
+     */
+    boolean publishReady(Channel channel,
+                         ConfirmTracker<AcceptedMessage> msgWaitingForConfirm,
+                         List<AcceptedMessage> batch) throws InterruptedException, IOException {
+        if (this.isPaused()) {
+            if (!this.isOpen()) {
+                this.failPendingMessages();
+            }
+            return false;
+        }
+        this.drainReady(batch);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        this.recordRoutingKeys(batch);
+        this.publishBatch(channel, msgWaitingForConfirm, batch);
+        return true;
+    }
+
+    /**
+     * Gets the max time a {@link SharedPublisherLoop} thread may wait for a signal on behalf of this producer
+     */
+    long getIdleWaitNanos() {
+        return this.isHolding() ? HELD_DRAIN_WAIT_NANOS : WAIT_FOR_TASK_NANOS;
+    }
+
+    /**
+     * Returns a value indicating whether a message returned by the broker (mandatory publish) was sent by this producer
+     */
+    boolean publishedTo(String exchange, String routingKey) {
+        return this.exchangeName.equals(exchange) && this.publishedRoutingKeys.containsKey(routingKey);
+    }
+
+    ReturnListener getReturnListener() {
+        return this.returnListener;
+    }
+
+    boolean hasPendingMessages() {
+        return !(this.redeliveryQueue.isEmpty() && this.normalQueue.isEmpty() && ((this.heldQueue == null) || this.heldQueue.isEmpty()));
+    }
+
+    static void confirmed(AcceptedMessage msg) {
+        msg.mqProducer.messageConfirmed(msg);
+    }
+
+    static void rejected(AcceptedMessage msg) {
+        msg.mqProducer.messageRejected(msg);
+    }
+
+    static void unconfirmed(AcceptedMessage msg) {
+        msg.mqProducer.requeueOrFail(msg);
+    }
+
+    /**
+     * Remembers the routing keys used (producers share the channel, returned messages are matched by them)
+     */
+    private void recordRoutingKeys(List<AcceptedMessage> batch) {
+        for (AcceptedMessage msg : batch) {
+            if ((!this.publishedRoutingKeys.containsKey(msg.routingKey)) && (this.publishedRoutingKeys.size() < MAX_RECORDED_ROUTING_KEYS)) {
+                this.publishedRoutingKeys.put(msg.routingKey, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Waits until the {@link SharedPublisherLoop} took all the buffered messages (the producer is already closed, so no
+     * new ones arrive); the ones it can not take (connection blocked) are failed by the loop
+     */
+    private void awaitPublishedByLoop() {
+        final WorkSignal progress = this.publisherLoop.getProgressSignal();
+        try {
+            while (this.publisherLoop.isOpen()) {
+                final long observed = progress.current();
+                if (!this.hasPendingMessages()) {
+                    return;
                 }
+                this.workSignal.signal();
+                progress.await(observed, WAIT_FOR_TASK_NANOS);
             }
-            if (cancelCurrentMsg && ((!this.isOpen()) || (!redeliveryQueue.offer(currentMsg)))) {
-                currentMsg.setResult(false);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the next batch of messages (redeliveries first) into the provided list; waits for a signal if there are none
+     *
+     * @param batch the list to fill
+     * @return false if there were no messages (the caller re-checks the producer and channel state)
+     */
+    private boolean takeBatch(List<AcceptedMessage> batch) throws InterruptedException {
+        final long observed = this.workSignal.current();
+        if (this.isPaused()) {
+            this.awaitUnblocked(observed);
+            return false;
+        }
+        this.drainReady(batch);
+        if (batch.isEmpty()) {
+            this.awaitWork(observed);
+            return false;
+        }
+
+        if (this.publishLingerNanos > 0L) {
+            final long deadline = System.nanoTime() + this.publishLingerNanos;
+            long remaining = this.publishLingerNanos;
+            while ((batch.size() < this.publishBatchSize) && (remaining > 0L)) {
+                final AcceptedMessage next = this.normalQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                this.normalQueue.drainTo(batch, this.publishBatchSize - batch.size());
+                remaining = deadline - System.nanoTime();
             }
         }
+        return true;
+    }
+
+    /**
+     * Takes up to one batch of the messages ready to be published: redeliveries first, then the buffer and last the
+     * held messages (which were sent after the ones in the buffer), at the drain rate
+     */
+    private void drainReady(List<AcceptedMessage> batch) {
+        this.redeliveryQueue.drainTo(batch, this.publishBatchSize);
+        this.normalQueue.drainTo(batch, this.publishBatchSize - batch.size());
+        AcceptedMessage held;
+        while ((batch.size() < this.publishBatchSize) && ((held = this.pollHeld()) != null)) {
+            batch.add(held);
+        }
+    }
+
+    /**
+     * Waits until a message is sent or redelivered, the producer is closed or the channel shuts down
+     *
+     * @param observed the signal sequence read before the queues were found empty
+     */
+    private void awaitWork(long observed) throws InterruptedException {
+        if (this.isOpen()) {
+            // held messages wait for the drain rate
+            this.workSignal.await(observed, this.isHolding() ? HELD_DRAIN_WAIT_NANOS : WAIT_FOR_TASK_NANOS);
+        }
+    }
+
+    /**
+     * Waits while the connection is blocked; fails the buffered messages if the producer is closed meanwhile
+     */
+    private void awaitUnblocked(long observed) throws InterruptedException {
+        if (this.isOpen()) {
+            this.workSignal.await(observed, WAIT_FOR_TASK_NANOS);
+        } else {
+            this.failPendingMessages();
+        }
     }
 
     private void sendAndForget(Channel channel) throws
@@ -292,7 +832,7 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         try {
             channel.addReturnListener(returnListener);
 
-            while (this.isOpen() || (!(this.redeliveryQueue.isEmpty() && this.normalQueue.isEmpty()))) {
+            while (this.isOpen() || this.hasPendingMessages()) {
 
                 if (Thread.interrupted()) {
                     throw new InterruptedException("thread has been interrupted while actively working");
@@ -301,12 +841,21 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
                     throw channel.getCloseReason();
                 }
 
+                final long observed = this.workSignal.current();
+                if (this.isPaused()) {
+                    this.awaitUnblocked(observed);
+                    continue;
+                }
                 currentMsg = this.redeliveryQueue.poll();
                 if (currentMsg == null) {
-                    currentMsg = this.normalQueue.poll(WAIT_FOR_TASK_MILLIS, TimeUnit.MILLISECONDS);
+                    currentMsg = this.normalQueue.poll();
+                }
+                if (currentMsg == null) {
+                    currentMsg = this.pollHeld();
                 }
 
                 if (currentMsg == null) {
+                    this.awaitWork(observed);
                     continue;
                 }
                 if ((currentMsg.content == null) || (currentMsg.content.length == 0)) {
@@ -315,11 +864,13 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
                     continue;
                 }
 
+                this.publishStatistics.messageDequeued(System.nanoTime() - currentMsg.enqueuedNanos);
                 channel.basicPublish(this.exchangeName,
                         currentMsg.routingKey,
                         this.isPublishMandatory,
-                        createProperties(currentMsg.messageHeaders, currentMsg.getCorrelationId()),
+                        this.propertiesCache.get(currentMsg.messageHeaders, currentMsg.getCorrelationId()),
                         currentMsg.content);
+                currentMsg.setResult(true);
                 currentMsg = null;
             }
         } finally {
@@ -330,29 +881,6 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         }
     }
 
-    private AMQP.BasicProperties createProperties(Map<String, Object> messageHeaders, String correlationId) {
-        if (messageHeaders.isEmpty() && correlationId == null) {
-            return this.msgProperties;
-        }
-
-        AMQP.BasicProperties.Builder builder;
-        if (this.msgProperties == null) {
-            builder = new AMQP.BasicProperties().builder();
-
-        } else {
-            builder = this.msgProperties.builder();
-        }
-
-        if (correlationId != null) {
-            builder.correlationId(correlationId);
-        }
-        if (!messageHeaders.isEmpty()) {
-            builder.headers(messageHeaders);
-        }
-
-        return builder.build();
-    }
-
     private static final class RejectedMessage implements AmqpSendResult {
 
         public final byte[] content;
@@ -360,17 +888,20 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         public final AmqpProducer mqProducer;
         public final Map<String, Object> messageHeaders;
         private final String correlationId;
+        private final SendRejectReason rejectReason;
 
         public RejectedMessage(String correlationId,
                                byte[] content,
                                String routingKey,
                                Map<String, Object> messageHeaders,
-                               AmqpProducer mqProducer) {
+                               AmqpProducer mqProducer,
+                               SendRejectReason rejectReason) {
             this.correlationId = correlationId;
             this.content = content;
             this.routingKey = routingKey;
             this.messageHeaders = messageHeaders;
             this.mqProducer = mqProducer;
+            this.rejectReason = rejectReason;
         }
 
         @Override
@@ -378,6 +909,11 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
             return true;
         }
 
+        @Override
+        public SendRejectReason getRejectReason() {
+            return this.rejectReason;
+        }
+
         @Override
         public boolean cancel(boolean b) {
             return false;
@@ -459,10 +995,14 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
         }
     }
 
-    private static class AcceptedMessage implements AmqpSendResult {
+    static class AcceptedMessage implements AmqpSendResult {
 
         public volatile int retryCount = 0;
+        private final long enqueuedNanos = System.nanoTime();
+        private long outboxHandle = TicketOutbox.NO_ENTRY;
+        private long publishedNanos;
         private final AtomicReference<Boolean> result = new AtomicReference<>(null);
+        private final AtomicReference<Runnable> doneAction = new AtomicReference<>(null);
         private final byte[] content;
         private final String routingKey;
         private final String correlationId;
@@ -488,10 +1028,29 @@ public final class RabbitMqProducer extends RabbitMqBase implements AmqpProducer
 
         public void setResult(boolean res) {
             if (this.result.compareAndSet(null, res)) {
+                this.mqProducer.outbox.settle(this.outboxHandle, res);
                 this.latch.countDown();
                 if (this.doneCallback != null) {
                     this.mqProducer.execute(new DoneCallbackRunnable(this.doneCallback, this));
                 }
+                this.runDoneAction();
+            }
+        }
+
+        @Override
+        public void whenDone(Runnable action) {
+            checkNotNull(action, "parameter 'action' is null");
+            this.doneAction.set(action);
+            if (this.isDone()) {
+                this.runDoneAction();
+            }
+        }
+
+        private void runDoneAction() {
+            // whoever takes the action runs it: the thread setting the result or the one adding the action
+            final Runnable action = this.doneAction.getAndSet(null);
+            if (action != null) {
+                this.mqProducer.execute(action);
             }
         }
 
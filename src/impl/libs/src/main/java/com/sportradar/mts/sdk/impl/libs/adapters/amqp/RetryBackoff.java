@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Exponential backoff of the local retries of a consumed message (or of a reconnect): the first retry waits
+ * <code>baseMillis</code>, each further one twice as long as the previous, up to <code>maxMillis</code>
+ */
+public final class RetryBackoff {
+
+    private final long baseNanos;
+    private final long maxNanos;
+
+    /**
+     * @param baseMillis the wait before the first retry; 0 retries at once
+     * @param maxMillis the longest wait
+     */
+    public RetryBackoff(long baseMillis, long maxMillis) {
+        checkArgument(baseMillis >= 0L, "parameter 'baseMillis' is less than zero");
+        checkArgument(maxMillis >= baseMillis, "parameter 'maxMillis' is less than 'baseMillis'");
+
+        this.baseNanos = TimeUnit.MILLISECONDS.toNanos(baseMillis);
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+    }
+
+    /**
+     * Gets the wait before the retry
+     *
+     * @param attempt the retry attempt, starting with 1
+     * @return the wait in nanoseconds
+     */
+    long nanosBefore(int attempt) {
+        checkArgument(attempt > 0, "parameter 'attempt' is zero or less");
+
+        final int doublings = Math.min(attempt - 1, Long.numberOfLeadingZeros(Math.max(1L, this.baseNanos)) - 1);
+        return Math.min(this.maxNanos, this.baseNanos << doublings);
+    }
+
+    /**
+     * Gets the wait before the retry, randomly between half and all of {@link #nanosBefore(int)}, so the clients
+     * failing at the same moment do not retry in lockstep
+     *
+     * @param attempt the retry attempt, starting with 1
+     * @return the wait in nanoseconds
+     */
+    long jitteredNanosBefore(int attempt) {
+        final long wait = this.nanosBefore(attempt);
+        return wait / 2L + ThreadLocalRandom.current().nextLong(wait / 2L + 1L);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBackoff{" +
+                "baseMs=" + TimeUnit.NANOSECONDS.toMillis(this.baseNanos) +
+                ", maxMs=" + TimeUnit.NANOSECONDS.toMillis(this.maxNanos) +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+/**
+ * Why a producer did not accept a message (see {@link AmqpSendResult#getRejectReason()})
+ */
+public enum SendRejectReason {
+    /**
+     * The producer buffer was full (and stayed full for the overflow timeout)
+     */
+    BUFFER_FULL,
+    /**
+     * The broker blocked the connection (flow control) and the producer does not hold messages or its hold limit was
+     * reached
+     */
+    CONNECTION_BLOCKED
+}
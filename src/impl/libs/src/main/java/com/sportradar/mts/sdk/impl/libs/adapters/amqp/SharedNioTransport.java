@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.impl.FrameHandlerFactory;
+import com.rabbitmq.client.impl.nio.NioParams;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO transport of the connections to the broker shared by all the SDK instances in the JVM: the frame handler factory
+ * (with its I/O loops, each serving many connections) is created by the first connection factory asking for it and
+ * reused by the others with the same connection timeout, TLS and I/O thread count. With the blocking transport every
+ * connection has its own socket reading thread.
+ */
+final class SharedNioTransport {
+
+    private static final Map<String, FrameHandlerFactory> frameHandlerFactories = new HashMap<>();
+    private static final ThreadFactory ioThreadFactory = new NioThreadFactory();
+
+    private SharedNioTransport() {
+    }
+
+    /**
+     * Creates a connection factory using the shared NIO transport
+     *
+     * @param nioThreads the number of I/O threads of the transport
+     * @return the connection factory
+     */
+    static ConnectionFactory newConnectionFactory(int nioThreads) {
+        final ConnectionFactory connectionFactory = new SharedNioConnectionFactory(nioThreads);
+        connectionFactory.useNio();
+        connectionFactory.setNioParams(new NioParams().setNbIoThreads(nioThreads).setThreadFactory(ioThreadFactory));
+        return connectionFactory;
+    }
+
+    static int getFrameHandlerFactoryCount() {
+        synchronized (frameHandlerFactories) {
+            return frameHandlerFactories.size();
+        }
+    }
+
+    private static final class SharedNioConnectionFactory extends ConnectionFactory {
+
+        private final int nioThreads;
+
+        SharedNioConnectionFactory(int nioThreads) {
+            this.nioThreads = nioThreads;
+        }
+
+        @Override
+        protected synchronized FrameHandlerFactory createFrameHandlerFactory() throws IOException {
+            final String key = this.getConnectionTimeout() + "|" + this.isSSL() + "|" + this.nioThreads;
+            synchronized (frameHandlerFactories) {
+                FrameHandlerFactory result = frameHandlerFactories.get(key);
+                if (result == null) {
+                    // the I/O loops stop with the last connection and start again with the next one
+                    result = super.createFrameHandlerFactory();
+                    frameHandlerFactories.put(key, result);
+                }
+                return result;
+            }
+        }
+    }
+
+    private static final class NioThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "amqp-nio-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.ReturnListener;
+import com.sportradar.mts.sdk.impl.libs.threading.WorkSignal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing threads shared by several {@link RabbitMqProducer}s (instead of each producer running its own): every
+ * thread has one channel with publisher confirms and one confirm tracker, and publishes the ready messages of all
+ * the registered producers to their exchanges, one batch per producer per pass, in the order the producers
+ * registered. Producers keep their own buffers, overflow policy, flow control and outbox; the loop opens with the
+ * first registered producer and closes with the last one.
+ */
+public final class SharedPublisherLoop extends RabbitMqBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedPublisherLoop.class);
+
+    private static final int MAX_UNCONFIRMED_MESSAGES = 1024;
+    private static final long WAIT_FOR_TASK_NANOS = TimeUnit.MILLISECONDS.toNanos(WAIT_FOR_TASK_MILLIS);
+
+    private final List<RabbitMqProducer> producers = new CopyOnWriteArrayList<>();
+    private final WorkSignal workSignal;
+    private final WorkSignal progressSignal = new WorkSignal(0);
+    private final ReturnListener returnListener = this::dispatchReturn;
+
+    /**
+     * @param threadCount number of publishing threads (each with its own channel)
+     * @param idleSpinTries times an idle thread checks (yielding) for new messages before it parks
+     */
+    public SharedPublisherLoop(ChannelFactoryProvider channelFactoryProvider,
+                               AmqpCluster mqCluster,
+                               int threadCount,
+                               int idleSpinTries) {
+        // no exchange of its own: the producers declare theirs
+        super(channelFactoryProvider, "shared-publisher", mqCluster, "", ExchangeType.DIRECT, threadCount);
+
+        this.workSignal = new WorkSignal(idleSpinTries);
+    }
+
+    /**
+     * Gets the number of producers currently using the loop
+     *
+     * @return the number of registered producers
+     */
+    public int getProducerCount() {
+        return this.producers.size();
+    }
+
+    /**
+     * Gets the signal the registered producers use to wake the loop (new message, close, flow control)
+     */
+    WorkSignal getWorkSignal() {
+        return this.workSignal;
+    }
+
+    /**
+     * Gets the signal raised after every pass of a loop thread; closing producers wait on it for their buffers to drain
+     */
+    WorkSignal getProgressSignal() {
+        return this.progressSignal;
+    }
+
+    synchronized void register(RabbitMqProducer producer) {
+        this.producers.add(producer);
+        if (!this.isOpen()) {
+            this.open();
+        }
+        this.workSignal.signal();
+    }
+
+    synchronized void unregister(RabbitMqProducer producer) {
+        this.producers.remove(producer);
+        if (this.producers.isEmpty()) {
+            this.close();
+        }
+    }
+
+    @Override
+    protected void wakeUpWorkers() {
+        this.workSignal.signal();
+    }
+
+    @Override
+    protected void doWork(Channel channel, int threadId) throws InterruptedException, IOException {
+        final ConfirmTracker<RabbitMqProducer.AcceptedMessage> msgWaitingForConfirm = new ConfirmTracker<>(MAX_UNCONFIRMED_MESSAGES);
+        final ConfirmListener msgConfirmedListener = new ConfirmListener() {
+            @Override
+            public void handleAck(final long tag, final boolean multiple) throws IOException {
+                msgWaitingForConfirm.settle(tag, multiple, RabbitMqProducer::confirmed);
+            }
+
+            @Override
+            public void handleNack(final long tag, final boolean multiple) throws IOException {
+                msgWaitingForConfirm.settle(tag, multiple, RabbitMqProducer::rejected);
+            }
+        };
+
+        final List<RabbitMqProducer.AcceptedMessage> batch = new ArrayList<>();
+        try {
+            channel.addShutdownListener(cause -> this.workSignal.signal());
+            channel.confirmSelect();
+            channel.addConfirmListener(msgConfirmedListener);
+            channel.addReturnListener(this.returnListener);
+
+            while (this.isOpen() || this.hasPendingMessages()) {
+
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("thread has been interrupted while actively working");
+                }
+                if (!channel.isOpen()) {
+                    throw channel.getCloseReason();
+                }
+
+                final long observed = this.workSignal.current();
+                boolean published = false;
+                long waitNanos = WAIT_FOR_TASK_NANOS;
+                for (RabbitMqProducer producer : this.producers) {
+                    published |= producer.publishReady(channel, msgWaitingForConfirm, batch);
+                    waitNanos = Math.min(waitNanos, producer.getIdleWaitNanos());
+                }
+                this.progressSignal.signal();
+                if (!published) {
+                    this.workSignal.await(observed, waitNanos);
+                }
+            }
+        } finally {
+            msgWaitingForConfirm.drain(RabbitMqProducer::unconfirmed);
+        }
+    }
+
+    private boolean hasPendingMessages() {
+        for (RabbitMqProducer producer : this.producers) {
+            if (producer.hasPendingMessages()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands a message returned by the broker to the producer which published it (by exchange and routing key)
+     */
+    private void dispatchReturn(int replyCode,
+                                String replyText,
+                                String exchange,
+                                String routingKey,
+                                AMQP.BasicProperties properties,
+                                byte[] body) throws IOException {
+        for (RabbitMqProducer producer : this.producers) {
+            if (producer.publishedTo(exchange, routingKey)) {
+                final ReturnListener listener = producer.getReturnListener();
+                if (listener != null) {
+                    listener.handleReturn(replyCode, replyText, exchange, routingKey, properties, body);
+                }
+                return;
+            }
+        }
+        logger.warn("returned message of an unknown producer [exName={}, routingKey={}, replyCode={}]",
+                exchange,
+                routingKey,
+                replyCode);
+    }
+}
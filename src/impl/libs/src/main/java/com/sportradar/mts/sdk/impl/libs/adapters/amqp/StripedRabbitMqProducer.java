@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.ReturnListener;
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Producer publishing over several channels (stripes); each stripe is a {@link RabbitMqProducer} with its own queue,
+ * publishing thread, channel and confirm tracker. Messages sent with an ordering key (ticket id) always go to the same
+ * stripe, so e.g. a ticket and its later cancel keep their order; the other messages are spread round-robin.
+ */
+public final class StripedRabbitMqProducer implements AmqpProducer {
+
+    private final RabbitMqProducer[] stripes;
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final Object stateLock = new Object();
+    private volatile boolean isOpen;
+
+    /**
+     * @param maxBufferSize max number of messages buffered by each stripe
+     * @param stripeCount number of stripes (channels and publishing threads)
+     * @param blockedHoldLimit max number of messages held by each stripe while the connection is blocked
+     * @param blockedDrainRate max number of held messages per second published by all stripes together
+     * @see RabbitMqProducer#RabbitMqProducer(ChannelFactoryProvider, String, AmqpCluster, String, ExchangeType, int,
+     * int, int, boolean, boolean, boolean, int, int, ProducerOverflowPolicy, long, int, int, int)
+     */
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public StripedRabbitMqProducer(ChannelFactoryProvider channelFactoryProvider,
+                                   String instanceName,
+                                   AmqpCluster mqCluster,
+                                   String exchangeName,
+                                   ExchangeType exchangeType,
+                                   int maxRetryCount,
+                                   int maxBufferSize,
+                                   int stripeCount,
+                                   boolean msgMemOnly,
+                                   boolean waitForPublishConfirmations,
+                                   boolean mandatory,
+                                   int publishBatchSize,
+                                   int publishLingerMillis,
+                                   ProducerOverflowPolicy overflowPolicy,
+                                   long overflowTimeoutMillis,
+                                   int idleSpinTries,
+                                   int blockedHoldLimit,
+                                   int blockedDrainRate) {
+        checkArgument(stripeCount > 0, "parameter 'stripeCount' is zero or less");
+
+        final String stripePrefix = ((instanceName == null || instanceName.trim().length() == 0) ? exchangeName : instanceName).trim() + "-stripe-";
+        this.stripes = new RabbitMqProducer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new RabbitMqProducer(channelFactoryProvider,
+                    stripePrefix + (i + 1),
+                    mqCluster,
+                    exchangeName,
+                    exchangeType,
+                    maxRetryCount,
+                    maxBufferSize,
+                    1,
+                    msgMemOnly,
+                    waitForPublishConfirmations,
+                    mandatory,
+                    publishBatchSize,
+                    publishLingerMillis,
+                    overflowPolicy,
+                    overflowTimeoutMillis,
+                    idleSpinTries,
+                    blockedHoldLimit,
+                    Math.max(1, blockedDrainRate / stripeCount));
+        }
+    }
+
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * Gets the publish statistics of each stripe
+     *
+     * @return the {@link PublishStatistics} of the stripes, in stripe order
+     */
+    public List<PublishStatistics> getPublishStatistics() {
+        final List<PublishStatistics> statistics = new ArrayList<>(this.stripes.length);
+        for (RabbitMqProducer stripe : this.stripes) {
+            statistics.add(stripe.getPublishStatistics());
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
+    /**
+     * Gets the number of messages currently waiting in the buffers of all stripes to be published
+     *
+     * @return the buffer depth
+     */
+    public int getBufferDepth() {
+        int depth = 0;
+        for (RabbitMqProducer stripe : this.stripes) {
+            depth += stripe.getBufferDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the number of messages held by all stripes because the broker blocked the connection
+     *
+     * @return the number of held messages
+     */
+    public int getHeldCount() {
+        int held = 0;
+        for (RabbitMqProducer stripe : this.stripes) {
+            held += stripe.getHeldCount();
+        }
+        return held;
+    }
+
+    @Override
+    public AmqpSendResult sendAsync(String correlationId,
+                                    byte[] msg,
+                                    String routingKey,
+                                    Map<String, Object> messageHeaders) {
+        return this.stripeFor(null).sendAsync(correlationId, msg, routingKey, messageHeaders);
+    }
+
+    @Override
+    public AmqpSendResult sendOrderedAsync(String orderingKey,
+                                           String correlationId,
+                                           byte[] msg,
+                                           String routingKey,
+                                           Map<String, Object> messageHeaders) {
+        return this.stripeFor(orderingKey).sendAsync(correlationId, msg, routingKey, messageHeaders);
+    }
+
+    @Override
+    public boolean sendAsync(String correlationId,
+                             byte[] msg,
+                             String routingKey,
+                             Map<String, Object> messageHeaders,
+                             Consumer<AmqpSendResult> doneCallback) {
+        return this.stripeFor(null).sendAsync(correlationId, msg, routingKey, messageHeaders, doneCallback);
+    }
+
+    @Override
+    public boolean send(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders) {
+        return this.stripeFor(null).send(correlationId, msg, routingKey, messageHeaders);
+    }
+
+    @Override
+    public void setReturnListener(ReturnListener returnListener) {
+        for (RabbitMqProducer stripe : this.stripes) {
+            stripe.setReturnListener(returnListener);
+        }
+    }
+
+    @Override
+    public void setOutbox(TicketOutbox outbox) {
+        for (RabbitMqProducer stripe : this.stripes) {
+            stripe.setOutbox(outbox);
+        }
+    }
+
+    @Override
+    public void setPublisherLoop(SharedPublisherLoop publisherLoop) {
+        for (RabbitMqProducer stripe : this.stripes) {
+            stripe.setPublisherLoop(publisherLoop);
+        }
+    }
+
+    @Override
+    public void declareTopology() {
+        for (RabbitMqProducer stripe : this.stripes) {
+            stripe.declareTopology();
+        }
+    }
+
+    @Override
+    public void open() {
+        synchronized (this.stateLock) {
+            if (!this.isOpen) {
+                for (RabbitMqProducer stripe : this.stripes) {
+                    stripe.open();
+                }
+                this.isOpen = true;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this.stateLock) {
+            if (this.isOpen) {
+                this.isOpen = false;
+                for (RabbitMqProducer stripe : this.stripes) {
+                    stripe.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.isOpen;
+    }
+
+    RabbitMqProducer stripeFor(String orderingKey) {
+        if (this.stripes.length == 1) {
+            return this.stripes[0];
+        }
+        if (orderingKey == null) {
+            return this.stripes[Math.floorMod(this.nextStripe.getAndIncrement(), this.stripes.length)];
+        }
+        final int hash = orderingKey.hashCode();
+        return this.stripes[Math.floorMod(hash ^ (hash >>> 16), this.stripes.length)];
+    }
+}
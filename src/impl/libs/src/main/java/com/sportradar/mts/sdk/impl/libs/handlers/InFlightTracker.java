@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.google.common.base.Preconditions;
+import com.sportradar.mts.sdk.api.SdkTicket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The published messages of one sender waiting for their publish result, keyed by correlation id: a publish result
+ * removes its message in constant time from any thread. The messages are also queued in publish order, so the ones
+ * whose result never arrives are evicted from the head of the queue - when they get older than the max age (swept on
+ * the scheduler only while there are any messages) or when the limit is reached - and handed to the eviction listener.
+ * Messages removed by their result stay in the queue until they reach its head or the queue is compacted.
+ *
+ * @param <T> the type of the published messages
+ */
+public class InFlightTracker<T extends SdkTicket> {
+    private static final Logger logger = LoggerFactory.getLogger(InFlightTracker.class);
+    private static final long SWEEP_INTERVAL_MAX_NANOS = TimeUnit.SECONDS.toNanos(1L);
+    private static final int COMPACT_SLACK = 1024;
+
+    private final ScheduledExecutorService executorService;
+    private final int limit;
+    private final long maxAgeNanos;
+    private final long sweepIntervalNanos;
+    private final ConcurrentMap<String, InFlightMessage<T>> messages = new ConcurrentHashMap<>();
+    // guarded by itself
+    private final ArrayDeque<InFlightMessage<T>> publishOrder = new ArrayDeque<>();
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+
+    private volatile Consumer<T> evictionListener;
+
+    /**
+     * @param executorService sweeps the messages older than the max age
+     * @param limit the max number of messages waiting for their publish result
+     * @param maxAgeMillis the max time in milliseconds a message waits for its publish result
+     */
+    public InFlightTracker(ScheduledExecutorService executorService, int limit, int maxAgeMillis) {
+        Preconditions.checkNotNull(executorService);
+        Preconditions.checkArgument(limit > 0, "limit must be greater than zero");
+        Preconditions.checkArgument(maxAgeMillis > 0, "maxAgeMillis must be greater than zero");
+
+        this.executorService = executorService;
+        this.limit = limit;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.sweepIntervalNanos = Math.min(maxAgeNanos / 4, SWEEP_INTERVAL_MAX_NANOS);
+    }
+
+    /**
+     * Sets the listener getting the evicted messages, called on the thread evicting them
+     */
+    public void setEvictionListener(Consumer<T> evictionListener) {
+        Preconditions.checkNotNull(evictionListener);
+
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Adds a published message; evicts the oldest ones if the limit is exceeded
+     *
+     * @param message the message, keyed by its correlation id
+     */
+    public void add(T message) {
+        Preconditions.checkNotNull(message);
+        Preconditions.checkNotNull(message.getCorrelationId(), "message correlationId cannot be null");
+
+        final InFlightMessage<T> inFlight = new InFlightMessage<>(message, System.nanoTime());
+        final InFlightMessage<T> replaced = messages.put(message.getCorrelationId(), inFlight);
+        if (replaced != null) {
+            replaced.removed = true;
+        }
+        synchronized (publishOrder) {
+            publishOrder.add(inFlight);
+        }
+        if (messages.size() > limit) {
+            evictOverLimit();
+        }
+        scheduleSweep();
+    }
+
+    /**
+     * Removes the message the publish result is for
+     *
+     * @param correlationId the correlation id of the publish result
+     * @return the removed message, or null if there was none (e.g. it was already evicted)
+     */
+    public T remove(String correlationId) {
+        if (correlationId == null) {
+            return null;
+        }
+        final InFlightMessage<T> inFlight = messages.remove(correlationId);
+        if (inFlight == null) {
+            return null;
+        }
+        inFlight.removed = true;
+        return inFlight.message;
+    }
+
+    /**
+     * Gets the number of messages waiting for their publish result
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * Gets the time in milliseconds the oldest message has been waiting for its publish result, or 0 if there is none
+     */
+    public long getOldestAgeMillis() {
+        synchronized (publishOrder) {
+            final InFlightMessage<T> oldest = pollRemoved();
+            return oldest == null ? 0L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.publishedNanos);
+        }
+    }
+
+    /**
+     * Evicts the messages older than the max age
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    void sweep(long now) {
+        final List<InFlightMessage<T>> evicted = new ArrayList<>();
+        synchronized (publishOrder) {
+            InFlightMessage<T> oldest;
+            while ((oldest = pollRemoved()) != null && now - oldest.publishedNanos >= maxAgeNanos) {
+                publishOrder.poll();
+                evicted.add(oldest);
+            }
+            if (publishOrder.size() > 2 * messages.size() + COMPACT_SLACK) {
+                compact();
+            }
+        }
+        evict(evicted, "older than the max age");
+    }
+
+    private void evictOverLimit() {
+        final List<InFlightMessage<T>> evicted = new ArrayList<>();
+        synchronized (publishOrder) {
+            InFlightMessage<T> oldest;
+            while (messages.size() - evicted.size() > limit && (oldest = pollRemoved()) != null) {
+                publishOrder.poll();
+                evicted.add(oldest);
+            }
+        }
+        evict(evicted, "over the limit");
+    }
+
+    /**
+     * Drops the removed messages from the head of the queue; must be called holding the queue
+     *
+     * @return the oldest message not removed yet (left in the queue), or null if there is none
+     */
+    private InFlightMessage<T> pollRemoved() {
+        InFlightMessage<T> head;
+        while ((head = publishOrder.peek()) != null && head.removed) {
+            publishOrder.poll();
+        }
+        return head;
+    }
+
+    /**
+     * Drops all the removed messages from the queue; must be called holding the queue
+     */
+    private void compact() {
+        final int before = publishOrder.size();
+        publishOrder.removeIf(inFlight -> inFlight.removed);
+        logger.debug("compacted in-flight messages queue from {} to {}", before, publishOrder.size());
+    }
+
+    private void evict(List<InFlightMessage<T>> evicted, String reason) {
+        final Consumer<T> listener = evictionListener;
+        for (InFlightMessage<T> inFlight : evicted) {
+            // a publish result may have removed it meanwhile
+            if (!messages.remove(inFlight.message.getCorrelationId(), inFlight)) {
+                continue;
+            }
+            inFlight.removed = true;
+            logger.warn("Message[{}] with correlationId: '{}' got no publish result, evicting it ({})", inFlight.message.getClass().getSimpleName(), inFlight.message.getCorrelationId(), reason);
+            if (listener != null) {
+                try {
+                    listener.accept(inFlight.message);
+                } catch (Exception e) {
+                    logger.error("There was an error dispatching evicted message with correlationId: '{}'", inFlight.message.getCorrelationId(), e);
+                }
+            }
+        }
+    }
+
+    private void scheduleSweep() {
+        if (!sweepScheduled.get() && sweepScheduled.compareAndSet(false, true)) {
+            executorService.schedule(this::sweepAndReschedule, sweepIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void sweepAndReschedule() {
+        try {
+            sweep(System.nanoTime());
+        } finally {
+            sweepScheduled.set(false);
+            // a message added while the flag was still set did not schedule the next sweep
+            if (!messages.isEmpty()) {
+                scheduleSweep();
+            }
+        }
+    }
+
+    private static final class InFlightMessage<T extends SdkTicket> {
+
+        private final T message;
+        private final long publishedNanos;
+        private volatile boolean removed;
+
+        InFlightMessage(T message, long publishedNanos) {
+            this.message = message;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+}
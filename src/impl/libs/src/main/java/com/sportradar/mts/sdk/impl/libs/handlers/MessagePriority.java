@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+/**
+ * The priority of the messages of a sender when they compete for the shared send rate (see {@link SharedRateLimiter})
+ */
+public enum MessagePriority {
+    /**
+     * Cancels and acknowledgments: served first and may use the whole send rate
+     */
+    HIGH(1.0),
+    /**
+     * New tickets, cashouts and settlements: served after the waiting high priority messages and limited to a share of
+     * the send rate, so some of it is always left for the high priority ones
+     */
+    NORMAL(0.9);
+
+    private final double rateShare;
+
+    MessagePriority(double rateShare) {
+        this.rateShare = rateShare;
+    }
+
+    /**
+     * Gets the share of the shared send rate one sender of this priority may use
+     */
+    public double getRateShare() {
+        return rateShare;
+    }
+}
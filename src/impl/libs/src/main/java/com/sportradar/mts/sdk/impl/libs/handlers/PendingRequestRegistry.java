@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.google.common.base.Preconditions;
+import com.sportradar.mts.sdk.api.SdkTicket;
+import com.sportradar.mts.sdk.api.interfaces.TicketResponseTimeoutListener;
+import com.sportradar.mts.sdk.impl.libs.threading.HashedTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The registry of the tickets of one type waiting for their responses, keyed by correlation id: a response removes its
+ * ticket in constant time and completes the blocking sender's future, or tells the handler to dispatch it to the
+ * response listener. The tickets of the blocking senders are also kept by ticket id, so a response which does not
+ * carry the ticket's correlation id (like the ones matched by ticket id before) still completes the sender's future.
+ * The response time-outs of the async sent tickets (if enabled) wait on a {@link HashedTimingWheel}, ticked on the
+ * timer only while there are any, and are dispatched to the listener on the executor within a tick or two of their
+ * deadline; the blocking senders time out on their own.
+ *
+ * @param <T> the type of the sent tickets
+ * @param <R> the type of their responses
+ */
+public class PendingRequestRegistry<T extends SdkTicket, R> implements ResponseTimeoutHandler<T, R> {
+    private static final Logger logger = LoggerFactory.getLogger(PendingRequestRegistry.class);
+    // the response time-outs are seconds long, a coarse tick keeps the timer from waking up all the time
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+    private static final int TICKS_PER_WHEEL = 2048;
+
+    private final ScheduledExecutorService timerService;
+    private final ExecutorService executorService;
+    private final long responseTimeoutNanos1;
+    private final long responseTimeoutNanos2;
+    private final boolean ticketTimeOutCallbackEnabled;
+    private final ConcurrentMap<String, PendingRequest<T, R>> pendingRequests = new ConcurrentHashMap<>();
+    // the blocking sent ones only
+    private final ConcurrentMap<String, PendingRequest<T, R>> blockingRequestsByTicketId = new ConcurrentHashMap<>();
+    private final AtomicInteger blockingPendingCount = new AtomicInteger();
+    // guarded by itself, like the ticking state
+    private final HashedTimingWheel<PendingRequest<T, R>> timeoutWheel;
+    private boolean tickScheduled;
+
+    private TicketResponseTimeoutListener<T> responseTimeoutListener;
+
+    /**
+     * @param timerService ticks the time-outs; runs no listener, so a listener blocking on it cannot hold up the ticks
+     * @param executorService dispatches the time-outs to the listener
+     * @param responseTimeout1 the response timeout in milliseconds
+     * @param responseTimeout2 the response timeout of the prematch tickets in milliseconds
+     * @param ticketTimeOutCallbackEnabled whether the response time-outs of the async sent tickets are dispatched
+     */
+    public PendingRequestRegistry(ScheduledExecutorService timerService,
+                                  ExecutorService executorService,
+                                  int responseTimeout1,
+                                  int responseTimeout2,
+                                  boolean ticketTimeOutCallbackEnabled) {
+        Preconditions.checkNotNull(timerService);
+        Preconditions.checkNotNull(executorService);
+
+        this.timerService = timerService;
+        this.executorService = executorService;
+        this.responseTimeoutNanos1 = TimeUnit.MILLISECONDS.toNanos(responseTimeout1);
+        this.responseTimeoutNanos2 = TimeUnit.MILLISECONDS.toNanos(responseTimeout2);
+        this.ticketTimeOutCallbackEnabled = ticketTimeOutCallbackEnabled;
+        this.timeoutWheel = new HashedTimingWheel<>(TICK_NANOS, TICKS_PER_WHEEL, System.nanoTime());
+    }
+
+    /**
+     * @param executorService ticks the time-outs and dispatches them to the listener
+     */
+    public PendingRequestRegistry(ScheduledExecutorService executorService,
+                                  int responseTimeout1,
+                                  int responseTimeout2,
+                                  boolean ticketTimeOutCallbackEnabled) {
+        this(executorService, executorService, responseTimeout1, responseTimeout2, ticketTimeOutCallbackEnabled);
+    }
+
+    @Override
+    public void setResponseTimeoutListener(TicketResponseTimeoutListener<T> responseTimeoutListener) {
+        Preconditions.checkNotNull(responseTimeoutListener);
+
+        if (!ticketTimeOutCallbackEnabled) {
+            return;
+        }
+
+        this.responseTimeoutListener = responseTimeoutListener;
+    }
+
+    @Override
+    public void onAsyncTicketSent(T ticket) {
+        Preconditions.checkNotNull(ticket);
+
+        if (!ticketTimeOutCallbackEnabled) {
+            return;
+        }
+
+        final PendingRequest<T, R> request = new PendingRequest<>(ticket, null);
+        register(request);
+        final long now = System.nanoTime();
+        synchronized (timeoutWheel) {
+            request.timeout = timeoutWheel.schedule(request, now + (TicketHandlerImpl.isTicketPrematch(ticket) ? responseTimeoutNanos2 : responseTimeoutNanos1));
+            if (!tickScheduled) {
+                tickScheduled = true;
+                timerService.schedule(this::expireTimeouts, timeoutWheel.nanosUntilNextTick(now), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<R> onBlockingTicketSent(T ticket) {
+        Preconditions.checkNotNull(ticket);
+
+        final CompletableFuture<R> response = new CompletableFuture<>();
+        final PendingRequest<T, R> request = new PendingRequest<>(ticket, response);
+        register(request);
+        if (ticket.getTicketId() != null) {
+            blockingRequestsByTicketId.put(ticket.getTicketId(), request);
+        }
+        blockingPendingCount.incrementAndGet();
+        // completed by the response, or cancelled by the sender when it stops waiting
+        response.whenComplete((r, e) -> {
+            pendingRequests.remove(ticket.getCorrelationId(), request);
+            if (ticket.getTicketId() != null) {
+                blockingRequestsByTicketId.remove(ticket.getTicketId(), request);
+            }
+            blockingPendingCount.decrementAndGet();
+        });
+        return response;
+    }
+
+    @Override
+    public boolean onTicketResponseReceived(String correlationId, String ticketId, R response) {
+        PendingRequest<T, R> request = correlationId == null ? null : pendingRequests.remove(correlationId);
+        if (request == null && ticketId != null) {
+            request = blockingRequestsByTicketId.get(ticketId);
+            if (request == null || !pendingRequests.remove(request.ticket.getCorrelationId(), request)) {
+                return false;
+            }
+            logger.info("Ticket[{}] response with correlationId: '{}' matched by ticketId: '{}' to correlationId: '{}'", request.ticket.getClass().getSimpleName(), correlationId, ticketId, request.ticket.getCorrelationId());
+        }
+        if (request == null) {
+            return false;
+        }
+        if (request.response != null) {
+            return request.response.complete(response);
+        }
+        cancelTimeout(request);
+        return false;
+    }
+
+    @Override
+    public void onAsyncPublishFailure(String correlationId) {
+        if (correlationId == null) {
+            return;
+        }
+        final PendingRequest<T, R> request = pendingRequests.get(correlationId);
+        if (request != null && request.response == null && pendingRequests.remove(correlationId, request)) {
+            cancelTimeout(request);
+        }
+    }
+
+    @Override
+    public int getBlockingPendingCount() {
+        return blockingPendingCount.get();
+    }
+
+    /**
+     * Gets the number of tickets waiting for their responses
+     */
+    public int getPendingCount() {
+        return pendingRequests.size();
+    }
+
+    private void register(PendingRequest<T, R> request) {
+        Preconditions.checkNotNull(request.ticket.getCorrelationId(), "ticket correlationId cannot be null");
+
+        final PendingRequest<T, R> replaced = pendingRequests.put(request.ticket.getCorrelationId(), request);
+        if (replaced != null) {
+            logger.warn("Ticket[{}] with correlationId: '{}' sent again while waiting for the response", request.ticket.getClass().getSimpleName(), request.ticket.getCorrelationId());
+            cancelTimeout(replaced);
+        }
+    }
+
+    private void cancelTimeout(PendingRequest<T, R> request) {
+        synchronized (timeoutWheel) {
+            if (request.timeout != null) {
+                request.timeout.cancel();
+            }
+        }
+    }
+
+    private void expireTimeouts() {
+        final List<PendingRequest<T, R>> timedOut = new ArrayList<>();
+        synchronized (timeoutWheel) {
+            final long now = System.nanoTime();
+            timeoutWheel.expire(now, timedOut::add);
+            final long untilNextTick = timeoutWheel.nanosUntilNextTick(now);
+            if (untilNextTick < 0L) {
+                tickScheduled = false;
+            } else {
+                timerService.schedule(this::expireTimeouts, untilNextTick, TimeUnit.NANOSECONDS);
+            }
+        }
+        for (PendingRequest<T, R> request : timedOut) {
+            if (pendingRequests.remove(request.ticket.getCorrelationId(), request)) {
+                handleTicketResponseTimedOut(request.ticket);
+            }
+        }
+    }
+
+    private void handleTicketResponseTimedOut(T ticket) {
+        logger.info("Ticket[{}] response timed-out - dispatching onTicketResponseTimedOut. ticketId: {}, correlationId: {}", ticket.getClass().getSimpleName(), ticket.getTicketId(), ticket.getCorrelationId());
+
+        if (responseTimeoutListener != null) {
+            executorService.submit(() -> {
+                try {
+                    responseTimeoutListener.onTicketResponseTimedOut(ticket);
+                } catch (Exception e) {
+                    logger.error("There was an error dispatching onTicketResponseTimedOut[{}] for ticketId: '{}', correlationId: '{}'", ticket.getClass().getSimpleName(), ticket.getTicketId(), ticket.getCorrelationId(), e);
+                }
+            });
+        } else {
+            logger.error("Response timeout listener[{}] is null, non-dispatched ticketId: '{}', correlationId: '{}'", ticket.getClass().getSimpleName(), ticket.getTicketId(), ticket.getCorrelationId());
+        }
+    }
+
+    private static final class PendingRequest<T extends SdkTicket, R> {
+
+        private final T ticket;
+        // the blocking sender's, null for the async sent tickets
+        private final CompletableFuture<R> response;
+        // guarded by the wheel
+        private HashedTimingWheel.Timeout<PendingRequest<T, R>> timeout;
+
+        PendingRequest(T ticket, CompletableFuture<R> response) {
+            this.ticket = ticket;
+            this.response = response;
+        }
+    }
+}
@@ -7,15 +7,43 @@ package com.sportradar.mts.sdk.impl.libs.handlers;
 import com.sportradar.mts.sdk.api.SdkTicket;
 import com.sportradar.mts.sdk.api.interfaces.TicketResponseTimeoutListener;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
- * Defines methods used to handle async tickets response time-outs
+ * Defines methods used to keep the tickets waiting for their responses (keyed by correlation id, the blocking sent ones
+ * by ticket id as well) and to handle their response time-outs
+ *
+ * @param <T> the type of the sent tickets
+ * @param <R> the type of their responses
  */
-public interface ResponseTimeoutHandler<T extends SdkTicket> {
+public interface ResponseTimeoutHandler<T extends SdkTicket, R> {
     void setResponseTimeoutListener(TicketResponseTimeoutListener<T> responseTimeoutListener);
 
     void onAsyncTicketSent(T ticket);
 
-    void onAsyncTicketResponseReceived(String correlationId);
+    /**
+     * Registers a ticket whose sender waits for the response; must be called before the ticket is published
+     *
+     * @param ticket the ticket
+     * @return completed with the response; the sender cancels it when it stops waiting
+     */
+    CompletableFuture<R> onBlockingTicketSent(T ticket);
+
+    /**
+     * Removes the pending ticket the response is for, found by the correlation id; a ticket whose sender waits for the
+     * response is also found by its ticket id, if the response does not carry the ticket's correlation id
+     *
+     * @param correlationId the correlation id of the response
+     * @param ticketId the ticket id of the response
+     * @param response the response
+     * @return true if a blocking sender got the response, false if it should be dispatched to the response listener
+     */
+    boolean onTicketResponseReceived(String correlationId, String ticketId, R response);
 
     void onAsyncPublishFailure(String correlationId);
+
+    /**
+     * Gets the number of blocking senders still waiting for their responses
+     */
+    int getBlockingPendingCount();
 }
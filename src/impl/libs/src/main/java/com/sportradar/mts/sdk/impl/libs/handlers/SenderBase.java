@@ -4,11 +4,13 @@
 
 package com.sportradar.mts.sdk.impl.libs.handlers;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sportradar.mts.sdk.api.SdkTicket;
 import com.sportradar.mts.sdk.api.interfaces.MessageSender;
 import com.sportradar.mts.sdk.api.interfaces.PublishResultListener;
 import com.sportradar.mts.sdk.api.utils.StringUtils;
+import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpOutgoingMessage;
 import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpPublishResultListener;
 import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpPublisher;
 import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
@@ -16,35 +18,60 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class SenderBase<T extends SdkTicket> implements MessageSender {
 
+    // smaller batches are serialized on the caller's thread
+    private static final int MIN_PARALLEL_SERIALIZATION = 16;
+    // a throttled batch is published in chunks of about this share of a second of its lane's rate
+    private static final double THROTTLED_CHUNK_SECONDS = 0.1;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final Object stateLock = new Object();
     private final SdkLogger sdkLogger;
     private final AmqpPublisher amqpPublisher;
     private final ExecutorService executorService;
-    private final Map<String, T> messages;
-    private final RateLimiter rateLimiter;
+    private final InFlightTracker<T> inFlightTracker;
+    private final SharedRateLimiter.Lane rateLimiterLane;
+    // the publish results of the messages sent in batches, by correlation id
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> batchPublishResults = new ConcurrentHashMap<>();
     private boolean opened;
+    // serializes the messages sent in batches, created on the first batch big enough to be serialized in parallel
+    private volatile ExecutorService serializationExecutor;
+    private volatile PublishResultListener<T> publishResultListener;
 
     protected SenderBase(AmqpPublisher amqpPublisher,
                          ExecutorService executorService,
-                         double messagesPerSecond,
+                         InFlightTracker<T> inFlightTracker,
+                         SharedRateLimiter.Lane rateLimiterLane,
                          SdkLogger sdkLogger) {
         checkNotNull(amqpPublisher, "amqpPublisher cannot be null");
         checkNotNull(executorService, "executorService cannot be null");
+        checkNotNull(inFlightTracker, "inFlightTracker cannot be null");
+        checkNotNull(rateLimiterLane, "rateLimiterLane cannot be null");
         checkNotNull(sdkLogger, "sdkLogger cannot be null");
         this.amqpPublisher = amqpPublisher;
         this.executorService = executorService;
         this.sdkLogger = sdkLogger;
-        this.messages = new HashMap<>();
-        this.rateLimiter = RateLimiter.create(messagesPerSecond);
+        this.inFlightTracker = inFlightTracker;
+        this.inFlightTracker.setEvictionListener(this::onEvicted);
+        this.rateLimiterLane = rateLimiterLane;
     }
 
     @Override
@@ -59,6 +86,10 @@ public abstract class SenderBase<T extends SdkTicket> implements MessageSender {
     public void close() {
         synchronized (stateLock) {
             amqpPublisher.close();
+            if (serializationExecutor != null) {
+                serializationExecutor.shutdown();
+                serializationExecutor = null;
+            }
             opened = false;
         }
     }
@@ -68,25 +99,37 @@ public abstract class SenderBase<T extends SdkTicket> implements MessageSender {
         return opened;
     }
 
+    @Override
+    public int getInFlightCount() {
+        return inFlightTracker.size();
+    }
+
+    @Override
+    public long getOldestInFlightAgeMillis() {
+        return inFlightTracker.getOldestAgeMillis();
+    }
+
     protected void publishAsync(T message, String routingKey) {
         publishAsync(message, routingKey, routingKey);
     }
 
     protected void publishAsync(T message, String routingKey, String replyRoutingKey) {
-        rateLimiter.acquire();
+        rateLimiterLane.acquire();
         logger.trace("PUBLISH ticket:{}, correlationId:{}, routingKey:{}, replyRoutingKey:{}",
                 message.getTicketId(),
                 message.getCorrelationId(),
                 routingKey,
                 replyRoutingKey);
-        logger.trace("PUBLISH {}", message.getJsonValue());
         String msgString = getSerializedDto(message);
+        logger.trace("PUBLISH {}", msgString);
         getSdkLogger().logSendMessage(msgString);
         if(StringUtils.isNullOrEmpty(message.getCorrelationId()))
         {
             logger.warn("Ticket {} is missing correlationId", message.getTicketId());
         }
-        messages.put(message.getCorrelationId(), message);
+        if (message.getCorrelationId() != null) {
+            inFlightTracker.add(message);
+        }
         amqpPublisher.publishAsync(message.getTicketId(),
                                    msgString.getBytes(StandardCharsets.UTF_8),
                                    message.getCorrelationId(),
@@ -94,6 +137,154 @@ public abstract class SenderBase<T extends SdkTicket> implements MessageSender {
                                    replyRoutingKey);
     }
 
+    /**
+     * Publishes the messages as {@link #publishAsync(SdkTicket, String, String)} would one by one, but serializes them in
+     * parallel (on the sender's serialization threads, as many as there are processors, and the caller's thread) and
+     * queues them in chunks, each as big as the rate limiter lets through at once; while the lane is throttled, a chunk
+     * waits for the permits of about a tenth of a second of the lane's rate
+     *
+     * @param messages the messages to publish, each with a correlation id
+     * @param routingKey gets the routing key of a message
+     * @param replyRoutingKey the reply routing key of all the messages
+     * @return the publish results, in the order of the messages: completed with true once the broker confirmed the
+     *         message, with false if it was not published
+     */
+    protected List<CompletableFuture<Boolean>> publishBatchAsync(List<T> messages,
+                                                                 Function<T, String> routingKey,
+                                                                 String replyRoutingKey) {
+        for (T message : messages) {
+            checkNotNull(message.getCorrelationId(), "correlationId cannot be null");
+        }
+        List<String> serialized = serialize(messages);
+        List<AmqpOutgoingMessage> outgoing = new ArrayList<>(messages.size());
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            T message = messages.get(i);
+            String msgString = serialized.get(i);
+            logger.trace("PUBLISH {}", msgString);
+            getSdkLogger().logSendMessage(msgString);
+            outgoing.add(new AmqpOutgoingMessage(message.getTicketId(),
+                                                 message.getCorrelationId(),
+                                                 msgString.getBytes(StandardCharsets.UTF_8),
+                                                 routingKey.apply(message)));
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            batchPublishResults.put(message.getCorrelationId(), result);
+            results.add(result);
+        }
+        int published = 0;
+        try {
+            while (published < outgoing.size()) {
+                int remaining = outgoing.size() - published;
+                int permits = rateLimiterLane.tryAcquire(remaining);
+                if (permits == 0) {
+                    permits = Math.min(remaining, getThrottledChunkSize());
+                    rateLimiterLane.acquire(permits);
+                }
+                for (int i = published; i < published + permits; i++) {
+                    inFlightTracker.add(messages.get(i));
+                }
+                amqpPublisher.publishBatchAsync(outgoing.subList(published, published + permits), replyRoutingKey);
+                published += permits;
+            }
+        } catch (RuntimeException e) {
+            for (int i = published; i < messages.size(); i++) {
+                inFlightTracker.remove(messages.get(i).getCorrelationId());
+                completeBatchPublishResult(messages.get(i).getCorrelationId(), false);
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private List<String> serialize(List<T> messages) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = threads < 2 || messages.size() < MIN_PARALLEL_SERIALIZATION
+                ? null
+                : getSerializationExecutor();
+        if (executor == null) {
+            return messages.stream().map(this::getSerializedDto).collect(Collectors.toList());
+        }
+        String[] serialized = new String[messages.size()];
+        int sliceSize = (messages.size() + threads - 1) / threads;
+        List<Future<?>> slices = new ArrayList<>(threads);
+        for (int start = sliceSize; start < messages.size(); start += sliceSize) {
+            int from = start;
+            int to = Math.min(start + sliceSize, messages.size());
+            slices.add(executor.submit(() -> serializeSlice(messages, serialized, from, to)));
+        }
+        // the caller serializes the first slice meanwhile
+        serializeSlice(messages, serialized, 0, Math.min(sliceSize, messages.size()));
+        boolean interrupted = false;
+        try {
+            for (Future<?> slice : slices) {
+                while (true) {
+                    try {
+                        slice.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        Throwables.throwIfUnchecked(e.getCause());
+                        throw new IllegalStateException("failed to serialize the messages", e.getCause());
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Arrays.asList(serialized);
+    }
+
+    private void serializeSlice(List<T> messages, String[] serialized, int from, int to) {
+        for (int i = from; i < to; i++) {
+            serialized[i] = getSerializedDto(messages.get(i));
+        }
+    }
+
+    private int getThrottledChunkSize() {
+        return Math.max(1, (int) (rateLimiterLane.getPermitsPerSecond() * THROTTLED_CHUNK_SECONDS));
+    }
+
+    /**
+     * Gets the serialization executor, created on first use
+     *
+     * @return the executor, or null if the sender is not open
+     */
+    private ExecutorService getSerializationExecutor() {
+        ExecutorService executor = serializationExecutor;
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (stateLock) {
+            if (serializationExecutor == null && opened) {
+                serializationExecutor = createSerializationExecutor();
+            }
+            return serializationExecutor;
+        }
+    }
+
+    /**
+     * Gets whether the serialization executor was created (for tests)
+     */
+    boolean hasSerializationExecutor() {
+        return serializationExecutor != null;
+    }
+
+    private static ExecutorService createSerializationExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+                                                             threads,
+                                                             60L,
+                                                             TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             new ThreadFactoryBuilder().setNameFormat("mts-sdk-serializer-%d").setDaemon(true).build());
+        // no threads while no batches are sent
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     protected abstract String getSerializedDto(T message);
 
     protected SdkLogger getSdkLogger() {
@@ -101,43 +292,63 @@ public abstract class SenderBase<T extends SdkTicket> implements MessageSender {
     }
 
     protected void setPublishListener(PublishResultListener<T> publishResultListener) {
+        this.publishResultListener = publishResultListener;
         amqpPublisher.setListener(new AmqpPublishResultListener() {
             @Override
             public void publishSuccess(String correlationId) {
-                executorService.submit(() -> {
-                    T message = getMessage(correlationId);
-                    if (message == null) {
-                        return;
-                    }
-                    messages.remove(correlationId);
-                    publishResultListener.publishSuccess(message);
-                });
+                completeBatchPublishResult(correlationId, true);
+                T message = removeMessage(correlationId);
+                if (message == null) {
+                    return;
+                }
+                executorService.submit(() -> publishResultListener.publishSuccess(message));
             }
 
             @Override
             public void publishFailure(String correlationId) {
                 onPublishFailure(correlationId);
+                completeBatchPublishResult(correlationId, false);
 
-                executorService.submit(() -> {
-                    T message = getMessage(correlationId);
-                    if (message == null) {
-                        return;
-                    }
-                    messages.remove(correlationId);
-                    publishResultListener.publishFailure(message);
-                });
+                T message = removeMessage(correlationId);
+                if (message == null) {
+                    return;
+                }
+                executorService.submit(() -> publishResultListener.publishFailure(message));
             }
         });
     }
 
-    private T getMessage(String correlationId) {
-        T message = messages.get(correlationId);
+    private T removeMessage(String correlationId) {
+        T message = inFlightTracker.remove(correlationId);
         if (message == null) {
             logger.error("no message for correlation id:{} was found", correlationId);
         }
         return message;
     }
 
+    /**
+     * Dispatches a message evicted from the in-flight messages (its publish result never arrived) as failed
+     */
+    private void onEvicted(T message) {
+        onPublishFailure(message.getCorrelationId());
+        completeBatchPublishResult(message.getCorrelationId(), false);
+
+        PublishResultListener<T> listener = publishResultListener;
+        if (listener != null) {
+            executorService.submit(() -> listener.publishFailure(message));
+        }
+    }
+
+    private void completeBatchPublishResult(String correlationId, boolean published) {
+        if (correlationId == null || batchPublishResults.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Boolean> result = batchPublishResults.remove(correlationId);
+        if (result != null) {
+            result.complete(published);
+        }
+    }
+
     protected void onPublishFailure(String correlationId) {
         // NO-OP - default
     }
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The send rate shared by all the senders of an SDK instance (i.e. of its bookmaker), as a two level token bucket:
+ * every message takes a permit from the bucket of its sender's {@link Lane} (refilled at the lane's share of the rate)
+ * and from the shared bucket (refilled at the whole rate). Both buckets hold up to one second of their rate, so idle
+ * senders may send a burst like with Guava's RateLimiter.
+ * <p>
+ * A permit is taken without waiting if there is one in both buckets and no message of the same or a higher priority
+ * is waiting for one. Otherwise the message waits in its lane, in order; the waiting messages are granted their
+ * permits on the scheduler as the buckets refill, the high priority lanes first: while a higher priority lane waits
+ * for the shared bucket, the lower priority lanes get nothing. A blocking {@link Lane#acquire()} dispatches the permits
+ * on the caller's thread instead, so it never waits for the scheduler.
+ */
+public class SharedRateLimiter {
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    private final ScheduledExecutorService executorService;
+    private final double permitsPerSecond;
+    // all the state below is guarded by the limiter
+    private final TokenBucket sharedBucket;
+    // ordered by priority, the highest first
+    private final List<Lane> lanes = new ArrayList<>();
+    private boolean dispatchScheduled;
+    private long dispatchAt;
+
+    /**
+     * @param executorService grants the permits to the waiting messages
+     * @param permitsPerSecond the shared send rate (messages per second)
+     */
+    public SharedRateLimiter(ScheduledExecutorService executorService, double permitsPerSecond) {
+        Preconditions.checkNotNull(executorService);
+        Preconditions.checkArgument(permitsPerSecond > 0, "permitsPerSecond must be positive number");
+
+        this.executorService = executorService;
+        this.permitsPerSecond = permitsPerSecond;
+        this.sharedBucket = new TokenBucket(permitsPerSecond, System.nanoTime());
+    }
+
+    /**
+     * Creates the lane of a sender, getting the share of the rate of its priority
+     *
+     * @param priority the priority of the sender's messages
+     * @return the new {@link Lane}
+     */
+    public synchronized Lane newLane(MessagePriority priority) {
+        Preconditions.checkNotNull(priority);
+
+        final Lane lane = new Lane(priority, new TokenBucket(permitsPerSecond * priority.getRateShare(), System.nanoTime()));
+        lanes.add(lane);
+        lanes.sort(Comparator.comparing(l -> l.priority));
+        return lane;
+    }
+
+    private boolean isHigherPriorityWaiting(Lane lane) {
+        for (Lane other : lanes) {
+            if (other.priority.compareTo(lane.priority) >= 0) {
+                return false;
+            }
+            if (!other.waiters.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grants the permits available to the waiting messages and schedules the next dispatch if any are left waiting;
+     * must be called holding the limiter
+     *
+     * @param granted gets the granted waiters, to complete once the limiter is released
+     * @return the nanoseconds until the next dispatch, or Long.MAX_VALUE if none is left waiting
+     */
+    private long dispatch(long now, List<CompletableFuture<Void>> granted) {
+        sharedBucket.refill(now);
+        MessagePriority blockedPriority = null;
+        long nextDispatchNanos = Long.MAX_VALUE;
+        for (Lane lane : lanes) {
+            if (lane.waiters.isEmpty()) {
+                continue;
+            }
+            lane.bucket.refill(now);
+            if (blockedPriority == null || lane.priority.compareTo(blockedPriority) <= 0) {
+                CompletableFuture<Void> waiter;
+                while (lane.bucket.hasPermit() && sharedBucket.hasPermit() && (waiter = lane.waiters.poll()) != null) {
+                    // skip the ones cancelled by their callers
+                    if (!waiter.isDone()) {
+                        lane.bucket.take();
+                        sharedBucket.take();
+                        granted.add(waiter);
+                    }
+                }
+                if (!lane.waiters.isEmpty() && !sharedBucket.hasPermit() && blockedPriority == null) {
+                    blockedPriority = lane.priority;
+                }
+            }
+            if (!lane.waiters.isEmpty()) {
+                nextDispatchNanos = Math.min(nextDispatchNanos, Math.max(lane.bucket.nanosUntilPermit(), sharedBucket.nanosUntilPermit()));
+            }
+        }
+        if (nextDispatchNanos != Long.MAX_VALUE) {
+            scheduleDispatch(now, nextDispatchNanos);
+        }
+        return nextDispatchNanos;
+    }
+
+    private void scheduleDispatch(long now, long delayNanos) {
+        final long at = now + delayNanos;
+        if (dispatchScheduled && at - dispatchAt >= 0) {
+            return;
+        }
+        dispatchScheduled = true;
+        dispatchAt = at;
+        executorService.schedule(this::runDispatch, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void runDispatch() {
+        final List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            // an earlier scheduled dispatch may still be pending, which then finds nothing to do
+            dispatchScheduled = false;
+            dispatch(System.nanoTime(), granted);
+        }
+        granted.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * The messages of one sender, taking their permits in order
+     */
+    public final class Lane {
+
+        private final MessagePriority priority;
+        private final TokenBucket bucket;
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+        private Lane(MessagePriority priority, TokenBucket bucket) {
+            this.priority = priority;
+            this.bucket = bucket;
+        }
+
+        public MessagePriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * Takes a permit if one is available without waiting
+         *
+         * @return true if the permit was taken
+         */
+        public boolean tryAcquire() {
+            synchronized (SharedRateLimiter.this) {
+                return tryTake(System.nanoTime());
+            }
+        }
+
+        /**
+         * Takes as many permits as are available without waiting, up to the provided number
+         *
+         * @param maxPermits the most permits to take
+         * @return the number of permits taken, 0 if none is available
+         */
+        public int tryAcquire(int maxPermits) {
+            Preconditions.checkArgument(maxPermits > 0, "maxPermits must be positive number");
+
+            synchronized (SharedRateLimiter.this) {
+                final long now = System.nanoTime();
+                int taken = 0;
+                while (taken < maxPermits && tryTake(now)) {
+                    taken++;
+                }
+                return taken;
+            }
+        }
+
+        /**
+         * Takes a permit, now or once it is granted
+         *
+         * @return completed when the permit is taken (on the scheduler if it was not available at once); the caller
+         *         may cancel it while it waits
+         */
+        public CompletableFuture<Void> acquireAsync() {
+            final CompletableFuture<Void> waiter = new CompletableFuture<>();
+            final List<CompletableFuture<Void>> granted = new ArrayList<>();
+            synchronized (SharedRateLimiter.this) {
+                final long now = System.nanoTime();
+                if (tryTake(now)) {
+                    waiter.complete(null);
+                    return waiter;
+                }
+                waiters.add(waiter);
+                dispatch(now, granted);
+            }
+            granted.forEach(w -> w.complete(null));
+            return waiter;
+        }
+
+        /**
+         * Takes a permit, waiting (uninterruptibly) until it is granted. The caller waits in its lane like the
+         * {@link #acquireAsync()} ones, but dispatches the permits itself as the buckets refill, parked in between; it
+         * does not rely on the scheduler, so it may be called on the scheduler's thread (e.g. by a response listener)
+         */
+        public void acquire() {
+            if (!tryAcquire()) {
+                acquire(1);
+            }
+        }
+
+        /**
+         * Takes the provided number of permits, waiting (uninterruptibly) until all of them are granted, like
+         * {@link #acquire()} does
+         *
+         * @param permits the number of permits to take
+         */
+        public void acquire(int permits) {
+            Preconditions.checkArgument(permits > 0, "permits must be positive number");
+
+            final CompletableFuture<Void> last = new CompletableFuture<>();
+            synchronized (SharedRateLimiter.this) {
+                final long now = System.nanoTime();
+                int taken = 0;
+                while (taken < permits && tryTake(now)) {
+                    taken++;
+                }
+                if (taken == permits) {
+                    return;
+                }
+                // granted in order, so the permits are all taken once the last one is granted
+                for (int i = taken + 1; i < permits; i++) {
+                    waiters.add(new CompletableFuture<>());
+                }
+                waiters.add(last);
+            }
+            // the permits may as well be granted by the scheduler or by another caller
+            final Thread caller = Thread.currentThread();
+            last.thenRun(() -> LockSupport.unpark(caller));
+            final List<CompletableFuture<Void>> granted = new ArrayList<>();
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    final long waitNanos;
+                    synchronized (SharedRateLimiter.this) {
+                        waitNanos = dispatch(System.nanoTime(), granted);
+                    }
+                    granted.forEach(w -> w.complete(null));
+                    granted.clear();
+                    if (last.isDone()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(waitNanos);
+                    if (Thread.interrupted()) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Gets the share of the send rate of the lane (permits per second)
+         */
+        public double getPermitsPerSecond() {
+            return permitsPerSecond * priority.getRateShare();
+        }
+
+        /**
+         * Must be called holding the limiter
+         */
+        private boolean tryTake(long now) {
+            if (!waiters.isEmpty() || isHigherPriorityWaiting(this)) {
+                return false;
+            }
+            bucket.refill(now);
+            sharedBucket.refill(now);
+            if (!bucket.hasPermit() || !sharedBucket.hasPermit()) {
+                return false;
+            }
+            bucket.take();
+            sharedBucket.take();
+            return true;
+        }
+    }
+
+    private static final class TokenBucket {
+
+        private final double permitsPerNano;
+        private final double capacity;
+        private double permits;
+        private long refilledAt;
+
+        TokenBucket(double permitsPerSecond, long now) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1L);
+            this.capacity = Math.max(1.0, permitsPerNano * BURST_NANOS);
+            this.permits = capacity;
+            this.refilledAt = now;
+        }
+
+        void refill(long now) {
+            if (now - refilledAt > 0) {
+                permits = Math.min(capacity, permits + (now - refilledAt) * permitsPerNano);
+                refilledAt = now;
+            }
+        }
+
+        boolean hasPermit() {
+            return permits >= 1.0;
+        }
+
+        void take() {
+            permits -= 1.0;
+        }
+
+        /**
+         * Must be called right after a refill
+         */
+        long nanosUntilPermit() {
+            return hasPermit() ? 0L : (long) Math.ceil((1.0 - permits) / permitsPerNano);
+        }
+    }
+}
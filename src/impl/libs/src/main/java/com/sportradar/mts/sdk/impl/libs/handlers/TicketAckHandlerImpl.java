@@ -22,9 +22,10 @@ public class TicketAckHandlerImpl extends SenderBase<TicketAck> implements Ticke
     public TicketAckHandlerImpl(AmqpPublisher amqpPublisher,
                                 String routingKey,
                                 ExecutorService executorService,
-                                double messagesPerSecond,
+                                InFlightTracker<TicketAck> inFlightTracker,
+                                SharedRateLimiter.Lane rateLimiterLane,
                                 SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
         this.routingKey = routingKey == null ? "ack.ticket" : routingKey;
     }
 
@@ -22,9 +22,10 @@ public class TicketCancelAckHandlerImpl extends SenderBase<TicketCancelAck> impl
     public TicketCancelAckHandlerImpl(AmqpPublisher amqpPublisher,
                                       String routingKey,
                                       ExecutorService executorService,
-                                      double messagesPerSecond,
+                                      InFlightTracker<TicketCancelAck> inFlightTracker,
+                                      SharedRateLimiter.Lane rateLimiterLane,
                                       SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
         this.routingKey = routingKey == null ? "ack.cancel" : routingKey;
     }
 
@@ -5,8 +5,6 @@
 package com.sportradar.mts.sdk.impl.libs.handlers;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.sportradar.mts.sdk.api.TicketCancel;
 import com.sportradar.mts.sdk.api.TicketCancelResponse;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
@@ -18,9 +16,11 @@ import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -30,10 +30,8 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
     private static final Logger logger = LoggerFactory.getLogger(TicketCancelHandlerImpl.class);
     private final String routingKey;
     private final ExecutorService executorService;
-    private final ResponseTimeoutHandler<TicketCancel> timeoutHandler;
+    private final ResponseTimeoutHandler<TicketCancel, TicketCancelResponse> timeoutHandler;
     private TicketCancelResponseListener ticketCancelResponseListener;
-    private final Cache<String, TicketCancelSendEntry> ticketCancelSendEntries;
-    private final Cache<String, TicketCancelResponse> cancelResponseCache;
     private final int responseTimeout;
     private final String replyRoutingKey;
 
@@ -42,11 +40,12 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
                                    String routingKey,
                                    String replyRoutingKey,
                                    ExecutorService executorService,
-                                   ResponseTimeoutHandler<TicketCancel> timeoutHandler,
+                                   InFlightTracker<TicketCancel> inFlightTracker,
+                                   ResponseTimeoutHandler<TicketCancel, TicketCancelResponse> timeoutHandler,
                                    int responseTimeout,
-                                   double messagesPerSecond,
+                                   SharedRateLimiter.Lane rateLimiterLane,
                                    SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
 
         checkNotNull(executorService, "executorService cannot be null");
         checkNotNull(timeoutHandler, "timeoutHandler cannot be null");
@@ -56,13 +55,6 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
         this.replyRoutingKey = replyRoutingKey;
         this.responseTimeout = responseTimeout;
         this.timeoutHandler = timeoutHandler;
-
-        ticketCancelSendEntries = CacheBuilder.newBuilder()
-                .expireAfterWrite(responseTimeout, TimeUnit.MILLISECONDS)
-                .build();
-        cancelResponseCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
     }
 
     @Override
@@ -71,18 +63,14 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
         checkNotNull(ticketCancel, SdkInfo.Literals.TICKET_HANDLER_TICKET_CANCEL_NULL);
         checkNotNull(ticketCancelResponseListener, "no response listener set");
 
-        internalSend(ticketCancel, null);
+        internalSend(ticketCancel);
 
         timeoutHandler.onAsyncTicketSent(ticketCancel);
     }
 
-    private void internalSend(TicketCancel ticketCancel, TicketCancelResponseListener responseListener) {
+    private void internalSend(TicketCancel ticketCancel) {
         checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
         checkNotNull(ticketCancel, SdkInfo.Literals.TICKET_HANDLER_TICKET_CANCEL_NULL);
-        String ticketId = ticketCancel.getTicketId();
-        if (responseListener != null) {
-            ticketCancelSendEntries.put(ticketId, new TicketCancelSendEntry(ticketCancel, responseListener, null));
-        }
         publishAsync(ticketCancel, routingKey, replyRoutingKey);
     }
 
@@ -90,23 +78,24 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
     public TicketCancelResponse sendBlocking(TicketCancel ticketCancel) throws ResponseTimeoutException {
         checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
         checkNotNull(ticketCancel, SdkInfo.Literals.TICKET_HANDLER_TICKET_CANCEL_NULL);
-        String ticketId = ticketCancel.getTicketId();
-        Semaphore semaphore = new Semaphore(0);
-        ticketCancelSendEntries.put(ticketId, new TicketCancelSendEntry(ticketCancel, null, semaphore));
-        publishAsync(ticketCancel, routingKey, replyRoutingKey);
-
-        boolean acquire = false;
+        CompletableFuture<TicketCancelResponse> pendingResponse = timeoutHandler.onBlockingTicketSent(ticketCancel);
+        TicketCancelResponse ticketCancelResponse = null;
         try {
-            acquire = semaphore.tryAcquire(responseTimeout, TimeUnit.MILLISECONDS);
+            publishAsync(ticketCancel, routingKey, replyRoutingKey);
+            ticketCancelResponse = pendingResponse.get(responseTimeout, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             logger.warn("interrupted waiting for response, throwing timeout");
             Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // no response
+        } finally {
+            pendingResponse.cancel(false);
         }
-        if (!acquire) {
+        if (ticketCancelResponse == null) {
             String error = String.format("Timeout reached. Missing response for ticketCancel %s with correlationId= %s", ticketCancel.getTicketId(), ticketCancel.getCorrelationId());
             throw new ResponseTimeoutException(error);
         }
-        return cancelResponseCache.getIfPresent(ticketId);
+        return ticketCancelResponse;
     }
 
     @Override
@@ -123,23 +112,11 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
         checkNotNull(ticketCancelResponse, "ticketCancelResponse cannot be null");
         getSdkLogger().logReceivedMessage(JsonUtils.serializeAsString(ticketCancelResponse));
 
-        timeoutHandler.onAsyncTicketResponseReceived(ticketCancelResponse.getCorrelationId());
-
-        String ticketId = ticketCancelResponse.getTicketId();
-        cancelResponseCache.put(ticketId, ticketCancelResponse);
-        TicketCancelSendEntry entry = ticketCancelSendEntries.getIfPresent(ticketId);
-        final TicketCancelResponseListener listenerToRespond;
-        if (entry != null) {
-            TicketCancelResponseListener ticketResponseListener = entry.getResponseListener();
-            Semaphore semaphore = entry.getSemaphore();
-            if (semaphore != null) {
-                semaphore.release(1);
-            }
-            ticketCancelSendEntries.invalidate(ticketId);
-            listenerToRespond = ticketResponseListener;
-        } else {
-            listenerToRespond = this.ticketCancelResponseListener;
+        if (timeoutHandler.onTicketResponseReceived(ticketCancelResponse.getCorrelationId(), ticketCancelResponse.getTicketId(), ticketCancelResponse)) {
+            // taken by sendBlocking
+            return;
         }
+        final TicketCancelResponseListener listenerToRespond = this.ticketCancelResponseListener;
         if (listenerToRespond != null) {
             executorService.submit(() -> {
                 try {
@@ -154,16 +131,15 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
     @Override
     public void close() {
         super.close();
-        ticketCancelSendEntries.cleanUp();
-        if (ticketCancelSendEntries.size() > 0) {
+        if (timeoutHandler.getBlockingPendingCount() > 0) {
             logger.info("there are still ticketCancel responses pending, will wait till completion or timeout");
-            while (ticketCancelSendEntries.size() > 0) {
+            while (timeoutHandler.getBlockingPendingCount() > 0) {
                 try {
-                    ticketCancelSendEntries.cleanUp();
                     Thread.sleep(100);
                 } catch (InterruptedException e) {
                     logger.error("interrupted waiting to get/timeout all ticket cancel responses");
                     Thread.currentThread().interrupt();
+                    return;
                 }
             }
         }
@@ -180,31 +156,4 @@ public class TicketCancelHandlerImpl extends SenderBase<TicketCancel> implements
 
         timeoutHandler.onAsyncPublishFailure(correlationId);
     }
-
-    private final class TicketCancelSendEntry {
-
-        private final TicketCancel ticket;
-        private final TicketCancelResponseListener responseListener;
-        private final Semaphore semaphore;
-
-        public TicketCancelSendEntry(TicketCancel ticket,
-                               TicketCancelResponseListener responseListener,
-                               Semaphore semaphore) {
-            this.ticket = ticket;
-            this.responseListener = responseListener;
-            this.semaphore = semaphore;
-        }
-
-        public TicketCancel getTicket() {
-            return ticket;
-        }
-
-        public Semaphore getSemaphore() {
-            return semaphore;
-        }
-
-        public TicketCancelResponseListener getResponseListener() {
-            return responseListener;
-        }
-    }
 }
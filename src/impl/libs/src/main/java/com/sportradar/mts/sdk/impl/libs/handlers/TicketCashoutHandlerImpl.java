@@ -5,8 +5,6 @@
 package com.sportradar.mts.sdk.impl.libs.handlers;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.sportradar.mts.sdk.api.TicketCashout;
 import com.sportradar.mts.sdk.api.TicketCashoutResponse;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
@@ -18,9 +16,11 @@ import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -56,25 +56,15 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
     private final ExecutorService executorService;
 
     /**
-     * The async tickets response time-out handler
+     * The tickets waiting for their responses and the async tickets response time-out handler
      */
-    private final ResponseTimeoutHandler<TicketCashout> timeoutHandler;
+    private final ResponseTimeoutHandler<TicketCashout, TicketCashoutResponse> timeoutHandler;
 
     /**
      * The max allowed cashout response time used for <code>sendBlocking</code>
      */
     private final int responseTimeout;
 
-    /**
-     * The caching used to store send messages that are used to check if the message is <code>sendBlocking</code>
-     */
-    private final Cache<String, TicketCashoutSendEntry> ticketCashoutSendEntryCache;
-
-    /**
-     * The caching used to store response messages so they can be utilized as the return for <code>sendBlocking</code>
-     */
-    private final Cache<String, TicketCashoutResponse> ticketCashoutResponseCache;
-
     /**
      * Initializes a new instance of the {@link TicketCashoutHandlerImpl}
      *
@@ -82,9 +72,10 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
      * @param routingKey - the routing key used to publish messages
      * @param replyRoutingKey - the routing key used to receive {@link TicketCashoutResponse} messages
      * @param executorService - the {@link ExecutorService} used for async publishing
+     * @param inFlightTracker - the {@link InFlightTracker} keeping the messages waiting for their publish result
      * @param timeoutHandler - the {@link TicketCashout} used for handling timeouts
      * @param responseTimeout - response timeout in milliseconds
-     * @param messagesPerSecond - the max number of messages/second that should be sent
+     * @param rateLimiterLane - the {@link SharedRateLimiter.Lane} limiting the rate the messages are sent at
      * @param sdkLogger - the main SDK logging interface
      */
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
@@ -92,24 +83,18 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
                                     String routingKey,
                                     String replyRoutingKey,
                                     ExecutorService executorService,
-                                    ResponseTimeoutHandler<TicketCashout> timeoutHandler,
+                                    InFlightTracker<TicketCashout> inFlightTracker,
+                                    ResponseTimeoutHandler<TicketCashout, TicketCashoutResponse> timeoutHandler,
                                     int responseTimeout,
-                                    double messagesPerSecond,
+                                    SharedRateLimiter.Lane rateLimiterLane,
                                     SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
 
         this.routingKey = routingKey == null ? "ticket.cashout" : routingKey;
         this.replyRoutingKey = replyRoutingKey;
         this.executorService = executorService;
         this.responseTimeout = responseTimeout;
         this.timeoutHandler = timeoutHandler;
-
-        ticketCashoutSendEntryCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(responseTimeout, TimeUnit.MILLISECONDS)
-                .build();
-        ticketCashoutResponseCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
     }
 
     /**
@@ -140,23 +125,24 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
         Preconditions.checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
         Preconditions.checkNotNull(ticketCashout, SdkInfo.Literals.TICKET_HANDLER_TICKET_CASHOUT_NULL);
 
-        String ticketId = ticketCashout.getTicketId();
-        Semaphore semaphore = new Semaphore(0);
-        ticketCashoutSendEntryCache.put(ticketId, new TicketCashoutSendEntry(ticketCashout, semaphore));
-        publishAsync(ticketCashout, routingKey, replyRoutingKey);
-
-        boolean acquire = false;
+        CompletableFuture<TicketCashoutResponse> pendingResponse = timeoutHandler.onBlockingTicketSent(ticketCashout);
+        TicketCashoutResponse response = null;
         try {
-            acquire = semaphore.tryAcquire(responseTimeout, TimeUnit.MILLISECONDS);
+            publishAsync(ticketCashout, routingKey, replyRoutingKey);
+            response = pendingResponse.get(responseTimeout, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             logger.warn("interrupted waiting for response, throwing timeout");
             Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // no response
+        } finally {
+            pendingResponse.cancel(false);
         }
-        if (!acquire) {
+        if (response == null) {
             String error = String.format("Timeout reached. Missing response for ticketCashout %s with correlationId=%s", ticketCashout.getTicketId(), ticketCashout.getCorrelationId());
             throw new ResponseTimeoutException(error);
         }
-        return ticketCashoutResponseCache.getIfPresent(ticketId);
+        return response;
     }
 
     private void internalSend(TicketCashout ticketCashout) {
@@ -200,19 +186,7 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
         checkNotNull(ticketCashoutResponse, "TicketCashoutResponse cannot be null");
         getSdkLogger().logReceivedMessage(JsonUtils.serializeAsString(ticketCashoutResponse));
 
-        timeoutHandler.onAsyncTicketResponseReceived(ticketCashoutResponse.getCorrelationId());
-
-        String ticketId = ticketCashoutResponse.getTicketId();
-        ticketCashoutResponseCache.put(ticketId, ticketCashoutResponse);
-        TicketCashoutSendEntry entry = ticketCashoutSendEntryCache.getIfPresent(ticketId);
-
-        if (entry != null) {
-            Semaphore semaphore = entry.getSemaphore();
-            if (semaphore != null) {
-                semaphore.release(1);
-            }
-            ticketCashoutSendEntryCache.invalidate(ticketId);
-        } else {
+        if (!timeoutHandler.onTicketResponseReceived(ticketCashoutResponse.getCorrelationId(), ticketCashoutResponse.getTicketId(), ticketCashoutResponse)) {
             executorService.submit(() -> ticketCashoutResponseListener.responseReceived(ticketCashoutResponse));
         }
     }
@@ -223,23 +197,4 @@ public class TicketCashoutHandlerImpl extends SenderBase<TicketCashout> implemen
 
         timeoutHandler.onAsyncPublishFailure(correlationId);
     }
-
-    private class TicketCashoutSendEntry {
-        private final TicketCashout ticket;
-        private final Semaphore semaphore;
-
-        TicketCashoutSendEntry(TicketCashout ticket,
-                                      Semaphore semaphore) {
-            this.ticket = ticket;
-            this.semaphore = semaphore;
-        }
-
-        public TicketCashout getTicket() {
-            return ticket;
-        }
-
-        Semaphore getSemaphore() {
-            return semaphore;
-        }
-    }
 }
@@ -6,11 +6,10 @@ package com.sportradar.mts.sdk.impl.libs.handlers;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.sportradar.mts.sdk.api.SdkTicket;
 import com.sportradar.mts.sdk.api.Ticket;
 import com.sportradar.mts.sdk.api.TicketResponse;
+import com.sportradar.mts.sdk.api.exceptions.BatchResponseTimeoutException;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
 import com.sportradar.mts.sdk.api.interfaces.TicketResponseListener;
 import com.sportradar.mts.sdk.api.utils.JsonUtils;
@@ -20,9 +19,14 @@ import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -31,26 +35,23 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
 
     private static final Logger logger = LoggerFactory.getLogger(TicketHandlerImpl.class);
     private final String routingKey;
-    private final Cache<String, TicketSendEntry> ticketSendEntries1;
-    private final Cache<String, TicketResponse> responseCache1;
-    private final Cache<String, TicketSendEntry> ticketSendEntries2;
-    private final Cache<String, TicketResponse> responseCache2;
     private final ExecutorService executorService;
     private final int responseTimeout1;
     private final int responseTimeout2;
-    private final ResponseTimeoutHandler<Ticket> responseTimeoutHandler;
+    private final ResponseTimeoutHandler<Ticket, TicketResponse> responseTimeoutHandler;
     private TicketResponseListener ticketResponseListener;
 
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public TicketHandlerImpl(AmqpPublisher amqpPublisher,
                              String routingKey,
                              ExecutorService executorService,
-                             ResponseTimeoutHandler<Ticket> responseTimeoutHandler,
+                             InFlightTracker<Ticket> inFlightTracker,
+                             ResponseTimeoutHandler<Ticket, TicketResponse> responseTimeoutHandler,
                              int responseTimeout1,
                              int responseTimeout2,
-                             double messagesPerSecond,
+                             SharedRateLimiter.Lane rateLimiterLane,
                              SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
 
         checkNotNull(executorService, "executorService cannot be null");
         checkNotNull(responseTimeoutHandler, "responseTimeoutHandler cannot be null");
@@ -60,19 +61,6 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
         this.responseTimeout1 = responseTimeout1;
         this.responseTimeout2 = responseTimeout2;
         this.responseTimeoutHandler = responseTimeoutHandler;
-
-        ticketSendEntries1 = CacheBuilder.newBuilder()
-                .expireAfterWrite(responseTimeout1, TimeUnit.MILLISECONDS)
-                .build();
-        responseCache1 = CacheBuilder.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
-        ticketSendEntries2 = CacheBuilder.newBuilder()
-                .expireAfterWrite(responseTimeout2, TimeUnit.MILLISECONDS)
-                .build();
-        responseCache2 = CacheBuilder.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
     }
 
     @Override
@@ -82,7 +70,7 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
 
         checkNotNull(ticketResponseListener, "no response listener set");
 
-        internalSend(ticket, null);
+        internalSend(ticket);
 
         responseTimeoutHandler.onAsyncTicketSent(ticket);
     }
@@ -94,33 +82,98 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
 
         Stopwatch stopwatch = Stopwatch.createStarted();
         String ticketId = ticket.getTicketId();
-        Semaphore semaphore = new Semaphore(0);
-        if(isTicketPrematch(ticket)){
-            ticketSendEntries2.put(ticketId, new TicketSendEntry(ticket, null, semaphore));
-        }
-        else{
-            ticketSendEntries1.put(ticketId, new TicketSendEntry(ticket, null, semaphore));
-        }
-        publishAsync(ticket, routingKey);
-
-        boolean acquire = false;
+        CompletableFuture<TicketResponse> pendingResponse = responseTimeoutHandler.onBlockingTicketSent(ticket);
+        TicketResponse ticketResponse = null;
         try {
-            acquire = semaphore.tryAcquire(isTicketPrematch(ticket) ? responseTimeout2 : responseTimeout1, TimeUnit.MILLISECONDS);
+            publishAsync(ticket, routingKey);
+            ticketResponse = pendingResponse.get(ticket.getRouting().isPrematch() ? responseTimeout2 : responseTimeout1, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             logger.warn("interrupted waiting for response, throwing timeout");
             Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // no response
+        } finally {
+            pendingResponse.cancel(false);
         }
-        if (!acquire) {
+        if (ticketResponse == null) {
             String error = String.format("Timeout reached. Missing response for ticket %s with correlationId=%s", ticket.getTicketId(), ticket.getCorrelationId());
             throw new ResponseTimeoutException(error);
         }
-        TicketResponse ticketResponse = isTicketPrematch(ticket) ? responseCache2.getIfPresent(ticketId) : responseCache1.getIfPresent(ticketId);
         stopwatch.stop();
         logger.debug("Response for ticket:{} is received in {} ms.", ticketId, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         return ticketResponse;
     }
 
+    @Override
+    public List<CompletableFuture<Boolean>> sendBatch(List<Ticket> tickets) {
+        checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
+        checkTickets(tickets);
+
+        checkNotNull(ticketResponseListener, "no response listener set");
+
+        List<CompletableFuture<Boolean>> publishResults = publishBatchAsync(tickets, Ticket::getCorrelationId, routingKey);
+        for (Ticket ticket : tickets) {
+            responseTimeoutHandler.onAsyncTicketSent(ticket);
+        }
+        return publishResults;
+    }
+
+    @Override
+    public List<TicketResponse> sendBatchBlocking(List<Ticket> tickets, long timeoutMillis) throws BatchResponseTimeoutException {
+        checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
+        checkTickets(tickets);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<CompletableFuture<TicketResponse>> pendingResponses = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            pendingResponses.add(responseTimeoutHandler.onBlockingTicketSent(ticket));
+        }
+        List<TicketResponse> ticketResponses = new ArrayList<>(tickets.size());
+        try {
+            List<CompletableFuture<Boolean>> publishResults = publishBatchAsync(tickets, Ticket::getCorrelationId, routingKey);
+            for (int i = 0; i < tickets.size(); i++) {
+                CompletableFuture<TicketResponse> pendingResponse = pendingResponses.get(i);
+                // no response will come for a ticket which was not published
+                publishResults.get(i).thenAccept(published -> {
+                    if (!published) {
+                        pendingResponse.cancel(false);
+                    }
+                });
+            }
+            for (int i = 0; i < tickets.size(); i++) {
+                ticketResponses.add(awaitResponse(pendingResponses.get(i), deadline));
+            }
+        } finally {
+            pendingResponses.forEach(pendingResponse -> pendingResponse.cancel(false));
+        }
+        long missing = ticketResponses.stream().filter(r -> r == null).count();
+        if (missing > 0) {
+            String error = String.format("Timeout reached. Missing responses for %d of %d tickets sent in batch", missing, tickets.size());
+            throw new BatchResponseTimeoutException(error, ticketResponses);
+        }
+        return ticketResponses;
+    }
+
+    private static TicketResponse awaitResponse(CompletableFuture<TicketResponse> pendingResponse, long deadline) {
+        try {
+            return pendingResponse.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            logger.warn("interrupted waiting for response");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            // no response
+        }
+        return null;
+    }
+
+    private static void checkTickets(List<Ticket> tickets) {
+        checkNotNull(tickets, "tickets cannot be null");
+        for (Ticket ticket : tickets) {
+            checkNotNull(ticket, SdkInfo.Literals.TICKET_HANDLER_TICKET_NULL);
+        }
+    }
+
     @Override
     public void setListener(TicketResponseListener responseListener) {
         checkNotNull(responseListener, "responseListener cannot be null");
@@ -134,29 +187,11 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
         checkNotNull(ticketResponse, "ticketResponse cannot be null");
         getSdkLogger().logReceivedMessage(JsonUtils.serializeAsString(ticketResponse));
 
-        responseTimeoutHandler.onAsyncTicketResponseReceived(ticketResponse.getCorrelationId());
-
-        String ticketId = ticketResponse.getTicketId();
-        TicketSendEntry entry = ticketSendEntries1.getIfPresent(ticketId);
-        responseCache1.put(ticketId, ticketResponse);
-        if(entry == null)
-        {
-            entry = ticketSendEntries2.getIfPresent(ticketId);
-            responseCache2.put(ticketId, ticketResponse);
-        }
-        final TicketResponseListener listenerToRespond;
-        if (entry != null) {
-            TicketResponseListener tmpTicketResponseListener = entry.getResponseListener();
-            Semaphore semaphore = entry.getSemaphore();
-            if (semaphore != null) {
-                semaphore.release(1);
-            }
-            ticketSendEntries1.invalidate(ticketId);
-            ticketSendEntries2.invalidate(ticketId);
-            listenerToRespond = tmpTicketResponseListener;
-        } else {
-            listenerToRespond = this.ticketResponseListener;
+        if (responseTimeoutHandler.onTicketResponseReceived(ticketResponse.getCorrelationId(), ticketResponse.getTicketId(), ticketResponse)) {
+            // taken by sendBlocking
+            return;
         }
+        final TicketResponseListener listenerToRespond = this.ticketResponseListener;
         if (listenerToRespond != null) {
             executorService.submit(() -> {
                 try {
@@ -171,47 +206,24 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
     @Override
     public void close() {
         super.close();
-        ticketSendEntries1.cleanUp();
-        if (ticketSendEntries1.size() > 0) {
+        if (responseTimeoutHandler.getBlockingPendingCount() > 0) {
             logger.info("there are still ticket responses pending, will wait till completion or timeout");
-            while (ticketSendEntries1.size() > 0) {
+            while (responseTimeoutHandler.getBlockingPendingCount() > 0) {
                 try {
-                    ticketSendEntries1.cleanUp();
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    logger.error("interrupted waiting to get/timeout all ticket responses");
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
-        ticketSendEntries2.cleanUp();
-        if (ticketSendEntries2.size() > 0) {
-            logger.info("there are still ticket responses pending, will wait till completion or timeout");
-            while (ticketSendEntries2.size() > 0) {
-                try {
-                    ticketSendEntries2.cleanUp();
                     Thread.sleep(100);
                 } catch (InterruptedException e) {
                     logger.error("interrupted waiting to get/timeout all ticket responses");
                     Thread.currentThread().interrupt();
+                    return;
                 }
             }
         }
     }
 
-    private void internalSend(Ticket ticket, TicketResponseListener responseListener) {
+    private void internalSend(Ticket ticket) {
         checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
         checkNotNull(ticket, SdkInfo.Literals.TICKET_HANDLER_TICKET_NULL);
 
-        String ticketId = ticket.getTicketId();
-        if (responseListener != null) {
-            if(isTicketPrematch(ticket)){
-                ticketSendEntries2.put(ticketId, new TicketSendEntry(ticket, responseListener, null));
-            }
-            else{
-                ticketSendEntries1.put(ticketId, new TicketSendEntry(ticket, responseListener, null));
-            }
-        }
         publishAsync(ticket, ticket.getCorrelationId(), routingKey);
     }
 
@@ -227,34 +239,7 @@ public class TicketHandlerImpl extends SenderBase<Ticket> implements TicketHandl
         responseTimeoutHandler.onAsyncPublishFailure(correlationId);
     }
 
-    private final class TicketSendEntry {
-
-        private final Ticket ticket;
-        private final TicketResponseListener responseListener;
-        private final Semaphore semaphore;
-
-        public TicketSendEntry(Ticket ticket,
-                               TicketResponseListener responseListener,
-                               Semaphore semaphore) {
-            this.ticket = ticket;
-            this.responseListener = responseListener;
-            this.semaphore = semaphore;
-        }
-
-        public Ticket getTicket() {
-            return ticket;
-        }
-
-        public Semaphore getSemaphore() {
-            return semaphore;
-        }
-
-        public TicketResponseListener getResponseListener() {
-            return responseListener;
-        }
-    }
-
     public static boolean isTicketPrematch(SdkTicket ticket) {
-        return ticket instanceof Ticket && ((Ticket) ticket).getSelections().stream().anyMatch(a -> a.getId().contains("lcoo"));
+        return ticket instanceof Ticket && ((Ticket) ticket).getRouting().isPrematch();
     }
 }
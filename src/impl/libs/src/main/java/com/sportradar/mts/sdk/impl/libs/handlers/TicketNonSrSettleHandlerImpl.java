@@ -5,8 +5,6 @@
 package com.sportradar.mts.sdk.impl.libs.handlers;
 
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.sportradar.mts.sdk.api.TicketNonSrSettle;
 import com.sportradar.mts.sdk.api.TicketNonSrSettleResponse;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
@@ -18,9 +16,11 @@ import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -52,47 +52,31 @@ public class TicketNonSrSettleHandlerImpl extends SenderBase<TicketNonSrSettle>
     private final ExecutorService executorService;
 
     /**
-     * The async tickets response time-out handler
+     * The tickets waiting for their responses and the async tickets response time-out handler
      */
-    private final ResponseTimeoutHandler<TicketNonSrSettle> timeoutHandler;
+    private final ResponseTimeoutHandler<TicketNonSrSettle, TicketNonSrSettleResponse> timeoutHandler;
 
     /**
      * The max allowed cashout response time used for <code>sendBlocking</code>
      */
     private final int responseTimeout;
 
-    /**
-     * The caching used to store send messages that are used to check if the message is <code>sendBlocking</code>
-     */
-    private final Cache<String, TicketNonSrSettleSendEntry> ticketNonSrSettleSendEntryCache;
-
-    /**
-     * The caching used to store response messages so they can be utilized as the return for <code>sendBlocking</code>
-     */
-    private final Cache<String, TicketNonSrSettleResponse> ticketNonSrSettleResponseCache;
-
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public TicketNonSrSettleHandlerImpl(AmqpPublisher amqpPublisher,
                                         String routingKey,
                                         String replyRoutingKey,
                                         ExecutorService executorService,
-                                        ResponseTimeoutHandler<TicketNonSrSettle> timeoutHandler,
+                                        InFlightTracker<TicketNonSrSettle> inFlightTracker,
+                                        ResponseTimeoutHandler<TicketNonSrSettle, TicketNonSrSettleResponse> timeoutHandler,
                                         int responseTimeout,
-                                        double messagesPerSecond,
+                                        SharedRateLimiter.Lane rateLimiterLane,
                                         SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
         this.routingKey = routingKey == null ? "ticket.nonsrsettle" : routingKey;
         this.replyRoutingKey = replyRoutingKey;
         this.executorService = executorService;
         this.timeoutHandler = timeoutHandler;
         this.responseTimeout = responseTimeout;
-
-        ticketNonSrSettleSendEntryCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(responseTimeout, TimeUnit.MILLISECONDS)
-                .build();
-        ticketNonSrSettleResponseCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
     }
 
     /**
@@ -123,22 +107,23 @@ public class TicketNonSrSettleHandlerImpl extends SenderBase<TicketNonSrSettle>
         Preconditions.checkState(isOpen(), SdkInfo.Literals.TICKET_HANDLER_SENDER_CLOSED);
         Preconditions.checkNotNull(ticketNonSrSettle, SdkInfo.Literals.TICKET_HANDLER_TICKET_NONSR_NULL);
 
-        String ticketId = ticketNonSrSettle.getTicketId();
-        Semaphore semaphore = new Semaphore(0);
-        ticketNonSrSettleSendEntryCache.put(ticketId, new TicketNonSrSettleSendEntry(ticketNonSrSettle, semaphore));
-        publishAsync(ticketNonSrSettle, routingKey, replyRoutingKey);
-
-        boolean acquire = false;
+        CompletableFuture<TicketNonSrSettleResponse> pendingResponse = timeoutHandler.onBlockingTicketSent(ticketNonSrSettle);
+        TicketNonSrSettleResponse response = null;
         try {
-            acquire = semaphore.tryAcquire(responseTimeout, TimeUnit.MILLISECONDS);
+            publishAsync(ticketNonSrSettle, routingKey, replyRoutingKey);
+            response = pendingResponse.get(responseTimeout, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             logger.warn("interrupted waiting for response, throwing timeout");
             Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // no response
+        } finally {
+            pendingResponse.cancel(false);
         }
-        if (!acquire) {
+        if (response == null) {
             throw new ResponseTimeoutException("timeout reached");
         }
-        return ticketNonSrSettleResponseCache.getIfPresent(ticketId);
+        return response;
     }
 
     /**
@@ -170,19 +155,7 @@ public class TicketNonSrSettleHandlerImpl extends SenderBase<TicketNonSrSettle>
         checkNotNull(ticketNonSrSettleResponse, "TicketNonSrSettleResponse cannot be null");
         getSdkLogger().logReceivedMessage(JsonUtils.serializeAsString(ticketNonSrSettleResponse));
 
-        timeoutHandler.onAsyncTicketResponseReceived(ticketNonSrSettleResponse.getCorrelationId());
-
-        String ticketId = ticketNonSrSettleResponse.getTicketId();
-        ticketNonSrSettleResponseCache.put(ticketId, ticketNonSrSettleResponse);
-        TicketNonSrSettleSendEntry entry = ticketNonSrSettleSendEntryCache.getIfPresent(ticketId);
-
-        if (entry != null) {
-            Semaphore semaphore = entry.getSemaphore();
-            if (semaphore != null) {
-                semaphore.release(1);
-            }
-            ticketNonSrSettleSendEntryCache.invalidate(ticketId);
-        } else {
+        if (!timeoutHandler.onTicketResponseReceived(ticketNonSrSettleResponse.getCorrelationId(), ticketNonSrSettleResponse.getTicketId(), ticketNonSrSettleResponse)) {
             executorService.submit(() -> ticketNonSrSettleResponseListener.responseReceived(ticketNonSrSettleResponse));
         }
     }
@@ -201,22 +174,4 @@ public class TicketNonSrSettleHandlerImpl extends SenderBase<TicketNonSrSettle>
 
         publishAsync(ticketNonSrSettle, routingKey, replyRoutingKey);
     }
-
-    private static class TicketNonSrSettleSendEntry {
-        private final TicketNonSrSettle ticket;
-        private final Semaphore semaphore;
-
-        TicketNonSrSettleSendEntry(TicketNonSrSettle ticket, Semaphore semaphore) {
-            this.ticket = ticket;
-            this.semaphore = semaphore;
-        }
-
-        public TicketNonSrSettle getTicket() {
-            return ticket;
-        }
-
-        Semaphore getSemaphore() {
-            return semaphore;
-        }
-    }
 }
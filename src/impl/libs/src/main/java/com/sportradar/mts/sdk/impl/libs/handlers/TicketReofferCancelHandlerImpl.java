@@ -22,9 +22,10 @@ public class TicketReofferCancelHandlerImpl extends SenderBase<TicketReofferCanc
     public TicketReofferCancelHandlerImpl(AmqpPublisher amqpPublisher,
                                           String routingKey,
                                           ExecutorService executorService,
-                                          double messagesPerSecond,
+                                          InFlightTracker<TicketReofferCancel> inFlightTracker,
+                                          SharedRateLimiter.Lane rateLimiterLane,
                                           SdkLogger sdkLogger) {
-        super(amqpPublisher, executorService, messagesPerSecond, sdkLogger);
+        super(amqpPublisher, executorService, inFlightTracker, rateLimiterLane, sdkLogger);
         this.routingKey = routingKey == null ? "cancel.reoffer" : routingKey;
     }
 
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.outbox;
+
+import com.sportradar.mts.sdk.api.InDoubtTicket;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link TicketOutbox} used when no outbox directory is configured; keeps nothing
+ */
+public final class DisabledTicketOutbox implements TicketOutbox {
+
+    @Override
+    public long append(String correlationId, byte[] content) {
+        return NO_ENTRY;
+    }
+
+    @Override
+    public void settle(long handle, boolean confirmed) {
+        // nothing appended
+    }
+
+    @Override
+    public List<InDoubtTicket> getInDoubtTickets() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void clearInDoubtTickets() {
+        // nothing to clear
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.outbox;
+
+import com.sportradar.mts.sdk.api.InDoubtTicket;
+import com.sportradar.mts.sdk.api.exceptions.MtsSdkProcessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link TicketOutbox} writing to memory-mapped segment files in a directory. Appends are sequential: an entry is
+ * written into the mapped page cache (no system call) and becomes visible to recovery only once its length is written
+ * last, so a torn entry is never read back. Settling an entry flips its status byte in place. A segment file is
+ * deleted once it is full and all its entries are settled.
+ * <p>
+ * The page cache survives a crash of the JVM; the entries are not forced to disk, so a crash of the operating system
+ * may lose the most recent ones.
+ * <p>
+ * Entry layout: length (int, of what follows), status (byte), accepted time (long, epoch ms), correlation id length
+ * (short, -1 for null), correlation id (UTF-8), ticket bytes.
+ */
+public final class MappedTicketOutbox implements TicketOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedTicketOutbox.class);
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAGIC = 0x4D54534F; // MTSO
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_HEADER_SIZE = 4 + 1 + 8 + 2;
+    private static final byte STATUS_PENDING = 0;
+    private static final byte STATUS_CONFIRMED = 1;
+    private static final byte STATUS_FAILED = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final List<InDoubtTicket> inDoubtTickets;
+    private final List<Path> inDoubtSegments;
+    private Segment current;
+    private int nextSegmentId;
+    private boolean closed;
+
+    /**
+     * Opens the outbox in the provided directory and reads the entries left unsettled by the previous run
+     *
+     * @param directory the directory of the segment files (created if missing)
+     * @param segmentSize the size of a segment file (bytes); a bigger ticket gets a segment of its own
+     * @throws MtsSdkProcessException if the directory can not be read
+     */
+    public MappedTicketOutbox(Path directory, int segmentSize) {
+        checkNotNull(directory, "parameter 'directory' is null");
+        checkArgument(segmentSize > HEADER_SIZE + ENTRY_HEADER_SIZE, "parameter 'segmentSize' is too small");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        final List<InDoubtTicket> recovered = new ArrayList<>();
+        final List<Path> recoveredSegments = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            for (Path file : listSegments(directory)) {
+                this.nextSegmentId = Math.max(this.nextSegmentId, segmentId(file) + 1);
+                if (recover(file, recovered)) {
+                    recoveredSegments.add(file);
+                } else {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException exc) {
+            throw new MtsSdkProcessException("Failed to open the ticket outbox in " + directory, exc);
+        }
+        this.inDoubtTickets = Collections.unmodifiableList(recovered);
+        this.inDoubtSegments = recoveredSegments;
+        if (!recovered.isEmpty()) {
+            logger.warn("Ticket outbox {} contains {} in-doubt tickets (accepted but never confirmed by the broker)",
+                    directory, recovered.size());
+        }
+    }
+
+    @Override
+    public synchronized long append(String correlationId, byte[] content) {
+        if (this.closed) {
+            return NO_ENTRY;
+        }
+        final byte[] id = correlationId == null ? null : correlationId.getBytes(StandardCharsets.UTF_8);
+        final int entrySize = ENTRY_HEADER_SIZE + (id == null ? 0 : id.length) + content.length;
+        try {
+            if ((this.current == null) || (this.current.remaining() < entrySize)) {
+                this.roll(entrySize);
+            }
+            return this.current.append(id, content, entrySize);
+        } catch (IOException exc) {
+            logger.error("Failed to append ticket {} to the outbox, it is sent without it", correlationId, exc);
+            return NO_ENTRY;
+        }
+    }
+
+    @Override
+    public void settle(long handle, boolean confirmed) {
+        if (handle == NO_ENTRY) {
+            return;
+        }
+        final Segment segment = this.segments.get((int) (handle >>> 32));
+        if ((segment != null) && segment.settle((int) handle, confirmed ? STATUS_CONFIRMED : STATUS_FAILED)) {
+            this.segments.remove(segment.id);
+        }
+    }
+
+    @Override
+    public List<InDoubtTicket> getInDoubtTickets() {
+        return this.inDoubtTickets;
+    }
+
+    @Override
+    public synchronized void clearInDoubtTickets() {
+        for (Path file : this.inDoubtSegments) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException exc) {
+                logger.warn("Failed to delete outbox segment {}", file, exc);
+            }
+        }
+        this.inDoubtSegments.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if ((this.current != null) && this.current.seal()) {
+            this.segments.remove(this.current.id);
+        }
+        // segments with unsettled entries stay on disk for the next run
+        for (Segment segment : this.segments.values()) {
+            segment.closeFile();
+        }
+    }
+
+    /**
+     * Gets the number of segment files in use by this run
+     */
+    int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    private void roll(int entrySize) throws IOException {
+        if ((this.current != null) && this.current.seal()) {
+            this.segments.remove(this.current.id);
+        }
+        final int size = Math.max(this.segmentSize, HEADER_SIZE + entrySize + 4);
+        final int id = this.nextSegmentId++;
+        final Segment segment = new Segment(id, this.directory.resolve(segmentFileName(id)), size);
+        this.segments.put(id, segment);
+        this.current = segment;
+    }
+
+    private static String segmentFileName(int id) {
+        return String.format("outbox-%08x%s", id, SEGMENT_SUFFIX);
+    }
+
+    private static int segmentId(Path file) {
+        final String name = file.getFileName().toString();
+        return (int) Long.parseLong(name.substring("outbox-".length(), name.length() - SEGMENT_SUFFIX.length()), 16);
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        final List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "outbox-*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                result.add(file);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Reads the unsettled entries of a segment left by a previous run
+     *
+     * @return true if the segment contains unsettled entries
+     */
+    private static boolean recover(Path file, List<InDoubtTicket> recovered) throws IOException {
+        final byte[] data = Files.readAllBytes(file);
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        if ((data.length < HEADER_SIZE) || (buffer.getInt(0) != MAGIC)) {
+            logger.warn("Skipping invalid outbox segment {}", file);
+            return false;
+        }
+        boolean pending = false;
+        int position = HEADER_SIZE;
+        while (position + ENTRY_HEADER_SIZE <= data.length) {
+            final int length = buffer.getInt(position);
+            if ((length <= 0) || (position + 4 + length > data.length)) {
+                break;
+            }
+            final byte status = buffer.get(position + 4);
+            if (status == STATUS_PENDING) {
+                final long acceptedMillis = buffer.getLong(position + 5);
+                final short idLength = buffer.getShort(position + 13);
+                final int idStart = position + ENTRY_HEADER_SIZE;
+                final String correlationId = idLength < 0 ? null : new String(data, idStart, idLength, StandardCharsets.UTF_8);
+                final int contentStart = idStart + Math.max(idLength, (short) 0);
+                final byte[] content = new byte[position + 4 + length - contentStart];
+                System.arraycopy(data, contentStart, content, 0, content.length);
+                recovered.add(new InDoubtTicketImpl(correlationId, new Date(acceptedMillis), content));
+                pending = true;
+            }
+            position += 4 + length;
+        }
+        return pending;
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private int position = HEADER_SIZE;
+
+        Segment(int id, Path file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putInt(4, id);
+        }
+
+        int remaining() {
+            // keep room for the terminating zero length
+            return this.buffer.capacity() - this.position - 4;
+        }
+
+        long append(byte[] id, byte[] content, int entrySize) {
+            final int start = this.position;
+            int p = start + 4;
+            this.buffer.put(p, STATUS_PENDING);
+            this.buffer.putLong(p + 1, System.currentTimeMillis());
+            this.buffer.putShort(p + 9, id == null ? -1 : (short) id.length);
+            p += 11;
+            // relative puts are only used here, under the lock of the outbox
+            this.buffer.position(p);
+            if (id != null) {
+                this.buffer.put(id);
+            }
+            this.buffer.put(content);
+            this.pending.incrementAndGet();
+            // the length goes last: recovery stops at a zero length, so it never sees a half written entry
+            this.buffer.putInt(start, entrySize - 4);
+            this.position = start + entrySize;
+            return ((long) this.id << 32) | start;
+        }
+
+        /**
+         * @return true if the segment was deleted (sealed and all its entries settled)
+         */
+        boolean settle(int offset, byte status) {
+            this.buffer.put(offset + 4, status);
+            return (this.pending.decrementAndGet() == 0) && this.sealed && this.delete();
+        }
+
+        /**
+         * @return true if the segment was deleted (all its entries already settled)
+         */
+        boolean seal() {
+            this.sealed = true;
+            return (this.pending.get() == 0) && this.delete();
+        }
+
+        void closeFile() {
+            try {
+                this.channel.close();
+            } catch (IOException exc) {
+                logger.warn("Failed to close outbox segment {}", this.file, exc);
+            }
+        }
+
+        private boolean delete() {
+            if (!this.deleted.compareAndSet(false, true)) {
+                return false;
+            }
+            this.closeFile();
+            try {
+                // the mapping is released when the buffer is collected
+                Files.deleteIfExists(this.file);
+            } catch (IOException exc) {
+                logger.warn("Failed to delete outbox segment {}", this.file, exc);
+            }
+            return true;
+        }
+    }
+
+    private static final class InDoubtTicketImpl implements InDoubtTicket {
+
+        private final String correlationId;
+        private final Date acceptedTime;
+        private final byte[] content;
+
+        InDoubtTicketImpl(String correlationId, Date acceptedTime, byte[] content) {
+            this.correlationId = correlationId;
+            this.acceptedTime = acceptedTime;
+            this.content = content;
+        }
+
+        @Override
+        public String getCorrelationId() {
+            return this.correlationId;
+        }
+
+        @Override
+        public Date getAcceptedTime() {
+            return this.acceptedTime;
+        }
+
+        @Override
+        public byte[] getContent() {
+            return this.content;
+        }
+
+        @Override
+        public String toString() {
+            return "InDoubtTicket{correlationId=" + this.correlationId + ", acceptedTime=" + this.acceptedTime + '}';
+        }
+    }
+}
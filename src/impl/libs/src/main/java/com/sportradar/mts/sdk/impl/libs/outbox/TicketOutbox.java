@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.outbox;
+
+import com.sportradar.mts.sdk.api.InDoubtTicket;
+
+import java.util.List;
+
+/**
+ * Write-ahead outbox of the tickets accepted for sending: a ticket is appended before it is queued for publishing and
+ * settled once the broker confirms it (or sending it finally failed). Tickets still unsettled when the process stops
+ * are reported as {@link InDoubtTicket}s by the next run.
+ */
+public interface TicketOutbox extends AutoCloseable {
+
+    /**
+     * Handle of a ticket which was not appended (outbox disabled or append failed); settling it does nothing
+     */
+    long NO_ENTRY = -1L;
+
+    /**
+     * Appends the ticket
+     *
+     * @param correlationId the correlation id the ticket is sent with
+     * @param content the serialized ticket
+     * @return the handle of the entry, to be passed to {@link #settle(long, boolean)}
+     */
+    long append(String correlationId, byte[] content);
+
+    /**
+     * Marks the entry as settled; the space of the entries is reclaimed once all entries of a segment are settled
+     *
+     * @param handle the handle returned by {@link #append(String, byte[])}
+     * @param confirmed true if the broker confirmed the ticket, false if sending it failed
+     */
+    void settle(long handle, boolean confirmed);
+
+    /**
+     * Gets the tickets left unsettled by the previous run of the SDK
+     *
+     * @return the in-doubt tickets
+     */
+    List<InDoubtTicket> getInDoubtTickets();
+
+    /**
+     * Removes the in-doubt tickets (after they were replayed or queried)
+     */
+    void clearInDoubtTickets();
+
+    @Override
+    void close();
+}
@@ -109,4 +109,9 @@ public class AmqpTicketCancelResponseReceiverImpl implements AmqpMessageReceiver
         String msgStr = msg == null ? "" : new String(msg, StandardCharsets.UTF_8);
         logger.error("ticket cancel response consume retry reached! msg : {}", msgStr);
     }
+
+    @Override
+    public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+        return TicketIdReader.read(msg, correlationId);
+    }
 }
@@ -86,6 +86,11 @@ public class AmqpTicketCashoutResponseReceiverImpl implements AmqpMessageReceive
         logger.error("ticket cashout response consume retry reached! msg : {}", msgStr);
     }
 
+    @Override
+    public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+        return TicketIdReader.read(msg, correlationId);
+    }
+
     @Override
     public void open() {
         synchronized (stateLock) {
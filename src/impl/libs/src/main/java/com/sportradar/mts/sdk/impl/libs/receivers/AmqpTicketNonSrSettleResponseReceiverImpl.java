@@ -86,6 +86,11 @@ public class AmqpTicketNonSrSettleResponseReceiverImpl implements AmqpMessageRec
         logger.error("ticket non-sportradar settle response consume retry reached! msg : {}", msgStr);
     }
 
+    @Override
+    public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+        return TicketIdReader.read(msg, correlationId);
+    }
+
     @Override
     public void open() {
         synchronized (stateLock) {
@@ -107,4 +107,9 @@ public class AmqpTicketResponseReceiverImpl implements AmqpMessageReceiver {
     public void afterLimitReached(byte[] msg, String routingKey, String correlationId) {
         logger.error("ticket response consume retry reached! msg: {}", msg);
     }
+
+    @Override
+    public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+        return TicketIdReader.read(msg, correlationId);
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.receivers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the ticket id of a response ("ticketId" of its result) straight from the json bytes, without deserializing the
+ * message; used as the ordering key of the responses
+ */
+final class TicketIdReader {
+
+    private static final byte[] TICKET_ID_NAME = "\"ticketId\"".getBytes(StandardCharsets.UTF_8);
+
+    private TicketIdReader() {
+    }
+
+    /**
+     * Gets the value of the first "ticketId" string member of the json
+     *
+     * @param json the json message
+     * @param fallback the value returned if the message has no ticket id
+     * @return the ticket id or the fallback
+     */
+    static String read(byte[] json, String fallback) {
+        if (json == null) {
+            return fallback;
+        }
+        int i = indexOf(json, TICKET_ID_NAME);
+        if (i < 0) {
+            return fallback;
+        }
+        i = skipWhitespace(json, i + TICKET_ID_NAME.length);
+        if (i >= json.length || json[i] != ':') {
+            return fallback;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i >= json.length || json[i] != '"') {
+            return fallback;
+        }
+        final int start = i + 1;
+        for (int end = start; end < json.length; end++) {
+            if (json[end] == '\\') {
+                // escaped ticket ids are left to the deserializer
+                return fallback;
+            }
+            if (json[end] == '"') {
+                return new String(json, start, end - start, StandardCharsets.UTF_8);
+            }
+        }
+        return fallback;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        final int last = data.length - pattern.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] data, int index) {
+        int i = index;
+        while (i < data.length && (data[i] == ' ' || data[i] == '\t' || data[i] == '\r' || data[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+}
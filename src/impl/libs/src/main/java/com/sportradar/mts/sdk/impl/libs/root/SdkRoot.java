@@ -6,6 +6,8 @@ package com.sportradar.mts.sdk.impl.libs.root;
 
 import com.sportradar.mts.sdk.api.interfaces.*;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface SdkRoot extends Openable {
 
     TicketSender getTicketSender(TicketResponseListener responseListener);
@@ -21,4 +23,9 @@ public interface SdkRoot extends Openable {
     TicketCashoutSender getTicketCashoutSender(TicketCashoutResponseListener responseListener);
 
     TicketNonSrSettleSender getTicketNonSrSettleSender(TicketNonSrSettleResponseListener ticketNonSrSettleSender);
+
+    /**
+     * Gets the readiness, completed when the connection warmed up after open
+     */
+    CompletableFuture<WarmupReport> getReadiness();
 }
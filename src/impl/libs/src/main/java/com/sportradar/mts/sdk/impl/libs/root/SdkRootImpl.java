@@ -4,14 +4,17 @@
 
 package com.sportradar.mts.sdk.impl.libs.root;
 
+import com.sportradar.mts.sdk.api.impl.WarmupReportImpl;
 import com.sportradar.mts.sdk.api.interfaces.*;
 import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpMessageReceiver;
+import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpWarmup;
 import com.sportradar.mts.sdk.impl.libs.adapters.amqp.ChannelFactoryProvider;
 import com.sportradar.mts.sdk.impl.libs.handlers.*;
 import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -20,9 +23,13 @@ import static com.google.common.base.Preconditions.checkState;
 public class SdkRootImpl implements SdkRoot {
 
     private static final Logger logger = LoggerFactory.getLogger(SdkRootImpl.class);
+    // how long close waits for all the executors together to finish their tasks
+    private static final long SHUTDOWN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(20);
     private final Object stateLock = new Object();
     private boolean opened;
     private final ScheduledExecutorService executorService;
+    private final ScheduledExecutorService controlExecutorService;
+    private final ScheduledExecutorService timerService;
     private final SdkLogger sdkLogger;
     private final ChannelFactoryProvider channelFactoryProvider;
     private final TicketHandler ticketHandler;
@@ -36,6 +43,7 @@ public class SdkRootImpl implements SdkRoot {
     private final AmqpMessageReceiver ticketCashoutAmqpMessageReceiver;
     private final TicketNonSrSettleHandler ticketNonSrSettleHandler;
     private final AmqpMessageReceiver ticketNonSrSettleAmpqMessageReceiver;
+    private final AmqpWarmup warmup;
 
     @SuppressWarnings("java:S107") // Methods should not have too many parameters
     public SdkRootImpl(SdkLogger sdkLogger,
@@ -52,8 +60,54 @@ public class SdkRootImpl implements SdkRoot {
                        AmqpMessageReceiver ticketCashoutAmqpMessageReceiver,
                        TicketNonSrSettleHandler ticketNonSrSettleHandler,
                        AmqpMessageReceiver ticketNonSrSettleAmpqMessageReceiver) {
+        this(sdkLogger,
+             executorService,
+             null,
+             null,
+             channelFactoryProvider,
+             ticketHandler,
+             ticketAmqpMessageReceiver,
+             ticketCancelHandler,
+             ticketCancelAmqpMessageReceiver,
+             ticketAckHandler,
+             ticketCancelAckHandler,
+             ticketReofferCancelHandler,
+             ticketCashoutHandler,
+             ticketCashoutAmqpMessageReceiver,
+             ticketNonSrSettleHandler,
+             ticketNonSrSettleAmpqMessageReceiver,
+             null);
+    }
+
+    /**
+     * @param controlExecutorService the executor of the cancel and acknowledgment senders, shut down on close like
+     *                               the executorService; null if they share the executorService
+     * @param timerService the scheduler of the senders' timers, shut down on close like the executorService; null if
+     *                     they use the executorService
+     * @param warmup warms up the connection on open; null for none (the senders connect when they are opened)
+     */
+    @SuppressWarnings("java:S107") // Methods should not have too many parameters
+    public SdkRootImpl(SdkLogger sdkLogger,
+                       ScheduledExecutorService executorService,
+                       ScheduledExecutorService controlExecutorService,
+                       ScheduledExecutorService timerService,
+                       ChannelFactoryProvider channelFactoryProvider,
+                       TicketHandler ticketHandler,
+                       AmqpMessageReceiver ticketAmqpMessageReceiver,
+                       TicketCancelHandler ticketCancelHandler,
+                       AmqpMessageReceiver ticketCancelAmqpMessageReceiver,
+                       TicketAckHandler ticketAckHandler,
+                       TicketCancelAckHandler ticketCancelAckHandler,
+                       TicketReofferCancelHandler ticketReofferCancelHandler,
+                       TicketCashoutHandler ticketCashoutHandler,
+                       AmqpMessageReceiver ticketCashoutAmqpMessageReceiver,
+                       TicketNonSrSettleHandler ticketNonSrSettleHandler,
+                       AmqpMessageReceiver ticketNonSrSettleAmpqMessageReceiver,
+                       AmqpWarmup warmup) {
         this.sdkLogger = sdkLogger;
         this.executorService = executorService;
+        this.controlExecutorService = controlExecutorService;
+        this.timerService = timerService;
         this.channelFactoryProvider = channelFactoryProvider;
         this.ticketHandler = ticketHandler;
         this.ticketAmqpMessageReceiver = ticketAmqpMessageReceiver;
@@ -66,6 +120,7 @@ public class SdkRootImpl implements SdkRoot {
         this.ticketCashoutAmqpMessageReceiver = ticketCashoutAmqpMessageReceiver;
         this.ticketNonSrSettleHandler = ticketNonSrSettleHandler;
         this.ticketNonSrSettleAmpqMessageReceiver = ticketNonSrSettleAmpqMessageReceiver;
+        this.warmup = warmup;
     }
 
     @Override
@@ -74,6 +129,9 @@ public class SdkRootImpl implements SdkRoot {
             sdkLogger.open();
             channelFactoryProvider.registerInstance();
             opened = true;
+            if (warmup != null) {
+                warmup.start();
+            }
         }
     }
 
@@ -135,22 +193,32 @@ public class SdkRootImpl implements SdkRoot {
             } catch (Exception e) {
                 logger.error("failed to close ticket non-sr sender", e);
             }
+            if (warmup != null) {
+                try {
+                    warmup.close();
+                } catch (Exception e) {
+                    logger.error("failed to close warmup", e);
+                }
+            }
             try {
                 channelFactoryProvider.unregisterInstance();
             } catch (Exception e) {
                 logger.error("failed to unregister instance from channel factory provider", e);
             }
             executorService.shutdown();
-            boolean terminated = false;
-            try {
-                terminated = executorService.awaitTermination(20, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                logger.info("interrupted while waiting for executor service to shutdown");
-                Thread.currentThread().interrupt();
+            if (controlExecutorService != null) {
+                controlExecutorService.shutdown();
             }
-            if (!terminated) {
-                logger.error("failed to shutdown executor service in time, force stopping");
-                executorService.shutdownNow();
+            if (timerService != null) {
+                timerService.shutdown();
+            }
+            long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT_NANOS;
+            awaitTermination(executorService, "executor service", deadline);
+            if (controlExecutorService != null) {
+                awaitTermination(controlExecutorService, "control executor service", deadline);
+            }
+            if (timerService != null) {
+                awaitTermination(timerService, "timer service", deadline);
             }
             try {
                 sdkLogger.close();
@@ -161,6 +229,20 @@ public class SdkRootImpl implements SdkRoot {
         }
     }
 
+    private static void awaitTermination(ScheduledExecutorService service, String name, long deadline) {
+        boolean terminated = false;
+        try {
+            terminated = service.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            logger.info("interrupted while waiting for {} to shutdown", name);
+            Thread.currentThread().interrupt();
+        }
+        if (!terminated) {
+            logger.error("failed to shutdown {} in time, force stopping", name);
+            service.shutdownNow();
+        }
+    }
+
     @Override
     public boolean isOpen() {
         return opened;
@@ -226,6 +308,14 @@ public class SdkRootImpl implements SdkRoot {
         return ticketNonSrSettleHandler;
     }
 
+    @Override
+    public CompletableFuture<WarmupReport> getReadiness() {
+        if (warmup == null) {
+            return CompletableFuture.completedFuture(new WarmupReportImpl(0L, 0L, 0L));
+        }
+        return warmup.getReadiness();
+    }
+
     private void checkOpened() {
         checkState(opened, "not open yet, call open first");
     }
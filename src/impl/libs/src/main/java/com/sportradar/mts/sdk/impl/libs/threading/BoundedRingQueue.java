@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Preallocated, bounded, lock-free queue for many producing threads and one consuming thread (array of slots with a
+ * sequence number per slot). Enqueue and dequeue claim a slot with a CAS and never allocate; the lock is only taken
+ * on the slow path, when the consumer waits for an element or a producer waits for space according to the
+ * {@link ProducerOverflowPolicy}. The consumer side also claims its slot with a CAS, so a few consumers sharing one
+ * queue stay correct.
+ *
+ * @param <E> type of the queued elements
+ */
+public final class BoundedRingQueue<E> {
+
+    private static final int SPIN_TRIES = 64;
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final ProducerOverflowPolicy overflowPolicy;
+    private final long overflowTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /**
+     * @param capacity max number of queued elements; rounded up to a power of two (at least two)
+     * @param overflowPolicy what {@link #enqueue(Object)} does when the queue is full
+     * @param overflowTimeoutMillis max time {@link #enqueue(Object)} waits for space (BLOCK and SPIN_THEN_PARK)
+     */
+    public BoundedRingQueue(int capacity, ProducerOverflowPolicy overflowPolicy, long overflowTimeoutMillis) {
+        checkArgument(capacity > 0, "parameter 'capacity' is zero or less");
+        checkArgument(capacity <= (1 << 30), "parameter 'capacity' is too big");
+        checkNotNull(overflowPolicy, "parameter 'overflowPolicy' is null");
+        checkArgument(overflowTimeoutMillis >= 0, "parameter 'overflowTimeoutMillis' is less than zero");
+
+        // with a single slot "published" and "free for the next lap" would be the same sequence number
+        int ringSize = 2;
+        while (ringSize < capacity) {
+            ringSize <<= 1;
+        }
+        this.items = new Object[ringSize];
+        this.sequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = ringSize - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.overflowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(overflowTimeoutMillis);
+    }
+
+    public BoundedRingQueue(int capacity) {
+        this(capacity, ProducerOverflowPolicy.REJECT, 0L);
+    }
+
+    public int capacity() {
+        return this.items.length;
+    }
+
+    public ProducerOverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /**
+     * Gets the current number of queued elements; exact only while no other thread is using the queue
+     *
+     * @return the queue depth
+     */
+    public int size() {
+        final long size = this.tail.get() - this.head.get();
+        if (size <= 0L) {
+            return 0;
+        }
+        return (int) Math.min(size, this.items.length);
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Inserts the element if there is space, never waits
+     *
+     * @param element the element to insert
+     * @return false if the queue is full
+     */
+    public boolean offer(E element) {
+        checkNotNull(element, "parameter 'element' is null");
+        long position = this.tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & this.mask);
+            final long difference = this.sequences.get(index) - position;
+            if (difference == 0L) {
+                if (this.tail.compareAndSet(position, position + 1L)) {
+                    break;
+                }
+                position = this.tail.get();
+            } else if (difference < 0L) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+        this.items[index] = element;
+        this.sequences.set(index, position + 1L);
+
+        if (this.waitingConsumers.get() > 0) {
+            this.signal(this.notEmpty);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts all the elements, in order and next to each other, if there is space for all of them; never waits for
+     * space. The slots are claimed with a single CAS, so a consumer sees the elements without any from other producers
+     * in between.
+     *
+     * @param elements the elements to insert
+     * @return false (inserting none) if there is no space for all of them
+     */
+    public boolean offerAll(List<? extends E> elements) {
+        checkNotNull(elements, "parameter 'elements' is null");
+        final int count = elements.size();
+        if (count == 0) {
+            return true;
+        }
+        if (count > this.items.length) {
+            return false;
+        }
+        for (E element : elements) {
+            checkNotNull(element, "parameter 'elements' contains null");
+        }
+        long position = this.tail.get();
+        while (true) {
+            final long first = this.sequences.get((int) (position & this.mask)) - position;
+            if (first == 0L) {
+                final long lastPosition = position + count - 1L;
+                if (this.sequences.get((int) (lastPosition & this.mask)) - lastPosition < 0L) {
+                    return false;
+                }
+                if (this.tail.compareAndSet(position, position + count)) {
+                    break;
+                }
+                position = this.tail.get();
+            } else if (first < 0L) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final long slotPosition = position + i;
+            final int index = (int) (slotPosition & this.mask);
+            // the slot was taken by a consumer already (the last one of the range is free), which may still be freeing it
+            while (this.sequences.get(index) != slotPosition) {
+                Thread.yield();
+            }
+            this.items[index] = elements.get(i);
+            this.sequences.set(index, slotPosition + 1L);
+        }
+
+        if (this.waitingConsumers.get() > 0) {
+            this.signal(this.notEmpty);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the element applying the overflow policy when the queue is full
+     *
+     * @param element the element to insert
+     * @return false if the element was rejected or there was no space within the overflow timeout
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public boolean enqueue(E element) throws InterruptedException {
+        if (this.offer(element)) {
+            return true;
+        }
+        switch (this.overflowPolicy) {
+            case BLOCK:
+                return this.awaitSpaceAndOffer(element, this.overflowTimeoutNanos);
+            case SPIN_THEN_PARK: {
+                final long start = System.nanoTime();
+                for (int i = 0; i < SPIN_TRIES; i++) {
+                    Thread.yield();
+                    if (this.offer(element)) {
+                        return true;
+                    }
+                }
+                return this.awaitSpaceAndOffer(element, this.overflowTimeoutNanos - (System.nanoTime() - start));
+            }
+            case REJECT:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Inserts all the elements next to each other like {@link #offerAll(List)}, applying the overflow policy when there
+     * is no space for all of them
+     *
+     * @param elements the elements to insert, no more than the {@link #capacity()}
+     * @return false (inserting none) if they were rejected or there was no space within the overflow timeout
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public boolean enqueueAll(List<? extends E> elements) throws InterruptedException {
+        checkNotNull(elements, "parameter 'elements' is null");
+        checkArgument(elements.size() <= this.items.length, "parameter 'elements' has more elements than the capacity");
+        if (this.offerAll(elements)) {
+            return true;
+        }
+        switch (this.overflowPolicy) {
+            case BLOCK:
+                return this.awaitSpaceAndOfferAll(elements, this.overflowTimeoutNanos);
+            case SPIN_THEN_PARK: {
+                final long start = System.nanoTime();
+                for (int i = 0; i < SPIN_TRIES; i++) {
+                    Thread.yield();
+                    if (this.offerAll(elements)) {
+                        return true;
+                    }
+                }
+                return this.awaitSpaceAndOfferAll(elements, this.overflowTimeoutNanos - (System.nanoTime() - start));
+            }
+            case REJECT:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Removes the oldest element, never waits
+     *
+     * @return the removed element or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = this.head.get();
+        int index;
+        while (true) {
+            index = (int) (position & this.mask);
+            final long difference = this.sequences.get(index) - (position + 1L);
+            if (difference == 0L) {
+                if (this.head.compareAndSet(position, position + 1L)) {
+                    break;
+                }
+                position = this.head.get();
+            } else if (difference < 0L) {
+                return null;
+            } else {
+                position = this.head.get();
+            }
+        }
+        final E element = (E) this.items[index];
+        this.items[index] = null;
+        this.sequences.set(index, position + this.items.length);
+
+        if (this.waitingProducers.get() > 0) {
+            this.signalAll(this.notFull);
+        }
+        return element;
+    }
+
+    /**
+     * Removes the oldest element, waiting up to the provided timeout for one to arrive
+     *
+     * @return the removed element or null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = this.poll();
+        if (element != null) {
+            return element;
+        }
+        long remaining = unit.toNanos(timeout);
+        if (remaining <= 0L) {
+            return null;
+        }
+        this.lock.lockInterruptibly();
+        try {
+            this.waitingConsumers.incrementAndGet();
+            try {
+                while ((element = this.poll()) == null) {
+                    if (remaining <= 0L) {
+                        return null;
+                    }
+                    remaining = this.notEmpty.awaitNanos(remaining);
+                }
+                return element;
+            } finally {
+                this.waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to <code>maxElements</code> queued elements into the provided collection
+     *
+     * @return number of removed elements
+     */
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            final E element = this.poll();
+            if (element == null) {
+                break;
+            }
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    private boolean awaitSpaceAndOffer(E element, long timeoutNanos) throws InterruptedException {
+        long remaining = timeoutNanos;
+        this.lock.lockInterruptibly();
+        try {
+            this.waitingProducers.incrementAndGet();
+            try {
+                while (!this.offer(element)) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    remaining = this.notFull.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                this.waitingProducers.decrementAndGet();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean awaitSpaceAndOfferAll(List<? extends E> elements, long timeoutNanos) throws InterruptedException {
+        long remaining = timeoutNanos;
+        this.lock.lockInterruptibly();
+        try {
+            this.waitingProducers.incrementAndGet();
+            try {
+                while (!this.offerAll(elements)) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    remaining = this.notFull.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                this.waitingProducers.decrementAndGet();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void signal(Condition condition) {
+        this.lock.lock();
+        try {
+            condition.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void signalAll(Condition condition) {
+        this.lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
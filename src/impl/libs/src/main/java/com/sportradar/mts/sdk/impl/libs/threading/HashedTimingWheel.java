@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hashed timing wheel: items scheduled for a deadline are kept in the bucket of their tick (deadline rounded up to
+ * <code>tickNanos</code>), so scheduling and cancelling take constant time and {@link #expire(long, Consumer)} only
+ * looks at the buckets of the ticks that elapsed. Items expire at most one tick late. Deadlines further away than
+ * one turn of the wheel wait in their bucket for the later turns. Not thread-safe, the caller synchronizes.
+ *
+ * @param <T> the type of the scheduled items
+ */
+public final class HashedTimingWheel<T> {
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout<T>[] heads;
+    private final Timeout<T>[] tails;
+    private final int mask;
+    private long nextTick;
+    private int size;
+
+    /**
+     * @param tickNanos the duration of a tick, the resolution of the deadlines
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param startNanos the current time ({@link System#nanoTime()} based)
+     */
+    public HashedTimingWheel(long tickNanos, int ticksPerWheel, long startNanos) {
+        checkArgument(tickNanos > 0L, "parameter 'tickNanos' is zero or less");
+        checkArgument(ticksPerWheel > 0 && ticksPerWheel <= (1 << 20), "parameter 'ticksPerWheel' is out of range");
+
+        int buckets = 1;
+        while (buckets < ticksPerWheel) {
+            buckets <<= 1;
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.heads = newBuckets(buckets);
+        this.tails = newBuckets(buckets);
+        this.mask = buckets - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Timeout<T>[] newBuckets(int buckets) {
+        // the array only ever holds timeouts of T
+        return (Timeout<T>[]) new Timeout<?>[buckets];
+    }
+
+    /**
+     * Gets the number of scheduled items (not expired nor cancelled)
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public int getBucketCount() {
+        return this.heads.length;
+    }
+
+    /**
+     * Schedules the item
+     *
+     * @param item the item
+     * @param deadlineNanos when the item expires ({@link System#nanoTime()} based); a past deadline expires on the
+     *                      next {@link #expire(long, Consumer)}
+     * @return the handle to cancel it
+     */
+    public Timeout<T> schedule(T item, long deadlineNanos) {
+        checkNotNull(item, "parameter 'item' is null");
+
+        final long elapsed = deadlineNanos - this.startNanos;
+        // rounded up: an item never expires before its deadline
+        final long deadlineTick = Math.max(this.nextTick, elapsed <= 0L ? 0L : (elapsed + this.tickNanos - 1L) / this.tickNanos);
+        final Timeout<T> timeout = new Timeout<>(this, item, deadlineTick);
+        this.append(timeout);
+        return timeout;
+    }
+
+    /**
+     * Expires the items whose tick elapsed
+     *
+     * @param nowNanos the current time
+     * @param expired gets the expired items, in the order of their ticks (and of their scheduling within a tick)
+     * @return the number of expired items
+     */
+    public int expire(long nowNanos, Consumer<? super T> expired) {
+        final long currentTick = (nowNanos - this.startNanos) / this.tickNanos;
+        if (currentTick < this.nextTick) {
+            return 0;
+        }
+        int count = 0;
+        if (this.size > 0) {
+            // after a long pause every bucket is looked at once
+            final long lastTick = Math.min(currentTick, this.nextTick + this.mask);
+            for (long tick = this.nextTick; tick <= lastTick; tick++) {
+                count += this.expireBucket((int) (tick & this.mask), currentTick, expired);
+            }
+        }
+        this.nextTick = currentTick + 1L;
+        return count;
+    }
+
+    /**
+     * Gets the time until the next tick, when {@link #expire(long, Consumer)} may expire items
+     *
+     * @return the nanoseconds until the next tick, or -1 if there is nothing scheduled
+     */
+    public long nanosUntilNextTick(long nowNanos) {
+        if (this.size == 0) {
+            return -1L;
+        }
+        return Math.max(0L, this.startNanos + this.nextTick * this.tickNanos - nowNanos);
+    }
+
+    private int expireBucket(int bucket, long currentTick, Consumer<? super T> expired) {
+        int count = 0;
+        Timeout<T> timeout = this.heads[bucket];
+        while (timeout != null) {
+            final Timeout<T> next = timeout.next;
+            if (timeout.deadlineTick <= currentTick) {
+                this.remove(timeout);
+                count++;
+                expired.accept(timeout.item);
+            }
+            timeout = next;
+        }
+        return count;
+    }
+
+    private void append(Timeout<T> timeout) {
+        final int bucket = (int) (timeout.deadlineTick & this.mask);
+        timeout.prev = this.tails[bucket];
+        if (timeout.prev == null) {
+            this.heads[bucket] = timeout;
+        } else {
+            timeout.prev.next = timeout;
+        }
+        this.tails[bucket] = timeout;
+        this.size++;
+    }
+
+    private void remove(Timeout<T> timeout) {
+        final int bucket = (int) (timeout.deadlineTick & this.mask);
+        if (timeout.prev == null) {
+            this.heads[bucket] = timeout.next;
+        } else {
+            timeout.prev.next = timeout.next;
+        }
+        if (timeout.next == null) {
+            this.tails[bucket] = timeout.prev;
+        } else {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.wheel = null;
+        this.size--;
+    }
+
+    /**
+     * Handle of a scheduled item
+     *
+     * @param <T> the type of the item
+     */
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineTick;
+        private HashedTimingWheel<T> wheel;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(HashedTimingWheel<T> wheel, T item, long deadlineTick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getItem() {
+            return this.item;
+        }
+
+        /**
+         * Gets whether the item neither expired nor was cancelled yet
+         */
+        public boolean isPending() {
+            return this.wheel != null;
+        }
+
+        /**
+         * Cancels the item (synchronized like the wheel)
+         *
+         * @return false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            final HashedTimingWheel<T> scheduledOn = this.wheel;
+            if (scheduledOn == null) {
+                return false;
+            }
+            scheduledOn.remove(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Executor with a fixed number of stripes, each a thread with its own bounded queue: the tasks with the same key run
+ * on the same stripe, one after the other in the order they were submitted, the tasks with different keys may run in
+ * parallel.
+ */
+public final class StripedExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedExecutor.class);
+    private static final Runnable WAKE_UP = () -> { };
+
+    private final BlockingQueue<Runnable>[] queues;
+    private final Thread[] threads;
+    private volatile boolean shutdown;
+
+    /**
+     * @param namePrefix prefix of the stripe thread names
+     * @param stripeCount number of stripes (threads)
+     * @param queueCapacity max number of tasks waiting on each stripe
+     */
+    public StripedExecutor(String namePrefix, int stripeCount, int queueCapacity) {
+        checkNotNull(namePrefix, "parameter 'namePrefix' is null");
+        checkArgument(stripeCount > 0, "parameter 'stripeCount' is zero or less");
+        checkArgument(queueCapacity > 0, "parameter 'queueCapacity' is zero or less");
+
+        this.queues = newQueues(stripeCount);
+        this.threads = new Thread[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+            this.queues[i] = queue;
+            this.threads[i] = new Thread(() -> this.runStripe(queue), namePrefix + (i + 1));
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BlockingQueue<Runnable>[] newQueues(int stripeCount) {
+        // the array only ever holds queues of runnables
+        return (BlockingQueue<Runnable>[]) new BlockingQueue<?>[stripeCount];
+    }
+
+    public int getStripeCount() {
+        return this.queues.length;
+    }
+
+    /**
+     * Gets the number of tasks waiting on all the stripes (not counting the running ones)
+     */
+    public int getQueuedTaskCount() {
+        int count = 0;
+        for (BlockingQueue<Runnable> queue : this.queues) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    /**
+     * Queues the task on the stripe of the key, waiting while the queue of the stripe is full
+     *
+     * @param key the key of the task; null spreads the task by its own hash
+     * @param task the task
+     * @throws InterruptedException if interrupted while waiting for room on the stripe
+     * @throws IllegalStateException if the executor is shut down
+     */
+    public void execute(Object key, Runnable task) throws InterruptedException {
+        checkNotNull(task, "parameter 'task' is null");
+        checkState(!this.shutdown, "executor is shut down");
+
+        this.queues[this.stripeOf(key == null ? task : key)].put(task);
+    }
+
+    /**
+     * Stops accepting tasks; the queued ones still run
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        for (BlockingQueue<Runnable> queue : this.queues) {
+            queue.offer(WAKE_UP);
+        }
+    }
+
+    /**
+     * Waits for the queued tasks to run after {@link #shutdown()}
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : this.threads) {
+            final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0L) {
+                return !this.isAnyAlive();
+            }
+            thread.join(remainingMillis);
+        }
+        return !this.isAnyAlive();
+    }
+
+    int stripeOf(Object key) {
+        final int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), this.queues.length);
+    }
+
+    private boolean isAnyAlive() {
+        for (Thread thread : this.threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runStripe(BlockingQueue<Runnable> queue) {
+        while (!this.shutdown || !queue.isEmpty()) {
+            final Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("uncaught exception in striped task", e);
+            }
+        }
+    }
+}
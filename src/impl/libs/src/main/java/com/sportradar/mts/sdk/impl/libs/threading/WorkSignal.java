@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Wakes idle worker threads as soon as there is something to do (new work, redelivery, close, broken channel).
+ * A worker reads {@link #current()}, checks for work and, finding none, calls {@link #await(long, long)} with the
+ * value read: it returns at once if a {@link #signal()} happened in between, so no signal is lost. Waiting first
+ * spins (yielding) <code>spinTries</code> times and then parks: 0 uses the least CPU, a few thousand tries give the
+ * lowest wake-up latency. Signalling is a single atomic increment while no thread is parked.
+ */
+public final class WorkSignal {
+
+    private final int spinTries;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger parkedWorkers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition signalled = this.lock.newCondition();
+
+    /**
+     * @param spinTries number of times a waiting worker checks for a signal (yielding) before it parks
+     */
+    public WorkSignal(int spinTries) {
+        checkArgument(spinTries >= 0, "parameter 'spinTries' is less than zero");
+
+        this.spinTries = spinTries;
+    }
+
+    public int getSpinTries() {
+        return this.spinTries;
+    }
+
+    /**
+     * Gets the current signal sequence, to be passed to {@link #await(long, long)}
+     *
+     * @return the signal sequence
+     */
+    public long current() {
+        return this.sequence.get();
+    }
+
+    /**
+     * Wakes all waiting workers
+     */
+    public void signal() {
+        this.sequence.incrementAndGet();
+        if (this.parkedWorkers.get() > 0) {
+            this.lock.lock();
+            try {
+                this.signalled.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until the signal sequence moves past <code>observed</code>
+     *
+     * @param observed the value of {@link #current()} read before checking for work
+     * @param timeoutNanos max time to wait
+     * @return false if there was no signal within the timeout
+     * @throws InterruptedException if interrupted while parked
+     */
+    public boolean await(long observed, long timeoutNanos) throws InterruptedException {
+        for (int i = 0; i < this.spinTries; i++) {
+            if (this.sequence.get() != observed) {
+                return true;
+            }
+            Thread.yield();
+        }
+        long remaining = timeoutNanos;
+        this.lock.lockInterruptibly();
+        try {
+            this.parkedWorkers.incrementAndGet();
+            try {
+                while (this.sequence.get() == observed) {
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    remaining = this.signalled.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                this.parkedWorkers.decrementAndGet();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Channel;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AckCoalescerTest extends TimeLimitedTestBase {
+
+    private static final long LINGER = 1000L;
+
+    private Channel channel;
+    private AckCoalescer acks;
+
+    @Before
+    public void setUp() {
+        channel = mock(Channel.class);
+        acks = new AckCoalescer(channel, 4, LINGER);
+    }
+
+    @Test
+    public void contiguousBatch_AckedWithOneFrameTest() throws IOException {
+        deliverAll(1, 4);
+
+        for (long tag = 1; tag <= 4; tag++) {
+            acks.ack(tag, 0L);
+        }
+
+        verify(channel).basicAck(4L, true);
+        verifyNoMoreInteractions(channel);
+        assertThat(acks.getAckFrames(), is(1L));
+        assertThat(acks.getWaitingCount(), is(0));
+    }
+
+    @Test
+    public void outstandingDelivery_StopsTheRangeTest() throws IOException {
+        deliverAll(1, 6);
+
+        // 1 is still being consumed
+        for (long tag = 2; tag <= 5; tag++) {
+            acks.ack(tag, 0L);
+        }
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        acks.ack(1L, 0L);
+        verify(channel).basicAck(5L, true);
+        assertThat(acks.getWaitingCount(), is(0));
+    }
+
+    @Test
+    public void nackedDelivery_SkippedByTheRangeTest() throws IOException {
+        deliverAll(1, 5);
+
+        acks.ack(1L, 0L);
+        acks.nacked(2L);
+        for (long tag = 3; tag <= 5; tag++) {
+            acks.ack(tag, 0L);
+        }
+
+        // a nacked delivery is requeued by the broker, a multiple ack no longer covers it
+        verify(channel).basicAck(5L, true);
+        assertThat(acks.getWaitingCount(), is(0));
+    }
+
+    @Test
+    public void lingerElapsed_AcksBehindOutstandingDeliverySentOneByOneTest() throws IOException {
+        deliverAll(1, 4);
+
+        acks.ack(1L, 0L);
+        acks.ack(3L, 10L);
+        // 2 is queued for a local retry
+        assertThat(acks.nanosUntilDue(10L), is(LINGER - 10L));
+        acks.flushIfDue(LINGER - 1L);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        acks.flushIfDue(LINGER);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(1L, false);
+        inOrder.verify(channel).basicAck(3L, false);
+        assertThat(acks.getWaitingCount(), is(0));
+        assertThat(acks.nanosUntilDue(LINGER), is(-1L));
+
+        // once retried, 2 can no longer be covered by a multiple ack of a later delivery
+        acks.ack(2L, LINGER);
+        acks.ack(4L, LINGER);
+        acks.flush(LINGER);
+        verify(channel).basicAck(4L, true);
+    }
+
+    @Test
+    public void manyOutstandingDeliveries_TrackedBeyondInitialCapacityTest() throws IOException {
+        acks = new AckCoalescer(channel, 1000, LINGER);
+        deliverAll(1, 500);
+
+        for (long tag = 500; tag >= 1; tag--) {
+            acks.ack(tag, 0L);
+        }
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        acks.flush(0L);
+        verify(channel).basicAck(500L, true);
+        verifyNoMoreInteractions(channel);
+    }
+
+    @Test
+    public void batchSizeOne_AckedRightAwayTest() throws IOException {
+        acks = new AckCoalescer(channel, 1, LINGER);
+        deliverAll(1, 2);
+
+        acks.ack(2L, 0L);
+        acks.ack(1L, 0L);
+
+        InOrder inOrder = inOrder(channel);
+        inOrder.verify(channel).basicAck(2L, false);
+        inOrder.verify(channel).basicAck(1L, false);
+        assertThat(acks.getWaitingCount(), is(0));
+    }
+
+    @Test
+    public void invalidBatchSizeTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new AckCoalescer(channel, 0, LINGER);
+    }
+
+    private void deliverAll(long first, long last) {
+        for (long tag = first; tag <= last; tag++) {
+            acks.delivered(tag);
+        }
+    }
+}
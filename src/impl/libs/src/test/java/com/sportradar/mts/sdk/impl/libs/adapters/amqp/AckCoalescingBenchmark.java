@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ack frames sent per consumed response by a {@link RabbitMqConsumer} with dispatch threads, acking
+ * every response on its own against coalescing the acks, with the {@link LocalBrokerStandIn}. Not part of the unit
+ * tests; run the main method (optionally with <code>messages dispatchThreads</code> arguments).
+ */
+public final class AckCoalescingBenchmark {
+
+    private static final AmqpCluster CLUSTER = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+    private static final int PREFETCH_COUNT = 64;
+
+    private AckCoalescingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int dispatchThreads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        // warm-up
+        run(messages / 5, dispatchThreads, 1);
+        run(messages / 5, dispatchThreads, 32);
+
+        for (int ackBatchSize : new int[] {1, 8, 32, PREFETCH_COUNT}) {
+            System.out.println(String.format("ack batch size %3d: %s", ackBatchSize, run(messages, dispatchThreads, ackBatchSize)));
+        }
+        System.exit(0);
+    }
+
+    private static String run(int messages, int dispatchThreads, int ackBatchSize) throws Exception {
+        try (LocalBrokerStandIn broker = new LocalBrokerStandIn(0L, TimeUnit.MILLISECONDS.toNanos(1))) {
+            final CountingReceiver receiver = new CountingReceiver(messages);
+            final RabbitMqConsumer consumer = new RabbitMqConsumer(broker,
+                    "benchmark",
+                    "benchmark-consumer",
+                    CLUSTER,
+                    "benchmark-exchange",
+                    ExchangeType.TOPIC,
+                    "benchmark-queue",
+                    1,
+                    PREFETCH_COUNT,
+                    1,
+                    false,
+                    false,
+                    dispatchThreads,
+                    ackBatchSize,
+                    5);
+            consumer.setMessageReceivedHandler(receiver);
+            consumer.open();
+            try {
+                while (broker.getConsumerCount() == 0) {
+                    Thread.sleep(1L);
+                }
+                final long start = System.nanoTime();
+                for (int i = 0; i < messages; i++) {
+                    // the broker keeps at most PREFETCH_COUNT deliveries unacked
+                    while (i - broker.getAckedDeliveries() >= PREFETCH_COUNT) {
+                        Thread.yield();
+                    }
+                    final AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder().correlationId("corr-" + i).build();
+                    broker.deliver("benchmark", properties, ("ticket-" + (i % 64)).getBytes());
+                }
+                if (!receiver.consumed.await(5, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("not all messages consumed");
+                }
+                while (broker.getAckedDeliveries() < messages) {
+                    Thread.sleep(1L);
+                }
+                final long elapsed = System.nanoTime() - start;
+                return String.format("%7d ack frames, %.3f frames/response, %8.0f responses/s",
+                                     broker.getAckFrames(),
+                                     broker.getAckFrames() / (double) messages,
+                                     messages / (elapsed / 1e9));
+            } finally {
+                consumer.close();
+            }
+        }
+    }
+
+    private static final class CountingReceiver implements AmqpMessageReceiver {
+
+        private final CountDownLatch consumed;
+
+        private CountingReceiver(int messages) {
+            this.consumed = new CountDownLatch(messages);
+        }
+
+        @Override
+        public MessageStatus consume(byte[] msg, String routingKey, String correlationId, Map<String, Object> messageHeaders) {
+            this.consumed.countDown();
+            return MessageStatus.CONSUMED_SUCCESSFULLY;
+        }
+
+        @Override
+        public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+            return new String(msg);
+        }
+
+        @Override
+        public void afterLimitReached(byte[] msg, String routingKey, String correlationId) {
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
@@ -4,16 +4,31 @@
 
 package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
 
+import com.rabbitmq.client.MessageProperties;
+import com.rabbitmq.client.ReturnListener;
 import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
 import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -54,7 +69,7 @@ public class AmqpPublisherImplTest extends TimeLimitedTestBase {
         RuntimeException error = new RuntimeException(errorMsg);
         thrown.expect(error.getClass());
         thrown.expectMessage(errorMsg);
-        when(sender.sendAsync(correlationId, msg, routingKey, messageHeaders)).thenThrow(error);
+        when(sender.sendOrderedAsync(ticketId, correlationId, msg, routingKey, messageHeaders)).thenThrow(error);
 
         publisher.open();
         publisher.publishAsync(ticketId, msg, correlationId, routingKey, routingKey);
@@ -77,14 +92,85 @@ public class AmqpPublisherImplTest extends TimeLimitedTestBase {
         HashMap<String, Object> messageHeaders = new HashMap<>();
         messageHeaders.put("replyRoutingKey", routingKey);
 
-        when(sender.sendAsync(correlationId, msg, routingKey, messageHeaders)).thenReturn(result);
+        when(sender.sendOrderedAsync(ticketId, correlationId, msg, routingKey, messageHeaders)).thenReturn(result);
 
         publisher.open();
         publisher.publishAsync(ticketId, msg, correlationId, routingKey, routingKey);
-        verify(sender, times(1)).sendAsync(correlationId, msg, routingKey, messageHeaders);
+        verify(sender, times(1)).sendOrderedAsync(ticketId, correlationId, msg, routingKey, messageHeaders);
         verify(resender, times(1)).handleSendResult(result);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void publishAsync_SharesReplyHeadersTest() {
+        ArgumentCaptor<Map> headers = ArgumentCaptor.forClass(Map.class);
+
+        publisher.open();
+        publisher.publishAsync(ticketId, msg, correlationId, routingKey, "node1.ticket.confirm");
+        publisher.publishAsync("ticket-002", msg, "correlationId-2", routingKey, "node1.ticket.confirm");
+        verify(sender, times(2)).sendOrderedAsync(anyString(), anyString(), eq(msg), eq(routingKey), headers.capture());
+
+        List<Map> sent = headers.getAllValues();
+        assertThat(sent.get(1), sameInstance(sent.get(0)));
+        assertThat(sent.get(0).get("replyRoutingKey"), is((Object) "node1.ticket.confirm"));
+
+        thrown.expect(UnsupportedOperationException.class);
+        sent.get(0).put("replyRoutingKey", "changed");
+    }
+
+    /**
+     * Allocation regression test for the ticket publish path: publisher, shared headers and message properties
+     */
+    @Test
+    public void publishAsync_AllocationPerTicketTest() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        PropertiesBuildingProducer producer = new PropertiesBuildingProducer(mock(AmqpSendResult.class));
+        publisher = new AmqpPublisherImpl(producer, new NoOpSendResultHandler(), new ConnectionStatusImpl());
+        publisher.open();
+        byte[] content = "ticket".getBytes();
+        String[] ticketIds = new String[1024];
+        for (int i = 0; i < ticketIds.length; i++) {
+            ticketIds[i] = "ticket-" + i;
+        }
+
+        for (int i = 0; i < 50_000; i++) {
+            publisher.publishAsync(ticketIds[i & 1023], content, ticketIds[i & 1023], routingKey, "node1.ticket.confirm");
+        }
+        final int tickets = 100_000;
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < tickets; i++) {
+            publisher.publishAsync(ticketIds[i & 1023], content, ticketIds[i & 1023], routingKey, "node1.ticket.confirm");
+        }
+        long bytesPerTicket = (threadBean.getThreadAllocatedBytes(threadId) - before) / tickets;
+
+        // one BasicProperties per message and the connection status bookkeeping, no header maps or builders
+        assertThat(bytesPerTicket, lessThan(160L));
+        assertThat(producer.lastCorrelationId, is(ticketIds[(tickets - 1) & 1023]));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void publishBatchAsync_OneProducerCallTest() {
+        AmqpSendResult first = mock(AmqpSendResult.class);
+        AmqpSendResult second = mock(AmqpSendResult.class);
+        List<AmqpOutgoingMessage> messages = Arrays.asList(
+                new AmqpOutgoingMessage(ticketId, correlationId, "a".getBytes(), routingKey),
+                new AmqpOutgoingMessage("ticket-002", "correlationId-2", "b".getBytes(), routingKey));
+        when(sender.sendOrderedBatchAsync(eq(messages), any(Map.class))).thenReturn(Arrays.asList(first, second));
+
+        publisher.open();
+        publisher.publishBatchAsync(messages, "node1.ticket.confirm");
+
+        verify(sender, times(1)).sendOrderedBatchAsync(eq(messages), any(Map.class));
+        verify(sender, never()).sendOrderedAsync(anyString(), anyString(), any(byte[].class), anyString(), any(Map.class));
+        verify(resender, times(1)).handleSendResult(first);
+        verify(resender, times(1)).handleSendResult(second);
+    }
+
     @Test
     public void openTest() {
         publisher.open();
@@ -140,4 +226,83 @@ public class AmqpPublisherImplTest extends TimeLimitedTestBase {
         verify(resender, times(1)).close();
         assertThat(publisher.isOpen(), is(false));
     }
+
+    private static final class NoOpSendResultHandler implements AmqpSendResultHandler {
+
+        @Override
+        public void handleSendResult(AmqpSendResult sendResult) {
+        }
+
+        @Override
+        public void setPublishResultListener(AmqpPublishResultListener listener) {
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+
+    /**
+     * Producer building the message properties on the sending thread, the way the publishing thread does
+     */
+    private static final class PropertiesBuildingProducer implements AmqpProducer {
+
+        private final BasicPropertiesCache propertiesCache = new BasicPropertiesCache(MessageProperties.BASIC);
+        private final AmqpSendResult result;
+        private String lastCorrelationId;
+
+        PropertiesBuildingProducer(AmqpSendResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public AmqpSendResult sendAsync(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders) {
+            this.lastCorrelationId = this.propertiesCache.get(messageHeaders, correlationId).getCorrelationId();
+            return this.result;
+        }
+
+        @Override
+        public boolean sendAsync(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders, Consumer<AmqpSendResult> doneCallback) {
+            return !sendAsync(correlationId, msg, routingKey, messageHeaders).isRejected();
+        }
+
+        @Override
+        public boolean send(String correlationId, byte[] msg, String routingKey, Map<String, Object> messageHeaders) {
+            return !sendAsync(correlationId, msg, routingKey, messageHeaders).isRejected();
+        }
+
+        @Override
+        public void setReturnListener(ReturnListener returnListener) {
+        }
+
+        @Override
+        public void setOutbox(TicketOutbox outbox) {
+        }
+
+        @Override
+        public void setPublisherLoop(SharedPublisherLoop publisherLoop) {
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
 }
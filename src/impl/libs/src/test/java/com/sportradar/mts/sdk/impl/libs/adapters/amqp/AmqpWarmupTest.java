@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.exceptions.MtsSdkProcessException;
+import com.sportradar.mts.sdk.api.interfaces.WarmupReport;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class AmqpWarmupTest extends TimeLimitedTestBase {
+
+    private LocalBrokerStandIn broker;
+    private AmqpCluster mqCluster;
+    private AmqpWarmup warmup;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(0L, TimeUnit.MICROSECONDS.toNanos(200));
+        broker.registerInstance();
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (warmup != null) {
+            warmup.close();
+        }
+        broker.unregisterInstance();
+        broker.close();
+    }
+
+    @Test
+    public void warmup_TopologyDeclaredAndProducersOpenedTest() throws Exception {
+        AmqpProducer producer1 = mock(AmqpProducer.class);
+        AmqpProducer producer2 = mock(AmqpProducer.class);
+        AmqpConsumer consumer = mock(AmqpConsumer.class);
+        warmup = new AmqpWarmup(broker, mqCluster, Arrays.asList(producer1, producer2), Collections.singletonList(consumer));
+
+        warmup.start();
+        WarmupReport report = warmup.getReadiness().get();
+
+        assertThat(report.getTotalMillis() >= 0L, is(true));
+        assertThat(broker.getCreatedChannels() >= 1L, is(true));
+        verify(producer1).declareTopology();
+        verify(producer2).declareTopology();
+        verify(consumer).declareTopology();
+        verify(producer1).open();
+        verify(producer2).open();
+        // responses received before the listener is set would be lost, consumers are opened by their senders
+        verify(consumer, never()).open();
+    }
+
+    @Test
+    public void sharedProducer_WarmedUpOnceTest() throws Exception {
+        AmqpProducer producer = mock(AmqpProducer.class);
+        warmup = new AmqpWarmup(broker, mqCluster, Arrays.asList(producer, producer), Collections.emptyList());
+
+        warmup.start();
+        warmup.getReadiness().get();
+
+        verify(producer, times(1)).declareTopology();
+        verify(producer, times(1)).open();
+    }
+
+    @Test
+    public void topologyFailed_ReadinessFailedTest() throws Exception {
+        AmqpProducer producer = mock(AmqpProducer.class);
+        AmqpConsumer consumer = mock(AmqpConsumer.class);
+        doThrow(new MtsSdkProcessException("access refused")).when(consumer).declareTopology();
+        warmup = new AmqpWarmup(broker, mqCluster, Collections.singletonList(producer), Collections.singletonList(consumer));
+
+        warmup.start();
+        try {
+            warmup.getReadiness().get();
+            throw new AssertionError("readiness completed");
+        } catch (ExecutionException exc) {
+            assertThat(exc.getCause(), instanceOf(MtsSdkProcessException.class));
+        }
+
+        verify(producer, never()).open();
+    }
+
+    @Test
+    public void close_OnlyProducersOpenedByWarmupClosedTest() throws Exception {
+        AmqpProducer alreadyOpen = mock(AmqpProducer.class);
+        when(alreadyOpen.isOpen()).thenReturn(true);
+        AmqpProducer warmedUp = mock(AmqpProducer.class);
+        warmup = new AmqpWarmup(broker, mqCluster, Arrays.asList(alreadyOpen, warmedUp), Collections.emptyList());
+        warmup.start();
+        warmup.getReadiness().get();
+
+        warmup.close();
+
+        verify(alreadyOpen, never()).open();
+        verify(alreadyOpen, never()).close();
+        verify(warmedUp).close();
+    }
+
+    @Test
+    public void closeBeforeStart_ReadinessFailedTest() throws Exception {
+        AmqpProducer producer = mock(AmqpProducer.class);
+        warmup = new AmqpWarmup(broker, mqCluster, Collections.singletonList(producer), Collections.emptyList());
+
+        warmup.close();
+        warmup.start();
+
+        assertThat(warmup.getReadiness().isCompletedExceptionally(), is(true));
+        verify(producer, never()).declareTopology();
+    }
+
+    @Test
+    public void consumerTopology_QueueDeclaredOnBrokerTest() throws Exception {
+        RabbitMqConsumer consumer = new RabbitMqConsumer(broker,
+                                                         "node1.ticket.confirm",
+                                                         "test-consumer",
+                                                         mqCluster,
+                                                         "test-Confirm",
+                                                         ExchangeType.TOPIC,
+                                                         "test-Confirm-node1",
+                                                         1,
+                                                         16,
+                                                         1,
+                                                         false,
+                                                         false,
+                                                         1,
+                                                         1,
+                                                         5);
+        warmup = new AmqpWarmup(broker, mqCluster, Collections.emptyList(), Collections.singletonList(consumer));
+
+        warmup.start();
+        warmup.getReadiness().get();
+
+        assertThat(broker.getDeclaredExchanges(), is(Collections.singletonList("test-Confirm")));
+        assertThat(broker.getDeclaredQueues(), is(Collections.singletonList("test-Confirm-node1")));
+        assertThat(consumer.isOpen(), is(false));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.MessageProperties;
+import com.rabbitmq.client.impl.ContentHeaderPropertyWriter;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BasicPropertiesCacheTest extends TimeLimitedTestBase {
+
+    private BasicPropertiesCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new BasicPropertiesCache(MessageProperties.PERSISTENT_BASIC);
+    }
+
+    @Test
+    public void noHeadersNoCorrelationId_BasePropertiesTest() {
+        assertThat(cache.get(Collections.emptyMap(), null), sameInstance(MessageProperties.PERSISTENT_BASIC));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void correlationIdAddedToTemplateTest() {
+        AMQP.BasicProperties properties = cache.get(replyHeaders("node1.ticket.confirm"), "corr-1");
+
+        assertThat(properties.getCorrelationId(), is("corr-1"));
+        assertThat(properties.getDeliveryMode(), is(MessageProperties.PERSISTENT_BASIC.getDeliveryMode()));
+        assertThat(properties.getContentType(), is(MessageProperties.PERSISTENT_BASIC.getContentType()));
+        assertThat(properties.getHeaders().get("replyRoutingKey"), is((Object) "node1.ticket.confirm"));
+    }
+
+    @Test
+    public void equalHeaders_ShareTemplateTest() {
+        AMQP.BasicProperties first = cache.get(replyHeaders("node1.ticket.confirm"), "corr-1");
+        AMQP.BasicProperties second = cache.get(replyHeaders("node1.ticket.confirm"), "corr-2");
+        AMQP.BasicProperties other = cache.get(replyHeaders("node2.ticket.confirm"), "corr-3");
+
+        assertThat(second.getHeaders(), sameInstance(first.getHeaders()));
+        assertThat(second.getCorrelationId(), is("corr-2"));
+        assertThat(other.getHeaders().get("replyRoutingKey"), is((Object) "node2.ticket.confirm"));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void correlatedProperties_SameWireFormatTest() throws IOException {
+        AMQP.BasicProperties properties = cache.get(replyHeaders("node1.ticket.confirm"), "corr-1");
+        AMQP.BasicProperties expected = MessageProperties.PERSISTENT_BASIC.builder()
+                .headers(replyHeaders("node1.ticket.confirm"))
+                .correlationId("corr-1")
+                .build();
+
+        assertThat(toBytes(properties), is(toBytes(expected)));
+        assertThat(properties.builder().build().getCorrelationId(), is("corr-1"));
+    }
+
+    @Test
+    public void callerChangesHeaders_TemplateUnchangedTest() {
+        Map<String, Object> headers = replyHeaders("node1.ticket.confirm");
+        cache.get(headers, null);
+
+        headers.put("replyRoutingKey", "changed");
+
+        AMQP.BasicProperties properties = cache.get(replyHeaders("node1.ticket.confirm"), null);
+        assertThat(properties.getHeaders().get("replyRoutingKey"), is((Object) "node1.ticket.confirm"));
+        assertThat(properties.getCorrelationId(), is(nullValue()));
+    }
+
+    private static byte[] toBytes(AMQP.BasicProperties properties) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        properties.writePropertiesTo(new ContentHeaderPropertyWriter(data));
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private static Map<String, Object> replyHeaders(String replyRoutingKey) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("replyRoutingKey", replyRoutingKey);
+        return headers;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CallbackSendResultHandlerTest extends TimeLimitedTestBase {
+
+    private AmqpSendResult result;
+    private AmqpPublishResultListener listener;
+    private CallbackSendResultHandler handler;
+
+    @Before
+    public void setUp() {
+        result = mock(AmqpSendResult.class);
+        listener = mock(AmqpPublishResultListener.class);
+        handler = new CallbackSendResultHandler();
+        handler.setPublishResultListener(listener);
+        handler.open();
+        when(result.getCorrelationId()).thenReturn("correlationId");
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(result).whenDone(any(Runnable.class));
+    }
+
+    @Test
+    public void confirmedResult_PublishSuccessTest() {
+        when(result.isRejected()).thenReturn(false);
+
+        handler.handleSendResult(result);
+
+        verify(listener).publishSuccess("correlationId");
+        verify(listener, never()).publishFailure(anyString());
+    }
+
+    @Test
+    public void rejectedResult_PublishFailureTest() {
+        when(result.isRejected()).thenReturn(true);
+
+        handler.handleSendResult(result);
+
+        verify(listener).publishFailure("correlationId");
+        verify(listener, never()).publishSuccess(anyString());
+    }
+
+    @Test
+    public void notDoneResult_ListenerNotNotifiedTest() throws Exception {
+        AmqpSendResult pending = mock(AmqpSendResult.class);
+
+        handler.handleSendResult(pending);
+
+        verify(pending).whenDone(any(Runnable.class));
+        verify(listener, never()).publishSuccess(anyString());
+        verify(listener, never()).publishFailure(anyString());
+    }
+
+    @Test
+    public void failedResult_ListenerNotNotifiedTest() throws Exception {
+        when(result.get()).thenThrow(ExecutionException.class);
+
+        handler.handleSendResult(result);
+
+        verify(listener, never()).publishSuccess(anyString());
+        verify(listener, never()).publishFailure(anyString());
+    }
+}
@@ -78,6 +78,24 @@ public class ChannelFactoryProviderImplTest extends TimeLimitedTestBase {
         assertNotNull(channelFactory);
     }
 
+    @Test
+    public void lastInstanceUnregistered_ConnectionsClosedTest() throws Exception {
+        try (LocalAmqpEndpoint endpoint = new LocalAmqpEndpoint()) {
+            channelFactoryProvider.registerInstance();
+            channelFactoryProvider.registerInstance();
+            ChannelFactory channelFactory = channelFactoryProvider.getChannelFactory(endpoint.getCluster());
+            // released, the connection stays open (with its spare channels) for the next channel
+            channelFactory.getChannel().close();
+            assertEquals(1, channelFactory.getConnectionCount());
+
+            channelFactoryProvider.unregisterInstance();
+            assertEquals(1, channelFactory.getConnectionCount());
+
+            channelFactoryProvider.unregisterInstance();
+            assertEquals(0, channelFactory.getConnectionCount());
+        }
+    }
+
     @Test
     public void getChannelFactory_NullTest() {
         thrown.expect(NullPointerException.class);
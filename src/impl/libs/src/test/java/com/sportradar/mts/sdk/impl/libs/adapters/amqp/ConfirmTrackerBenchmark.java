@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Compares the allocation rate and throughput of the {@link ConfirmTracker} ring with the previous
+ * <code>ConcurrentSkipListMap</code> based confirm tracking. A publisher thread tracks messages while an acker thread
+ * settles them with multiple=true acks every <code>ackEvery</code> messages, like the broker does under load.
+ * Not part of the unit tests; run the main method (optionally with <code>messages ackEvery</code> arguments).
+ * Allocated bytes are taken from the HotSpot thread allocation counters.
+ */
+public final class ConfirmTrackerBenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    private ConfirmTrackerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final int ackEvery = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        for (int i = 0; i < 3; i++) {
+            run(new SkipListTracking(), messages / 5, ackEvery);
+            run(new RingTracking(), messages / 5, ackEvery);
+        }
+        System.out.println(run(new SkipListTracking(), messages, ackEvery));
+        System.out.println(run(new RingTracking(), messages, ackEvery));
+    }
+
+    private static String run(Tracking tracking, int messages, int ackEvery) throws InterruptedException {
+        final AtomicLong published = new AtomicLong();
+        final AtomicLong settled = new AtomicLong();
+        final long[] allocated = new long[2];
+        final Consumer<Object> onConfirmed = m -> settled.incrementAndGet();
+
+        final Thread publisher = new Thread(() -> {
+            final long before = allocatedBytes();
+            for (long tag = 1; tag <= messages; tag++) {
+                tracking.track(tag, MESSAGE);
+                published.lazySet(tag);
+            }
+            allocated[0] = allocatedBytes() - before;
+        }, "benchmark-publisher");
+        final Thread acker = new Thread(() -> {
+            final long before = allocatedBytes();
+            long acked = 0;
+            while (acked < messages) {
+                final long available = published.get();
+                if (available - acked >= ackEvery || (available == messages && available > acked)) {
+                    tracking.settle(available, available - acked > 1, onConfirmed);
+                    acked = available;
+                }
+            }
+            allocated[1] = allocatedBytes() - before;
+        }, "benchmark-acker");
+
+        final long start = System.nanoTime();
+        publisher.start();
+        acker.start();
+        publisher.join();
+        acker.join();
+        final long elapsed = System.nanoTime() - start;
+
+        if (settled.get() != messages) {
+            throw new IllegalStateException("settled " + settled.get() + " of " + messages);
+        }
+        return String.format("%-10s %,12.0f msg/s, %8.1f bytes allocated/msg (publisher %,d B, acker %,d B)",
+                tracking.name(),
+                messages / (elapsed / 1e9),
+                (double) (allocated[0] + allocated[1]) / messages,
+                allocated[0],
+                allocated[1]);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Tracking {
+        String name();
+
+        void track(long tag, Object message);
+
+        void settle(long tag, boolean multiple, Consumer<Object> onConfirmed);
+    }
+
+    /**
+     * The confirm tracking RabbitMqProducer used before the ring
+     */
+    private static final class SkipListTracking implements Tracking {
+
+        private final ConcurrentSkipListMap<Long, Object> msgWaitingForConfirm = new ConcurrentSkipListMap<>();
+
+        @Override
+        public String name() {
+            return "skip-list";
+        }
+
+        @Override
+        public void track(long tag, Object message) {
+            this.msgWaitingForConfirm.put(tag, message);
+        }
+
+        @Override
+        public void settle(long tag, boolean multiple, Consumer<Object> onConfirmed) {
+            if (multiple) {
+                Map<Long, Object> confirmed = new HashMap<>(this.msgWaitingForConfirm.headMap(tag, true));
+                for (Map.Entry<Long, Object> entry : confirmed.entrySet()) {
+                    onConfirmed.accept(entry.getValue());
+                    this.msgWaitingForConfirm.remove(entry.getKey());
+                }
+            } else {
+                onConfirmed.accept(this.msgWaitingForConfirm.remove(tag));
+            }
+        }
+    }
+
+    private static final class RingTracking implements Tracking {
+
+        private final ConfirmTracker<Object> tracker = new ConfirmTracker<>(1024);
+
+        @Override
+        public String name() {
+            return "ring";
+        }
+
+        @Override
+        public void track(long tag, Object message) {
+            try {
+                while (!this.tracker.track(tag, message, TimeUnit.SECONDS.toNanos(1))) {
+                    // wait for the acker
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void settle(long tag, boolean multiple, Consumer<Object> onConfirmed) {
+            this.tracker.settle(tag, multiple, onConfirmed);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConfirmTrackerTest extends TimeLimitedTestBase {
+
+    private ConfirmTracker<String> tracker;
+    private List<String> settled;
+
+    @Before
+    public void setUp() {
+        tracker = new ConfirmTracker<>(4);
+        settled = new ArrayList<>();
+    }
+
+    @Test
+    public void capacityRoundedToPowerOfTwoTest() {
+        assertThat(new ConfirmTracker<String>(5).capacity(), is(8));
+        assertThat(new ConfirmTracker<String>(1).capacity(), is(1));
+    }
+
+    @Test
+    public void multipleAckSettlesRangeTest() throws InterruptedException {
+        trackAll(1, "a", "b", "c");
+
+        assertThat(tracker.settle(2, true, settled::add), is(2));
+        assertThat(settled, is(Arrays.asList("a", "b")));
+        assertThat(tracker.size(), is(1));
+
+        assertThat(tracker.settle(3, true, settled::add), is(1));
+        assertThat(tracker.size(), is(0));
+    }
+
+    @Test
+    public void singleAckOutOfOrderTest() throws InterruptedException {
+        trackAll(1, "a", "b", "c");
+
+        assertThat(tracker.settle(2, false, settled::add), is(1));
+        assertThat(tracker.settle(2, false, settled::add), is(0));
+        assertThat(tracker.settle(3, true, settled::add), is(2));
+        assertThat(settled, is(Arrays.asList("b", "a", "c")));
+    }
+
+    @Test
+    public void unknownTagIgnoredTest() throws InterruptedException {
+        trackAll(10, "a");
+
+        assertThat(tracker.settle(9, false, settled::add), is(0));
+        assertThat(tracker.settle(11, false, settled::add), is(0));
+        assertThat(tracker.size(), is(1));
+    }
+
+    @Test
+    public void fullRingTimesOutTest() throws InterruptedException {
+        trackAll(1, "a", "b", "c", "d");
+
+        assertThat(tracker.track(5, "e", TimeUnit.MILLISECONDS.toNanos(10)), is(false));
+
+        tracker.settle(1, false, settled::add);
+        assertThat(tracker.track(5, "e", 0L), is(true));
+        assertThat(tracker.size(), is(4));
+    }
+
+    @Test
+    public void fullRingWaitsForConfirmTest() throws InterruptedException {
+        trackAll(1, "a", "b", "c", "d");
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean tracked = new AtomicBoolean();
+        Thread publisher = new Thread(() -> {
+            try {
+                started.countDown();
+                tracked.set(tracker.track(5, "e", TimeUnit.SECONDS.toNanos(30)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+        started.await();
+
+        tracker.settle(2, true, settled::add);
+        publisher.join();
+
+        assertThat(tracked.get(), is(true));
+        assertThat(tracker.size(), is(3));
+    }
+
+    @Test
+    public void drainRemovesAllTest() throws InterruptedException {
+        trackAll(1, "a", "b", "c");
+        tracker.settle(2, false, settled::add);
+
+        assertThat(tracker.drain(settled::add), is(2));
+        assertThat(settled, is(Arrays.asList("b", "a", "c")));
+        assertThat(tracker.size(), is(0));
+        assertThat(tracker.settle(3, true, settled::add), is(0));
+    }
+
+    @Test
+    public void decreasingTagTest() throws InterruptedException {
+        trackAll(5, "a");
+        thrown.expect(IllegalArgumentException.class);
+        tracker.track(5, "b", 0L);
+    }
+
+    private void trackAll(long firstTag, String... items) throws InterruptedException {
+        long tag = firstTag;
+        for (String item : items) {
+            assertThat(tracker.track(tag++, item, 0L), is(true));
+        }
+    }
+}
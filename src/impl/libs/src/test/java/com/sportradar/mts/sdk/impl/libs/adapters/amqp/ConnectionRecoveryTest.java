@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConnectionRecoveryTest extends TimeLimitedTestBase {
+
+    private ConnectionStatusImpl connectionStatus;
+    private ConnectionRecovery recovery;
+
+    @Before
+    public void setUp() {
+        connectionStatus = new ConnectionStatusImpl();
+        recovery = new ConnectionRecovery(connectionStatus);
+    }
+
+    @Test
+    public void declared_NotDeclaredAgainTest() {
+        String exchange = ConnectionRecovery.exchange("test-exchange");
+        assertThat(recovery.isDeclared(exchange), is(false));
+
+        recovery.declared(exchange, true);
+
+        assertThat(recovery.isDeclared(exchange), is(true));
+        assertThat(recovery.isDeclared(ConnectionRecovery.queue("test-exchange")), is(false));
+    }
+
+    @Test
+    public void connectionLost_OnlyTransientDeclarationsDroppedTest() {
+        String durableQueue = ConnectionRecovery.queue("durable");
+        String exclusiveQueue = ConnectionRecovery.queue("exclusive");
+        recovery.declared(durableQueue, true);
+        recovery.declared(exclusiveQueue, false);
+
+        recovery.connectionLost();
+
+        assertThat(recovery.isDeclared(durableQueue), is(true));
+        assertThat(recovery.isDeclared(exclusiveQueue), is(false));
+    }
+
+    @Test
+    public void invalidateAll_AllDeclaredAgainTest() {
+        String binding = ConnectionRecovery.binding("queue", "exchange", "key");
+        recovery.declared(binding, true);
+
+        recovery.invalidateAll();
+
+        assertThat(recovery.isDeclared(binding), is(false));
+    }
+
+    @Test
+    public void recovered_TimeToRecoverReportedTest() {
+        recovery.recovered("test-consumer", TimeUnit.MILLISECONDS.toNanos(1500L));
+        recovery.recovered("test-producer", TimeUnit.MILLISECONDS.toNanos(20L));
+
+        assertThat(connectionStatus.getTimeToRecoverMillis().get("test-consumer"), is(1500L));
+        assertThat(connectionStatus.getTimeToRecoverMillis().get("test-producer"), is(20L));
+    }
+}
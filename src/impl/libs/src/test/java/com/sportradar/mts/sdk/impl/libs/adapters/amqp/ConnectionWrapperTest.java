@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ConnectionWrapperTest extends TimeLimitedTestBase {
+
+    private ChannelFactoryProviderImpl channelFactoryProvider;
+    private ConnectionFactory connectionFactory;
+    private AmqpCluster mqCluster;
+    private List<Connection> connections;
+    private List<Channel> createdChannels;
+
+    @Before
+    public void setUp() throws Exception {
+        channelFactoryProvider = new ChannelFactoryProviderImpl(1, new ConnectionStatusImpl());
+        channelFactoryProvider.registerInstance();
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("host"), 10);
+        connections = new CopyOnWriteArrayList<>();
+        createdChannels = new CopyOnWriteArrayList<>();
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.newConnection(any(ExecutorService.class), any(AddressResolver.class))).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            when(connection.isOpen()).thenReturn(true);
+            when(connection.createChannel()).thenAnswer(i -> {
+                Channel channel = mock(Channel.class);
+                when(channel.isOpen()).thenReturn(true);
+                createdChannels.add(channel);
+                return channel;
+            });
+            connections.add(connection);
+            return connection;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        channelFactoryProvider.unregisterInstance();
+    }
+
+    @Test
+    public void spareChannelTaken_NoChannelCreatedTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(256, 2);
+
+        wrapper.getChannel();
+        waitForSpares(wrapper, 2);
+        assertThat(createdChannels.size(), is(3));
+        List<Channel> spares = new ArrayList<>(createdChannels.subList(1, 3));
+
+        ChannelWrapper second = wrapper.getChannel();
+        ChannelWrapper third = wrapper.getChannel();
+
+        assertThat(spares.contains(second.getChannel()), is(true));
+        assertThat(spares.contains(third.getChannel()), is(true));
+        assertThat(connections.size(), is(1));
+        // the next spares are opened in the background
+        waitForSpares(wrapper, 2);
+        assertThat(createdChannels.size(), is(5));
+    }
+
+    @Test
+    public void channelLimitReached_NewConnectionOpenedTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(2, 0);
+
+        wrapper.getChannel();
+        wrapper.getChannel();
+        assertThat(connections.size(), is(1));
+
+        ChannelWrapper third = wrapper.getChannel();
+
+        assertThat(connections.size(), is(2));
+        assertThat(wrapper.getConnectionCount(), is(2));
+
+        third.close();
+        // the current connection is kept open while idle
+        assertThat(wrapper.getConnectionCount(), is(2));
+    }
+
+    @Test
+    public void releasedConnectionNotCurrent_ClosedTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(1, 0);
+
+        ChannelWrapper first = wrapper.getChannel();
+        wrapper.getChannel();
+        assertThat(wrapper.getConnectionCount(), is(2));
+
+        first.close();
+
+        assertThat(wrapper.getConnectionCount(), is(1));
+        verify(connections.get(0), times(1)).close();
+        verify(connections.get(1), never()).close();
+    }
+
+    @Test
+    public void closedConnection_ReplacedWithSparesTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(256, 2);
+        ChannelWrapper channel = wrapper.getChannel();
+        waitForSpares(wrapper, 2);
+
+        when(connections.get(0).isOpen()).thenReturn(false);
+        wrapper.checkHealth();
+
+        assertThat(connections.size(), is(2));
+        assertThat(wrapper.getSpareChannelCount(), is(2));
+        List<Channel> spares = new ArrayList<>(createdChannels.subList(3, 5));
+
+        // the owner of the channel on the closed connection reconnects
+        channel.close();
+        ChannelWrapper replacement = wrapper.getChannel();
+
+        assertThat(replacement.getIndex() != channel.getIndex(), is(true));
+        assertThat(spares.contains(replacement.getChannel()), is(true));
+        assertThat(wrapper.getConnectionCount(), is(1));
+    }
+
+    @Test
+    public void concurrentGetAndRelease_SingleConnectionTest() throws Exception {
+        final ConnectionWrapper wrapper = newWrapper(4, 1);
+        final int threads = 4;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2_000; i++) {
+                        wrapper.getChannel().close();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        done.await();
+
+        assertThat(errors.isEmpty(), is(true));
+        // never more than the 4 channels in use: the current connection was never exceeded
+        assertThat(connections.size(), is(1));
+        assertThat(wrapper.getConnectionCount(), is(1));
+    }
+
+    @Test
+    public void close_ConnectionsAndSparesClosedTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(256, 2);
+        wrapper.getChannel().close();
+        waitForSpares(wrapper, 2);
+        assertThat(wrapper.isHealthCheckRunning(), is(true));
+
+        wrapper.close();
+
+        assertThat(wrapper.getConnectionCount(), is(0));
+        assertThat(wrapper.getSpareChannelCount(), is(0));
+        assertThat(wrapper.isHealthCheckRunning(), is(false));
+        verify(connections.get(0), times(1)).close();
+        verify(createdChannels.get(1), times(1)).close();
+        verify(createdChannels.get(2), times(1)).close();
+    }
+
+    @Test
+    public void closedWrapper_NextChannelOpensConnectionTest() throws Exception {
+        ConnectionWrapper wrapper = newWrapper(256, 0);
+        wrapper.getChannel().close();
+        wrapper.close();
+
+        wrapper.getChannel();
+
+        assertThat(connections.size(), is(2));
+        assertThat(wrapper.getConnectionCount(), is(1));
+    }
+
+    @Test
+    public void invalidChannelsPerConnectionTest() {
+        thrown.expect(IllegalArgumentException.class);
+        newWrapper(0, 0);
+    }
+
+    private ConnectionWrapper newWrapper(int channelsPerConnection, int spareChannels) {
+        return new ConnectionWrapper(channelFactoryProvider,
+                                     connectionFactory,
+                                     mqCluster,
+                                     new ConnectionStatusImpl(),
+                                     channelsPerConnection,
+                                     spareChannels);
+    }
+
+    private static void waitForSpares(ConnectionWrapper wrapper, int count) throws InterruptedException {
+        while (wrapper.getSpareChannelCount() < count) {
+            Thread.sleep(5L);
+        }
+    }
+}
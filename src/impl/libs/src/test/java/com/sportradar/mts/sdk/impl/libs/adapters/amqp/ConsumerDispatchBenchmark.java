@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.QueueingConsumer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the response latency (from the delivery by the broker to {@link AmqpMessageReceiver#consume}) of the
+ * former {@link QueueingConsumer} polling thread against the push-based {@link RabbitMqConsumer}, consuming on the
+ * delivery thread and on dispatch threads, with the {@link LocalBrokerStandIn}. Not part of the unit tests; run the
+ * main method (optionally with <code>messages intervalMicros</code> arguments).
+ */
+@SuppressWarnings("deprecation") // QueueingConsumer is the baseline
+public final class ConsumerDispatchBenchmark {
+
+    private static final AmqpCluster CLUSTER = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+    private static final AMQP.BasicProperties PROPERTIES = new AMQP.BasicProperties.Builder().correlationId("corr").build();
+
+    private ConsumerDispatchBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final long intervalNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 20L);
+
+        // warm-up
+        queueingConsumer(messages / 5, intervalNanos);
+        pushConsumer(messages / 5, intervalNanos, 0);
+        pushConsumer(messages / 5, intervalNanos, 2);
+
+        System.out.println("queueing consumer (polling thread): " + queueingConsumer(messages, intervalNanos));
+        System.out.println("push consumer, delivery thread:     " + pushConsumer(messages, intervalNanos, 0));
+        System.out.println("push consumer, 2 dispatch threads:  " + pushConsumer(messages, intervalNanos, 2));
+        System.exit(0);
+    }
+
+    /**
+     * The consume loop of the former RabbitMqConsumer: the delivery thread hands the message over to the queue of the
+     * QueueingConsumer, and the consumer thread polls it
+     */
+    private static String queueingConsumer(int messages, long intervalNanos) throws Exception {
+        try (LocalBrokerStandIn broker = new LocalBrokerStandIn(0L, TimeUnit.MILLISECONDS.toNanos(1))) {
+            broker.registerInstance();
+            final LatencyRecorder recorder = new LatencyRecorder(messages);
+            try (ChannelWrapper channelWrapper = broker.getChannelFactory(CLUSTER).getChannel()) {
+                final Channel channel = channelWrapper.getChannel();
+                final QueueingConsumer consumer = new QueueingConsumer(channel);
+                channel.basicConsume("benchmark-queue", true, "benchmark", false, false, null, consumer);
+                final Thread poller = new Thread(() -> {
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            QueueingConsumer.Delivery delivery = consumer.nextDelivery(0L);
+                            if (delivery == null) {
+                                delivery = consumer.nextDelivery(RabbitMqBase.WAIT_FOR_TASK_MILLIS);
+                            }
+                            if (delivery != null) {
+                                recorder.consume(delivery.getBody(), null, null, null);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "benchmark-queueing-consumer");
+                poller.start();
+                final String result = deliver(broker, recorder, messages, intervalNanos);
+                poller.interrupt();
+                poller.join();
+                return result;
+            } finally {
+                broker.unregisterInstance();
+            }
+        }
+    }
+
+    private static String pushConsumer(int messages, long intervalNanos, int dispatchThreads) throws Exception {
+        try (LocalBrokerStandIn broker = new LocalBrokerStandIn(0L, TimeUnit.MILLISECONDS.toNanos(1))) {
+            final LatencyRecorder recorder = new LatencyRecorder(messages);
+            final RabbitMqConsumer consumer = new RabbitMqConsumer(broker,
+                    "benchmark",
+                    "benchmark-consumer",
+                    CLUSTER,
+                    "benchmark-exchange",
+                    ExchangeType.TOPIC,
+                    "benchmark-queue",
+                    1,
+                    64,
+                    1,
+                    false,
+                    false,
+                    dispatchThreads,
+                    1,
+                    0);
+            consumer.setMessageReceivedHandler(recorder);
+            consumer.open();
+            try {
+                return deliver(broker, recorder, messages, intervalNanos);
+            } finally {
+                consumer.close();
+            }
+        }
+    }
+
+    private static String deliver(LocalBrokerStandIn broker, LatencyRecorder recorder, int messages, long intervalNanos) throws InterruptedException {
+        while (broker.getConsumerCount() == 0) {
+            Thread.sleep(1L);
+        }
+        long next = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            while (System.nanoTime() < next) {
+                // pace the deliveries, the latency is measured, not the throughput
+            }
+            next += intervalNanos;
+            final ByteBuffer body = ByteBuffer.allocate(12);
+            body.putInt(i).putLong(System.nanoTime());
+            broker.deliver("benchmark", PROPERTIES, body.array());
+        }
+        if (!recorder.consumed.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("not all messages consumed");
+        }
+        return recorder.summary();
+    }
+
+    private static final class LatencyRecorder implements AmqpMessageReceiver {
+
+        private final long[] latencies;
+        private final CountDownLatch consumed;
+
+        private LatencyRecorder(int messages) {
+            this.latencies = new long[messages];
+            this.consumed = new CountDownLatch(messages);
+        }
+
+        @Override
+        public MessageStatus consume(byte[] msg, String routingKey, String correlationId, Map<String, Object> messageHeaders) {
+            final long now = System.nanoTime();
+            final ByteBuffer body = ByteBuffer.wrap(msg);
+            final int index = body.getInt();
+            this.latencies[index] = now - body.getLong();
+            this.consumed.countDown();
+            return MessageStatus.CONSUMED_SUCCESSFULLY;
+        }
+
+        private String summary() {
+            final long[] sorted = this.latencies.clone();
+            Arrays.sort(sorted);
+            return String.format("p50=%6.1fus p99=%7.1fus p99.9=%8.1fus max=%9.1fus",
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.99),
+                    percentile(sorted, 0.999),
+                    sorted[sorted.length - 1] / 1e3);
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1e3;
+        }
+
+        @Override
+        public void afterLimitReached(byte[] msg, String routingKey, String correlationId) {
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
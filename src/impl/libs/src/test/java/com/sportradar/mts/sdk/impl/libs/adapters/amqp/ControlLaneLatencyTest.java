@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Load test of the control lane: cancels are sent while the ticket producer is flooded, and the time from sending a
+ * cancel until its result is dispatched is measured. Like the SDK, the ticket producer is on the shared publisher loop
+ * and its results are dispatched on a single executor. In the baseline the cancel producer shares both with the
+ * tickets; in the control lane it has its own thread, channel and confirm window and its own executor.
+ */
+public class ControlLaneLatencyTest extends TimeLimitedTestBase {
+
+    private static final int TICKET_COUNT = 20000;
+    private static final int CANCEL_COUNT = 20;
+    private static final long CANCEL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DISPATCH_COST_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final byte[] CONTENT = "ticket".getBytes();
+
+    private LocalBrokerStandIn broker;
+    private AmqpCluster mqCluster;
+    private SharedPublisherLoop loop;
+    private ExecutorService ticketExecutor;
+    private ExecutorService controlExecutor;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(TimeUnit.MICROSECONDS.toNanos(20), TimeUnit.MICROSECONDS.toNanos(200));
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+        loop = new SharedPublisherLoop(broker, mqCluster, 1, 16);
+        ticketExecutor = Executors.newSingleThreadExecutor();
+        controlExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        ticketExecutor.shutdownNow();
+        controlExecutor.shutdownNow();
+        loop.close();
+        broker.close();
+    }
+
+    @Test
+    public void ticketsFlooded_ControlLaneLatencyBoundedTest() throws Exception {
+        long[] baseline = run(false);
+        long[] controlLane = run(true);
+
+        System.out.println("cancel latency while flooded with " + TICKET_COUNT + " tickets (ms): baseline median="
+                + toMillis(baseline[CANCEL_COUNT / 2]) + " max=" + toMillis(baseline[CANCEL_COUNT - 1])
+                + ", control lane median=" + toMillis(controlLane[CANCEL_COUNT / 2]) + " max="
+                + toMillis(controlLane[CANCEL_COUNT - 1]));
+        // the flooded ticket lane takes about two seconds to dispatch its results
+        assertThat(toMillis(controlLane[CANCEL_COUNT - 1]), lessThan(250L));
+        assertThat(controlLane[CANCEL_COUNT / 2], lessThan(baseline[CANCEL_COUNT / 2]));
+    }
+
+    /**
+     * @return the sorted latencies (nanoseconds) of the cancels
+     */
+    private long[] run(boolean controlLane) throws Exception {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit", 16, true);
+        RabbitMqProducer cancelProducer = createProducer("cancel-producer", "test-Control", 1, !controlLane);
+        ExecutorService cancelExecutor = controlLane ? controlExecutor : ticketExecutor;
+        ticketProducer.open();
+        cancelProducer.open();
+
+        CountDownLatch ticketsDispatched = new CountDownLatch(TICKET_COUNT);
+        Thread flood = new Thread(() -> {
+            for (int i = 0; i < TICKET_COUNT; i++) {
+                AmqpSendResult result = ticketProducer.sendAsync("ticket-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+                result.whenDone(() -> ticketExecutor.execute(() -> {
+                    burn(DISPATCH_COST_NANOS);
+                    ticketsDispatched.countDown();
+                }));
+            }
+        }, "ticket-flood");
+        flood.start();
+
+        long[] latencies = new long[CANCEL_COUNT];
+        CountDownLatch cancelsDispatched = new CountDownLatch(CANCEL_COUNT);
+        for (int i = 0; i < CANCEL_COUNT; i++) {
+            LockSupport.parkNanos(CANCEL_INTERVAL_NANOS);
+            final int index = i;
+            final long sent = System.nanoTime();
+            AmqpSendResult result = cancelProducer.sendAsync("cancel-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+            result.whenDone(() -> cancelExecutor.execute(() -> {
+                latencies[index] = System.nanoTime() - sent;
+                cancelsDispatched.countDown();
+            }));
+        }
+
+        flood.join();
+        assertThat(cancelsDispatched.await(30, TimeUnit.SECONDS), is(true));
+        assertThat(ticketsDispatched.await(30, TimeUnit.SECONDS), is(true));
+        ticketProducer.close();
+        cancelProducer.close();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private RabbitMqProducer createProducer(String name, String exchangeName, int batchSize, boolean useLoop) {
+        RabbitMqProducer producer = new RabbitMqProducer(broker,
+                name,
+                mqCluster,
+                exchangeName,
+                ExchangeType.TOPIC,
+                1,
+                TICKET_COUNT,
+                1,
+                true,
+                true,
+                true,
+                batchSize,
+                0,
+                ProducerOverflowPolicy.REJECT,
+                0,
+                16,
+                0,
+                1000);
+        if (useLoop) {
+            producer.setPublisherLoop(loop);
+        }
+        return producer;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static void burn(long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            // busy spin, like deserializing and notifying the listener
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Address;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LatencyAwareAddressResolverTest extends TimeLimitedTestBase {
+
+    private final List<LocalNode> localNodes = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        localNodes.forEach(LocalNode::close);
+    }
+
+    @Test
+    public void fastestNodePreferredTest() throws Exception {
+        LocalNode slow = startNode(150);
+        LocalNode fast = startNode(5);
+        LatencyAwareAddressResolver resolver = newResolver(slow, fast);
+
+        resolver.reprobeDue(System.nanoTime());
+        List<Address> addresses = resolver.getAddresses();
+
+        assertThat(addresses.get(0), is(fast.address()));
+        assertThat(addresses.get(1), is(slow.address()));
+    }
+
+    @Test
+    public void getAddresses_LastRankingWithoutProbeTest() throws Exception {
+        LocalNode slow = startNode(150);
+        LocalNode fast = startNode(5);
+        AtomicInteger probes = new AtomicInteger();
+        LatencyAwareAddressResolver resolver = new LatencyAwareAddressResolver(new Address[]{slow.address(), fast.address()},
+                                                                               false,
+                                                                               1000,
+                                                                               new RetryBackoff(80L, 1000L),
+                                                                               (address, timeoutMillis) -> {
+                                                                                   probes.incrementAndGet();
+                                                                                   return delayedConnect(address, timeoutMillis);
+                                                                               });
+
+        // the connect path never waits for a probe: the configured order until the nodes are measured
+        assertThat(resolver.getAddresses().get(0), is(slow.address()));
+        assertThat(probes.get(), is(0));
+
+        resolver.reprobeDue(System.nanoTime());
+        assertThat(probes.get(), is(2));
+        assertThat(resolver.getAddresses().get(0), is(fast.address()));
+        assertThat(probes.get(), is(2));
+    }
+
+    @Test
+    public void probe_TcpConnectOnlyTest() throws Exception {
+        LocalNode node = startNode(0);
+
+        LatencyAwareAddressResolver.TCP_CONNECT.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), node.port()), 1000);
+
+        // closed without a single byte sent, no AMQP handshake was started
+        assertThat(node.awaitClosedConnection(), is(-1));
+    }
+
+    @Test
+    public void lostConnection_NextConnectionToOtherNodeTest() throws Exception {
+        LocalNode slow = startNode(100);
+        LocalNode fast = startNode(5);
+        LatencyAwareAddressResolver resolver = newResolver(slow, fast);
+        resolver.reprobeDue(System.nanoTime());
+        assertThat(resolver.getPreferredAddress(), is(fast.address()));
+
+        long start = System.nanoTime();
+        resolver.connectionLost(InetAddress.getLoopbackAddress(), fast.port(), start);
+        long failoverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // no probe needed, the next connection goes to the other node at once
+        assertThat(resolver.getPreferredAddress(), is(slow.address()));
+        assertThat(failoverMillis < 50L, is(true));
+    }
+
+    @Test
+    public void nodeStopped_DetectedByReprobeTest() throws Exception {
+        LocalNode slow = startNode(100);
+        LocalNode fast = startNode(5);
+        LatencyAwareAddressResolver resolver = newResolver(slow, fast);
+        long now = System.nanoTime();
+        resolver.reprobeDue(now);
+
+        fast.close();
+        long start = System.nanoTime();
+        resolver.reprobeDue(now + LatencyAwareAddressResolver.REMEASURE_NANOS);
+        long failoverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(resolver.getPreferredAddress(), is(slow.address()));
+        // a refused connect fails over well within the probe timeout
+        assertThat(failoverMillis < 1000L, is(true));
+    }
+
+    @Test
+    public void downNodeReprobedAfterBackoff_PreferredAgainTest() throws Exception {
+        LocalNode slow = startNode(100);
+        LocalNode fast = startNode(5);
+        LatencyAwareAddressResolver resolver = newResolver(slow, fast);
+        long now = System.nanoTime();
+        resolver.reprobeDue(now);
+        resolver.connectionLost(InetAddress.getLoopbackAddress(), fast.port(), now);
+
+        // within the (jittered) backoff the node is not probed
+        resolver.reprobeDue(now + TimeUnit.MILLISECONDS.toNanos(30L));
+        assertThat(resolver.getPreferredAddress(), is(slow.address()));
+
+        long untilNext = resolver.reprobeDue(now + TimeUnit.MILLISECONDS.toNanos(100L));
+        assertThat(untilNext > 0L, is(true));
+        assertThat(resolver.getPreferredAddress(), is(fast.address()));
+    }
+
+    @Test
+    public void reprobeAll_AllNodesProbedWithNextReprobeTest() throws Exception {
+        LocalNode slow = startNode(100);
+        LocalNode fast = startNode(5);
+        AtomicInteger probes = new AtomicInteger();
+        LatencyAwareAddressResolver resolver = new LatencyAwareAddressResolver(new Address[]{slow.address(), fast.address()},
+                                                                               false,
+                                                                               1000,
+                                                                               new RetryBackoff(80L, 1000L),
+                                                                               (address, timeoutMillis) -> {
+                                                                                   probes.incrementAndGet();
+                                                                                   return delayedConnect(address, timeoutMillis);
+                                                                               });
+        long now = System.nanoTime();
+        resolver.reprobeDue(now);
+        resolver.reprobeDue(now);
+        assertThat(probes.get(), is(2));
+
+        resolver.reprobeAll(now);
+        assertThat(probes.get(), is(2));
+
+        resolver.reprobeDue(now);
+        assertThat(probes.get(), is(4));
+    }
+
+    @Test
+    public void singleNode_NotProbedTest() {
+        Address address = new Address("unresolvable.invalid", 5672);
+        LatencyAwareAddressResolver resolver = new LatencyAwareAddressResolver(new Address[]{address}, false, 1000, new RetryBackoff(100L, 1000L));
+
+        assertThat(resolver.getAddresses(), is(Collections.singletonList(address)));
+        assertThat(resolver.reprobeDue(System.nanoTime()), is(-1L));
+    }
+
+    private LatencyAwareAddressResolver newResolver(LocalNode... nodes) {
+        Address[] addresses = new Address[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            addresses[i] = nodes[i].address();
+        }
+        return new LatencyAwareAddressResolver(addresses, false, 1000, new RetryBackoff(80L, 1000L), this::delayedConnect);
+    }
+
+    private LocalNode startNode(long connectDelayMillis) throws IOException {
+        LocalNode node = new LocalNode(connectDelayMillis);
+        localNodes.add(node);
+        return node;
+    }
+
+    /**
+     * Connects over TCP, taking as long as a node further away (loopback connects all take the same time)
+     */
+    private long delayedConnect(InetSocketAddress address, int timeoutMillis) throws IOException {
+        long start = System.nanoTime();
+        LatencyAwareAddressResolver.TCP_CONNECT.connect(address, timeoutMillis);
+        for (LocalNode node : localNodes) {
+            if (node.port() == address.getPort()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(node.connectDelayMillis));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Listener accepting TCP connections, recording what was read from each until it was closed
+     */
+    private static final class LocalNode {
+
+        private final ServerSocket serverSocket;
+        private final long connectDelayMillis;
+        private final BlockingQueue<Integer> closedConnections = new LinkedBlockingQueue<>();
+
+        LocalNode(long connectDelayMillis) throws IOException {
+            this.connectDelayMillis = connectDelayMillis;
+            this.serverSocket = new ServerSocket();
+            this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Thread thread = new Thread(this::serve, "local-node-" + port());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Address address() {
+            return new Address(InetAddress.getLoopbackAddress().getHostAddress(), port());
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        /**
+         * Gets the first byte read from the next connection closed by the client, -1 if there was none
+         */
+        Integer awaitClosedConnection() throws InterruptedException {
+            return closedConnections.poll(5, TimeUnit.SECONDS);
+        }
+
+        void close() {
+            try {
+                serverSocket.close();
+            } catch (IOException ignored) {
+                // test cleanup
+            }
+        }
+
+        private void serve() {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    closedConnections.add(socket.getInputStream().read());
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+    }
+}
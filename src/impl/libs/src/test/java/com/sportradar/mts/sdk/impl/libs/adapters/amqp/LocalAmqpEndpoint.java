@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.impl.AMQImpl;
+import com.rabbitmq.client.impl.Frame;
+import com.rabbitmq.client.impl.LongStringHelper;
+import com.rabbitmq.client.impl.Method;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal AMQP 0-9-1 endpoint on a local port, so the client library runs over a real socket (blocking or NIO
+ * transport) in the tests and benchmarks: it does the connection handshake, opens and closes channels, answers
+ * declarations and publisher confirm selection, and confirms every message published in confirm mode right away.
+ * Nothing is routed or delivered. Every client connection is served by its own thread named
+ * <code>local-amqp-endpoint-*</code>.
+ */
+final class LocalAmqpEndpoint implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "local-amqp-endpoint-";
+
+    private final ServerSocket serverSocket;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    LocalAmqpEndpoint() throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        final Thread acceptor = new Thread(this::accept, THREAD_PREFIX + "acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    AmqpCluster getCluster() {
+        return AmqpCluster.from("username",
+                                "password",
+                                "vhost",
+                                false,
+                                new NetworkAddress(InetAddress.getLoopbackAddress().getHostAddress(), this.serverSocket.getLocalPort()),
+                                10);
+    }
+
+    long getPublishedMessages() {
+        return this.publishedMessages.get();
+    }
+
+    long getConnectionCount() {
+        return this.connectionCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        for (Socket socket : this.sockets) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                final Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                this.sockets.add(socket);
+                this.connectionCount.incrementAndGet();
+                final Thread thread = new Thread(() -> this.serve(socket), THREAD_PREFIX + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket closing = socket) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(closing.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(closing.getOutputStream()));
+            in.readFully(new byte[8]); // protocol header
+            send(out, 0, new AMQImpl.Connection.Start(0,
+                                                      9,
+                                                      Collections.emptyMap(),
+                                                      LongStringHelper.asLongString("PLAIN"),
+                                                      LongStringHelper.asLongString("en_US")));
+            final Map<Integer, ChannelState> channels = new HashMap<>();
+            while (true) {
+                final Frame frame = Frame.readFrom(in);
+                if (frame.type == AMQP.FRAME_HEARTBEAT) {
+                    new Frame(AMQP.FRAME_HEARTBEAT, 0).writeTo(out);
+                    out.flush();
+                    continue;
+                }
+                ChannelState channel = channels.get(frame.channel);
+                if (channel == null) {
+                    channel = new ChannelState();
+                    channels.put(frame.channel, channel);
+                }
+                if (frame.type == AMQP.FRAME_METHOD) {
+                    final Method method = AMQImpl.readMethodFrom(frame.getInputStream());
+                    if (!this.handle(out, frame.channel, channel, method)) {
+                        return;
+                    }
+                } else if (frame.type == AMQP.FRAME_HEADER) {
+                    final DataInputStream header = frame.getInputStream();
+                    header.readShort(); // class
+                    header.readShort(); // weight
+                    channel.remainingBody = header.readLong();
+                    if (channel.remainingBody == 0L) {
+                        this.published(out, frame.channel, channel);
+                    }
+                } else if (frame.type == AMQP.FRAME_BODY) {
+                    channel.remainingBody -= frame.getPayload().length;
+                    if (channel.remainingBody <= 0L) {
+                        this.published(out, frame.channel, channel);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // connection closed
+        }
+    }
+
+    private boolean handle(DataOutputStream out, int channelNumber, ChannelState channel, Method method) throws IOException {
+        if (method instanceof AMQImpl.Connection.StartOk) {
+            send(out, 0, new AMQImpl.Connection.Tune(2047, 131072, 0));
+        } else if (method instanceof AMQImpl.Connection.Open) {
+            send(out, 0, new AMQImpl.Connection.OpenOk(""));
+        } else if (method instanceof AMQImpl.Connection.Close) {
+            send(out, 0, new AMQImpl.Connection.CloseOk());
+            return false;
+        } else if (method instanceof AMQImpl.Channel.Open) {
+            channel.confirmMode = false;
+            channel.lastPublished = 0L;
+            send(out, channelNumber, new AMQImpl.Channel.OpenOk(LongStringHelper.asLongString("")));
+        } else if (method instanceof AMQImpl.Channel.Close) {
+            send(out, channelNumber, new AMQImpl.Channel.CloseOk());
+        } else if (method instanceof AMQImpl.Confirm.Select) {
+            channel.confirmMode = true;
+            send(out, channelNumber, new AMQImpl.Confirm.SelectOk());
+        } else if (method instanceof AMQImpl.Exchange.Declare) {
+            send(out, channelNumber, new AMQImpl.Exchange.DeclareOk());
+        } else if (method instanceof AMQImpl.Basic.Qos) {
+            send(out, channelNumber, new AMQImpl.Basic.QosOk());
+        }
+        // Connection.TuneOk, Basic.Publish (its header and body follow) and anything else need no reply
+        return true;
+    }
+
+    private void published(DataOutputStream out, int channelNumber, ChannelState channel) throws IOException {
+        this.publishedMessages.incrementAndGet();
+        if (channel.confirmMode) {
+            send(out, channelNumber, new AMQImpl.Basic.Ack(++channel.lastPublished, false));
+        }
+    }
+
+    private static void send(DataOutputStream out, int channelNumber, Method method) throws IOException {
+        method.toFrame(channelNumber).writeTo(out);
+        out.flush();
+    }
+
+    private static final class ChannelState {
+
+        private boolean confirmMode;
+        private long lastPublished;
+        private long remainingBody;
+    }
+}
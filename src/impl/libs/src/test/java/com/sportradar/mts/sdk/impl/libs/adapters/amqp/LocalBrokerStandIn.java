@@ -0,0 +1,483 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.BlockedListener;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory stand-in for a RabbitMQ broker used by the producer tests and benchmarks. Channels are dynamic proxies:
+ * every basicPublish is counted (optionally burning <code>publishCostNanos</code> to mimic the socket write) and a
+ * broker thread sends the publisher confirms back every <code>confirmIntervalNanos</code>, coalescing everything
+ * published in the meantime into a single multiple=true ack, the same way the real broker does it. Messages delivered
+ * with {@link #deliver} go to the consumers registered with basicConsume, through a delivery thread per channel like
+ * the consumer work pool of the client.
+ */
+final class LocalBrokerStandIn implements ChannelFactoryProvider, AutoCloseable {
+
+    private final ChannelFactoryProviderImpl delegate;
+    private final ChannelFactory channelFactory;
+    private final ConnectionStatusImpl connectionStatus;
+    private final long publishCostNanos;
+    private final long confirmIntervalNanos;
+    private final List<ChannelHandler> channels = new CopyOnWriteArrayList<>();
+    private final List<BlockedListener> blockedListeners = new CopyOnWriteArrayList<>();
+    private final List<String> declaredExchanges = new CopyOnWriteArrayList<>();
+    private final List<String> declaredQueues = new CopyOnWriteArrayList<>();
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong confirmFrames = new AtomicLong();
+    private final AtomicLong createdChannels = new AtomicLong();
+    private final AtomicLong ackedDeliveries = new AtomicLong();
+    private final AtomicLong ackFrames = new AtomicLong();
+    private final AtomicLong requeuedDeliveries = new AtomicLong();
+    private final Thread brokerThread;
+    private volatile Queue<String> publishedCorrelationIds;
+    private volatile boolean running = true;
+    private volatile int prefetchCount;
+
+    LocalBrokerStandIn(long publishCostNanos, long confirmIntervalNanos) {
+        final ConnectionStatusImpl connectionStatus = new ConnectionStatusImpl();
+        this.connectionStatus = connectionStatus;
+        this.delegate = new ChannelFactoryProviderImpl(2, connectionStatus);
+        this.publishCostNanos = publishCostNanos;
+        this.confirmIntervalNanos = confirmIntervalNanos;
+        final AmqpCluster cluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+        this.channelFactory = new ChannelFactory(new ConnectionWrapper(this.delegate, new StandInConnectionFactory(), cluster, connectionStatus));
+        this.brokerThread = new Thread(this::sendConfirms, "local-broker-stand-in");
+        this.brokerThread.setDaemon(true);
+        this.brokerThread.start();
+    }
+
+    ConnectionStatusImpl getConnectionStatus() {
+        return this.connectionStatus;
+    }
+
+    long getPublishedMessages() {
+        return this.publishedMessages.get();
+    }
+
+    long getConfirmFrames() {
+        return this.confirmFrames.get();
+    }
+
+    long getCreatedChannels() {
+        return this.createdChannels.get();
+    }
+
+    /**
+     * Gets the number of deliveries acked, one multiple ack counting for all the deliveries it covers
+     */
+    long getAckedDeliveries() {
+        return this.ackedDeliveries.get();
+    }
+
+    long getAckFrames() {
+        return this.ackFrames.get();
+    }
+
+    /**
+     * Gets the number of deliveries nacked with requeue (not delivered again)
+     */
+    long getRequeuedDeliveries() {
+        return this.requeuedDeliveries.get();
+    }
+
+    /**
+     * Gets the prefetch count last set (basicQos) on any channel
+     */
+    int getPrefetchCount() {
+        return this.prefetchCount;
+    }
+
+    /**
+     * Gets the names of the exchanges declared (exchangeDeclare), in the order declared
+     */
+    List<String> getDeclaredExchanges() {
+        return new ArrayList<>(this.declaredExchanges);
+    }
+
+    /**
+     * Gets the names of the queues declared (queueDeclare), in the order declared
+     */
+    List<String> getDeclaredQueues() {
+        return new ArrayList<>(this.declaredQueues);
+    }
+
+    int getConsumerCount() {
+        int count = 0;
+        for (ChannelHandler channel : this.channels) {
+            if (channel.consumer != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Delivers a message to the first channel with a consumer
+     *
+     * @return false if there is no consumer
+     */
+    boolean deliver(String routingKey, AMQP.BasicProperties properties, byte[] body) {
+        for (ChannelHandler channel : this.channels) {
+            if (channel.consumer != null) {
+                channel.deliver(routingKey, properties, body);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes all open channels the way a broker does (channel.close from the server), notifying their shutdown listeners
+     */
+    void closeChannels() {
+        for (ChannelHandler channel : this.channels) {
+            channel.closeByBroker(null);
+        }
+    }
+
+    /**
+     * Closes all open channels with the reply code of a channel error, e.g. {@link AMQP#NOT_FOUND}
+     */
+    void closeChannels(int replyCode) {
+        final AMQP.Channel.Close reason = new AMQP.Channel.Close.Builder().replyCode(replyCode).build();
+        for (ChannelHandler channel : this.channels) {
+            channel.closeByBroker(reason);
+        }
+    }
+
+    /**
+     * Blocks the connections (connection.blocked) the way the broker does when it runs low on memory or disk
+     */
+    void blockConnections(String reason) throws IOException {
+        for (BlockedListener listener : this.blockedListeners) {
+            listener.handleBlocked(reason);
+        }
+    }
+
+    void unblockConnections() throws IOException {
+        for (BlockedListener listener : this.blockedListeners) {
+            listener.handleUnblocked();
+        }
+    }
+
+    /**
+     * Starts recording the correlation id of every published message (off by default, it costs an allocation)
+     */
+    void recordPublishedCorrelationIds() {
+        this.publishedCorrelationIds = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Gets the recorded correlation ids in the order the messages were published (over all channels)
+     */
+    List<String> getPublishedCorrelationIds() {
+        final Queue<String> recorded = this.publishedCorrelationIds;
+        return recorded == null ? new ArrayList<>() : new ArrayList<>(recorded);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.delegate.execute(command);
+    }
+
+    @Override
+    public void registerInstance() {
+        this.delegate.registerInstance();
+    }
+
+    @Override
+    public void unregisterInstance() {
+        this.delegate.unregisterInstance();
+    }
+
+    @Override
+    public ChannelFactory getChannelFactory(AmqpCluster mqCluster) {
+        return this.channelFactory;
+    }
+
+    @Override
+    public boolean isExecutorServiceOpened() {
+        return this.delegate.isExecutorServiceOpened();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        this.running = false;
+        this.brokerThread.join();
+    }
+
+    private void sendConfirms() {
+        while (this.running) {
+            for (ChannelHandler channel : this.channels) {
+                channel.confirmPublished();
+            }
+            LockSupport.parkNanos(this.confirmIntervalNanos);
+        }
+    }
+
+    private static void burn(long nanos) {
+        if (nanos <= 0L) {
+            return;
+        }
+        final long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            // busy spin, like a blocking socket write
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private final class StandInConnectionFactory extends ConnectionFactory {
+
+        @Override
+        public Connection newConnection(ExecutorService executor, AddressResolver addressResolver) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                       new Class<?>[]{Connection.class},
+                                                       new ConnectionHandler());
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private volatile boolean open = true;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "createChannel":
+                    final ChannelHandler handler = new ChannelHandler();
+                    channels.add(handler);
+                    createdChannels.incrementAndGet();
+                    return Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class}, handler);
+                case "addBlockedListener":
+                    blockedListeners.add((BlockedListener) args[0]);
+                    return null;
+                case "isOpen":
+                    return this.open;
+                case "close":
+                case "abort":
+                    this.open = false;
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    private final class ChannelHandler implements InvocationHandler {
+
+        private final List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<>();
+        private final List<ShutdownListener> shutdownListeners = new CopyOnWriteArrayList<>();
+        private final AtomicLong lastPublished = new AtomicLong();
+        private long lastConfirmed;
+        private volatile boolean confirmMode;
+        private volatile boolean open = true;
+        private volatile ShutdownSignalException closeReason;
+        private volatile Consumer consumer;
+        private volatile String consumerTag;
+        private ExecutorService deliveryThread;
+        private long lastDeliveryTag;
+        private boolean autoAck;
+        private final NavigableSet<Long> unacked = new TreeSet<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+            switch (method.getName()) {
+                case "basicPublish":
+                    burn(publishCostNanos);
+                    publishedMessages.incrementAndGet();
+                    record(args);
+                    if (this.confirmMode) {
+                        this.lastPublished.incrementAndGet();
+                    }
+                    return null;
+                case "getNextPublishSeqNo":
+                    return this.confirmMode ? this.lastPublished.get() + 1L : 0L;
+                case "confirmSelect":
+                    this.confirmMode = true;
+                    return null;
+                case "addConfirmListener":
+                    this.confirmListeners.add((ConfirmListener) args[0]);
+                    return null;
+                case "addShutdownListener":
+                    this.shutdownListeners.add((ShutdownListener) args[0]);
+                    return null;
+                case "basicConsume":
+                    this.consumerTag = (String) args[2];
+                    this.autoAck = (Boolean) args[1];
+                    this.deliveryThread = Executors.newSingleThreadExecutor(r -> new Thread(r, "local-broker-delivery"));
+                    this.consumer = (Consumer) args[args.length - 1];
+                    this.consumer.handleConsumeOk(this.consumerTag);
+                    return this.consumerTag;
+                case "basicCancel":
+                    this.consumer = null;
+                    return null;
+                case "exchangeDeclare":
+                    declaredExchanges.add((String) args[0]);
+                    return null;
+                case "queueDeclare":
+                    declaredQueues.add((String) args[0]);
+                    return null;
+                case "basicQos":
+                    prefetchCount = (Integer) args[0];
+                    return null;
+                case "basicAck":
+                    ackFrames.incrementAndGet();
+                    ackedDeliveries.addAndGet(this.settle((Long) args[0], (Boolean) args[1]));
+                    return null;
+                case "basicNack":
+                    final int nacked = this.settle((Long) args[0], (Boolean) args[1]);
+                    if ((Boolean) args[2]) {
+                        requeuedDeliveries.addAndGet(nacked);
+                    }
+                    return null;
+                case "getCloseReason":
+                    return this.closeReason;
+                case "isOpen":
+                    return this.open;
+                case "close":
+                case "abort":
+                    this.open = false;
+                    channels.remove(this);
+                    this.stopDeliveries();
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private synchronized void deliver(String routingKey, AMQP.BasicProperties properties, byte[] body) {
+            final Envelope envelope = new Envelope(++this.lastDeliveryTag, false, "", routingKey);
+            if (!this.autoAck) {
+                this.unacked.add(this.lastDeliveryTag);
+            }
+            final Consumer subscribed = this.consumer;
+            this.deliveryThread.execute(() -> {
+                if (this.consumer != subscribed) {
+                    // cancelled in the meantime
+                    return;
+                }
+                try {
+                    subscribed.handleDelivery(this.consumerTag, envelope, properties, body);
+                } catch (IOException exc) {
+                    throw new IllegalStateException(exc);
+                }
+            });
+        }
+
+        /**
+         * Removes the acked or nacked deliveries from the unacked ones
+         *
+         * @return the number of deliveries removed
+         */
+        private synchronized int settle(long deliveryTag, boolean multiple) {
+            if (!multiple) {
+                return this.unacked.remove(deliveryTag) ? 1 : 0;
+            }
+            final Set<Long> settled = this.unacked.headSet(deliveryTag, true);
+            final int count = settled.size();
+            settled.clear();
+            return count;
+        }
+
+        private synchronized void stopDeliveries() {
+            if (this.deliveryThread != null) {
+                this.deliveryThread.shutdown();
+                this.consumer = null;
+            }
+        }
+
+        private void closeByBroker(AMQP.Channel.Close reason) {
+            this.closeReason = new ShutdownSignalException(false, false, reason, this);
+            this.open = false;
+            channels.remove(this);
+            final Consumer subscribed = this.consumer;
+            this.stopDeliveries();
+            if (subscribed != null) {
+                subscribed.handleShutdownSignal(this.consumerTag, this.closeReason);
+            }
+            for (ShutdownListener listener : this.shutdownListeners) {
+                listener.shutdownCompleted(this.closeReason);
+            }
+        }
+
+        private void record(Object[] args) {
+            final Queue<String> recorded = publishedCorrelationIds;
+            if (recorded == null) {
+                return;
+            }
+            for (Object arg : args) {
+                if (arg instanceof AMQP.BasicProperties) {
+                    recorded.add(String.valueOf(((AMQP.BasicProperties) arg).getCorrelationId()));
+                }
+            }
+        }
+
+        private void confirmPublished() {
+            final long published = this.lastPublished.get();
+            if (published <= this.lastConfirmed) {
+                return;
+            }
+            final boolean multiple = (published - this.lastConfirmed) > 1L;
+            this.lastConfirmed = published;
+            confirmFrames.incrementAndGet();
+            for (ConfirmListener listener : this.confirmListeners) {
+                try {
+                    listener.handleAck(published, multiple);
+                } catch (IOException exc) {
+                    throw new IllegalStateException(exc);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PrefetchControllerTest extends TimeLimitedTestBase {
+
+    private static final long TARGET = 100L;
+    private static final long INTERVAL = 1000L;
+
+    private PrefetchController controller;
+    private long now;
+
+    @Before
+    public void setUp() {
+        controller = new PrefetchController("test", 10, 2, 64, TARGET, INTERVAL, 0L);
+    }
+
+    @Test
+    public void exhaustedPrefetchConsumedFast_RaisedUpToMaxTest() {
+        for (int expected : new int[] {20, 40, 64, 64}) {
+            burst(controller.getPrefetchCount(), 10L);
+
+            assertThat(evaluate(), is(expected));
+        }
+        assertThat(controller.getStatistics().getRaisedCount(), is(3L));
+        assertThat(controller.getStatistics().getLastChangeReason(), is(PrefetchStatistics.ChangeReason.BURST));
+    }
+
+    @Test
+    public void slowConsumer_LoweredDownToMinTest() {
+        for (int expected : new int[] {5, 2, 2}) {
+            burst(controller.getPrefetchCount(), TARGET + 1L);
+
+            assertThat(evaluate(), is(expected));
+        }
+        assertThat(controller.getStatistics().getLoweredCount(), is(2L));
+        assertThat(controller.getStatistics().getLastChangeReason(), is(PrefetchStatistics.ChangeReason.SLOW_CONSUMER));
+    }
+
+    @Test
+    public void prefetchNotExhausted_KeptTest() {
+        burst(5, 10L);
+
+        assertThat(evaluate(), is(10));
+        assertThat(controller.getStatistics().getLastMaxUnacked(), is(5));
+    }
+
+    @Test
+    public void consumedNeitherFastNorSlow_KeptTest() {
+        burst(10, TARGET);
+
+        assertThat(evaluate(), is(10));
+        assertThat(controller.getStatistics().getLastChangeReason(), is(PrefetchStatistics.ChangeReason.NONE));
+    }
+
+    @Test
+    public void intervalNotElapsed_NotEvaluatedTest() {
+        burst(10, 10L);
+
+        assertThat(controller.evaluate(INTERVAL - 1L), is(10));
+        assertThat(controller.nanosUntilEvaluation(INTERVAL - 1L), is(1L));
+        assertThat(controller.evaluate(INTERVAL), is(20));
+        assertThat(controller.nanosUntilEvaluation(INTERVAL), is(INTERVAL));
+    }
+
+    @Test
+    public void initialPrefetchClampedToBoundsTest() {
+        assertThat(new PrefetchController("test", 100, 2, 64, TARGET, INTERVAL, 0L).getPrefetchCount(), is(64));
+        assertThat(new PrefetchController("test", 1, 2, 64, TARGET, INTERVAL, 0L).getPrefetchCount(), is(2));
+        assertThat(new PrefetchController("test", 10, 10, 10, TARGET, INTERVAL, 0L).isAdaptive(), is(false));
+    }
+
+    @Test
+    public void maxBelowMinTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new PrefetchController("test", 10, 10, 9, TARGET, INTERVAL, 0L);
+    }
+
+    private void burst(int unacked, long latency) {
+        for (int i = 1; i <= unacked; i++) {
+            controller.delivered(i);
+            controller.consumed(latency);
+        }
+    }
+
+    private int evaluate() {
+        now += INTERVAL;
+        return controller.evaluate(now);
+    }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.AMQP;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RabbitMqConsumerTest extends TimeLimitedTestBase {
+
+    private static final int MESSAGE_COUNT = 100;
+    private static final int TICKET_COUNT = 8;
+
+    private LocalBrokerStandIn broker;
+    private AmqpCluster mqCluster;
+    private RabbitMqConsumer consumer;
+    private RecordingReceiver receiver;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(0L, TimeUnit.MICROSECONDS.toNanos(200));
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+        receiver = new RecordingReceiver(MESSAGE_COUNT);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (consumer != null) {
+            consumer.close();
+        }
+        broker.close();
+    }
+
+    @Test
+    public void deliveredMessages_ConsumedOnDeliveryThreadTest() throws Exception {
+        consumer = createConsumer(0);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(receiver.correlationIds.get(0), is("corr-0"));
+        assertThat(receiver.correlationIds.get(MESSAGE_COUNT - 1), is("corr-" + (MESSAGE_COUNT - 1)));
+        assertThat(receiver.replyRoutingKeys.get(0), is("node1.ticket.confirm"));
+        assertThat(receiver.threadNames.get(0), is("local-broker-delivery"));
+        while (broker.getAckedDeliveries() < MESSAGE_COUNT) {
+            Thread.sleep(1L);
+        }
+        assertThat(broker.getAckedDeliveries(), is((long) MESSAGE_COUNT));
+    }
+
+    @Test
+    public void deliveredMessages_ConsumedOnDispatchThreadsTest() throws Exception {
+        consumer = createConsumer(2);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(receiver.correlationIds.size(), is(MESSAGE_COUNT));
+        for (String threadName : receiver.threadNames) {
+            assertThat(threadName, startsWith("rabbitmq-test-consumer-dispatch-"));
+        }
+        // consumed messages are acked manually, so the prefetch count bounds the messages in flight
+        while (broker.getAckedDeliveries() < MESSAGE_COUNT) {
+            Thread.sleep(1L);
+        }
+        assertThat(broker.getAckedDeliveries(), is((long) MESSAGE_COUNT));
+    }
+
+    @Test
+    public void sameTicket_ConsumedInOrderOnDispatchThreadsTest() throws Exception {
+        consumer = createConsumer(4);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        Map<String, Integer> lastByTicket = new HashMap<>();
+        for (String correlationId : receiver.correlationIds) {
+            int index = Integer.parseInt(correlationId.substring("corr-".length()));
+            String ticketId = ticketIdOf(index);
+            Integer last = lastByTicket.put(ticketId, index);
+            if (last != null) {
+                assertThat(index > last, is(true));
+            }
+        }
+        assertThat(lastByTicket.size(), is(TICKET_COUNT));
+    }
+
+    @Test
+    public void closedWhileConsuming_MessagesInFlightAckedTest() throws Exception {
+        consumer = createConsumer(2);
+        receiver.consumeNanos = TimeUnit.MILLISECONDS.toNanos(2);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+        while (receiver.correlationIds.isEmpty()) {
+            Thread.sleep(1L);
+        }
+        consumer.close();
+
+        // everything handed to the stripes before the close was consumed and acked on the open channel
+        assertThat(broker.getAckedDeliveries(), is((long) receiver.correlationIds.size()));
+    }
+
+    @Test
+    public void batchedAcks_AllMessagesAckedWithFewerFramesTest() throws Exception {
+        consumer = createConsumer(4, 8);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        // the last, incomplete batch is acked once its linger elapses
+        while (broker.getAckedDeliveries() < MESSAGE_COUNT) {
+            Thread.sleep(1L);
+        }
+        assertThat(broker.getAckedDeliveries(), is((long) MESSAGE_COUNT));
+        assertThat(broker.getAckFrames() < MESSAGE_COUNT, is(true));
+    }
+
+    @Test
+    public void batchedAcksClosedWhileConsuming_MessagesInFlightAckedTest() throws Exception {
+        consumer = createConsumer(2, 8);
+        receiver.consumeNanos = TimeUnit.MILLISECONDS.toNanos(2);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+        while (receiver.correlationIds.isEmpty()) {
+            Thread.sleep(1L);
+        }
+        consumer.close();
+
+        // the waiting acks are sent before the channel gets closed
+        assertThat(broker.getAckedDeliveries(), is((long) receiver.correlationIds.size()));
+    }
+
+    @Test
+    public void slowListener_PrefetchLoweredTest() throws Exception {
+        consumer = new RabbitMqConsumer(broker,
+                "node1.ticket.confirm",
+                "test-consumer",
+                mqCluster,
+                "test-Confirm",
+                ExchangeType.TOPIC,
+                "test-Confirm-node1",
+                1,
+                16,
+                1,
+                false,
+                false,
+                2,
+                1,
+                5,
+                2,
+                16,
+                1,
+                new RetryBackoff(0L, 0L));
+        receiver.consumeNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        openAndAwaitSubscription();
+        assertThat(broker.getPrefetchCount(), is(16));
+
+        deliverMessages();
+
+        // evaluated once a second: the messages take longer than the 1ms target
+        while (consumer.getPrefetchStatistics().getLoweredCount() == 0) {
+            Thread.sleep(10L);
+        }
+        assertThat(consumer.getPrefetchStatistics().getLastChangeReason(), is(PrefetchStatistics.ChangeReason.SLOW_CONSUMER));
+        assertThat(consumer.getPrefetchStatistics().getPrefetchCount(), is(8));
+        while (broker.getPrefetchCount() != 8) {
+            Thread.sleep(1L);
+        }
+    }
+
+    @Test
+    public void failingMessage_RetriedWithBackoffWhileOthersFlowTest() throws Exception {
+        consumer = new RabbitMqConsumer(broker,
+                "node1.ticket.confirm",
+                "test-consumer",
+                mqCluster,
+                "test-Confirm",
+                ExchangeType.TOPIC,
+                "test-Confirm-node1",
+                1,
+                16,
+                1,
+                false,
+                false,
+                2,
+                1,
+                5,
+                16,
+                16,
+                100,
+                new RetryBackoff(20L, 80L));
+        receiver.failingCorrelationId = "corr-0";
+        receiver.failures.set(3);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        // the healthy messages did not wait for the retries of the failing one
+        assertThat(receiver.correlationIds.get(receiver.correlationIds.size() - 1), is("corr-0"));
+        List<Long> attempts = receiver.failedAttemptNanos;
+        assertThat(attempts.size(), is(3));
+        assertThat(attempts.get(1) - attempts.get(0) >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+        assertThat(attempts.get(2) - attempts.get(1) >= TimeUnit.MILLISECONDS.toNanos(40), is(true));
+        while (broker.getAckedDeliveries() < MESSAGE_COUNT) {
+            Thread.sleep(1L);
+        }
+    }
+
+    @Test
+    public void failingMessage_RetriedWithBackoffOnDeliveryThreadTest() throws Exception {
+        consumer = new RabbitMqConsumer(broker,
+                "node1.ticket.confirm",
+                "test-consumer",
+                mqCluster,
+                "test-Confirm",
+                ExchangeType.TOPIC,
+                "test-Confirm-node1",
+                1,
+                16,
+                1,
+                false,
+                false,
+                0,
+                1,
+                5,
+                16,
+                16,
+                100,
+                new RetryBackoff(20L, 80L));
+        receiver.failingCorrelationId = "corr-0";
+        receiver.failures.set(3);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        // without dispatch threads the failing message is held for its retries as well, not dropped
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(receiver.correlationIds.get(receiver.correlationIds.size() - 1), is("corr-0"));
+        List<Long> attempts = receiver.failedAttemptNanos;
+        assertThat(attempts.size(), is(3));
+        assertThat(attempts.get(1) - attempts.get(0) >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+        assertThat(attempts.get(2) - attempts.get(1) >= TimeUnit.MILLISECONDS.toNanos(40), is(true));
+        while (broker.getAckedDeliveries() < MESSAGE_COUNT) {
+            Thread.sleep(1L);
+        }
+    }
+
+    @Test
+    public void prefetchLoweredWhileRetriesHeld_ExcessRetriesReturnedTest() throws Exception {
+        consumer = new RabbitMqConsumer(broker,
+                "node1.ticket.confirm",
+                "test-consumer",
+                mqCluster,
+                "test-Confirm",
+                ExchangeType.TOPIC,
+                "test-Confirm-node1",
+                1,
+                16,
+                1,
+                false,
+                false,
+                2,
+                1,
+                5,
+                2,
+                16,
+                1,
+                new RetryBackoff(60000L, 60000L));
+        // one message of each ticket waits for its retry far longer than the test runs
+        receiver = new RecordingReceiver(MESSAGE_COUNT - TICKET_COUNT);
+        receiver.heldCorrelationIds = new HashSet<>();
+        for (int i = 0; i < TICKET_COUNT; i++) {
+            receiver.heldCorrelationIds.add("corr-" + i);
+        }
+        receiver.consumeNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        openAndAwaitSubscription();
+
+        deliverMessages();
+
+        // all held at the initial prefetch count of 16
+        while (receiver.failedAttemptNanos.size() < TICKET_COUNT) {
+            Thread.sleep(1L);
+        }
+        assertThat(broker.getRequeuedDeliveries(), is(0L));
+        // evaluated once a second: the messages take longer than the 1ms target
+        while (broker.getPrefetchCount() != 8) {
+            Thread.sleep(10L);
+        }
+        // at most 4 are held once the prefetch count is 8, the others no longer take its slots
+        while (broker.getRequeuedDeliveries() < TICKET_COUNT - 4) {
+            Thread.sleep(1L);
+        }
+        assertThat(broker.getRequeuedDeliveries(), is((long) TICKET_COUNT - 4));
+    }
+
+    @Test
+    public void closedConsumer_ChannelClosedTest() throws Exception {
+        consumer = createConsumer(0);
+        openAndAwaitSubscription();
+
+        consumer.close();
+
+        assertThat(consumer.isOpen(), is(false));
+        assertThat(broker.getConsumerCount(), is(0));
+    }
+
+    @Test
+    public void channelClosedByBroker_ResubscribedTest() throws Exception {
+        consumer = createConsumer(0);
+        openAndAwaitSubscription();
+
+        broker.closeChannels();
+
+        // the worker thread backs off (1s) before it takes a new channel
+        while (broker.getConsumerCount() == 0) {
+            Thread.sleep(10L);
+        }
+        deliverMessages();
+        assertThat(receiver.consumed.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void channelClosedByBroker_TopologyNotDeclaredAgainTest() throws Exception {
+        consumer = createConsumer(0);
+        openAndAwaitSubscription();
+        assertThat(broker.getDeclaredQueues().size(), is(1));
+
+        broker.closeChannels();
+        while (broker.getConsumerCount() == 0) {
+            Thread.sleep(10L);
+        }
+
+        assertThat(broker.getDeclaredQueues().size(), is(1));
+        assertThat(broker.getConnectionStatus().getTimeToRecoverMillis().containsKey("test-consumer"), is(true));
+    }
+
+    @Test
+    public void queueNotFound_TopologyDeclaredAgainTest() throws Exception {
+        consumer = createConsumer(0);
+        openAndAwaitSubscription();
+
+        broker.closeChannels(AMQP.NOT_FOUND);
+        while (broker.getConsumerCount() == 0) {
+            Thread.sleep(10L);
+        }
+
+        assertThat(broker.getDeclaredQueues().size(), is(2));
+        assertThat(broker.getDeclaredExchanges().size(), is(2));
+    }
+
+    @Test
+    public void invalidDispatchThreadsTest() {
+        thrown.expect(IllegalArgumentException.class);
+        createConsumer(-1);
+    }
+
+    private RabbitMqConsumer createConsumer(int dispatchThreads) {
+        return createConsumer(dispatchThreads, 1);
+    }
+
+    private RabbitMqConsumer createConsumer(int dispatchThreads, int ackBatchSize) {
+        return new RabbitMqConsumer(broker,
+                "node1.ticket.confirm",
+                "test-consumer",
+                mqCluster,
+                "test-Confirm",
+                ExchangeType.TOPIC,
+                "test-Confirm-node1",
+                1,
+                16,
+                1,
+                false,
+                false,
+                dispatchThreads,
+                ackBatchSize,
+                5);
+    }
+
+    private void openAndAwaitSubscription() throws InterruptedException {
+        consumer.setMessageReceivedHandler(receiver);
+        consumer.open();
+        while (broker.getConsumerCount() == 0) {
+            Thread.sleep(1L);
+        }
+    }
+
+    private void deliverMessages() {
+        Map<String, Object> headers = Collections.singletonMap(RabbitMqConsumer.AMQP_HEADER_REPLY_ROUTING_KEY, "node1.ticket.confirm");
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                    .correlationId("corr-" + i)
+                    .headers(new HashMap<>(headers))
+                    .build();
+            assertThat(broker.deliver("node1.ticket.confirm", properties, ticketIdOf(i).getBytes()), is(true));
+        }
+    }
+
+    private static String ticketIdOf(int index) {
+        return "ticket-" + (index % TICKET_COUNT);
+    }
+
+    private static final class RecordingReceiver implements AmqpMessageReceiver {
+
+        private final CountDownLatch consumed;
+        private final List<String> correlationIds = new CopyOnWriteArrayList<>();
+        private final List<String> replyRoutingKeys = new CopyOnWriteArrayList<>();
+        private final List<String> threadNames = new CopyOnWriteArrayList<>();
+        private final List<Long> failedAttemptNanos = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long consumeNanos;
+        private volatile String failingCorrelationId;
+        private volatile Set<String> heldCorrelationIds = Collections.emptySet();
+
+        private RecordingReceiver(int expected) {
+            this.consumed = new CountDownLatch(expected);
+        }
+
+        @Override
+        public MessageStatus consume(byte[] msg, String routingKey, String correlationId, Map<String, Object> messageHeaders) {
+            if (correlationId.equals(failingCorrelationId) && failures.getAndDecrement() > 0) {
+                failedAttemptNanos.add(System.nanoTime());
+                return MessageStatus.RETRY_FOREVER;
+            }
+            if (heldCorrelationIds.contains(correlationId)) {
+                failedAttemptNanos.add(System.nanoTime());
+                return MessageStatus.RETRY_FOREVER;
+            }
+            correlationIds.add(correlationId);
+            replyRoutingKeys.add(String.valueOf(messageHeaders.get(RabbitMqConsumer.AMQP_HEADER_REPLY_ROUTING_KEY)));
+            threadNames.add(Thread.currentThread().getName());
+            LockSupport.parkNanos(consumeNanos);
+            consumed.countDown();
+            return MessageStatus.CONSUMED_SUCCESSFULLY;
+        }
+
+        @Override
+        public String getOrderingKey(byte[] msg, String routingKey, String correlationId) {
+            return new String(msg);
+        }
+
+        @Override
+        public void afterLimitReached(byte[] msg, String routingKey, String correlationId) {
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the one-at-a-time publish loop of the {@link RabbitMqProducer} with the batched publish mode and with
+ * several stripes ({@link StripedRabbitMqProducer}) against the {@link LocalBrokerStandIn}. Not part of the unit tests;
+ * run the main method (optionally with <code>messages senderThreads publishCostMicros confirmIntervalMicros</code>
+ * arguments).
+ */
+public final class RabbitMqProducerBenchmark {
+
+    private static final byte[] CONTENT = new byte[512];
+    private static final Map<String, Object> HEADERS = Collections.singletonMap("replyRoutingKey", "node1.ticket.confirm");
+
+    private RabbitMqProducerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int senderThreads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final long publishCostNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 2L);
+        final long confirmIntervalNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 100L);
+
+        // warm-up
+        run(1, 1, 0, messages / 10, senderThreads, publishCostNanos, confirmIntervalNanos);
+        run(4, 64, 1, messages / 10, senderThreads, publishCostNanos, confirmIntervalNanos);
+
+        System.out.println(run(1, 1, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(1, 16, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(1, 64, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(1, 64, 1, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(2, 1, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(4, 1, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.out.println(run(4, 64, 0, messages, senderThreads, publishCostNanos, confirmIntervalNanos));
+        System.exit(0);
+    }
+
+    private static String run(int stripes,
+                              int batchSize,
+                              int lingerMillis,
+                              int messages,
+                              int senderThreads,
+                              long publishCostNanos,
+                              long confirmIntervalNanos) throws Exception {
+        try (LocalBrokerStandIn broker = new LocalBrokerStandIn(publishCostNanos, confirmIntervalNanos)) {
+            final StripedRabbitMqProducer producer = new StripedRabbitMqProducer(broker,
+                    "benchmark-producer",
+                    AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10),
+                    "benchmark-exchange",
+                    ExchangeType.FANOUT,
+                    1,
+                    4096,
+                    stripes,
+                    true,
+                    true,
+                    true,
+                    batchSize,
+                    lingerMillis,
+                    ProducerOverflowPolicy.REJECT,
+                    0,
+                    0,
+                    0,
+                    1000);
+            producer.open();
+
+            final CountDownLatch confirmed = new CountDownLatch(messages);
+            final AtomicLong rejected = new AtomicLong();
+            final int perThread = messages / senderThreads;
+            final Thread[] senders = new Thread[senderThreads];
+            final long start = System.nanoTime();
+            for (int t = 0; t < senderThreads; t++) {
+                final int count = (t == senderThreads - 1) ? messages - perThread * (senderThreads - 1) : perThread;
+                senders[t] = new Thread(() -> {
+                    for (int i = 0; i < count; i++) {
+                        while (!producer.sendAsync(null, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, HEADERS, r -> confirmed.countDown())) {
+                            rejected.incrementAndGet();
+                            Thread.yield();
+                        }
+                    }
+                }, "benchmark-sender-" + t);
+                senders[t].start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            if (!confirmed.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("not all messages confirmed");
+            }
+            final long elapsedNanos = System.nanoTime() - start;
+            final long closeStart = System.nanoTime();
+            producer.close();
+            final double closeMillis = (System.nanoTime() - closeStart) / 1e6;
+
+            long batches = 0L;
+            double confirmLatencySum = 0d;
+            double maxConfirmLatency = 0d;
+            for (PublishStatistics statistics : producer.getPublishStatistics()) {
+                batches += statistics.getPublishedBatchCount();
+                confirmLatencySum += statistics.getAverageConfirmLatencyMillis() * statistics.getConfirmedMessageCount();
+                maxConfirmLatency = Math.max(maxConfirmLatency, statistics.getMaxConfirmLatencyMillis());
+            }
+            return String.format("stripes=%d batch=%3d linger=%dms: %,10.0f msg/s, avgBatch=%6.2f, confirmFrames=%,d, avgConfirm=%.3fms, maxConfirm=%.3fms, rejectedRetries=%,d, close=%.1fms",
+                    stripes,
+                    batchSize,
+                    lingerMillis,
+                    messages / (elapsedNanos / 1e9),
+                    (double) messages / batches,
+                    broker.getConfirmFrames(),
+                    confirmLatencySum / messages,
+                    maxConfirmLatency,
+                    rejected.get(),
+                    closeMillis);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RabbitMqProducerTest extends TimeLimitedTestBase {
+
+    private static final int MESSAGE_COUNT = 500;
+    private static final byte[] CONTENT = "ticket".getBytes();
+
+    private LocalBrokerStandIn broker;
+    private AmqpCluster mqCluster;
+    private RabbitMqProducer producer;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(0L, TimeUnit.MICROSECONDS.toNanos(200));
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (producer != null) {
+            producer.close();
+        }
+        broker.close();
+    }
+
+    @Test
+    public void batchedPublish_AllMessagesConfirmedTest() throws Exception {
+        producer = createProducer(16, 5);
+        producer.open();
+
+        sendAndAwaitConfirms(producer);
+
+        PublishStatistics statistics = producer.getPublishStatistics();
+        assertThat(statistics.getPublishedMessageCount(), is((long) MESSAGE_COUNT));
+        assertThat(statistics.getConfirmedMessageCount(), is((long) MESSAGE_COUNT));
+        assertThat(statistics.getMaxBatchSize(), greaterThan(1L));
+        assertThat(statistics.getPublishedBatchCount(), lessThan((long) MESSAGE_COUNT));
+        assertThat(broker.getConfirmFrames(), lessThan((long) MESSAGE_COUNT));
+    }
+
+    @Test
+    public void singleMessagePublish_KeepsBatchOfOneTest() throws Exception {
+        producer = createProducer(1, 0);
+        producer.open();
+
+        sendAndAwaitConfirms(producer);
+
+        PublishStatistics statistics = producer.getPublishStatistics();
+        assertThat(statistics.getPublishedMessageCount(), is((long) MESSAGE_COUNT));
+        assertThat(statistics.getPublishedBatchCount(), is((long) MESSAGE_COUNT));
+        assertThat(statistics.getMaxBatchSize(), is(1L));
+    }
+
+    @Test
+    public void idleProducer_ClosesWithoutWaitingForPollTimeoutTest() throws Exception {
+        producer = createProducer(16, 0);
+        producer.open();
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        producer.close();
+
+        assertThat(System.nanoTime() - start, lessThan(TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertThat(producer.getPublishStatistics().getCloseLatencyMillis(), lessThan(1000d));
+    }
+
+    @Test
+    public void messageAfterPause_PublishedAtOnceTest() throws Exception {
+        producer = createProducer(1, 0);
+        producer.open();
+        Thread.sleep(100);
+
+        AmqpSendResult result = producer.sendAsync("corr-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+
+        assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(producer.getPublishStatistics().getMaxQueueLatencyMillis(), lessThan(1000d));
+    }
+
+    @Test
+    public void channelClosedByBroker_NewChannelWithoutWaitingForPollTimeoutTest() throws Exception {
+        producer = createProducer(16, 0);
+        producer.open();
+        Thread.sleep(100);
+        long channels = broker.getCreatedChannels();
+
+        long start = System.nanoTime();
+        broker.closeChannels();
+        while (broker.getCreatedChannels() == channels) {
+            Thread.sleep(10);
+        }
+
+        // the base class waits 1s before it opens a new channel after a shutdown
+        assertThat(System.nanoTime() - start, lessThan(TimeUnit.MILLISECONDS.toNanos(2500)));
+    }
+
+    @Test
+    public void connectionBlocked_FailFastTest() throws Exception {
+        producer = createProducer(16, 0);
+        producer.open();
+
+        broker.blockConnections("low on memory");
+        AmqpSendResult result = producer.sendAsync("corr-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+
+        assertThat(result.isRejected(), is(true));
+        assertThat(result.getRejectReason(), is(SendRejectReason.CONNECTION_BLOCKED));
+
+        broker.unblockConnections();
+        result = producer.sendAsync("corr-2", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+        assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void connectionBlocked_HeldUpToLimitAndDrainedAfterUnblockTest() throws Exception {
+        producer = createProducer(16, 0, 10, 1000);
+        producer.open();
+
+        broker.blockConnections("low on disk");
+        List<AmqpSendResult> held = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            held.add(producer.sendAsync("corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>()));
+        }
+        AmqpSendResult overLimit = producer.sendAsync("corr-10", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+        Thread.sleep(50);
+
+        assertThat(overLimit.getRejectReason(), is(SendRejectReason.CONNECTION_BLOCKED));
+        assertThat(producer.getHeldCount(), is(10));
+        assertThat(broker.getPublishedMessages(), is(0L));
+
+        broker.unblockConnections();
+        for (AmqpSendResult result : held) {
+            assertThat(result.isRejected(), is(false));
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+        assertThat(producer.getHeldCount(), is(0));
+    }
+
+    @Test
+    public void connectionBlocked_BacklogDrainedAtRateTest() throws Exception {
+        producer = createProducer(16, 0, 100, 200);
+        producer.open();
+        broker.blockConnections("low on memory");
+        List<AmqpSendResult> held = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            held.add(producer.sendAsync("corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>()));
+        }
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        broker.unblockConnections();
+        for (AmqpSendResult result : held) {
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+
+        // 100 messages at 200/s take about 0.5s
+        assertThat(System.nanoTime() - start, greaterThan(TimeUnit.MILLISECONDS.toNanos(400)));
+    }
+
+    @Test
+    public void connectionBlocked_CloseFailsHeldMessagesTest() throws Exception {
+        producer = createProducer(16, 0, 10, 1000);
+        producer.open();
+        broker.blockConnections("low on memory");
+        AmqpSendResult result = producer.sendAsync("corr-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+
+        producer.close();
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is(false));
+        assertThat(producer.getHeldCount(), is(0));
+    }
+
+    @Test
+    public void outbox_TicketAppendedBeforeQueueingAndSettledOnConfirmTest() throws Exception {
+        TicketOutbox outbox = mock(TicketOutbox.class);
+        when(outbox.append(eq("corr-1"), eq(CONTENT))).thenReturn(7L);
+        producer = createProducer(16, 0);
+        producer.setOutbox(outbox);
+        producer.open();
+
+        AmqpSendResult result = producer.sendAsync("corr-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+
+        assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        verify(outbox).settle(7L, true);
+    }
+
+    @Test
+    public void outbox_RejectedTicketSettledAsFailedTest() throws Exception {
+        TicketOutbox outbox = mock(TicketOutbox.class);
+        when(outbox.append(anyString(), eq(CONTENT))).thenReturn(3L);
+        producer = createProducer(16, 0);
+        producer.setOutbox(outbox);
+        producer.open();
+        broker.blockConnections("low on memory");
+
+        AmqpSendResult result = producer.sendAsync("corr-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+
+        assertThat(result.isRejected(), is(true));
+        verify(outbox).settle(3L, false);
+    }
+
+    @Test
+    public void outbox_SetAfterOpenTest() {
+        producer = createProducer(16, 0);
+        producer.open();
+
+        thrown.expect(IllegalStateException.class);
+        producer.setOutbox(mock(TicketOutbox.class));
+    }
+
+    @Test
+    public void sendOrderedBatchAsync_QueuedTogetherAndConfirmedTest() throws Exception {
+        producer = createProducer(16, 5);
+        producer.open();
+        List<AmqpOutgoingMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            messages.add(new AmqpOutgoingMessage("ticket-" + i, "corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY));
+        }
+
+        List<AmqpSendResult> results = producer.sendOrderedBatchAsync(messages, new HashMap<>());
+
+        assertThat(results.size(), is(messages.size()));
+        for (AmqpSendResult result : results) {
+            assertThat(result.isRejected(), is(false));
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+        PublishStatistics statistics = producer.getPublishStatistics();
+        assertThat(statistics.getPublishedMessageCount(), is((long) messages.size()));
+        assertThat(statistics.getPublishedBatchCount(), lessThan((long) messages.size()));
+    }
+
+    @Test
+    public void sendOrderedBatchAsync_ConnectionBlockedRejectsEachTest() throws Exception {
+        producer = createProducer(16, 0);
+        producer.open();
+        broker.blockConnections("low on memory");
+        List<AmqpOutgoingMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            messages.add(new AmqpOutgoingMessage("ticket-" + i, "corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY));
+        }
+
+        List<AmqpSendResult> results = producer.sendOrderedBatchAsync(messages, new HashMap<>());
+
+        assertThat(results.size(), is(3));
+        for (AmqpSendResult result : results) {
+            assertThat(result.getRejectReason(), is(SendRejectReason.CONNECTION_BLOCKED));
+        }
+    }
+
+    @Test
+    public void sendOrderedBatchAsync_LargerThanBufferQueuedInChunksTest() throws Exception {
+        producer = createProducer(16, 0, 64, ProducerOverflowPolicy.BLOCK, 10000, 0, 1000);
+        producer.open();
+        List<AmqpOutgoingMessage> messages = getMessages(300);
+
+        List<AmqpSendResult> results = producer.sendOrderedBatchAsync(messages, new HashMap<>());
+
+        assertThat(results.size(), is(300));
+        for (AmqpSendResult result : results) {
+            assertThat(result.isRejected(), is(false));
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+        assertThat(producer.getPublishStatistics().getPublishedMessageCount(), is(300L));
+    }
+
+    @Test
+    public void sendOrderedBatchAsync_LargerThanBufferRejectsRestAfterFullChunkTest() throws Exception {
+        producer = createProducer(16, 0, 64, ProducerOverflowPolicy.REJECT, 0, 0, 1000);
+        producer.open();
+        List<AmqpOutgoingMessage> messages = getMessages(300);
+
+        List<AmqpSendResult> results = producer.sendOrderedBatchAsync(messages, new HashMap<>());
+
+        // no gaps: once a chunk finds the buffer full, every later message is rejected too
+        int queued = 0;
+        while (queued < results.size() && !results.get(queued).isRejected()) {
+            queued++;
+        }
+        assertThat(queued % 64, is(0));
+        assertThat(queued, greaterThan(0));
+        for (int i = queued; i < results.size(); i++) {
+            assertThat(results.get(i).getRejectReason(), is(SendRejectReason.BUFFER_FULL));
+        }
+        for (int i = 0; i < queued; i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    @Test
+    public void invalidBatchSizeTest() {
+        thrown.expect(IllegalArgumentException.class);
+        createProducer(0, 0);
+    }
+
+    private RabbitMqProducer createProducer(int publishBatchSize, int publishLingerMillis) {
+        return createProducer(publishBatchSize, publishLingerMillis, 0, 1000);
+    }
+
+    private RabbitMqProducer createProducer(int publishBatchSize,
+                                            int publishLingerMillis,
+                                            int blockedHoldLimit,
+                                            int blockedDrainRate) {
+        return createProducer(publishBatchSize, publishLingerMillis, MESSAGE_COUNT * 2, ProducerOverflowPolicy.REJECT, 0, blockedHoldLimit, blockedDrainRate);
+    }
+
+    private RabbitMqProducer createProducer(int publishBatchSize,
+                                            int publishLingerMillis,
+                                            int maxBufferSize,
+                                            ProducerOverflowPolicy overflowPolicy,
+                                            long overflowTimeoutMillis,
+                                            int blockedHoldLimit,
+                                            int blockedDrainRate) {
+        return new RabbitMqProducer(broker,
+                "test-producer",
+                mqCluster,
+                "test-exchange",
+                ExchangeType.FANOUT,
+                1,
+                maxBufferSize,
+                1,
+                true,
+                true,
+                true,
+                publishBatchSize,
+                publishLingerMillis,
+                overflowPolicy,
+                overflowTimeoutMillis,
+                0,
+                blockedHoldLimit,
+                blockedDrainRate);
+    }
+
+    private static List<AmqpOutgoingMessage> getMessages(int count) {
+        List<AmqpOutgoingMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(new AmqpOutgoingMessage("ticket-" + i, "corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY));
+        }
+        return messages;
+    }
+
+    private static void sendAndAwaitConfirms(RabbitMqProducer producer) throws Exception {
+        List<AmqpSendResult> results = new ArrayList<>(MESSAGE_COUNT);
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            results.add(producer.sendAsync("corr-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>()));
+        }
+        for (AmqpSendResult result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+}
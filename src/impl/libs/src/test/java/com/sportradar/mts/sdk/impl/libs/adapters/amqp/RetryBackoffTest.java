@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RetryBackoffTest extends TimeLimitedTestBase {
+
+    @Test
+    public void doubledUpToMaxTest() {
+        RetryBackoff backoff = new RetryBackoff(100L, 1000L);
+
+        assertThat(backoff.nanosBefore(1), is(TimeUnit.MILLISECONDS.toNanos(100L)));
+        assertThat(backoff.nanosBefore(2), is(TimeUnit.MILLISECONDS.toNanos(200L)));
+        assertThat(backoff.nanosBefore(4), is(TimeUnit.MILLISECONDS.toNanos(800L)));
+        assertThat(backoff.nanosBefore(5), is(TimeUnit.MILLISECONDS.toNanos(1000L)));
+        assertThat(backoff.nanosBefore(Integer.MAX_VALUE), is(TimeUnit.MILLISECONDS.toNanos(1000L)));
+    }
+
+    @Test
+    public void jittered_BetweenHalfAndFullWaitTest() {
+        RetryBackoff backoff = new RetryBackoff(100L, 1000L);
+
+        for (int i = 0; i < 1_000; i++) {
+            long wait = backoff.jitteredNanosBefore(3);
+            assertThat(wait >= TimeUnit.MILLISECONDS.toNanos(200L), is(true));
+            assertThat(wait <= TimeUnit.MILLISECONDS.toNanos(400L), is(true));
+        }
+    }
+
+    @Test
+    public void zeroBase_RetriedAtOnceTest() {
+        assertThat(new RetryBackoff(0L, 1000L).nanosBefore(10), is(0L));
+    }
+
+    @Test
+    public void maxBelowBaseTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new RetryBackoff(100L, 99L);
+    }
+}
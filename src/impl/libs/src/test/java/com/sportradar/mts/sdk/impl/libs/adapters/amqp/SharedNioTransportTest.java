@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Channel;
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SharedNioTransportTest extends TimeLimitedTestBase {
+
+    private LocalAmqpEndpoint endpoint;
+    private final List<ChannelFactoryProviderImpl> providers = new ArrayList<>();
+    private final List<ChannelWrapper> channels = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        endpoint = new LocalAmqpEndpoint();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (ChannelWrapper channel : channels) {
+            channel.close();
+        }
+        providers.forEach(ChannelFactoryProviderImpl::unregisterInstance);
+        endpoint.close();
+    }
+
+    @Test
+    public void nioEnabled_PublishConfirmedTest() throws Exception {
+        Channel channel = openChannel(true, 1);
+
+        channel.confirmSelect();
+        channel.basicPublish("test-exchange", "key", null, new byte[]{1, 2, 3});
+
+        assertThat(channel.waitForConfirms(5000L), is(true));
+        assertThat(endpoint.getPublishedMessages(), is(1L));
+    }
+
+    @Test
+    public void nioEnabled_TransportSharedByInstancesTest() throws Exception {
+        openChannel(true, 3);
+        int sharedTransports = SharedNioTransport.getFrameHandlerFactoryCount();
+
+        openChannel(true, 3);
+        openChannel(true, 3);
+
+        assertThat(endpoint.getConnectionCount(), is(3L));
+        assertThat(SharedNioTransport.getFrameHandlerFactoryCount(), is(sharedTransports));
+    }
+
+    @Test
+    public void nioDisabled_BlockingTransportTest() throws Exception {
+        int sharedTransports = SharedNioTransport.getFrameHandlerFactoryCount();
+        Channel channel = openChannel(false, 1);
+
+        channel.confirmSelect();
+        channel.basicPublish("test-exchange", "key", null, new byte[]{1});
+
+        assertThat(channel.waitForConfirms(5000L), is(true));
+        assertThat(SharedNioTransport.getFrameHandlerFactoryCount(), is(sharedTransports));
+    }
+
+    @Test
+    public void invalidNioThreadsTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new ChannelFactoryProviderImpl(1, new ConnectionStatusImpl(), 256, 0, true, 0);
+    }
+
+    private Channel openChannel(boolean nioEnabled, int nioThreads) throws Exception {
+        ChannelFactoryProviderImpl provider = new ChannelFactoryProviderImpl(1, new ConnectionStatusImpl(), 256, 0, nioEnabled, nioThreads);
+        provider.registerInstance();
+        providers.add(provider);
+        ChannelWrapper channel = provider.getChannelFactory(endpoint.getCluster()).getChannel();
+        channels.add(channel);
+        return channel.getChannel();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SharedPublisherLoopTest extends TimeLimitedTestBase {
+
+    private static final int MESSAGE_COUNT = 200;
+    private static final byte[] CONTENT = "ticket".getBytes();
+
+    private LocalBrokerStandIn broker;
+    private AmqpCluster mqCluster;
+    private SharedPublisherLoop loop;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(0L, TimeUnit.MICROSECONDS.toNanos(200));
+        mqCluster = AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10);
+        loop = new SharedPublisherLoop(broker, mqCluster, 1, 16);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        loop.close();
+        broker.close();
+    }
+
+    @Test
+    public void twoProducers_AllMessagesConfirmedTest() throws Exception {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit");
+        RabbitMqProducer cancelProducer = createProducer("cancel-producer", "test-Control");
+        ticketProducer.open();
+        cancelProducer.open();
+
+        List<AmqpSendResult> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            results.add(ticketProducer.sendAsync("ticket-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>()));
+            results.add(cancelProducer.sendAsync("cancel-" + i, CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>()));
+        }
+        for (AmqpSendResult result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+
+        assertThat(broker.getPublishedMessages(), is((long) MESSAGE_COUNT * 2));
+        assertThat(ticketProducer.getPublishStatistics().getPublishedMessageCount(), is((long) MESSAGE_COUNT));
+        assertThat(cancelProducer.getPublishStatistics().getPublishedMessageCount(), is((long) MESSAGE_COUNT));
+        assertThat(loop.getProducerCount(), is(2));
+        ticketProducer.close();
+        cancelProducer.close();
+    }
+
+    @Test
+    public void producersDoNotStartThreadsTest() {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit");
+        RabbitMqProducer cancelProducer = createProducer("cancel-producer", "test-Control");
+        ticketProducer.open();
+        cancelProducer.open();
+
+        assertThat(countThreads("rabbitmq-ticket-producer-thread-"), is(0));
+        assertThat(countThreads("rabbitmq-cancel-producer-thread-"), is(0));
+        assertThat(countThreads("rabbitmq-shared-publisher-thread-"), is(1));
+        ticketProducer.close();
+        cancelProducer.close();
+    }
+
+    @Test
+    public void lastProducerClosed_LoopClosedTest() {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit");
+        RabbitMqProducer cancelProducer = createProducer("cancel-producer", "test-Control");
+        ticketProducer.open();
+        cancelProducer.open();
+        assertThat(loop.isOpen(), is(true));
+
+        ticketProducer.close();
+        assertThat(loop.isOpen(), is(true));
+        assertThat(loop.getProducerCount(), is(1));
+
+        cancelProducer.close();
+        assertThat(loop.isOpen(), is(false));
+        assertThat(loop.getProducerCount(), is(0));
+    }
+
+    @Test
+    public void messageSentBeforeClose_PublishedTest() throws Exception {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit");
+        ticketProducer.open();
+
+        AmqpSendResult result = ticketProducer.sendAsync("ticket-1", CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, new HashMap<>());
+        ticketProducer.close();
+
+        assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        assertThat(broker.getPublishedMessages(), is(1L));
+    }
+
+    @Test
+    public void setPublisherLoopOnOpenProducerTest() {
+        RabbitMqProducer ticketProducer = createProducer("ticket-producer", "test-Submit", false);
+        ticketProducer.open();
+
+        thrown.expect(IllegalStateException.class);
+        try {
+            ticketProducer.setPublisherLoop(loop);
+        } finally {
+            ticketProducer.close();
+        }
+    }
+
+    private RabbitMqProducer createProducer(String name, String exchangeName) {
+        return createProducer(name, exchangeName, true);
+    }
+
+    private RabbitMqProducer createProducer(String name, String exchangeName, boolean useLoop) {
+        RabbitMqProducer producer = new RabbitMqProducer(broker,
+                name,
+                mqCluster,
+                exchangeName,
+                ExchangeType.TOPIC,
+                1,
+                MESSAGE_COUNT * 2,
+                1,
+                true,
+                true,
+                true,
+                16,
+                0,
+                ProducerOverflowPolicy.REJECT,
+                0,
+                0,
+                0,
+                1000);
+        if (useLoop) {
+            producer.setPublisherLoop(loop);
+        }
+        return producer;
+    }
+
+    private static int countThreads(String namePrefix) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(namePrefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
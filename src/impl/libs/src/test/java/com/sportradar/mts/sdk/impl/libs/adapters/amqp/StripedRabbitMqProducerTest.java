@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class StripedRabbitMqProducerTest extends TimeLimitedTestBase {
+
+    private static final int STRIPES = 4;
+    private static final int TICKETS = 50;
+    private static final int MESSAGES_PER_TICKET = 10;
+    private static final byte[] CONTENT = "ticket".getBytes();
+
+    private LocalBrokerStandIn broker;
+    private StripedRabbitMqProducer producer;
+
+    @Before
+    public void setUp() {
+        broker = new LocalBrokerStandIn(0L, TimeUnit.MICROSECONDS.toNanos(200));
+        producer = new StripedRabbitMqProducer(broker,
+                "test-producer",
+                AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10),
+                "test-exchange",
+                ExchangeType.FANOUT,
+                1,
+                TICKETS * MESSAGES_PER_TICKET,
+                STRIPES,
+                true,
+                true,
+                true,
+                8,
+                0,
+                ProducerOverflowPolicy.REJECT,
+                0,
+                0,
+                0,
+                1000);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        producer.close();
+        broker.close();
+    }
+
+    @Test
+    public void orderedMessages_KeepOrderPerTicketTest() throws Exception {
+        broker.recordPublishedCorrelationIds();
+        producer.open();
+
+        List<AmqpSendResult> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGES_PER_TICKET; i++) {
+            for (int t = 0; t < TICKETS; t++) {
+                results.add(producer.sendOrderedAsync("ticket-" + t,
+                        "ticket-" + t + ":" + i,
+                        CONTENT,
+                        AmqpProducer.DEFAULT_ROUTING_KEY,
+                        new HashMap<>()));
+            }
+        }
+        for (AmqpSendResult result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+        }
+
+        Map<String, Integer> lastSequence = new HashMap<>();
+        List<String> published = broker.getPublishedCorrelationIds();
+        assertThat(published.size(), is(TICKETS * MESSAGES_PER_TICKET));
+        for (String correlationId : published) {
+            String[] parts = correlationId.split(":");
+            int sequence = Integer.parseInt(parts[1]);
+            assertThat(sequence, is(lastSequence.getOrDefault(parts[0], -1) + 1));
+            lastSequence.put(parts[0], sequence);
+        }
+        for (PublishStatistics statistics : producer.getPublishStatistics()) {
+            assertThat(statistics.getPublishedMessageCount(), greaterThan(0L));
+        }
+    }
+
+    @Test
+    public void stripeFor_SameKeySameStripeTest() {
+        assertThat(producer.stripeFor("ticket-1"), sameInstance(producer.stripeFor("ticket-1")));
+
+        Set<RabbitMqProducer> unkeyed = new HashSet<>();
+        for (int i = 0; i < STRIPES; i++) {
+            unkeyed.add(producer.stripeFor(null));
+        }
+        assertThat(unkeyed.size(), is(STRIPES));
+    }
+
+    @Test
+    public void openAndClose_AllStripesTest() {
+        producer.open();
+        assertThat(producer.isOpen(), is(true));
+        assertThat(producer.getStripeCount(), is(STRIPES));
+
+        producer.close();
+        assertThat(producer.isOpen(), is(false));
+    }
+
+    @Test
+    public void invalidStripeCountTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new StripedRabbitMqProducer(broker,
+                "test-producer",
+                AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10),
+                "test-exchange",
+                ExchangeType.FANOUT,
+                1,
+                10,
+                0,
+                true,
+                true,
+                true,
+                1,
+                0,
+                ProducerOverflowPolicy.REJECT,
+                0,
+                0,
+                0,
+                1000);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.outbox.DisabledTicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.outbox.MappedTicketOutbox;
+import com.sportradar.mts.sdk.impl.libs.outbox.TicketOutbox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures what the {@link MappedTicketOutbox} costs: the raw append + settle rate, and the {@link RabbitMqProducer}
+ * throughput with and without the outbox against the {@link LocalBrokerStandIn}. Not part of the unit tests; run the
+ * main method (optionally with <code>messages senderThreads</code> arguments).
+ */
+public final class TicketOutboxBenchmark {
+
+    private static final byte[] CONTENT = new byte[512];
+    private static final Map<String, Object> HEADERS = Collections.singletonMap("replyRoutingKey", "node1.ticket.confirm");
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private TicketOutboxBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int senderThreads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final Path directory = Files.createTempDirectory("ticket-outbox-benchmark");
+        try {
+            // warm-up
+            appendAndSettle(directory, messages);
+            publish(new DisabledTicketOutbox(), messages / 10, senderThreads);
+            publish(new MappedTicketOutbox(directory, SEGMENT_SIZE), messages / 10, senderThreads);
+
+            System.out.println(appendAndSettle(directory, messages * 5));
+            System.out.println("no outbox:     " + publish(new DisabledTicketOutbox(), messages, senderThreads));
+            System.out.println("mapped outbox: " + publish(new MappedTicketOutbox(directory, SEGMENT_SIZE), messages, senderThreads));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TicketOutboxBenchmark::deleteQuietly);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static String appendAndSettle(Path directory, int messages) {
+        try (MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE)) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                outbox.settle(outbox.append("corr-" + i, CONTENT), true);
+            }
+            final long elapsedNanos = System.nanoTime() - start;
+            return String.format("append+settle: %,10.0f entries/s, %.0fns/entry",
+                    messages / (elapsedNanos / 1e9),
+                    (double) elapsedNanos / messages);
+        }
+    }
+
+    private static String publish(TicketOutbox outbox, int messages, int senderThreads) throws Exception {
+        try (LocalBrokerStandIn broker = new LocalBrokerStandIn(TimeUnit.MICROSECONDS.toNanos(2), TimeUnit.MICROSECONDS.toNanos(100))) {
+            final RabbitMqProducer producer = new RabbitMqProducer(broker,
+                    "benchmark-producer",
+                    AmqpCluster.from("username", "password", "vhost", false, new NetworkAddress("localhost"), 10),
+                    "benchmark-exchange",
+                    ExchangeType.FANOUT,
+                    1,
+                    4096,
+                    1,
+                    true,
+                    true,
+                    true,
+                    64,
+                    0,
+                    ProducerOverflowPolicy.REJECT,
+                    0,
+                    0,
+                    0,
+                    1000);
+            producer.setOutbox(outbox);
+            producer.open();
+
+            final CountDownLatch confirmed = new CountDownLatch(messages);
+            final int perThread = messages / senderThreads;
+            final Thread[] senders = new Thread[senderThreads];
+            final long start = System.nanoTime();
+            for (int t = 0; t < senderThreads; t++) {
+                final int count = (t == senderThreads - 1) ? messages - perThread * (senderThreads - 1) : perThread;
+                final int first = t * perThread;
+                senders[t] = new Thread(() -> {
+                    for (int i = 0; i < count; i++) {
+                        while (!producer.sendAsync("corr-" + (first + i), CONTENT, AmqpProducer.DEFAULT_ROUTING_KEY, HEADERS, r -> confirmed.countDown())) {
+                            Thread.yield();
+                        }
+                    }
+                }, "benchmark-sender-" + t);
+                senders[t].start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            if (!confirmed.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("not all messages confirmed");
+            }
+            final long elapsedNanos = System.nanoTime() - start;
+            producer.close();
+            outbox.close();
+            final PublishStatistics statistics = producer.getPublishStatistics();
+            return String.format("%,10.0f msg/s, avgConfirm=%.3fms, maxConfirm=%.3fms",
+                    messages / (elapsedNanos / 1e9),
+                    statistics.getAverageConfirmLatencyMillis(),
+                    statistics.getMaxConfirmLatencyMillis());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+}
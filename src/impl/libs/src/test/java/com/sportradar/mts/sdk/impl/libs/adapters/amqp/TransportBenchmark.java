@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.adapters.amqp;
+
+import com.rabbitmq.client.Channel;
+import com.sportradar.mts.sdk.api.impl.ConnectionStatusImpl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the blocking and the NIO transport of the connections to the broker for many SDK instances in one JVM (one
+ * {@link ChannelFactoryProviderImpl} and connection each) against the {@link LocalAmqpEndpoint}: the client threads
+ * per instance, the CPU time of the client threads and the publish-to-confirm latency of messages published one at a
+ * time by every instance concurrently. Not part of the unit tests; run the main method (optionally with
+ * <code>instances messagesPerInstance nioThreads</code> arguments).
+ */
+public final class TransportBenchmark {
+
+    private static final byte[] CONTENT = new byte[512];
+    private static final String SENDER_PREFIX = "benchmark-sender-";
+
+    private TransportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int instances = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        final int messages = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        final int nioThreads = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        // warm-up
+        run(false, instances, messages / 10, nioThreads);
+        run(true, instances, messages / 10, nioThreads);
+
+        System.out.println(run(false, instances, messages, nioThreads));
+        System.out.println(run(true, instances, messages, nioThreads));
+        System.exit(0);
+    }
+
+    private static String run(boolean nioEnabled, int instances, int messages, int nioThreads) throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        try (LocalAmqpEndpoint endpoint = new LocalAmqpEndpoint()) {
+            final int threadsBefore = clientThreadCount();
+
+            final List<ChannelFactoryProviderImpl> providers = new ArrayList<>();
+            final List<ChannelWrapper> channels = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                final ChannelFactoryProviderImpl provider = new ChannelFactoryProviderImpl(1,
+                                                                                           new ConnectionStatusImpl(),
+                                                                                           256,
+                                                                                           0,
+                                                                                           nioEnabled,
+                                                                                           nioThreads);
+                provider.registerInstance();
+                providers.add(provider);
+                final ChannelWrapper channel = provider.getChannelFactory(endpoint.getCluster()).getChannel();
+                channel.getChannel().confirmSelect();
+                channels.add(channel);
+            }
+            final int threadsConnected = clientThreadCount();
+
+            final long[][] latencies = new long[instances][messages];
+            final CountDownLatch done = new CountDownLatch(instances);
+            // with the blocking transport the senders write to the socket themselves, their CPU time counts as well
+            final AtomicLong senderCpuNanos = new AtomicLong();
+            final long cpuBefore = clientCpuNanos(threadBean);
+            final long start = System.nanoTime();
+            for (int i = 0; i < instances; i++) {
+                final Channel channel = channels.get(i).getChannel();
+                final long[] instanceLatencies = latencies[i];
+                final Thread sender = new Thread(() -> {
+                    try {
+                        for (int m = 0; m < messages; m++) {
+                            final long sent = System.nanoTime();
+                            channel.basicPublish("benchmark-exchange", "key", null, CONTENT);
+                            channel.waitForConfirmsOrDie(10_000L);
+                            instanceLatencies[m] = System.nanoTime() - sent;
+                        }
+                    } catch (Exception exc) {
+                        exc.printStackTrace();
+                    } finally {
+                        senderCpuNanos.addAndGet(threadBean.getCurrentThreadCpuTime());
+                        done.countDown();
+                    }
+                }, SENDER_PREFIX + i);
+                sender.start();
+            }
+            done.await();
+            final long elapsedNanos = System.nanoTime() - start;
+            final long cpuNanos = clientCpuNanos(threadBean) - cpuBefore + senderCpuNanos.get();
+
+            for (ChannelWrapper channel : channels) {
+                channel.close();
+            }
+            providers.forEach(ChannelFactoryProviderImpl::unregisterInstance);
+
+            final long[] all = new long[instances * messages];
+            for (int i = 0; i < instances; i++) {
+                System.arraycopy(latencies[i], 0, all, i * messages, messages);
+            }
+            Arrays.sort(all);
+            return String.format("transport=%s, instances=%d, messages=%d, clientThreads=%d (%.1f per instance), "
+                                         + "clientCpuMs=%d, elapsedMs=%d, latencyUs p50=%d p99=%d max=%d",
+                                 nioEnabled ? "nio(" + nioThreads + ")" : "blocking",
+                                 instances,
+                                 endpoint.getPublishedMessages(),
+                                 threadsConnected - threadsBefore,
+                                 (threadsConnected - threadsBefore) / (double) instances,
+                                 TimeUnit.NANOSECONDS.toMillis(cpuNanos),
+                                 TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                                 TimeUnit.NANOSECONDS.toMicros(all[all.length / 2]),
+                                 TimeUnit.NANOSECONDS.toMicros(all[(int) (all.length * 0.99)]),
+                                 TimeUnit.NANOSECONDS.toMicros(all[all.length - 1]));
+        }
+    }
+
+    /**
+     * Counts the live threads, except the ones of the endpoint and of the benchmark senders
+     */
+    private static int clientThreadCount() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && isClientThread(thread)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums the CPU time of the live threads, except the ones of the endpoint and of the benchmark senders
+     */
+    private static long clientCpuNanos(ThreadMXBean threadBean) {
+        long total = 0L;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (isClientThread(thread)) {
+                total += Math.max(0L, threadBean.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+
+    private static boolean isClientThread(Thread thread) {
+        return !thread.getName().startsWith(LocalAmqpEndpoint.THREAD_PREFIX) && !thread.getName().startsWith(SENDER_PREFIX);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.sportradar.mts.sdk.api.SdkTicket;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class InFlightTrackerTest extends TimeLimitedTestBase {
+
+    private ScheduledExecutorService executor;
+    private InFlightTracker<SdkTicket> tracker;
+    private BlockingQueue<SdkTicket> evicted;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        tracker = new InFlightTracker<>(executor, 3, 1000);
+        evicted = new ArrayBlockingQueue<>(10);
+        tracker.setEvictionListener(evicted::add);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void addRemove_GaugesTest() throws InterruptedException {
+        assertThat(tracker.size(), is(0));
+        assertThat(tracker.getOldestAgeMillis(), is(0L));
+
+        SdkTicket ticket = getTicket("correlation-1");
+        tracker.add(ticket);
+        tracker.add(getTicket("correlation-2"));
+        Thread.sleep(20);
+
+        assertThat(tracker.size(), is(2));
+        assertThat(tracker.getOldestAgeMillis(), greaterThanOrEqualTo(20L));
+        assertThat(tracker.remove("correlation-1"), is(ticket));
+        assertThat(tracker.remove("correlation-1"), is(nullValue()));
+        assertThat(tracker.remove(null), is(nullValue()));
+        assertThat(tracker.size(), is(1));
+    }
+
+    @Test
+    public void limitReached_OldestEvictedTest() {
+        SdkTicket oldest = getTicket("correlation-1");
+        tracker.add(oldest);
+        tracker.add(getTicket("correlation-2"));
+        tracker.add(getTicket("correlation-3"));
+
+        tracker.add(getTicket("correlation-4"));
+
+        assertThat(tracker.size(), is(3));
+        assertThat(evicted.poll(), is(oldest));
+        assertThat(evicted.isEmpty(), is(true));
+        assertThat(tracker.remove("correlation-1"), is(nullValue()));
+    }
+
+    @Test
+    public void limitReached_RemovedNotEvictedTest() {
+        tracker.add(getTicket("correlation-1"));
+        SdkTicket second = getTicket("correlation-2");
+        tracker.add(second);
+        tracker.add(getTicket("correlation-3"));
+        tracker.remove("correlation-1");
+
+        tracker.add(getTicket("correlation-4"));
+        tracker.add(getTicket("correlation-5"));
+
+        assertThat(tracker.size(), is(3));
+        assertThat(evicted.poll(), is(second));
+        assertThat(evicted.isEmpty(), is(true));
+    }
+
+    @Test
+    public void sweep_OlderThanMaxAgeEvictedTest() {
+        SdkTicket ticket = getTicket("correlation-1");
+        tracker.add(ticket);
+        tracker.add(getTicket("correlation-2"));
+        tracker.remove("correlation-2");
+
+        tracker.sweep(System.nanoTime());
+        assertThat(evicted.isEmpty(), is(true));
+
+        tracker.sweep(System.nanoTime() + TimeUnit.SECONDS.toNanos(2));
+        assertThat(evicted.poll(), is(ticket));
+        assertThat(evicted.isEmpty(), is(true));
+        assertThat(tracker.size(), is(0));
+        assertThat(tracker.getOldestAgeMillis(), is(0L));
+    }
+
+    @Test
+    public void sweep_ScheduledWhileInFlightTest() throws InterruptedException {
+        SdkTicket ticket = getTicket("correlation-1");
+        long added = System.nanoTime();
+        tracker.add(ticket);
+
+        assertThat(evicted.poll(5, TimeUnit.SECONDS), is(ticket));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - added), greaterThanOrEqualTo(1000L));
+        assertThat(tracker.size(), is(0));
+    }
+
+    @Test
+    public void concurrentAddRemove_NothingEvictedTest() throws InterruptedException {
+        tracker = new InFlightTracker<>(executor, 500000, 60000);
+        tracker.setEvictionListener(evicted::add);
+        final int threads = 4;
+        final int messages = 50000;
+        final List<List<SdkTicket>> tickets = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<SdkTicket> threadTickets = new ArrayList<>();
+            for (int i = 0; i < messages; i++) {
+                threadTickets.add(getTicket(t + "-" + i));
+            }
+            tickets.add(threadTickets);
+        }
+
+        final CountDownLatch done = new CountDownLatch(threads * 2);
+        for (int t = 0; t < threads; t++) {
+            final List<SdkTicket> threadTickets = tickets.get(t);
+            new Thread(() -> {
+                threadTickets.forEach(tracker::add);
+                done.countDown();
+            }).start();
+            new Thread(() -> {
+                for (SdkTicket ticket : threadTickets) {
+                    while (tracker.remove(ticket.getCorrelationId()) == null) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertThat(done.await(20, TimeUnit.SECONDS), is(true));
+        assertThat(tracker.size(), is(0));
+        assertThat(tracker.getOldestAgeMillis(), is(0L));
+        assertThat(evicted.isEmpty(), is(true));
+    }
+
+    @Test
+    public void invalidLimitTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new InFlightTracker<SdkTicket>(executor, 0, 1000);
+    }
+
+    private static SdkTicket getTicket(String correlationId) {
+        return new InFlightTicket(correlationId);
+    }
+
+    /**
+     * A minimal ticket, cheaper than a mock when many are needed
+     */
+    private static final class InFlightTicket implements SdkTicket {
+
+        private final String correlationId;
+
+        InFlightTicket(String correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public String getTicketId() {
+            return "ticket-" + correlationId;
+        }
+
+        @Override
+        public Date getTimestampUtc() {
+            return null;
+        }
+
+        @Override
+        public String getVersion() {
+            return null;
+        }
+
+        @Override
+        public String getCorrelationId() {
+            return correlationId;
+        }
+
+        @Override
+        public String getJsonValue() {
+            return null;
+        }
+    }
+}
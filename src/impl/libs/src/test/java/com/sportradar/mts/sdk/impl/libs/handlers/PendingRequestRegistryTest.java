@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.sportradar.mts.sdk.api.SdkTicket;
+import com.sportradar.mts.sdk.api.interfaces.TicketResponseTimeoutListener;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PendingRequestRegistryTest extends TimeLimitedTestBase {
+
+    private ScheduledExecutorService executor;
+    private PendingRequestRegistry<SdkTicket, String> registry;
+    private BlockingQueue<Long> timedOutAt;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        registry = new PendingRequestRegistry<>(executor, 100, 200, true);
+        timedOutAt = new ArrayBlockingQueue<>(10);
+        registry.setResponseTimeoutListener(new TicketResponseTimeoutListener<SdkTicket>() {
+            @Override
+            public void onTicketResponseTimedOut(SdkTicket ticket) {
+                timedOutAt.add(System.nanoTime());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void asyncTicket_TimedOutCloseToDeadlineTest() throws InterruptedException {
+        long sent = System.nanoTime();
+        registry.onAsyncTicketSent(getTicket("correlation-1"));
+
+        Long timedOut = timedOutAt.poll(5, TimeUnit.SECONDS);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(timedOut - sent);
+        assertThat(elapsedMillis, greaterThanOrEqualTo(100L));
+        // within two ticks (50ms) of the deadline
+        assertThat(elapsedMillis, lessThan(250L));
+        assertThat(registry.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void asyncTicket_TimedOutWhileListenerBlockedTest() throws InterruptedException {
+        ExecutorService listenerExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            registry = new PendingRequestRegistry<>(executor, listenerExecutor, 50, 50, true);
+            registry.setResponseTimeoutListener(new TicketResponseTimeoutListener<SdkTicket>() {
+                @Override
+                public void onTicketResponseTimedOut(SdkTicket ticket) {
+                    timedOutAt.add(System.nanoTime());
+                    // like a listener sending a message and waiting for its permit
+                    awaitUninterruptibly(release);
+                }
+            });
+            registry.onAsyncTicketSent(getTicket("correlation-1"));
+            assertThat(timedOutAt.poll(5, TimeUnit.SECONDS), is(notNullValue()));
+
+            registry.onAsyncTicketSent(getTicket("correlation-2"));
+            Thread.sleep(200);
+
+            // the listener still blocks, but the timer expired the second ticket
+            assertThat(registry.getPendingCount(), is(0));
+        } finally {
+            release.countDown();
+            listenerExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void asyncTicket_ResponseCancelsTimeoutTest() throws InterruptedException {
+        registry.onAsyncTicketSent(getTicket("correlation-1"));
+
+        assertThat(registry.onTicketResponseReceived("correlation-1", null, "response"), is(false));
+
+        assertThat(registry.getPendingCount(), is(0));
+        assertThat(timedOutAt.poll(300, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void asyncTicket_PublishFailureCancelsTimeoutTest() throws InterruptedException {
+        registry.onAsyncTicketSent(getTicket("correlation-1"));
+
+        registry.onAsyncPublishFailure("correlation-1");
+
+        assertThat(registry.getPendingCount(), is(0));
+        assertThat(timedOutAt.poll(300, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void blockingTicket_ResponseCompletesSenderTest() throws Exception {
+        CompletableFuture<String> response = registry.onBlockingTicketSent(getTicket("correlation-1"));
+        assertThat(registry.getBlockingPendingCount(), is(1));
+
+        assertThat(registry.onTicketResponseReceived("correlation-1", null, "response"), is(true));
+
+        assertThat(response.get(1, TimeUnit.SECONDS), is("response"));
+        assertThat(registry.getPendingCount(), is(0));
+        assertThat(registry.getBlockingPendingCount(), is(0));
+    }
+
+    @Test
+    public void blockingTicket_MismatchedCorrelationIdMatchedByTicketIdTest() throws Exception {
+        CompletableFuture<String> response = registry.onBlockingTicketSent(getTicket("correlation-1"));
+
+        assertThat(registry.onTicketResponseReceived("not-echoed", "ticket-correlation-1", "response"), is(true));
+
+        assertThat(response.get(1, TimeUnit.SECONDS), is("response"));
+        assertThat(registry.getPendingCount(), is(0));
+        assertThat(registry.getBlockingPendingCount(), is(0));
+    }
+
+    @Test
+    public void asyncTicket_MismatchedCorrelationIdNotMatchedTest() {
+        registry.onAsyncTicketSent(getTicket("correlation-1"));
+
+        assertThat(registry.onTicketResponseReceived("not-echoed", "ticket-correlation-1", "response"), is(false));
+
+        assertThat(registry.getPendingCount(), is(1));
+    }
+
+    @Test
+    public void blockingTicket_CancelledBySenderTest() {
+        CompletableFuture<String> response = registry.onBlockingTicketSent(getTicket("correlation-1"));
+
+        response.cancel(false);
+
+        assertThat(registry.getPendingCount(), is(0));
+        assertThat(registry.getBlockingPendingCount(), is(0));
+        assertThat(registry.onTicketResponseReceived("correlation-1", null, "response"), is(false));
+    }
+
+    @Test
+    public void unknownResponse_DispatchedToListenerTest() {
+        assertThat(registry.onTicketResponseReceived("unknown", null, "response"), is(false));
+        assertThat(registry.onTicketResponseReceived(null, null, "response"), is(false));
+    }
+
+    @Test
+    public void timeoutCallbackDisabled_AsyncTicketNotKeptTest() {
+        registry = new PendingRequestRegistry<>(executor, 100, 200, false);
+
+        registry.onAsyncTicketSent(getTicket("correlation-1"));
+
+        assertThat(registry.getPendingCount(), is(0));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SdkTicket getTicket(String correlationId) {
+        SdkTicket ticket = mock(SdkTicket.class);
+        when(ticket.getCorrelationId()).thenReturn(correlationId);
+        when(ticket.getTicketId()).thenReturn("ticket-" + correlationId);
+        return ticket;
+    }
+}
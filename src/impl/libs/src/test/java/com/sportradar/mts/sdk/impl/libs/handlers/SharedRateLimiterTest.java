@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class SharedRateLimiterTest extends TimeLimitedTestBase {
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void tryAcquire_LaneShareAndSharedBurstTest() {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 10);
+        SharedRateLimiter.Lane ticketLane = limiter.newLane(MessagePriority.NORMAL);
+        SharedRateLimiter.Lane cancelLane = limiter.newLane(MessagePriority.HIGH);
+
+        assertThat(acquireAll(ticketLane), is(9));
+        assertThat(acquireAll(cancelLane), is(1));
+        assertThat(ticketLane.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void tryAcquire_SharedByLanesTest() {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 10);
+        SharedRateLimiter.Lane cancelLane = limiter.newLane(MessagePriority.HIGH);
+        SharedRateLimiter.Lane ackLane = limiter.newLane(MessagePriority.HIGH);
+
+        assertThat(acquireAll(cancelLane), is(10));
+        assertThat(ackLane.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void acquireAsync_GrantedWhenRefilledTest() throws Exception {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 100);
+        SharedRateLimiter.Lane lane = limiter.newLane(MessagePriority.HIGH);
+        acquireAll(lane);
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> first = lane.acquireAsync();
+        CompletableFuture<Void> second = lane.acquireAsync();
+        assertThat(first.isDone(), is(false));
+
+        second.get(1, TimeUnit.SECONDS);
+        assertThat(first.isDone(), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(15L));
+    }
+
+    @Test
+    public void acquireAsync_HighPriorityServedFirstTest() throws Exception {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 20);
+        SharedRateLimiter.Lane ticketLane = limiter.newLane(MessagePriority.NORMAL);
+        SharedRateLimiter.Lane cancelLane = limiter.newLane(MessagePriority.HIGH);
+        acquireAll(cancelLane);
+
+        CompletableFuture<Void> ticket = ticketLane.acquireAsync();
+        CompletableFuture<Void> cancel = cancelLane.acquireAsync();
+        assertThat(ticketLane.tryAcquire(), is(false));
+
+        cancel.get(1, TimeUnit.SECONDS);
+        assertThat(ticket.isDone(), is(false));
+        ticket.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void acquireAsync_CancelledWaiterSkippedTest() throws Exception {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 50);
+        SharedRateLimiter.Lane lane = limiter.newLane(MessagePriority.HIGH);
+        acquireAll(lane);
+
+        CompletableFuture<Void> cancelled = lane.acquireAsync();
+        CompletableFuture<Void> waiting = lane.acquireAsync();
+        cancelled.cancel(false);
+
+        waiting.get(1, TimeUnit.SECONDS);
+        assertThat(lane.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void acquire_BlocksUntilGrantedTest() {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 100);
+        SharedRateLimiter.Lane lane = limiter.newLane(MessagePriority.NORMAL);
+        acquireAll(lane);
+
+        long start = System.nanoTime();
+        lane.acquire();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(5L));
+    }
+
+    @Test
+    public void acquire_OnSchedulerThreadTest() throws Exception {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 100);
+        SharedRateLimiter.Lane lane = limiter.newLane(MessagePriority.HIGH);
+        acquireAll(lane);
+        CompletableFuture<Void> waiting = lane.acquireAsync();
+
+        // like a response listener sending on the thread which dispatches the permits
+        executor.submit(() -> lane.acquire()).get(1, TimeUnit.SECONDS);
+
+        assertThat(waiting.isDone(), is(true));
+    }
+
+    @Test
+    public void acquireMany_WaitsForAllPermitsTest() {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 100);
+        SharedRateLimiter.Lane lane = limiter.newLane(MessagePriority.HIGH);
+        acquireAll(lane);
+
+        long start = System.nanoTime();
+        lane.acquire(5);
+
+        // 5 permits at 100/s
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(45L));
+        assertThat(lane.tryAcquire(), is(false));
+    }
+
+    @Test
+    public void tryAcquireMany_TakesAvailablePermitsTest() {
+        SharedRateLimiter limiter = new SharedRateLimiter(executor, 10);
+        SharedRateLimiter.Lane ticketLane = limiter.newLane(MessagePriority.NORMAL);
+
+        assertThat(ticketLane.tryAcquire(4), is(4));
+        assertThat(ticketLane.tryAcquire(20), is(5));
+        assertThat(ticketLane.tryAcquire(1), is(0));
+    }
+
+    @Test
+    public void invalidRateTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new SharedRateLimiter(executor, 0);
+    }
+
+    private static int acquireAll(SharedRateLimiter.Lane lane) {
+        int acquired = 0;
+        while (lane.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
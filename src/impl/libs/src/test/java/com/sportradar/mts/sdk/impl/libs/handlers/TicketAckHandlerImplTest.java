@@ -19,6 +19,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -45,7 +48,7 @@ public class TicketAckHandlerImplTest {
         ticketId = "ticket-001";
         routingKey = "ack.ticket";
         publisher = mock(AmqpPublisher.class);
-        ackSender = new TicketAckHandlerImpl(publisher, routingKey, executorService, 40, sdkLogger);
+        ackSender = new TicketAckHandlerImpl(publisher, routingKey, executorService, new InFlightTracker<>(mock(ScheduledExecutorService.class), 1000, 60000), new SharedRateLimiter(mock(ScheduledExecutorService.class), 40).newLane(MessagePriority.HIGH), sdkLogger);
         ticketAcknowledgment = getTicketAcknowledgment();
         msg = JsonUtils.serialize(MtsDtoMapper.map(ticketAcknowledgment));
 
@@ -73,6 +76,26 @@ public class TicketAckHandlerImplTest {
         verify(sdkLogger, times(1)).logSendMessage(ticketAckString);
     }
 
+    @Test
+    public void sendFromListenerWhileThrottledTest() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            SharedRateLimiter.Lane lane = new SharedRateLimiter(scheduler, 40).newLane(MessagePriority.HIGH);
+            ackSender = new TicketAckHandlerImpl(publisher, routingKey, scheduler, new InFlightTracker<>(scheduler, 1000, 60000), lane, sdkLogger);
+            ackSender.open();
+            while (lane.tryAcquire()) {
+                // use up the burst
+            }
+
+            // the response listeners run on the scheduler, which also grants the permits
+            scheduler.submit(() -> ackSender.send(ticketAcknowledgment)).get(1, TimeUnit.SECONDS);
+
+            verify(publisher, times(1)).publishAsync(ticketAcknowledgment.getTicketId(), msg, correlationId, routingKey, routingKey);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
 
     private TicketAck getTicketAcknowledgment() {
         return builderFactory.createTicketAckBuilder()
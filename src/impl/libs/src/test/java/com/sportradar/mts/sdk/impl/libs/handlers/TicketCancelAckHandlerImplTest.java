@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -50,7 +51,8 @@ public class TicketCancelAckHandlerImplTest extends TimeLimitedTestBase {
         cancelAckSender = new TicketCancelAckHandlerImpl(publisher,
                                                         routingKey,
                                                         executorService,
-                                                        40,
+                                                        new InFlightTracker<>(mock(ScheduledExecutorService.class), 1000, 60000),
+                                                        new SharedRateLimiter(mock(ScheduledExecutorService.class), 40).newLane(MessagePriority.HIGH),
                                                         sdkLogger);
         ticketCancelAcknowledgment = getTicketCancelAcknowledgment();
         msg = JsonUtils.serialize(MtsDtoMapper.map(ticketCancelAcknowledgment));
@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -55,7 +56,7 @@ public class TicketCancelHandlerImplTest extends TimeLimitedTestBase {
 
         routingKey = "cancel";
         replyRoutingKey = "nodeXY.cancel.confirm";
-        handler = new TicketCancelHandlerImpl(publisher, routingKey, replyRoutingKey, executor, responseTimeoutHandler, 40, 50, sdkLogger);
+        handler = new TicketCancelHandlerImpl(publisher, routingKey, replyRoutingKey, executor, new InFlightTracker<>(mock(ScheduledExecutorService.class), 1000, 60000), responseTimeoutHandler, 40, new SharedRateLimiter(mock(ScheduledExecutorService.class), 50).newLane(MessagePriority.HIGH), sdkLogger);
         ticketCancel = getTicketCancel();
     }
 
@@ -19,6 +19,7 @@ import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -46,7 +47,7 @@ public class TicketCashoutHandlerImplTest extends TimeLimitedTestBase {
         builderFactory = new SdkHelper().getBuilderFactory();
 
         routingKey = "ticket.cashout";
-        handler = new TicketCashoutHandlerImpl(publisher, routingKey, routingKey, executor, responseTimeoutHandler, 40, 50, sdkLogger);
+        handler = new TicketCashoutHandlerImpl(publisher, routingKey, routingKey, executor, new InFlightTracker<>(mock(ScheduledExecutorService.class), 1000, 60000), responseTimeoutHandler, 40, new SharedRateLimiter(mock(ScheduledExecutorService.class), 50).newLane(MessagePriority.NORMAL), sdkLogger);
         ticketCashout = getTicketCashout("ticket-" + StaticRandom.S1000, 1111, 60);
     }
 
@@ -4,11 +4,16 @@
 
 package com.sportradar.mts.sdk.impl.libs.handlers;
 
+import com.sportradar.mts.sdk.api.Bet;
+import com.sportradar.mts.sdk.api.Selection;
+import com.sportradar.mts.sdk.api.Sender;
 import com.sportradar.mts.sdk.api.Ticket;
+import com.sportradar.mts.sdk.api.TicketResponse;
 import com.sportradar.mts.sdk.api.builders.BuilderFactory;
 import com.sportradar.mts.sdk.api.enums.OddsChangeType;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.enums.StakeType;
+import com.sportradar.mts.sdk.api.exceptions.BatchResponseTimeoutException;
 import com.sportradar.mts.sdk.api.exceptions.ResponseTimeoutException;
 import com.sportradar.mts.sdk.api.impl.builders.TicketBuilderImpl;
 import com.sportradar.mts.sdk.api.interfaces.TicketResponseListener;
@@ -18,17 +23,25 @@ import com.sportradar.mts.sdk.api.utils.SdkInfo;
 import com.sportradar.mts.sdk.impl.libs.LoggerTestAppender;
 import com.sportradar.mts.sdk.impl.libs.SdkHelper;
 import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpOutgoingMessage;
+import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpPublishResultListener;
 import com.sportradar.mts.sdk.impl.libs.adapters.amqp.AmqpPublisher;
 import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import com.sportradar.mts.sdk.impl.libs.receivers.TicketResponseWrapper;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 
@@ -52,7 +65,7 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
     private Ticket ticket;
     private static int count;
     private BuilderFactory builderFactory;
-    private ResponseTimeoutHandler<Ticket> responseTimeoutHandler;
+    private ResponseTimeoutHandler<Ticket, TicketResponse> responseTimeoutHandler;
 
     @Before
     public void setUp() {
@@ -60,11 +73,11 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
         executor = mock(ScheduledExecutorService.class);
         sdkLogger = mock(SdkLogger.class);
         listener = mock(TicketResponseListener.class);
-        responseTimeoutHandler = mock(ResponseTimeoutHandler.class);
+        responseTimeoutHandler = new PendingRequestRegistry<>(executor, 50, 150, false);
         builderFactory = new SdkHelper().getBuilderFactory();
 
         routingKey = "ticket";
-        handler = new TicketHandlerImpl(publisher, routingKey, executor, responseTimeoutHandler, 50, 150, 40, sdkLogger);
+        handler = new TicketHandlerImpl(publisher, routingKey, executor, new InFlightTracker<>(executor, 1000, 60000), responseTimeoutHandler, 50, 150, new SharedRateLimiter(executor, 40).newLane(MessagePriority.NORMAL), sdkLogger);
         handler.setListener(listener);
         ticket = getTicket();
         count = 0;
@@ -119,7 +132,7 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
         byte[] msg = JsonUtils.serialize(ticket);
         String correlationId = getFormattedCorrelationId(ticket);
 
-        handler = new TicketHandlerImpl(publisher, routingKey, executor, responseTimeoutHandler, 50, 150, 5, sdkLogger);
+        handler = new TicketHandlerImpl(publisher, routingKey, executor, new InFlightTracker<>(executor, 1000, 60000), responseTimeoutHandler, 50, 150, new SharedRateLimiter(executor, 5).newLane(MessagePriority.NORMAL), sdkLogger);
         handler.setListener(listener);
 
         Map<Integer, Long> invocationTimestampsActual = new HashMap<>();
@@ -204,7 +217,7 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
     @Test
     public void send_OnListenerNullTest() {
 
-        handler = new TicketHandlerImpl(publisher, routingKey, executor, responseTimeoutHandler, 50, 150, 40, sdkLogger);
+        handler = new TicketHandlerImpl(publisher, routingKey, executor, new InFlightTracker<>(executor, 1000, 60000), responseTimeoutHandler, 50, 150, new SharedRateLimiter(executor, 40).newLane(MessagePriority.NORMAL), sdkLogger);
         TicketResponseWrapper response = new TicketResponseWrapper();
         response.setTicketId(ticket.getTicketId());
 
@@ -286,6 +299,146 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
         verify(sdkLogger, times(1)).logReceivedMessage(responseString);
     }
 
+    @Test
+    public void sendBatch_QueuedTogetherTest() {
+        List<Ticket> tickets = Arrays.asList(getTicket("Batch1"), getTicket("Batch2"), getTicket("Batch3"));
+        handler.open();
+
+        List<CompletableFuture<Boolean>> results = handler.sendBatch(tickets);
+
+        ArgumentCaptor<List> messages = ArgumentCaptor.forClass(List.class);
+        verify(publisher, times(1)).publishBatchAsync(messages.capture(), eq(routingKey));
+        verify(publisher, never()).publishAsync(anyString(), any(byte[].class), anyString(), anyString(), anyString());
+        verify(sdkLogger, times(3)).logSendMessage(anyString());
+        assertThat(messages.getValue().size(), is(3));
+        for (int i = 0; i < tickets.size(); i++) {
+            AmqpOutgoingMessage message = (AmqpOutgoingMessage) messages.getValue().get(i);
+            assertThat(message.getOrderingKey(), is(tickets.get(i).getTicketId()));
+            assertThat(message.getCorrelationId(), is(tickets.get(i).getCorrelationId()));
+            assertThat(message.getRoutingKey(), is(tickets.get(i).getCorrelationId()));
+            assertThat(new String(message.getContent()), is(tickets.get(i).getJsonValue()));
+        }
+        assertThat(results.size(), is(3));
+        assertThat(handler.getInFlightCount(), is(3));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sendBatch_ThrottledInChunksTest() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            tickets.add(getTicket("Batch" + i));
+        }
+        handler.open();
+
+        handler.sendBatch(tickets);
+
+        // the burst of the lane (90% of 40/s) at once, then chunks of a tenth of a second of its rate
+        ArgumentCaptor<List> messages = ArgumentCaptor.forClass(List.class);
+        verify(publisher, times(4)).publishBatchAsync(messages.capture(), eq(routingKey));
+        assertThat(messages.getAllValues().get(0).size(), is(36));
+        for (List chunk : messages.getAllValues().subList(1, 4)) {
+            assertThat(chunk.size(), is(3));
+        }
+    }
+
+    @Test
+    public void sendBatch_SerializationExecutorCreatedOnFirstParallelBatchTest() {
+        Assume.assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+        TicketHandlerImpl sender = (TicketHandlerImpl) handler;
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tickets.add(getTicket("Batch" + i));
+        }
+        sender.open();
+        assertThat(sender.hasSerializationExecutor(), is(false));
+
+        sender.sendBatch(tickets.subList(0, 3));
+        assertThat(sender.hasSerializationExecutor(), is(false));
+
+        sender.sendBatch(tickets.subList(3, 20));
+        assertThat(sender.hasSerializationExecutor(), is(true));
+
+        sender.close();
+        assertThat(sender.hasSerializationExecutor(), is(false));
+    }
+
+    @Test
+    public void sendBatch_PublishResultPerTicketTest() {
+        ArgumentCaptor<AmqpPublishResultListener> publishListener = ArgumentCaptor.forClass(AmqpPublishResultListener.class);
+        verify(publisher).setListener(publishListener.capture());
+        List<Ticket> tickets = Arrays.asList(getTicket("Batch1"), getTicket("Batch2"), getTicket("Batch3"));
+        handler.open();
+
+        List<CompletableFuture<Boolean>> results = handler.sendBatch(tickets);
+        publishListener.getValue().publishSuccess(tickets.get(0).getCorrelationId());
+        publishListener.getValue().publishFailure(tickets.get(1).getCorrelationId());
+
+        assertThat(results.get(0).getNow(null), is(true));
+        assertThat(results.get(1).getNow(null), is(false));
+        assertThat(results.get(2).isDone(), is(false));
+        assertThat(handler.getInFlightCount(), is(1));
+    }
+
+    @Test
+    public void sendBatch_OnTicketNullTest() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage(SdkInfo.Literals.TICKET_HANDLER_TICKET_NULL);
+
+        handler.open();
+        handler.sendBatch(Arrays.asList(ticket, null));
+    }
+
+    @Test
+    public void sendBatchBlocking_ResponsesUntilSharedDeadlineTest() throws BatchResponseTimeoutException {
+        ArgumentCaptor<AmqpPublishResultListener> publishListener = ArgumentCaptor.forClass(AmqpPublishResultListener.class);
+        verify(publisher).setListener(publishListener.capture());
+        Ticket answered = getTicket("Batch1");
+        Ticket unanswered = getTicket("Batch2");
+        Ticket failed = getTicket("Batch3");
+        TicketResponse response = getResponse(answered);
+        doAnswer(invocation -> {
+            handler.ticketResponseReceived(response);
+            publishListener.getValue().publishFailure(failed.getCorrelationId());
+            return null;
+        }).when(publisher).publishBatchAsync(any(), eq(routingKey));
+        handler.open();
+
+        long start = System.nanoTime();
+        List<TicketResponse> responses = null;
+        try {
+            handler.sendBatchBlocking(Arrays.asList(answered, unanswered, failed), 200);
+        } catch (BatchResponseTimeoutException e) {
+            assertThat(e.getMessage(), is("Timeout reached. Missing responses for 2 of 3 tickets sent in batch"));
+            responses = e.getResponses();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertThat(responses, is(Arrays.asList(response, null, null)));
+        assertTrue(elapsedMillis >= 200);
+        assertTrue(elapsedMillis < 2000);
+        assertThat(responseTimeoutHandler.getBlockingPendingCount(), is(0));
+    }
+
+    @Test
+    public void sendBatchBlocking_AllResponsesReceivedTest() throws BatchResponseTimeoutException {
+        Ticket first = getTicket("Batch1");
+        Ticket second = getTicket("Batch2");
+        TicketResponse firstResponse = getResponse(first);
+        TicketResponse secondResponse = getResponse(second);
+        doAnswer(invocation -> {
+            handler.ticketResponseReceived(secondResponse);
+            handler.ticketResponseReceived(firstResponse);
+            return null;
+        }).when(publisher).publishBatchAsync(any(), eq(routingKey));
+        handler.open();
+
+        List<TicketResponse> responses = handler.sendBatchBlocking(Arrays.asList(first, second), 1000);
+
+        assertThat(responses, is(Arrays.asList(firstResponse, secondResponse)));
+        assertThat(responseTimeoutHandler.getBlockingPendingCount(), is(0));
+    }
+
     @Test
     public void close_OnResponsesPendingTest() throws InterruptedException {
         TicketResponseWrapper response = new TicketResponseWrapper();
@@ -300,7 +453,7 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
             }
         });
 
-        handler = new TicketHandlerImpl(publisher, routingKey, executor, responseTimeoutHandler, 300, 350, 40, sdkLogger);
+        handler = new TicketHandlerImpl(publisher, routingKey, executor, new InFlightTracker<>(executor, 1000, 60000), responseTimeoutHandler, 300, 350, new SharedRateLimiter(executor, 40).newLane(MessagePriority.NORMAL), sdkLogger);
         handler.setListener(listener);
         handler.open();
         new Thread(() -> {
@@ -318,9 +471,67 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
         assertTrue(contains);
     }
 
+    @Test
+    public void ticketRouting_PrematchTest() {
+        assertThat(TicketHandlerImpl.isTicketPrematch(ticket), is(true));
+        assertThat(ticket.getRouting().getEventIds(), is(Collections.singletonList("9034519")));
+        assertThat(ticket.getRouting().getSelectionCount(), is(1));
+    }
+
+    @Test
+    public void ticketRouting_LiveTest() {
+        Ticket liveTicket = builderFactory.createTicketBuilder()
+                .setTicketId("Live" + System.currentTimeMillis())
+                .setSender(ticket.getSender())
+                .addBet(builderFactory.createBetBuilder()
+                        .setBetId("BetId-" + System.currentTimeMillis())
+                        .setStake(50000, StakeType.TOTAL)
+                        .addSelectedSystem(2)
+                        .addSelection(builderFactory.createSelectionBuilder()
+                            .setId("uof:1/sr:match:1001/1/1")
+                            .setOdds(11000)
+                            .setEventId("1001")
+                            .build())
+                        .addSelection(builderFactory.createSelectionBuilder()
+                            .setId("uof:1/sr:match:1001/18/12")
+                            .setOdds(12000)
+                            .setEventId("1001")
+                            .build())
+                        .build())
+                .build();
+
+        assertThat(TicketHandlerImpl.isTicketPrematch(liveTicket), is(false));
+        assertThat(liveTicket.getRouting().getEventIds(), is(Collections.singletonList("1001")));
+        assertThat(liveTicket.getRouting().getSelectionCount(), is(2));
+    }
+
+    @Test
+    public void ticketRouting_OutsideImplementationTest() {
+        Ticket outsideTicket = new DelegatingTicket(ticket);
+
+        assertThat(TicketHandlerImpl.isTicketPrematch(outsideTicket), is(true));
+        assertThat(outsideTicket.getRouting().getEventIds(), is(Collections.singletonList("9034519")));
+        assertThat(outsideTicket.getRouting().getSelectionCount(), is(1));
+    }
+
+    private static TicketResponse getResponse(Ticket ticket) {
+        TicketResponseWrapper response = new TicketResponseWrapper() {
+            @Override
+            public String getCorrelationId() {
+                return ticket.getCorrelationId();
+            }
+        };
+        response.setTicketId(ticket.getTicketId());
+        return response;
+    }
+
     private Ticket getTicket() {
+        return getTicket("CukNorris");
+    }
+
+    private Ticket getTicket(String ticketIdPrefix) {
         return builderFactory.createTicketBuilder()
-                .setTicketId("CukNorris" + System.currentTimeMillis())
+                .setTicketId(ticketIdPrefix + System.currentTimeMillis())
                 .setOddsChange(OddsChangeType.ANY)
                 .setSender(builderFactory.createSenderBuilder()
                             .setBookmakerId(9985)
@@ -371,4 +582,61 @@ public class TicketHandlerImplTest extends TimeLimitedTestBase {
     private String getFormattedCorrelationId(Ticket ticket) {
         return "ticket:" + ticket.getTicketId();
     }
+
+    /**
+     * A {@link Ticket} implemented outside the SDK, without the routing metadata
+     */
+    private static final class DelegatingTicket implements Ticket {
+
+        private final Ticket ticket;
+
+        DelegatingTicket(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public List<Bet> getBets() { return ticket.getBets(); }
+
+        @Override
+        public Sender getSender() { return ticket.getSender(); }
+
+        @Override
+        public String getReofferId() { return ticket.getReofferId(); }
+
+        @Override
+        public String getAltStakeRefId() { return ticket.getAltStakeRefId(); }
+
+        @Override
+        public boolean getTestSource() { return ticket.getTestSource(); }
+
+        @Override
+        public OddsChangeType getOddsChange() { return ticket.getOddsChange(); }
+
+        @Override
+        public List<Selection> getSelections() { return ticket.getSelections(); }
+
+        @Override
+        public Integer getTotalCombinations() { return ticket.getTotalCombinations(); }
+
+        @Override
+        public Date getLastMatchEndTime() { return ticket.getLastMatchEndTime(); }
+
+        @Override
+        public Long getPayCap() { return ticket.getPayCap(); }
+
+        @Override
+        public String getTicketId() { return ticket.getTicketId(); }
+
+        @Override
+        public Date getTimestampUtc() { return ticket.getTimestampUtc(); }
+
+        @Override
+        public String getVersion() { return ticket.getVersion(); }
+
+        @Override
+        public String getCorrelationId() { return ticket.getCorrelationId(); }
+
+        @Override
+        public String getJsonValue() { return ticket.getJsonValue(); }
+    }
 }
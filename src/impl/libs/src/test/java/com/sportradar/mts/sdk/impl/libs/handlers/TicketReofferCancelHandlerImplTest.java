@@ -18,6 +18,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -42,7 +43,7 @@ public class TicketReofferCancelHandlerImplTest {
 
         routingKey = "cancel.reoffer";
         publisher = mock(AmqpPublisher.class);
-        reofferCancelSender = new TicketReofferCancelHandlerImpl(publisher, routingKey, executorService, 40, sdkLogger);
+        reofferCancelSender = new TicketReofferCancelHandlerImpl(publisher, routingKey, executorService, new InFlightTracker<>(mock(ScheduledExecutorService.class), 1000, 60000), new SharedRateLimiter(mock(ScheduledExecutorService.class), 40).newLane(MessagePriority.HIGH), sdkLogger);
         ticketReofferCancel = getTicketReofferCancel();
         msg = JsonUtils.serialize(MtsDtoMapper.map(ticketReofferCancel));
 
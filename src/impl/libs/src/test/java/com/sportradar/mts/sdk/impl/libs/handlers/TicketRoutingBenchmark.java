@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.handlers;
+
+import com.sportradar.mts.sdk.api.Ticket;
+import com.sportradar.mts.sdk.api.builders.BetBuilder;
+import com.sportradar.mts.sdk.api.builders.BuilderFactory;
+import com.sportradar.mts.sdk.api.builders.TicketBuilder;
+import com.sportradar.mts.sdk.api.enums.OddsChangeType;
+import com.sportradar.mts.sdk.api.enums.SenderChannel;
+import com.sportradar.mts.sdk.api.enums.StakeType;
+import com.sportradar.mts.sdk.impl.libs.SdkHelper;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the prematch check of a send on 50-bet live tickets: the selection scan the handler and the response
+ * timeout handler did before (three scans per sendBlocking) with reading the {@link Ticket#getRouting()} metadata
+ * computed when the ticket was built. Reports the nanoseconds and bytes allocated per send. Not part of the unit tests;
+ * run the main method (optionally with <code>sends tickets</code> arguments).
+ */
+public final class TicketRoutingBenchmark {
+
+    private static final int CHECKS_PER_SEND = 3;
+
+    private static volatile boolean sink;
+
+    private TicketRoutingBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final int sends = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final int ticketCount = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        final BuilderFactory builderFactory = new SdkHelper().getBuilderFactory();
+        final Ticket[] tickets = new Ticket[ticketCount];
+        for (int i = 0; i < ticketCount; i++) {
+            tickets[i] = buildTicket(builderFactory, i, 50);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            run(true, tickets, sends / 5);
+            run(false, tickets, sends / 5);
+        }
+        System.out.println(run(true, tickets, sends));
+        System.out.println(run(false, tickets, sends));
+    }
+
+    private static String run(boolean scan, Ticket[] tickets, int sends) {
+        final long allocatedBefore = allocatedBytes();
+        final long t0 = System.nanoTime();
+        boolean prematch = false;
+        for (int i = 0; i < sends; i++) {
+            final Ticket ticket = tickets[i % tickets.length];
+            for (int c = 0; c < CHECKS_PER_SEND; c++) {
+                prematch ^= scan ? scanSelections(ticket) : ticket.getRouting().isPrematch();
+            }
+        }
+        final long elapsed = System.nanoTime() - t0;
+        final long allocated = allocatedBytes() - allocatedBefore;
+        sink = prematch;
+        return String.format("%-16s %,8.1f ns/send, %6.1f bytes/send",
+                             scan ? "selection-scan" : "routing-metadata",
+                             (double) elapsed / sends,
+                             (double) allocated / sends);
+    }
+
+    /**
+     * The check TicketHandlerImpl.isTicketPrematch did before
+     */
+    private static boolean scanSelections(Ticket ticket) {
+        return ticket.getSelections().stream().anyMatch(a -> a.getId().contains("lcoo"));
+    }
+
+    private static Ticket buildTicket(BuilderFactory builderFactory, int ticketNumber, int bets) {
+        final TicketBuilder ticketBuilder = builderFactory.createTicketBuilder()
+                .setTicketId("routing-benchmark-" + ticketNumber)
+                .setOddsChange(OddsChangeType.ANY)
+                .setSender(builderFactory.createSenderBuilder()
+                                   .setBookmakerId(9985)
+                                   .setCurrency("EUR")
+                                   .setLimitId(93)
+                                   .setSenderChannel(SenderChannel.INTERNET)
+                                   .setEndCustomer("10.10.10.1", "User" + ticketNumber, "en", "MyDeviceId", 12000L)
+                                   .build());
+        for (int b = 0; b < bets; b++) {
+            final BetBuilder betBuilder = builderFactory.createBetBuilder()
+                    .setBetId("bet-" + ticketNumber + "-" + b)
+                    .setStake(10000, StakeType.TOTAL)
+                    .addSelectedSystem(1)
+                    .addSelection(builderFactory.createSelectionBuilder()
+                                          .setId("uof:1/sr:match:" + (1000 + b) + "/1/1")
+                                          .setOdds(15000)
+                                          .setEventId(String.valueOf(1000 + b))
+                                          .build());
+            ticketBuilder.addBet(betBuilder.build());
+        }
+        return ticketBuilder.build();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
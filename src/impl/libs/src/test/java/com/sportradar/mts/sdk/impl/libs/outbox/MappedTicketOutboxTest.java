@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.outbox;
+
+import com.sportradar.mts.sdk.api.InDoubtTicket;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MappedTicketOutboxTest extends TimeLimitedTestBase {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("outbox").toPath();
+    }
+
+    @Test
+    public void unsettledTicket_InDoubtAfterRestartTest() {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        long confirmed = outbox.append("ticket-1", bytes("{\"id\":1}"));
+        outbox.append("ticket-2", bytes("{\"id\":2}"));
+        outbox.settle(confirmed, true);
+        outbox.close();
+
+        MappedTicketOutbox reopened = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        List<InDoubtTicket> inDoubt = reopened.getInDoubtTickets();
+
+        assertThat(inDoubt.size(), is(1));
+        assertThat(inDoubt.get(0).getCorrelationId(), is("ticket-2"));
+        assertThat(new String(inDoubt.get(0).getContent(), StandardCharsets.UTF_8), is("{\"id\":2}"));
+        assertThat(inDoubt.get(0).getAcceptedTime(), is(not(nullValue())));
+        reopened.close();
+    }
+
+    @Test
+    public void failedTicket_NotInDoubtTest() {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        outbox.settle(outbox.append("ticket-1", bytes("{\"id\":1}")), false);
+        outbox.settle(outbox.append(null, bytes("{\"id\":2}")), true);
+        outbox.close();
+
+        MappedTicketOutbox reopened = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+
+        assertThat(reopened.getInDoubtTickets().isEmpty(), is(true));
+        assertThat(directory.toFile().list().length, is(0));
+        reopened.close();
+    }
+
+    @Test
+    public void settledSegments_ReclaimedTest() {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        byte[] ticket = new byte[300];
+        long first = outbox.append("ticket-1", ticket);
+        long second = outbox.append("ticket-2", ticket);
+        long third = outbox.append("ticket-3", ticket);
+        long fourth = outbox.append("ticket-4", ticket);
+
+        assertThat(outbox.getSegmentCount(), is(2));
+        outbox.settle(first, true);
+        outbox.settle(second, true);
+        outbox.settle(third, true);
+        assertThat(outbox.getSegmentCount(), is(1));
+        assertThat(directory.toFile().list().length, is(1));
+
+        outbox.settle(fourth, true);
+        outbox.close();
+        assertThat(directory.toFile().list().length, is(0));
+    }
+
+    @Test
+    public void ticketBiggerThanSegment_AppendedTest() {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        outbox.append("big", new byte[SEGMENT_SIZE * 2]);
+        outbox.close();
+
+        MappedTicketOutbox reopened = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+
+        assertThat(reopened.getInDoubtTickets().size(), is(1));
+        assertThat(reopened.getInDoubtTickets().get(0).getContent().length, is(SEGMENT_SIZE * 2));
+        reopened.close();
+    }
+
+    @Test
+    public void tornEntry_IgnoredTest() throws IOException {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        outbox.append("ticket-1", bytes("{\"id\":1}"));
+        long torn = outbox.append("ticket-2", bytes("{\"id\":2}"));
+        outbox.close();
+        // the length is written last; a zero length is what a crash in the middle of an append leaves
+        File segment = directory.toFile().listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek((int) torn);
+            file.writeInt(0);
+        }
+
+        MappedTicketOutbox reopened = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+
+        assertThat(reopened.getInDoubtTickets().size(), is(1));
+        assertThat(reopened.getInDoubtTickets().get(0).getCorrelationId(), is("ticket-1"));
+        reopened.close();
+    }
+
+    @Test
+    public void clearInDoubtTickets_SegmentsDeletedTest() {
+        MappedTicketOutbox outbox = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        outbox.append("ticket-1", bytes("{\"id\":1}"));
+        outbox.close();
+
+        MappedTicketOutbox reopened = new MappedTicketOutbox(directory, SEGMENT_SIZE);
+        long next = reopened.append("ticket-2", bytes("{\"id\":2}"));
+        reopened.clearInDoubtTickets();
+        reopened.settle(next, true);
+        reopened.close();
+
+        assertThat(new MappedTicketOutbox(directory, SEGMENT_SIZE).getInDoubtTickets().isEmpty(), is(true));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.receivers;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TicketIdReaderTest extends TimeLimitedTestBase {
+
+    @Test
+    public void ticketResponse_TicketIdReadTest() throws Exception {
+        assertThat(TicketIdReader.read(resource("json/ticket-response.json"), "corr"), is("ticket-4144"));
+    }
+
+    @Test
+    public void ticketCancelResponse_TicketIdReadTest() throws Exception {
+        assertThat(TicketIdReader.read(resource("json/ticket-cancel-response.json"), "corr"), is("ticket-id-211"));
+    }
+
+    @Test
+    public void whitespaceAroundColon_TicketIdReadTest() {
+        assertThat(TicketIdReader.read("{\"result\":{\"ticketId\" :\n \"t-1\"}}".getBytes(), "corr"), is("t-1"));
+    }
+
+    @Test
+    public void noTicketId_FallbackTest() {
+        assertThat(TicketIdReader.read("{\"result\":{\"status\":\"accepted\"}}".getBytes(), "corr"), is("corr"));
+        assertThat(TicketIdReader.read("{\"ticketId\":42}".getBytes(), "corr"), is("corr"));
+        assertThat(TicketIdReader.read("{\"ticketId\":\"unterminated".getBytes(), "corr"), is("corr"));
+        assertThat(TicketIdReader.read(null, "corr"), is("corr"));
+    }
+
+    @Test
+    public void escapedTicketId_FallbackTest() {
+        assertThat(TicketIdReader.read("{\"ticketId\":\"a\\\"b\"}".getBytes(), "corr"), is("corr"));
+    }
+
+    private static byte[] resource(String name) throws IOException, URISyntaxException {
+        return Files.readAllBytes(Paths.get(TicketIdReaderTest.class.getClassLoader().getResource(name).toURI()));
+    }
+}
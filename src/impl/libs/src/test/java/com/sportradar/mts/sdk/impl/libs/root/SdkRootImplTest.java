@@ -13,11 +13,13 @@ import com.sportradar.mts.sdk.impl.libs.handlers.*;
 import com.sportradar.mts.sdk.impl.libs.logging.SdkLogger;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -200,6 +202,49 @@ public class SdkRootImplTest extends TimeLimitedTestBase {
                 "failed to shutdown executor service in time, force stopping"));
     }
 
+    @Test
+    public void close_ExecutorsAwaitedAgainstOneDeadlineTest() throws InterruptedException {
+        ScheduledExecutorService controlExecutorService = mock(ScheduledExecutorService.class);
+        ScheduledExecutorService timerService = mock(ScheduledExecutorService.class);
+        sdkRoot = new SdkRootImpl(
+                sdkLogger,
+                executorService,
+                controlExecutorService,
+                timerService,
+                channelFactoryProvider,
+                ticketHandler,
+                ticketAmqpMessageReceiver,
+                ticketCancelSender,
+                ticketCancelAmqpMessageReceiver,
+                ticketAckHandler,
+                ticketCancelAckHandler,
+                ticketReofferCancelHandler,
+                ticketCashoutHandler,
+                ticketCashoutAmqpMessageReceiver,
+                ticketNonSrSettleHandler,
+                ticketNonSrSettleAmpqMessageReceiver,
+                null);
+        doAnswer(invocation -> {
+            Thread.sleep(200L);
+            return false;
+        }).when(executorService).awaitTermination(anyLong(), any(TimeUnit.class));
+        when(controlExecutorService.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(timerService.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        sdkRoot.close();
+
+        // the time the executor service took is not waited for again
+        ArgumentCaptor<Long> controlTimeout = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> timerTimeout = ArgumentCaptor.forClass(Long.class);
+        verify(controlExecutorService, times(1)).awaitTermination(controlTimeout.capture(), eq(TimeUnit.NANOSECONDS));
+        verify(timerService, times(1)).awaitTermination(timerTimeout.capture(), eq(TimeUnit.NANOSECONDS));
+        assertThat(controlTimeout.getValue(), lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(19800L)));
+        assertThat(timerTimeout.getValue(), lessThanOrEqualTo(controlTimeout.getValue()));
+        verify(executorService, times(1)).shutdownNow();
+        verify(controlExecutorService, never()).shutdownNow();
+        verify(timerService, never()).shutdownNow();
+    }
+
     @Test
     public void openClose_OnTicketSenderCloseExThrownTest() {
         doAnswer(invocation -> {
@@ -468,4 +513,56 @@ public class SdkRootImplTest extends TimeLimitedTestBase {
         thrown.expectMessage("not open yet, call open first");
         sdkRoot.getTicketCancelAcknowledgmentSender(mock(TicketCancelAckResponseListener.class));
     }
+
+    @Test
+    public void getReadiness_WithoutWarmupCompletedTest() throws Exception {
+        sdkRoot.open();
+
+        assertTrue(sdkRoot.getReadiness().isDone());
+        assertEquals(0L, sdkRoot.getReadiness().get().getTotalMillis());
+    }
+
+    @Test
+    public void close_ControlExecutorAndTimerServiceShutDownTest() throws InterruptedException {
+        ScheduledExecutorService controlExecutorService = mock(ScheduledExecutorService.class);
+        ScheduledExecutorService timerService = mock(ScheduledExecutorService.class);
+        sdkRoot = new SdkRootImpl(
+                sdkLogger,
+                executorService,
+                controlExecutorService,
+                timerService,
+                channelFactoryProvider,
+                ticketHandler,
+                ticketAmqpMessageReceiver,
+                ticketCancelSender,
+                ticketCancelAmqpMessageReceiver,
+                ticketAckHandler,
+                ticketCancelAckHandler,
+                ticketReofferCancelHandler,
+                ticketCashoutHandler,
+                ticketCashoutAmqpMessageReceiver,
+                ticketNonSrSettleHandler,
+                ticketNonSrSettleAmpqMessageReceiver,
+                null);
+        InOrder inOrder = inOrder(executorService, controlExecutorService, timerService, sdkLogger);
+        when(executorService.awaitTermination(anyInt(), any(TimeUnit.class))).thenReturn(true);
+        when(controlExecutorService.awaitTermination(anyInt(), any(TimeUnit.class))).thenReturn(false);
+        when(timerService.awaitTermination(anyInt(), any(TimeUnit.class))).thenReturn(true);
+
+        sdkRoot.open();
+        sdkRoot.close();
+
+        inOrder.verify(executorService, times(1)).shutdown();
+        inOrder.verify(controlExecutorService, times(1)).shutdown();
+        inOrder.verify(timerService, times(1)).shutdown();
+        inOrder.verify(executorService, times(1)).awaitTermination(anyInt(), any(TimeUnit.class));
+        inOrder.verify(controlExecutorService, times(1)).awaitTermination(anyInt(), any(TimeUnit.class));
+        inOrder.verify(controlExecutorService, times(1)).shutdownNow();
+        inOrder.verify(timerService, times(1)).awaitTermination(anyInt(), any(TimeUnit.class));
+        inOrder.verify(sdkLogger, times(1)).close();
+        verify(executorService, never()).shutdownNow();
+        verify(timerService, never()).shutdownNow();
+        assertTrue(appender.searchLoggingEventByFormattedMessage(
+                "failed to shutdown control executor service in time, force stopping"));
+    }
 }
@@ -4,10 +4,12 @@
 
 package com.sportradar.mts.sdk.impl.libs.settings;
 
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
 import com.sportradar.mts.sdk.api.enums.SenderChannel;
 import com.sportradar.mts.sdk.api.interfaces.SdkConfiguration;
 import com.sportradar.mts.sdk.api.settings.PropertiesToSettingsMapper;
 import com.sportradar.mts.sdk.api.settings.SettingsKeys;
+import com.sportradar.mts.sdk.api.utils.SdkInfo;
 import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
 import org.junit.Assert;
 import org.junit.Before;
@@ -179,6 +181,292 @@ public class PropertiesToSettingsMapperTest extends TimeLimitedTestBase {
         Assert.assertEquals(SenderChannel.INTERNET, config.getSenderChannel());
     }
 
+    @Test
+    public void getSettings_TicketPublishBatchDefaultTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.TICKET_PUBLISH_BATCH_SIZE_DEFAULT, config.getTicketPublishBatchSize());
+        Assert.assertEquals(SdkInfo.TICKET_PUBLISH_LINGER_DEFAULT, config.getTicketPublishLingerMillis());
+    }
+
+    @Test
+    public void getSettings_TicketPublishBatchCorrectTest() {
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_BATCH_SIZE, "32");
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_LINGER, "2");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(32, config.getTicketPublishBatchSize());
+        Assert.assertEquals(2, config.getTicketPublishLingerMillis());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_TicketPublishBatchSizeZeroTest() {
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_BATCH_SIZE, "0");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_TicketPublishLingerTooLongTest() {
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_LINGER, "5000");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ProducerBufferDefaultTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.PRODUCER_BUFFER_SIZE_DEFAULT, config.getProducerBufferSize());
+        Assert.assertEquals(ProducerOverflowPolicy.REJECT, config.getProducerOverflowPolicy());
+        Assert.assertEquals(SdkInfo.PRODUCER_OVERFLOW_TIMEOUT_DEFAULT, config.getProducerOverflowTimeout());
+    }
+
+    @Test
+    public void getSettings_ProducerBufferCorrectTest() {
+        properties.setProperty(SettingsKeys.PRODUCER_BUFFER_SIZE, "1024");
+        properties.setProperty(SettingsKeys.PRODUCER_OVERFLOW_POLICY, "spin_then_park");
+        properties.setProperty(SettingsKeys.PRODUCER_OVERFLOW_TIMEOUT, "250");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(1024, config.getProducerBufferSize());
+        Assert.assertEquals(ProducerOverflowPolicy.SPIN_THEN_PARK, config.getProducerOverflowPolicy());
+        Assert.assertEquals(250, config.getProducerOverflowTimeout());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ProducerBufferSizeZeroTest() {
+        properties.setProperty(SettingsKeys.PRODUCER_BUFFER_SIZE, "0");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ProducerOverflowPolicyWrongTest() {
+        properties.setProperty(SettingsKeys.PRODUCER_OVERFLOW_POLICY, "drop");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_TicketPublishStripesTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.TICKET_PUBLISH_STRIPES_DEFAULT, config.getTicketPublishStripes());
+
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_STRIPES, "4");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(4, config.getTicketPublishStripes());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_TicketPublishStripesTooManyTest() {
+        properties.setProperty(SettingsKeys.TICKET_PUBLISH_STRIPES, "1000");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ProducerIdleSpinTriesTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.PRODUCER_IDLE_SPIN_TRIES_DEFAULT, config.getProducerIdleSpinTries());
+
+        properties.setProperty(SettingsKeys.PRODUCER_IDLE_SPIN_TRIES, "2000");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(2000, config.getProducerIdleSpinTries());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ProducerIdleSpinTriesNotNumberTest() {
+        properties.setProperty(SettingsKeys.PRODUCER_IDLE_SPIN_TRIES, "-5");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ProducerBlockedHoldTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.PRODUCER_BLOCKED_HOLD_LIMIT_DEFAULT, config.getProducerBlockedHoldLimit());
+        Assert.assertEquals(SdkInfo.PRODUCER_BLOCKED_DRAIN_RATE_DEFAULT, config.getProducerBlockedDrainRate());
+
+        properties.setProperty(SettingsKeys.PRODUCER_BLOCKED_HOLD_LIMIT, "500");
+        properties.setProperty(SettingsKeys.PRODUCER_BLOCKED_DRAIN_RATE, "50");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(500, config.getProducerBlockedHoldLimit());
+        Assert.assertEquals(50, config.getProducerBlockedDrainRate());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ProducerBlockedDrainRateZeroTest() {
+        properties.setProperty(SettingsKeys.PRODUCER_BLOCKED_DRAIN_RATE, "0");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_TicketOutboxTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertNull(config.getTicketOutboxDirectory());
+        Assert.assertEquals(SdkInfo.TICKET_OUTBOX_SEGMENT_SIZE_DEFAULT, config.getTicketOutboxSegmentSize());
+
+        properties.setProperty(SettingsKeys.TICKET_OUTBOX_DIRECTORY, "/var/lib/mts/outbox");
+        properties.setProperty(SettingsKeys.TICKET_OUTBOX_SEGMENT_SIZE, "1048576");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals("/var/lib/mts/outbox", config.getTicketOutboxDirectory());
+        Assert.assertEquals(1048576, config.getTicketOutboxSegmentSize());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_TicketOutboxSegmentSizeTooSmallTest() {
+        properties.setProperty(SettingsKeys.TICKET_OUTBOX_SEGMENT_SIZE, "1024");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_SharedPublisherThreadsTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.SHARED_PUBLISHER_THREADS_DEFAULT, config.getSharedPublisherThreads());
+
+        properties.setProperty(SettingsKeys.SHARED_PUBLISHER_THREADS, "2");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(2, config.getSharedPublisherThreads());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_SharedPublisherThreadsTooManyTest() {
+        properties.setProperty(SettingsKeys.SHARED_PUBLISHER_THREADS, String.valueOf(SdkInfo.SHARED_PUBLISHER_THREADS_MAX + 1));
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ConsumerDispatchThreadsTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.CONSUMER_DISPATCH_THREADS_DEFAULT, config.getConsumerDispatchThreads());
+
+        properties.setProperty(SettingsKeys.CONSUMER_DISPATCH_THREADS, "4");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(4, config.getConsumerDispatchThreads());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ConsumerDispatchThreadsTooManyTest() {
+        properties.setProperty(SettingsKeys.CONSUMER_DISPATCH_THREADS, String.valueOf(SdkInfo.CONSUMER_DISPATCH_THREADS_MAX + 1));
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ConsumerAckBatchingTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.CONSUMER_ACK_BATCH_SIZE_DEFAULT, config.getConsumerAckBatchSize());
+        Assert.assertEquals(SdkInfo.CONSUMER_ACK_LINGER_MILLIS_DEFAULT, config.getConsumerAckLingerMillis());
+
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_BATCH_SIZE, "32");
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_LINGER_MILLIS, "10");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(32, config.getConsumerAckBatchSize());
+        Assert.assertEquals(10, config.getConsumerAckLingerMillis());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ConsumerAckBatchSizeZeroTest() {
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_BATCH_SIZE, "0");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ConsumerAckLingerTooLongTest() {
+        properties.setProperty(SettingsKeys.CONSUMER_ACK_LINGER_MILLIS, String.valueOf(SdkInfo.CONSUMER_ACK_LINGER_MILLIS_MAX + 1));
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ConsumerPrefetchBoundsTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.RABBIT_PREFETCH_COUNT, config.getConsumerPrefetchMin());
+        Assert.assertEquals(SdkInfo.RABBIT_PREFETCH_COUNT, config.getConsumerPrefetchMax());
+        Assert.assertEquals(SdkInfo.CONSUMER_TARGET_LATENCY_MILLIS_DEFAULT, config.getConsumerTargetLatencyMillis());
+
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MIN, "4");
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MAX, "200");
+        properties.setProperty(SettingsKeys.CONSUMER_TARGET_LATENCY_MILLIS, "50");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(4, config.getConsumerPrefetchMin());
+        Assert.assertEquals(200, config.getConsumerPrefetchMax());
+        Assert.assertEquals(50, config.getConsumerTargetLatencyMillis());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ConsumerPrefetchMaxBelowMinTest() {
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MIN, "20");
+        properties.setProperty(SettingsKeys.CONSUMER_PREFETCH_MAX, "19");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ConsumerRetryBackoffTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.CONSUMER_RETRY_BACKOFF_MILLIS_DEFAULT, config.getConsumerRetryBackoffMillis());
+        Assert.assertEquals(SdkInfo.CONSUMER_RETRY_BACKOFF_MAX_MILLIS_DEFAULT, config.getConsumerRetryBackoffMaxMillis());
+
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MILLIS, "50");
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MAX_MILLIS, "5000");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(50, config.getConsumerRetryBackoffMillis());
+        Assert.assertEquals(5000, config.getConsumerRetryBackoffMaxMillis());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ConsumerRetryBackoffMaxBelowBaseTest() {
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MILLIS, "500");
+        properties.setProperty(SettingsKeys.CONSUMER_RETRY_BACKOFF_MAX_MILLIS, "100");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_ChannelPoolTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.CHANNELS_PER_CONNECTION_DEFAULT, config.getChannelsPerConnection());
+        Assert.assertEquals(SdkInfo.SPARE_CHANNELS_DEFAULT, config.getSpareChannels());
+
+        properties.setProperty(SettingsKeys.CHANNELS_PER_CONNECTION, "64");
+        properties.setProperty(SettingsKeys.SPARE_CHANNELS, "0");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(64, config.getChannelsPerConnection());
+        Assert.assertEquals(0, config.getSpareChannels());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_ChannelsPerConnectionTooHighTest() {
+        properties.setProperty(SettingsKeys.CHANNELS_PER_CONNECTION, "4096");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_NioTransportTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertFalse(config.getNioEnabled());
+        Assert.assertEquals(SdkInfo.NIO_THREADS_DEFAULT, config.getNioThreads());
+
+        properties.setProperty(SettingsKeys.NIO_ENABLED, "true");
+        properties.setProperty(SettingsKeys.NIO_THREADS, "4");
+        retrieveMtsSdkSettings();
+        Assert.assertTrue(config.getNioEnabled());
+        Assert.assertEquals(4, config.getNioThreads());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_NioThreadsZeroTest() {
+        properties.setProperty(SettingsKeys.NIO_THREADS, "0");
+        retrieveMtsSdkSettings();
+    }
+
+    @Test
+    public void getSettings_InFlightTest() {
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(SdkInfo.IN_FLIGHT_LIMIT_DEFAULT, config.getInFlightLimit());
+        Assert.assertEquals(SdkInfo.IN_FLIGHT_MAX_AGE_MILLIS_DEFAULT, config.getInFlightMaxAgeMillis());
+
+        properties.setProperty(SettingsKeys.IN_FLIGHT_LIMIT, "1000");
+        properties.setProperty(SettingsKeys.IN_FLIGHT_MAX_AGE_MILLIS, "5000");
+        retrieveMtsSdkSettings();
+        Assert.assertEquals(1000, config.getInFlightLimit());
+        Assert.assertEquals(5000, config.getInFlightMaxAgeMillis());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getSettings_InFlightMaxAgeTooLowTest() {
+        properties.setProperty(SettingsKeys.IN_FLIGHT_MAX_AGE_MILLIS, "500");
+        retrieveMtsSdkSettings();
+    }
+
     private void setPropertiesToValidTestValues() {
         properties = new Properties();
         properties.setProperty(SettingsKeys.NODE_ID, nodeId);
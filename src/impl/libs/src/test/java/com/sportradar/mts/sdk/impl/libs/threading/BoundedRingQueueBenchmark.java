@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the {@link BoundedRingQueue} with the <code>LinkedTransferQueue</code> (plus size() check) the producers
+ * used before: many sender threads enqueue while one thread consumes. Reports throughput, bytes allocated per
+ * message (HotSpot thread allocation counters) and the enqueue latency percentiles seen by the senders.
+ * Not part of the unit tests; run the main method (optionally with <code>messages senderThreads capacity</code>).
+ */
+public final class BoundedRingQueueBenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    private BoundedRingQueueBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int messages = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        final int senders = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        for (int i = 0; i < 3; i++) {
+            run(new LinkedQueue(capacity), messages / 5, senders);
+            run(new RingQueue(capacity), messages / 5, senders);
+        }
+        System.out.println(run(new LinkedQueue(capacity), messages, senders));
+        System.out.println(run(new RingQueue(capacity), messages, senders));
+    }
+
+    private static String run(Queue queue, int messages, int senders) throws InterruptedException {
+        final int perSender = messages / senders;
+        final int total = perSender * senders;
+        final AtomicLong allocated = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final long[][] latencies = new long[senders][perSender];
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final Thread[] threads = new Thread[senders];
+        for (int s = 0; s < senders; s++) {
+            final long[] senderLatencies = latencies[s];
+            threads[s] = new Thread(() -> {
+                awaitQuietly(start);
+                final long before = allocatedBytes();
+                for (int i = 0; i < perSender; i++) {
+                    final long t0 = System.nanoTime();
+                    while (!queue.offer(MESSAGE)) {
+                        retries.incrementAndGet();
+                        Thread.yield();
+                    }
+                    senderLatencies[i] = System.nanoTime() - t0;
+                }
+                allocated.addAndGet(allocatedBytes() - before);
+            });
+            threads[s].start();
+        }
+        final Thread consumer = new Thread(() -> {
+            final long before = allocatedBytes();
+            int received = 0;
+            while (received < total) {
+                if (queue.poll() != null) {
+                    received++;
+                }
+            }
+            allocated.addAndGet(allocatedBytes() - before);
+        });
+        consumer.start();
+
+        final long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        consumer.join();
+        final long elapsed = System.nanoTime() - t0;
+
+        final long[] all = new long[total];
+        for (int s = 0; s < senders; s++) {
+            System.arraycopy(latencies[s], 0, all, s * perSender, perSender);
+        }
+        Arrays.sort(all);
+        return String.format("%-15s %,12.0f msg/s, %6.1f bytes/msg, enqueue p50=%,dns p99=%,dns p99.9=%,dns, full retries=%,d",
+                queue.name(),
+                total / (elapsed / 1e9),
+                (double) allocated.get() / total,
+                all[total / 2],
+                all[(int) (total * 0.99)],
+                all[(int) (total * 0.999)],
+                retries.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Queue {
+        String name();
+
+        boolean offer(Object message);
+
+        Object poll();
+    }
+
+    /**
+     * The unbounded queue with the racy size() limit RabbitMqProducer used before
+     */
+    private static final class LinkedQueue implements Queue {
+
+        private final BlockingQueue<Object> queue = new LinkedTransferQueue<>();
+        private final int capacity;
+
+        LinkedQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public String name() {
+            return "linked-transfer";
+        }
+
+        @Override
+        public boolean offer(Object message) {
+            return this.queue.size() <= this.capacity && this.queue.offer(message);
+        }
+
+        @Override
+        public Object poll() {
+            return this.queue.poll();
+        }
+    }
+
+    private static final class RingQueue implements Queue {
+
+        private final BoundedRingQueue<Object> queue;
+
+        RingQueue(int capacity) {
+            this.queue = new BoundedRingQueue<>(capacity, ProducerOverflowPolicy.REJECT, 0L);
+        }
+
+        @Override
+        public String name() {
+            return "bounded-ring";
+        }
+
+        @Override
+        public boolean offer(Object message) {
+            return this.queue.offer(message);
+        }
+
+        @Override
+        public Object poll() {
+            return this.queue.poll();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.api.enums.ProducerOverflowPolicy;
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class BoundedRingQueueTest extends TimeLimitedTestBase {
+
+    @Test
+    public void fifoOrderTest() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertThat(queue.size(), is(3));
+        assertThat(queue.poll(), is(1));
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.poll(), is(3));
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void capacityRoundedToPowerOfTwoTest() {
+        assertThat(new BoundedRingQueue<Integer>(1).capacity(), is(2));
+        assertThat(new BoundedRingQueue<Integer>(5).capacity(), is(8));
+        assertThat(new BoundedRingQueue<Integer>(64).capacity(), is(64));
+    }
+
+    @Test
+    public void rejectWhenFullTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(2, ProducerOverflowPolicy.REJECT, 1000);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertThat(queue.offer(3), is(false));
+        assertThat(queue.enqueue(3), is(false));
+        assertThat(queue.size(), is(2));
+    }
+
+    @Test
+    public void blockTimesOutWhenFullTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(2, ProducerOverflowPolicy.BLOCK, 20);
+        queue.offer(1);
+        queue.offer(2);
+
+        long start = System.nanoTime();
+        assertThat(queue.enqueue(3), is(false));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(19L));
+    }
+
+    @Test
+    public void blockWaitsForSpaceTest() throws InterruptedException {
+        assertWaitsForSpace(new BoundedRingQueue<>(2, ProducerOverflowPolicy.BLOCK, 30000));
+    }
+
+    @Test
+    public void spinThenParkWaitsForSpaceTest() throws InterruptedException {
+        assertWaitsForSpace(new BoundedRingQueue<>(2, ProducerOverflowPolicy.SPIN_THEN_PARK, 30000));
+    }
+
+    @Test
+    public void enqueueAll_BlockWaitsForSpaceForAllTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4, ProducerOverflowPolicy.BLOCK, 30000);
+        queue.offer(1);
+        queue.offer(2);
+        Thread consumer = new Thread(() -> {
+            sleep(50);
+            queue.poll();
+        });
+        consumer.start();
+
+        assertThat(queue.enqueueAll(Arrays.asList(3, 4, 5)), is(true));
+        consumer.join();
+
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.poll(), is(3));
+        assertThat(queue.poll(), is(4));
+        assertThat(queue.poll(), is(5));
+    }
+
+    @Test
+    public void enqueueAll_RejectWhenNoSpaceForAllTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4, ProducerOverflowPolicy.REJECT, 1000);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertThat(queue.enqueueAll(Arrays.asList(3, 4, 5)), is(false));
+        assertThat(queue.size(), is(2));
+    }
+
+    @Test
+    public void pollWaitsForElementTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+        Thread producer = new Thread(() -> {
+            sleep(50);
+            queue.offer(7);
+        });
+        producer.start();
+
+        assertThat(queue.poll(30, TimeUnit.SECONDS), is(7));
+        producer.join();
+    }
+
+    @Test
+    public void pollTimesOutTest() throws InterruptedException {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+
+        assertThat(queue.poll(10, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void drainToTest() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+
+        assertThat(queue.drainTo(drained, 3), is(3));
+        assertThat(drained, is(Arrays.asList(0, 1, 2)));
+        assertThat(queue.size(), is(2));
+    }
+
+    @Test
+    public void manyProducersNothingLostTest() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(64, ProducerOverflowPolicy.SPIN_THEN_PARK, 30000);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        if (!queue.enqueue(base + i)) {
+                            failed.set(true);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        Set<Integer> received = new HashSet<>();
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        while (received.size() < producers * perProducer) {
+            Integer value = queue.poll(30, TimeUnit.SECONDS);
+            assertThat(value == null, is(false));
+            int producer = value / perProducer;
+            assertThat(value > lastPerProducer[producer], is(true));
+            lastPerProducer[producer] = value;
+            received.add(value);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failed.get(), is(false));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void offerAll_InsertedInOrderTest() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+        queue.offer(1);
+        queue.poll();
+
+        // wraps around the end of the ring
+        assertThat(queue.offerAll(Arrays.asList(2, 3, 4)), is(true));
+        assertThat(queue.offerAll(new ArrayList<>()), is(true));
+
+        assertThat(queue.size(), is(3));
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.poll(), is(3));
+        assertThat(queue.poll(), is(4));
+    }
+
+    @Test
+    public void offerAll_NoSpaceForAllNoneInsertedTest() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+
+        assertThat(queue.offerAll(Arrays.asList(3, 4, 5)), is(false));
+        assertThat(queue.offerAll(Arrays.asList(3, 4, 5, 6, 7)), is(false));
+        assertThat(queue.offerAll(Arrays.asList(3, 4)), is(true));
+        assertThat(queue.size(), is(4));
+    }
+
+    @Test
+    public void offerAll_ManyProducersBatchesNotInterleavedTest() throws InterruptedException {
+        final int producers = 4;
+        final int batches = 2000;
+        final int batchSize = 8;
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * batches * batchSize;
+            threads[p] = new Thread(() -> {
+                for (int b = 0; b < batches; b++) {
+                    List<Integer> batch = new ArrayList<>();
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(base + b * batchSize + i);
+                    }
+                    while (!queue.offerAll(batch)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        for (int received = 0; received < producers * batches; received++) {
+            Integer first = queue.poll(30, TimeUnit.SECONDS);
+            assertThat(first % batchSize, is(0));
+            for (int i = 1; i < batchSize; i++) {
+                assertThat(queue.poll(30, TimeUnit.SECONDS), is(first + i));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void offerAll_NullElementNoneInsertedTest() {
+        BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(4);
+
+        thrown.expect(NullPointerException.class);
+        try {
+            queue.offerAll(Arrays.asList(1, null));
+        } finally {
+            assertThat(queue.isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void nullElementTest() {
+        thrown.expect(NullPointerException.class);
+        new BoundedRingQueue<Integer>(4).offer(null);
+    }
+
+    private static void assertWaitsForSpace(BoundedRingQueue<Integer> queue) throws InterruptedException {
+        queue.offer(1);
+        queue.offer(2);
+        Thread consumer = new Thread(() -> {
+            sleep(50);
+            queue.poll();
+        });
+        consumer.start();
+
+        assertThat(queue.enqueue(3), is(true));
+        consumer.join();
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.poll(), is(3));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
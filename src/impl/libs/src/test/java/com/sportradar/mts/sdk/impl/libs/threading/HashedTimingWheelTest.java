@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HashedTimingWheelTest extends TimeLimitedTestBase {
+
+    private static final long TICK = 10L;
+
+    private HashedTimingWheel<String> wheel;
+    private List<String> expired;
+
+    @Before
+    public void setUp() {
+        wheel = new HashedTimingWheel<>(TICK, 8, 0L);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    public void itemsExpiredInDeadlineOrderTest() {
+        wheel.schedule("c", 30L);
+        wheel.schedule("a", 5L);
+        wheel.schedule("b", 20L);
+        wheel.schedule("b2", 20L);
+
+        assertThat(wheel.expire(9L, expired::add), is(0));
+        assertThat(wheel.expire(10L, expired::add), is(1));
+        assertThat(wheel.expire(30L, expired::add), is(3));
+
+        assertThat(expired, is(Arrays.asList("a", "b", "b2", "c")));
+        assertThat(wheel.size(), is(0));
+    }
+
+    @Test
+    public void deadlineNeverExpiredEarlyTest() {
+        wheel.schedule("a", 11L);
+
+        wheel.expire(19L, expired::add);
+        assertThat(expired.isEmpty(), is(true));
+
+        wheel.expire(20L, expired::add);
+        assertThat(expired, is(Collections.singletonList("a")));
+    }
+
+    @Test
+    public void deadlineBeyondOneTurn_ExpiredOnLaterTurnTest() {
+        // 8 buckets of 10: 85 and 5 share a bucket
+        wheel.schedule("late", 85L);
+        wheel.schedule("early", 5L);
+
+        wheel.expire(10L, expired::add);
+        assertThat(expired, is(Collections.singletonList("early")));
+
+        wheel.expire(80L, expired::add);
+        assertThat(expired.size(), is(1));
+        wheel.expire(90L, expired::add);
+        assertThat(expired, is(Arrays.asList("early", "late")));
+    }
+
+    @Test
+    public void longPause_AllDueItemsExpiredTest() {
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule("item-" + i, i * 25L);
+        }
+
+        assertThat(wheel.expire(10_000L, expired::add), is(20));
+        assertThat(wheel.size(), is(0));
+    }
+
+    @Test
+    public void cancelledItemNotExpiredTest() {
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("a", 10L);
+        wheel.schedule("b", 10L);
+
+        assertThat(timeout.cancel(), is(true));
+        assertThat(timeout.cancel(), is(false));
+        assertThat(timeout.isPending(), is(false));
+
+        wheel.expire(10L, expired::add);
+        assertThat(expired, is(Collections.singletonList("b")));
+    }
+
+    @Test
+    public void pastDeadline_ExpiredOnNextExpireTest() {
+        wheel.expire(50L, expired::add);
+        wheel.schedule("a", 0L);
+
+        assertThat(wheel.nanosUntilNextTick(55L), is(5L));
+        wheel.expire(55L, expired::add);
+        assertThat(expired.isEmpty(), is(true));
+        wheel.expire(60L, expired::add);
+        assertThat(expired, is(Collections.singletonList("a")));
+        assertThat(wheel.nanosUntilNextTick(60L), is(-1L));
+    }
+
+    @Test
+    public void bucketCountRoundedToPowerOfTwoTest() {
+        assertThat(new HashedTimingWheel<String>(TICK, 5, 0L).getBucketCount(), is(8));
+        assertThat(new HashedTimingWheel<String>(TICK, 1, 0L).getBucketCount(), is(1));
+    }
+
+    @Test
+    public void invalidTickTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new HashedTimingWheel<String>(0L, 8, 0L);
+    }
+}
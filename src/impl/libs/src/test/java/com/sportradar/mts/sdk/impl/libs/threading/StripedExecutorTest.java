@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StripedExecutorTest extends TimeLimitedTestBase {
+
+    private StripedExecutor executor;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void sameKey_RunInOrderTest() throws InterruptedException {
+        executor = new StripedExecutor("test-stripe-", 4, 1000);
+        Map<String, List<Integer>> executed = new HashMap<>();
+        for (int k = 0; k < 8; k++) {
+            executed.put("ticket-" + k, new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(8 * 100);
+
+        for (int i = 0; i < 100; i++) {
+            for (int k = 0; k < 8; k++) {
+                final List<Integer> list = executed.get("ticket-" + k);
+                final int value = i;
+                executor.execute("ticket-" + k, () -> {
+                    synchronized (list) {
+                        list.add(value);
+                    }
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        for (List<Integer> list : executed.values()) {
+            synchronized (list) {
+                for (int i = 0; i < 100; i++) {
+                    assertThat(list.get(i), is(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void differentStripes_RunInParallelTest() throws InterruptedException {
+        executor = new StripedExecutor("test-stripe-", 2, 10);
+        String first = "ticket-1";
+        String second = "ticket-2";
+        for (int i = 3; executor.stripeOf(first) == executor.stripeOf(second); i++) {
+            second = "ticket-" + i;
+        }
+        assertThat(executor.stripeOf(first), is(not(executor.stripeOf(second))));
+        CountDownLatch secondRan = new CountDownLatch(1);
+        CountDownLatch firstRan = new CountDownLatch(1);
+
+        // the first task waits for the second one: deadlock if both ran on the same thread
+        executor.execute(first, () -> {
+            try {
+                if (secondRan.await(5, TimeUnit.SECONDS)) {
+                    firstRan.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(second, secondRan::countDown);
+
+        assertThat(firstRan.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shutdown_QueuedTasksRunTest() throws InterruptedException {
+        executor = new StripedExecutor("test-stripe-", 1, 100);
+        AtomicInteger executed = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("key", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            executor.execute("key", executed::incrementAndGet);
+        }
+
+        executor.shutdown();
+        release.countDown();
+
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS), is(true));
+        assertThat(executed.get(), is(10));
+        assertThat(executor.getQueuedTaskCount(), is(0));
+    }
+
+    @Test
+    public void executeAfterShutdownTest() throws InterruptedException {
+        executor = new StripedExecutor("test-stripe-", 1, 1);
+        executor.shutdown();
+
+        thrown.expect(IllegalStateException.class);
+        executor.execute("key", () -> { });
+    }
+
+    @Test
+    public void invalidStripeCountTest() {
+        thrown.expect(IllegalArgumentException.class);
+        new StripedExecutor("test-stripe-", 0, 1);
+    }
+}
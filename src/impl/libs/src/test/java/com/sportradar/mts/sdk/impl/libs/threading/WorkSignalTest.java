@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) Sportradar AG. See LICENSE for full license governing this code
+ */
+
+package com.sportradar.mts.sdk.impl.libs.threading;
+
+import com.sportradar.mts.sdk.impl.libs.TimeLimitedTestBase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class WorkSignalTest extends TimeLimitedTestBase {
+
+    private static final long LONG_WAIT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void signalBeforeAwait_NotLostTest() throws InterruptedException {
+        WorkSignal signal = new WorkSignal(0);
+        long observed = signal.current();
+
+        signal.signal();
+
+        long start = System.nanoTime();
+        assertThat(signal.await(observed, LONG_WAIT_NANOS), is(true));
+        assertThat(System.nanoTime() - start, lessThan(TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void noSignal_TimesOutTest() throws InterruptedException {
+        WorkSignal signal = new WorkSignal(10);
+
+        long start = System.nanoTime();
+        assertThat(signal.await(signal.current(), TimeUnit.MILLISECONDS.toNanos(50)), is(false));
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+    }
+
+    @Test
+    public void parkedWorker_WokenBySignalTest() throws InterruptedException {
+        assertWokenBySignal(new WorkSignal(0));
+    }
+
+    @Test
+    public void spinningWorker_WokenBySignalTest() throws InterruptedException {
+        assertWokenBySignal(new WorkSignal(100000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSpinTriesTest() {
+        new WorkSignal(-1);
+    }
+
+    private static void assertWokenBySignal(WorkSignal signal) throws InterruptedException {
+        final long observed = signal.current();
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final CountDownLatch woken = new CountDownLatch(1);
+        final AtomicBoolean result = new AtomicBoolean();
+        Thread worker = new Thread(() -> {
+            waiting.countDown();
+            try {
+                result.set(signal.await(observed, LONG_WAIT_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            woken.countDown();
+        });
+        worker.start();
+        waiting.await();
+        Thread.sleep(20);
+
+        signal.signal();
+
+        assertThat(woken.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(result.get(), is(true));
+        worker.join();
+    }
+}